@@ -0,0 +1,116 @@
+package org.example.bench;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.IOUtils;
+import org.example.analysis.AnalysisRegistry;
+import org.example.config.AnalysisComponentConfig;
+import org.example.config.AnalyzerConfig;
+import org.example.config.SynonymsConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures analysis throughput of a standard chain, an English chain with stop words and
+ * stemming, and the English chain with a 10,000 rule synonym graph, each as index and as
+ * search variant.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=AnalysisBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnalysisBenchmark {
+    private static final int RULES = 10_000;
+    private static final int TEXTS = 1_000;
+
+    @Param({"standard", "english", "synonyms"})
+    public String chain;
+
+    @Param({"index", "search"})
+    public String variant;
+
+    private Path dir;
+    private AnalysisRegistry registry;
+    private Analyzer analyzer;
+    private String[] texts;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("analysis-bench");
+        var random = new SplittableRandom(42);
+        List<String> rules = new ArrayList<>(RULES);
+        for (int i = 0; i < RULES; i++) {
+            rules.add("term" + i + ", alias" + i + ", other" + i + " words");
+        }
+        Path file = Files.write(dir.resolve("synonyms.txt"), rules);
+        var synonyms = new SynonymsConfig();
+        synonyms.setName("generated");
+        synonyms.setPath(file.toString());
+
+        var synonymFilter = component("synonymGraph");
+        synonymFilter.setSynonyms("generated");
+        registry = new AnalysisRegistry(List.of(synonyms), List.of(
+                analyzer("standard", component("lowercase")),
+                analyzer("english", component("lowercase"), component("stop"), component("porterStem")),
+                analyzer("synonyms", component("lowercase"), synonymFilter, component("stop"), component("porterStem"))));
+        analyzer = "index".equals(variant) ? registry.indexAnalyzer(chain) : registry.searchAnalyzer(chain);
+
+        // a sentence of 20 words, of which every fifth is a synonym term
+        String[] words = {"The", "Running", "service", "timeouts", "and", "retries", "were", "logged"};
+        texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            var text = new StringBuilder();
+            for (int w = 0; w < 20; w++) {
+                text.append(w % 5 == 0 ? "term" + random.nextInt(RULES) : words[random.nextInt(words.length)]).append(' ');
+            }
+            texts[i] = text.toString();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        registry.close();
+        IOUtils.rm(dir);
+    }
+
+    @Benchmark
+    public int analyze(Blackhole blackhole) throws IOException {
+        String text = texts[next++ % TEXTS];
+        int tokens = 0;
+        try (TokenStream stream = analyzer.tokenStream("message", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                blackhole.consume(term);
+                tokens++;
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    private static AnalyzerConfig analyzer(String name, AnalysisComponentConfig... filters) {
+        var analyzer = new AnalyzerConfig();
+        analyzer.setName(name);
+        analyzer.setTokenizer(component("standard"));
+        analyzer.setFilters(List.of(filters));
+        return analyzer;
+    }
+
+    private static AnalysisComponentConfig component(String type) {
+        var component = new AnalysisComponentConfig();
+        component.setType(type);
+        return component;
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.bench;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.IOUtils;
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.config.StoredFieldsCompression;
+import org.example.index.ManagedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the stored-field compression modes on the same generated log dataset.
+ *
+ * <p>Setup indexes and commits the dataset and prints the indexing rate and the index
+ * size of the mode. The benchmark then measures fetching all stored fields of 20
+ * random documents, as a page of hits would.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=CompressionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark {
+    private static final int PAGE = 20;
+
+    @Param({"500000"})
+    public int docs;
+
+    @Param({"BEST_SPEED", "BEST_COMPRESSION"})
+    public StoredFieldsCompression compression;
+
+    private Path dir;
+    private ManagedIndex index;
+    private IndexSearcher searcher;
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("compression-bench");
+        var config = new IndexConfig();
+        config.setName("events");
+        config.setFields(List.of(field("message", FieldType.TEXT), field("service", FieldType.KEYWORD),
+                field("host", FieldType.KEYWORD), field("timestamp", FieldType.LONG),
+                field("latency", FieldType.DOUBLE)));
+        config.setStoredFieldsCompression(compression);
+        index = new ManagedIndex(config, dir, null);
+
+        var data = new SplittableRandom(42);
+        String[] templates = {
+                "GET /api/v1/orders/%d completed with status 200 in %d ms",
+                "Connection to db-%d timed out after %d ms, retrying",
+                "User %d logged in from 10.0.%d.12",
+                "Cache miss for key session:%d, loading from store took %d ms"};
+        long start = System.nanoTime();
+        for (int i = 0; i < docs; i++) {
+            String message = String.format(templates[data.nextInt(templates.length)],
+                    data.nextInt(100_000), data.nextInt(1_000));
+            index.index(index.getMapper().toDocument(Map.of(
+                    "_id", Integer.toString(i),
+                    "message", message,
+                    "service", "service-" + data.nextInt(20),
+                    "host", "host-" + data.nextInt(200),
+                    "timestamp", 1_700_000_000_000L + i,
+                    "latency", data.nextDouble(1_000))));
+        }
+        index.commit();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        index.refresh();
+        System.out.printf("%n%s: indexed %d docs at %.0f docs/s, index size %.1f MB%n",
+                compression, docs, docs / seconds, size(dir) / 1e6);
+        searcher = index.acquire();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.release(searcher);
+        index.close();
+        IOUtils.rm(dir);
+    }
+
+    @Benchmark
+    public List<Document> fetchPage() throws IOException {
+        int[] page = new int[PAGE];
+        for (int i = 0; i < PAGE; i++) {
+            page[i] = random.nextInt(docs);
+        }
+        return index.documents(searcher, page, null);
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static FieldConfig field(String name, FieldType type) {
+        var field = new FieldConfig();
+        field.setName(name);
+        field.setType(type);
+        return field;
+    }
+}
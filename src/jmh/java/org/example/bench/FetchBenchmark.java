@@ -0,0 +1,112 @@
+package org.example.bench;
+
+import org.apache.lucene.util.IOUtils;
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.index.ManagedIndex;
+import org.example.search.SearchRequest;
+import org.example.search.SearchResponse;
+import org.example.search.SearchService;
+import org.example.utils.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading the top 100 hits with all stored fields against loading only a keyword
+ * or only numeric fields, with and without the document cache. Documents carry a ~2 KB
+ * text field, and queries cycle over 50 services so that hot documents repeat.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=FetchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FetchBenchmark {
+    private static final int SERVICES = 50;
+
+    @Param({"200000"})
+    public int docs;
+
+    @Param({"all", "keyword", "numeric"})
+    public String fields;
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private Path dir;
+    private ManagedIndex index;
+    private SearchService searchService;
+    private SearchRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("fetch-bench");
+        var config = new IndexConfig();
+        config.setName("events");
+        config.setFields(List.of(field("message", FieldType.TEXT), field("service", FieldType.KEYWORD),
+                field("timestamp", FieldType.LONG), field("latency", FieldType.DOUBLE)));
+        config.setDocumentCacheSize(cacheSize);
+        index = new ManagedIndex(config, dir, null);
+
+        var random = new SplittableRandom(42);
+        String[] words = {"error", "warn", "info", "debug", "timeout", "retry", "connection", "request"};
+        for (int i = 0; i < docs; i++) {
+            var message = new StringBuilder();
+            while (message.length() < 2_000) {
+                message.append(words[random.nextInt(words.length)]).append(' ').append(random.nextInt()).append(' ');
+            }
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", message.toString(),
+                    "service", "s" + random.nextInt(SERVICES),
+                    "timestamp", 1_700_000_000_000L + i,
+                    "latency", random.nextDouble(1_000))));
+        }
+        index.commit();
+        index.refresh();
+
+        searchService = new SearchService();
+        String projection = switch (fields) {
+            case "keyword" -> ",\"fields\":[\"service\"]";
+            case "numeric" -> ",\"fields\":[\"timestamp\",\"latency\"]";
+            default -> "";
+        };
+        requests = new SearchRequest[SERVICES];
+        for (int s = 0; s < SERVICES; s++) {
+            String body = "{\"query\":\"service:s" + s + "\",\"size\":100,"
+                    + "\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}]" + projection + "}";
+            try (var parser = JsonUtil.parser(body)) {
+                requests[s] = SearchRequest.parse(parser);
+            }
+            if (searchService.search(index, requests[s]).getHits().size() != 100) {
+                throw new IllegalStateException("Expected 100 hits for service " + s);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        IOUtils.rm(dir);
+    }
+
+    @Benchmark
+    public SearchResponse topHundred() throws IOException {
+        return searchService.search(index, requests[next++ % SERVICES]);
+    }
+
+    private static FieldConfig field(String name, FieldType type) {
+        var field = new FieldConfig();
+        field.setName(name);
+        field.setType(type);
+        return field;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.bench;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.example.config.AllocatorType;
+import org.example.config.NettyConfig;
+import org.example.http.HttpServer;
+import org.example.router.RouterBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures HTTP round trips of an echo route over a keep-alive connection for each
+ * buffer allocator, with direct and heap buffers and with small and large bodies. The
+ * request body is aggregated, copied into the response and encoded on one worker loop,
+ * so the allocator serves every step of a request.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=HttpServerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 2)
+@Measurement(time = 3)
+public class HttpServerBenchmark {
+
+    @Param({"pooled", "adaptive", "unpooled"})
+    public String allocator;
+
+    @Param({"true", "false"})
+    public boolean preferDirect;
+
+    @Param({"1024", "65536"})
+    public int bodyBytes;
+
+    private EventLoopGroup boss;
+    private EventLoopGroup worker;
+    private HttpServer server;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        var config = new NettyConfig();
+        config.setAllocator(AllocatorType.valueOf(allocator.toUpperCase(Locale.ROOT)));
+        config.setPreferDirect(preferDirect);
+        boss = new NioEventLoopGroup(1);
+        worker = new NioEventLoopGroup(1);
+        int port = freePort();
+        server = new HttpServer(boss, worker)
+                .withConfig(config)
+                .withPort(port)
+                .withRouter(new RouterBuilder()
+                        .post("/echo", ctx -> ctx.bytes(HttpResponseStatus.OK, ctx.alloc().buffer(bodyBytes)
+                                .writeBytes(ctx.getRequest().content())))
+                        .build())
+                .start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        byte[] body = new byte[bodyBytes];
+        Arrays.fill(body, (byte) 'x');
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/echo"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.stop();
+        boss.shutdownGracefully();
+        worker.shutdownGracefully();
+    }
+
+    @Benchmark
+    public int echo() throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress("localhost", 0));
+            return socket.getLocalPort();
+        }
+    }
+}
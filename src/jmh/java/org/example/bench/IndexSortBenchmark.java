@@ -0,0 +1,98 @@
+package org.example.bench;
+
+import org.apache.lucene.util.IOUtils;
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.config.IndexSortConfig;
+import org.example.config.SortOrder;
+import org.example.index.ManagedIndex;
+import org.example.search.SearchRequest;
+import org.example.search.SearchResponse;
+import org.example.search.SearchService;
+import org.example.utils.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares "latest 20 by timestamp" searches on an unsorted index against an index
+ * sorted by {@code timestamp desc}, where collection terminates early per segment.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=IndexSortBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndexSortBenchmark {
+
+    @Param({"500000"})
+    public int docs;
+
+    @Param({"false", "true"})
+    public boolean indexSorted;
+
+    @Param({"1000", "true"})
+    public String trackTotalHits;
+
+    private Path dir;
+    private ManagedIndex index;
+    private SearchService searchService;
+    private SearchRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("index-sort-bench");
+        var config = new IndexConfig();
+        config.setName("events");
+        config.setFields(List.of(field("message", FieldType.TEXT), field("timestamp", FieldType.LONG)));
+        if (indexSorted) {
+            var sort = new IndexSortConfig();
+            sort.setField("timestamp");
+            sort.setOrder(SortOrder.DESC);
+            config.setIndexSort(sort);
+        }
+        index = new ManagedIndex(config, dir, null);
+
+        var random = new SplittableRandom(42);
+        String[] words = {"error", "warn", "info", "debug", "timeout", "retry"};
+        for (int i = 0; i < docs; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    "timestamp", 1_700_000_000_000L + random.nextLong(86_400_000L * 30))));
+        }
+        index.commit();
+        index.refresh();
+
+        searchService = new SearchService();
+        String body = "{\"size\":20,\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}],"
+                + "\"track_total_hits\":" + trackTotalHits + "}";
+        try (var parser = JsonUtil.parser(body)) {
+            request = SearchRequest.parse(parser);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        IOUtils.rm(dir);
+    }
+
+    @Benchmark
+    public SearchResponse latestTwenty() throws IOException {
+        return searchService.search(index, request);
+    }
+
+    private static FieldConfig field(String name, FieldType type) {
+        var field = new FieldConfig();
+        field.setName(name);
+        field.setType(type);
+        return field;
+    }
+}
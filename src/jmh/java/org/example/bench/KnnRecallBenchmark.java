@@ -0,0 +1,165 @@
+package org.example.bench;
+
+import org.apache.lucene.util.IOUtils;
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.config.VectorFormat;
+import org.example.config.VectorSimilarity;
+import org.example.index.ManagedIndex;
+import org.example.search.KnnRequest;
+import org.example.search.SearchResponse;
+import org.example.search.SearchService;
+import org.example.utils.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures kNN latency per vector format and candidate count on a generated dataset of
+ * clustered vectors. Recall@10 against brute-force ground truth is computed once per
+ * trial and printed next to the latency results.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=KnnRecallBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KnnRecallBenchmark {
+    private static final int K = 10;
+    private static final int QUERIES = 100;
+    private static final int CLUSTERS = 64;
+
+    @Param({"50000"})
+    public int docs;
+
+    @Param({"128"})
+    public int dimensions;
+
+    @Param({"HNSW", "INT8_HNSW", "INT4_HNSW", "BBQ_HNSW"})
+    public VectorFormat format;
+
+    @Param({"20", "100"})
+    public int numCandidates;
+
+    private Path dir;
+    private ManagedIndex index;
+    private SearchService searchService;
+    private KnnRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("knn-bench");
+        var embedding = new FieldConfig();
+        embedding.setName("embedding");
+        embedding.setType(FieldType.VECTOR);
+        embedding.setDimensions(dimensions);
+        embedding.setSimilarity(VectorSimilarity.EUCLIDEAN);
+        embedding.setVectorFormat(format);
+        var config = new IndexConfig();
+        config.setName("vectors");
+        config.setFields(List.of(embedding));
+        index = new ManagedIndex(config, dir, null);
+
+        var random = new SplittableRandom(42);
+        float[][] centroids = new float[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) {
+            centroids[c] = gaussian(random, null, 1f);
+        }
+        float[][] vectors = new float[docs][];
+        for (int i = 0; i < docs; i++) {
+            vectors[i] = gaussian(random, centroids[random.nextInt(CLUSTERS)], 0.3f);
+            index.index(index.getMapper().toDocument(Map.of(
+                    "_id", Integer.toString(i), "embedding", toList(vectors[i]))));
+        }
+        index.commit();
+        index.refresh();
+
+        searchService = new SearchService();
+        requests = new KnnRequest[QUERIES];
+        double recall = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = gaussian(random, centroids[random.nextInt(CLUSTERS)], 0.3f);
+            String body = "{\"field\":\"embedding\",\"k\":" + K + ",\"num_candidates\":" + numCandidates
+                    + ",\"vector\":" + toList(query) + "}";
+            try (var parser = JsonUtil.parser(body)) {
+                requests[q] = KnnRequest.parse(parser);
+            }
+            Set<String> expected = exactNearest(vectors, query);
+            SearchResponse response = searchService.knn(index, requests[q]);
+            recall += response.getHits().stream().filter(hit -> expected.contains(hit.source().get("_id"))).count()
+                    / (double) K;
+        }
+        System.out.printf("%n%s numCandidates=%d recall@%d=%.3f%n", format, numCandidates, K, recall / QUERIES);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        IOUtils.rm(dir);
+    }
+
+    @Benchmark
+    public SearchResponse knn() throws IOException {
+        KnnRequest request = requests[next];
+        next = (next + 1) % requests.length;
+        return searchService.knn(index, request);
+    }
+
+    private float[] gaussian(SplittableRandom random, float[] center, float scale) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            // Box-Muller transform
+            double g = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+            vector[d] = (center == null ? 0 : center[d]) + (float) g * scale;
+        }
+        return vector;
+    }
+
+    private static Set<String> exactNearest(float[][] vectors, float[] query) {
+        int[] best = new int[K];
+        double[] distances = new double[K];
+        Arrays.fill(distances, Double.MAX_VALUE);
+        for (int i = 0; i < vectors.length; i++) {
+            double distance = 0;
+            for (int d = 0; d < query.length; d++) {
+                double diff = vectors[i][d] - query[d];
+                distance += diff * diff;
+            }
+            if (distance < distances[K - 1]) {
+                int slot = K - 1;
+                while (slot > 0 && distances[slot - 1] > distance) {
+                    distances[slot] = distances[slot - 1];
+                    best[slot] = best[slot - 1];
+                    slot--;
+                }
+                distances[slot] = distance;
+                best[slot] = i;
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        for (int id : best) {
+            ids.add(Integer.toString(id));
+        }
+        return ids;
+    }
+
+    private static List<Double> toList(float[] vector) {
+        List<Double> list = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            list.add((double) value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.bench;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.example.metrics.AllocatorMetrics;
+import org.example.metrics.EventLoopMetrics;
+import org.example.metrics.HttpMetrics;
+import org.example.metrics.JvmMetrics;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.ResourceUsage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording a request: the two {@link System#nanoTime()} calls
+ * every recording needs, then a histogram update and a full {@link HttpMetrics} update,
+ * on one thread and on four threads recording into the same route, the cost of metering
+ * a stretch of request work for its CPU time and allocations and of recording them, and
+ * the cost of a scrape of the HTTP, event loop, allocator and JVM metrics.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=MetricsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final HttpMetrics metrics = new HttpMetrics();
+    private EventLoopGroup loops;
+    private JvmMetrics jvm;
+    private MetricsRegistry registry;
+
+    @Setup
+    public void setUp() {
+        loops = new NioEventLoopGroup(4);
+        jvm = new JvmMetrics();
+        for (int i = 0; i < 20; i++) {
+            metrics.record("POST /route" + i, 200, 1_000_000L * i);
+        }
+        registry = new MetricsRegistry()
+                .register(metrics)
+                .register(new EventLoopMetrics(100).register("worker", loops))
+                .register(new AllocatorMetrics(ByteBufAllocator.DEFAULT))
+                .register(jvm);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jvm.close();
+        loops.shutdownGracefully();
+    }
+
+    @Benchmark
+    public long nanoTime() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    public void histogram() {
+        long start = System.nanoTime();
+        histogram.record(System.nanoTime() - start);
+    }
+
+    @Benchmark
+    public void httpMetrics() {
+        long start = System.nanoTime();
+        metrics.record("POST /_search", 200, System.nanoTime() - start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void histogramContended() {
+        long start = System.nanoTime();
+        histogram.record(System.nanoTime() - start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void httpMetricsContended() {
+        long start = System.nanoTime();
+        metrics.record("POST /_search", 200, System.nanoTime() - start);
+    }
+
+    @Benchmark
+    public void resourceUsage() {
+        var usage = new ResourceUsage();
+        usage.run(() -> { });
+        metrics.recordUsage("POST /_search", "events", usage.cpuNanos(), usage.allocatedBytes());
+    }
+
+    @Benchmark
+    public String scrape() {
+        return registry.scrape();
+    }
+}
@@ -2,13 +2,43 @@ package org.example;
 
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jdk.jfr.Recording;
 import org.example.config.AppConfig;
+import org.example.config.Server;
 import org.example.http.HttpServer;
+import org.example.index.BackupService;
+import org.example.config.ReplicationConfig;
+import org.example.config.ReplicationRole;
+import org.example.index.IndexMetrics;
+import org.example.index.IndexRegistry;
+import org.example.index.ReplicationSource;
+import org.example.index.Replicator;
+import org.example.jfr.FlightRecording;
+import org.example.metrics.AllocatorMetrics;
+import org.example.metrics.EventLoopMetrics;
+import org.example.metrics.HttpMetrics;
+import org.example.metrics.JvmMetrics;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.ResourceUsage;
+import org.example.router.AdmissionControl;
 import org.example.routes.AppRouter;
 import org.example.routes.MetricsRouter;
+import org.example.search.SearchGuard;
+import org.example.search.SearchMetrics;
+import org.example.search.SearchService;
+import org.example.search.SlowLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class App {
     private static final Logger logger = LoggerFactory.getLogger(App.class);
 
@@ -16,24 +46,111 @@ public class App {
         try{
             AppConfig config = new AppConfig();
 
-            EventLoopGroup bossGroup = new NioEventLoopGroup();
-            EventLoopGroup workerGroup = new NioEventLoopGroup();
+            Server server = config.getServer();
+            // started before the indices open, so that their startup merges are recorded too
+            Recording recording = server.getJfr().isEnabled() ? FlightRecording.start(server.getJfr()) : null;
+            EventLoopGroup bossGroup = new NioEventLoopGroup(server.getBossThreads(),
+                    new DefaultThreadFactory("app-boss"));
+            EventLoopGroup workerGroup = new NioEventLoopGroup(server.getWorkerThreads(),
+                    new DefaultThreadFactory("app-worker"));
+            // the metrics port gets its own loops so that health checks and scrapes do not
+            // queue behind application traffic
+            EventLoopGroup metricGroup = new NioEventLoopGroup(server.getMetricThreads(),
+                    new DefaultThreadFactory("metrics"));
+
+            var lucene = config.getLucene();
+            int searchThreads = lucene.getSearchThreads() != null
+                    ? lucene.getSearchThreads()
+                    : Runtime.getRuntime().availableProcessors();
+            ExecutorService searchExecutor = Executors.newFixedThreadPool(
+                    searchThreads, new DefaultThreadFactory("lucene-search"));
+            // facet counting blocks on per-segment tasks, so it gets its own pool; when that
+            // pool is busy the searching thread counts the segment itself instead of waiting
+            ExecutorService facetExecutor = new ThreadPoolExecutor(
+                    0, searchThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    new DefaultThreadFactory("lucene-facets"), new ThreadPoolExecutor.CallerRunsPolicy());
+            // meters the search threads, and the segment tasks they fork, for the requests they serve
+            Executor meteredSearchExecutor = ResourceUsage.propagating(searchExecutor);
+            IndexRegistry indices = new IndexRegistry(lucene, meteredSearchExecutor);
+            HttpMetrics httpMetrics = new HttpMetrics();
+            SearchMetrics searchMetrics = new SearchMetrics();
+            SearchService searchService = new SearchService(facetExecutor, new SearchGuard(lucene.getSearchLimits()),
+                    searchMetrics, new SlowLog(lucene.getSlowLog()));
+            BackupService backups = lucene.getBackupStore() != null ? new BackupService(lucene) : null;
+            ReplicationConfig replication = lucene.getReplication();
+            ReplicationRole role = replication == null ? null : replication.getRole();
+            ReplicationSource replicationSource = role == ReplicationRole.PRIMARY ? new ReplicationSource(indices) : null;
+            Replicator replicator = role == ReplicationRole.REPLICA ? new Replicator(indices, replication) : null;
 
+            AdmissionControl admission = server.getAdmission().isEnabled()
+                    ? new AdmissionControl(server.getAdmission())
+                    : null;
+            MetricsRegistry metrics = new MetricsRegistry().register(httpMetrics).register(searchMetrics)
+                    .register(new IndexMetrics(indices));
+            if (admission != null) {
+                metrics.register(admission);
+            }
+            metrics.register(new EventLoopMetrics(server.getEventLoopProbeIntervalMillis())
+                            .register("boss", bossGroup)
+                            .register("worker", workerGroup)
+                            .register("metrics", metricGroup))
+                    .register(new JvmMetrics());
+            AtomicBoolean ready = new AtomicBoolean();
             var appServer = new HttpServer(bossGroup, workerGroup)
-                    .withPort(config.getServer().getAppPort())
-                    .withRouter(new AppRouter())
+                    .withConfig(server.getNetty())
+                    .withPort(server.getAppPort())
+                    .withRouter(new AppRouter(indices, searchService, backups, meteredSearchExecutor, server,
+                            admission, httpMetrics))
                     .start();
+            metrics.register(new AllocatorMetrics(appServer.allocator()));
 
-            var metricRouter = new HttpServer(workerGroup, bossGroup)
-                    .withPort(config.getServer().getMetricPort())
-                    .withRouter(new MetricsRouter())
+            var metricRouter = new HttpServer(metricGroup)
+                    .withPort(server.getMetricPort())
+                    .withRouter(new MetricsRouter(replicationSource, ready::get, metrics))
                     .start();
+            if (replicator != null) {
+                replicator.start();
+            }
+            // warm up while /health reports not-ready, instead of delaying startup; warming is
+            // best effort, so the node becomes ready once every index was attempted
+            searchExecutor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    int failed = indices.warmUp();
+                    logger.info("Warmed up searchers in {} ms, {} failures",
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed);
+                } finally {
+                    ready.set(true);
+                }
+            });
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 appServer.stop();
                 metricRouter.stop();
                 bossGroup.shutdownGracefully();
                 workerGroup.shutdownGracefully();
+                metricGroup.shutdownGracefully();
+                searchExecutor.shutdown();
+                facetExecutor.shutdown();
+                if (backups != null) {
+                    backups.close();
+                }
+                if (replicationSource != null) {
+                    replicationSource.close();
+                }
+                if (replicator != null) {
+                    replicator.close();
+                }
+                try {
+                    indices.close();
+                } catch (Exception e) {
+                    logger.error("Failed to close indices", e);
+                }
+                if (recording != null) {
+                    // writes the recording to its destination, if it has one
+                    recording.stop();
+                    recording.close();
+                }
             }));
 
             appServer.blockUntilClosed();
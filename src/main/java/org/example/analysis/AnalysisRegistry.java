@@ -0,0 +1,226 @@
+package org.example.analysis;
+
+import org.apache.lucene.analysis.AbstractAnalysisFactory;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilterFactory;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.TokenizerFactory;
+import org.apache.lucene.analysis.core.FlattenGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.analysis.util.FilesystemResourceLoader;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.ResourceLoader;
+import org.apache.lucene.util.ResourceLoaderAware;
+import org.example.config.AnalysisComponentConfig;
+import org.example.config.AnalyzerConfig;
+import org.example.config.SynonymsConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Builds the configured analyzers and synonym sets and shares them between indices.
+ *
+ * <p>Each analyzer exists in two variants. The index variant applies the synonyms that
+ * were current when it was built, since changing them under an open writer would index
+ * documents inconsistently, and flattens synonym graphs as indexing requires. The search
+ * variant follows {@link #reloadSynonyms()}, so query-time synonyms can be changed
+ * without reopening writers.
+ *
+ * <p>A {@code synonymGraph} filter with a {@code synonyms} set name applies that shared
+ * set; without one it is built by Lucene's own factory from its parameters.
+ */
+public final class AnalysisRegistry implements Closeable {
+    /** A registry without synonym sets or analyzers. */
+    public static final AnalysisRegistry EMPTY = new AnalysisRegistry();
+
+    private static final String SYNONYM_GRAPH = "synonymGraph";
+
+    private final Map<String, SynonymSet> synonyms;
+    private final Map<String, Analyzer> indexAnalyzers;
+    private final Map<String, Analyzer> searchAnalyzers;
+
+    private AnalysisRegistry() {
+        this.synonyms = Map.of();
+        this.indexAnalyzers = Map.of();
+        this.searchAnalyzers = Map.of();
+    }
+
+    /**
+     * Compiles the synonym sets and builds the analyzers.
+     *
+     * @param synonyms  the synonym sets
+     * @param analyzers the analyzers; relative resource paths in their parameters are resolved
+     *                  against the working directory
+     * @throws IOException if a synonym or resource file cannot be read
+     * @throws IllegalArgumentException if a component or set is unknown, misconfigured or defined twice
+     */
+    public AnalysisRegistry(List<SynonymsConfig> synonyms, List<AnalyzerConfig> analyzers) throws IOException {
+        Map<String, SynonymSet> sets = new LinkedHashMap<>();
+        for (SynonymsConfig config : synonyms) {
+            if (sets.put(config.getName(), new SynonymSet(config)) != null) {
+                throw new IllegalArgumentException("Duplicate synonyms '" + config.getName() + "'");
+            }
+        }
+        this.synonyms = Map.copyOf(sets);
+        var loader = new FilesystemResourceLoader(Path.of(""), AnalysisRegistry.class.getClassLoader());
+        Map<String, Analyzer> index = new HashMap<>();
+        Map<String, Analyzer> search = new HashMap<>();
+        try {
+            for (AnalyzerConfig config : analyzers) {
+                if (index.containsKey(config.getName())) {
+                    throw new IllegalArgumentException("Duplicate analyzer '" + config.getName() + "'");
+                }
+                build(config, loader, index, search);
+            }
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeWhileHandlingException(index.values());
+            IOUtils.closeWhileHandlingException(search.values());
+            throw e;
+        }
+        this.indexAnalyzers = Map.copyOf(index);
+        this.searchAnalyzers = Map.copyOf(search);
+    }
+
+    /**
+     * Returns the variant of an analyzer to index documents with.
+     *
+     * @param name the analyzer name
+     * @return the analyzer
+     * @throws IllegalArgumentException if no analyzer with that name is configured
+     */
+    public Analyzer indexAnalyzer(String name) {
+        return lookup(indexAnalyzers, "analyzer", name);
+    }
+
+    /**
+     * Returns the variant of an analyzer to analyze queries with, which follows synonym reloads.
+     *
+     * @param name the analyzer name
+     * @return the analyzer
+     * @throws IllegalArgumentException if no analyzer with that name is configured
+     */
+    public Analyzer searchAnalyzer(String name) {
+        return lookup(searchAnalyzers, "analyzer", name);
+    }
+
+    /**
+     * Compiles every synonym set from its file again. Queries analyzed afterwards use the
+     * new synonyms; indexing keeps the synonyms it started with.
+     *
+     * @return the names of the reloaded sets
+     * @throws IOException if a synonym file cannot be read
+     * @throws IllegalArgumentException if a synonym file is invalid; sets reloaded before it keep their new rules
+     */
+    public List<String> reloadSynonyms() throws IOException {
+        for (SynonymSet set : synonyms.values()) {
+            set.reload();
+        }
+        return List.copyOf(synonyms.keySet());
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(indexAnalyzers.values());
+        IOUtils.close(searchAnalyzers.values());
+    }
+
+    private void build(AnalyzerConfig config, ResourceLoader loader,
+                       Map<String, Analyzer> index, Map<String, Analyzer> search) throws IOException {
+        TokenizerFactory tokenizer = TokenizerFactory.forName(config.getTokenizer().getType(), params(config.getTokenizer()));
+        inform(tokenizer, loader);
+        List<TokenFilterFactory> indexFilters = new ArrayList<>();
+        List<TokenFilterFactory> searchFilters = new ArrayList<>();
+        List<SynonymSet> sets = new ArrayList<>();
+        for (AnalysisComponentConfig filter : config.getFilters()) {
+            if (filter.getSynonyms() != null) {
+                if (!SYNONYM_GRAPH.equalsIgnoreCase(filter.getType())) {
+                    throw new IllegalArgumentException("Synonym sets apply to '" + SYNONYM_GRAPH + "' filters, not '"
+                            + filter.getType() + "'");
+                }
+                SynonymSet set = lookup(synonyms, "synonyms", filter.getSynonyms());
+                sets.add(set);
+                indexFilters.add(new SharedSynonymFilterFactory(set, set.map()));
+                searchFilters.add(new SharedSynonymFilterFactory(set, null));
+            } else {
+                TokenFilterFactory factory = TokenFilterFactory.forName(filter.getType(), params(filter));
+                inform(factory, loader);
+                indexFilters.add(factory);
+                searchFilters.add(factory);
+            }
+        }
+        if (!sets.isEmpty()) {
+            indexFilters.add(new FlattenGraphFilterFactory());
+        }
+        LongSupplier generation = sets.isEmpty() ? null : () -> {
+            long sum = 0;
+            for (SynonymSet set : sets) {
+                sum += set.generation();
+            }
+            return sum;
+        };
+        index.put(config.getName(), new ConfiguredAnalyzer(tokenizer, indexFilters, null));
+        search.put(config.getName(), new ConfiguredAnalyzer(tokenizer, searchFilters, generation));
+    }
+
+    private static Map<String, String> params(AnalysisComponentConfig component) {
+        // factories consume the arguments they know and reject the rest, so the map must be mutable
+        Map<String, String> params = new HashMap<>();
+        component.getParams().forEach((key, value) -> params.put(key, String.valueOf(value)));
+        return params;
+    }
+
+    private static void inform(AbstractAnalysisFactory factory, ResourceLoader loader) throws IOException {
+        if (factory instanceof ResourceLoaderAware aware) {
+            aware.inform(loader);
+        }
+    }
+
+    private static <T> T lookup(Map<String, T> map, String kind, String name) {
+        T value = name == null ? null : map.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown " + kind + " '" + name + "'");
+        }
+        return value;
+    }
+
+    /**
+     * Applies a shared synonym set, either as it was when built or as currently loaded.
+     */
+    private static final class SharedSynonymFilterFactory extends TokenFilterFactory {
+        private final SynonymSet set;
+        private final SynonymMap fixed;
+
+        SharedSynonymFilterFactory(SynonymSet set, SynonymMap fixed) {
+            super(new HashMap<>());
+            this.set = set;
+            this.fixed = fixed;
+        }
+
+        @Override
+        public TokenStream create(TokenStream input) {
+            SynonymMap map = fixed != null ? fixed : set.map();
+            // an empty set has no FST, and the filter rejects it
+            return map.fst == null ? input : new SynonymGraphFilter(input, map, set.ignoreCase());
+        }
+    }
+
+    private static final class FlattenGraphFilterFactory extends TokenFilterFactory {
+        FlattenGraphFilterFactory() {
+            super(new HashMap<>());
+        }
+
+        @Override
+        public TokenStream create(TokenStream input) {
+            return new FlattenGraphFilter(input);
+        }
+    }
+}
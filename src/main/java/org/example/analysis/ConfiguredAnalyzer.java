@@ -0,0 +1,85 @@
+package org.example.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilterFactory;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.TokenizerFactory;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * An analyzer assembled from a tokenizer factory and a chain of token filter factories.
+ *
+ * <p>Components are reused per thread. An analyzer whose filters read reloadable synonym
+ * sets is given the sets' combined generation; after a reload each thread builds its
+ * components once more, picking up the new synonyms.
+ */
+final class ConfiguredAnalyzer extends Analyzer {
+    private final TokenizerFactory tokenizer;
+    private final List<TokenFilterFactory> filters;
+
+    /**
+     * @param tokenizer  creates the tokenizer
+     * @param filters    create the token filters, in order
+     * @param generation the generation of the synonyms the filters read, or {@code null} if they never change
+     */
+    ConfiguredAnalyzer(TokenizerFactory tokenizer, List<TokenFilterFactory> filters, LongSupplier generation) {
+        super(generation == null ? GLOBAL_REUSE_STRATEGY : new ReloadingReuseStrategy(generation));
+        this.tokenizer = tokenizer;
+        this.filters = List.copyOf(filters);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = tokenizer.create(attributeFactory(fieldName));
+        TokenStream stream = source;
+        for (TokenFilterFactory filter : filters) {
+            stream = filter.create(stream);
+        }
+        return new TokenStreamComponents(source, stream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        TokenStream stream = in;
+        for (TokenFilterFactory filter : filters) {
+            stream = filter.normalize(stream);
+        }
+        return stream;
+    }
+
+    /**
+     * Reuses the components of a thread only while the generation they were built at is current.
+     */
+    private static final class ReloadingReuseStrategy extends ReuseStrategy {
+        private final LongSupplier generation;
+
+        private record Reusable(long generation, TokenStreamComponents components) {
+        }
+
+        ReloadingReuseStrategy(LongSupplier generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public TokenStreamComponents getReusableComponents(Analyzer analyzer, String fieldName) {
+            var reusable = (Reusable) getStoredValue(analyzer);
+            long current = generation.getAsLong();
+            if (reusable != null && reusable.generation() == current) {
+                return reusable.components();
+            }
+            // remember the generation seen before the components are built: a reload racing
+            // with the build then leaves them outdated instead of marking them current
+            setStoredValue(analyzer, new Reusable(current, null));
+            return null;
+        }
+
+        @Override
+        public void setReusableComponents(Analyzer analyzer, String fieldName, TokenStreamComponents components) {
+            var reusable = (Reusable) getStoredValue(analyzer);
+            setStoredValue(analyzer, new Reusable(reusable.generation(), components));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.synonym.SolrSynonymParser;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.analysis.synonym.WordnetSynonymParser;
+import org.example.config.SynonymFormat;
+import org.example.config.SynonymsConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * A synonym file compiled into an FST-backed {@link SynonymMap}.
+ *
+ * <p>The map is compiled once and shared by all analyzers referring to the set. A
+ * {@link #reload()} compiles the file again and swaps the map in atomically; analyzers
+ * pick it up through {@link #generation()}.
+ */
+public final class SynonymSet {
+    private final String name;
+    private final Path path;
+    private final SynonymFormat format;
+    private final boolean expand;
+    private final boolean ignoreCase;
+    private volatile SynonymMap map;
+    private volatile long generation;
+
+    SynonymSet(SynonymsConfig config) throws IOException {
+        this.name = config.getName();
+        this.path = Path.of(config.getPath());
+        this.format = config.getFormat();
+        this.expand = config.isExpand();
+        this.ignoreCase = config.isIgnoreCase();
+        this.map = compile();
+    }
+
+    /**
+     * Compiles the synonym file again and replaces the current map. Analyzers keep using
+     * the previous map if the file is invalid.
+     *
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not valid in the configured format
+     */
+    public synchronized void reload() throws IOException {
+        map = compile();
+        generation++;
+    }
+
+    SynonymMap map() {
+        return map;
+    }
+
+    boolean ignoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Returns how often the set was reloaded.
+     *
+     * @return a number that changes with every reload
+     */
+    long generation() {
+        return generation;
+    }
+
+    private SynonymMap compile() throws IOException {
+        // rules are split on whitespace, and lowercased to match after a lowercase filter
+        try (Analyzer rules = new Analyzer() {
+                @Override
+                protected TokenStreamComponents createComponents(String fieldName) {
+                    Tokenizer tokenizer = new WhitespaceTokenizer();
+                    TokenStream stream = ignoreCase ? new LowerCaseFilter(tokenizer) : tokenizer;
+                    return new TokenStreamComponents(tokenizer, stream);
+                }
+            };
+             Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            SynonymMap.Parser parser = format == SynonymFormat.WORDNET
+                    ? new WordnetSynonymParser(true, expand, rules)
+                    : new SolrSynonymParser(true, expand, rules);
+            parser.parse(reader);
+            return parser.build();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid synonyms '" + name + "' at line " + e.getErrorOffset()
+                    + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.config;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Admission control of the application port.
+ *
+ * <p>Search, ingest and admin routes each get their own adaptive concurrency limit, so
+ * a flood of one kind of request cannot starve the others. Requests over the limit are
+ * answered with {@code 429 Too Many Requests} before any work is done for them.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class AdmissionConfig {
+    private boolean enabled = true;
+    @NonNull
+    private ConcurrencyLimitConfig search = new ConcurrencyLimitConfig(64, 8, 1024);
+    @NonNull
+    private ConcurrencyLimitConfig ingest = new ConcurrencyLimitConfig(32, 4, 256);
+    @NonNull
+    private ConcurrencyLimitConfig admin = new ConcurrencyLimitConfig(4, 1, 16);
+}
@@ -0,0 +1,13 @@
+package org.example.config;
+
+/**
+ * Netty buffer allocators.
+ */
+public enum AllocatorType {
+    /** Size-class arenas with thread-local caches, Netty's default before 4.2. */
+    POOLED,
+    /** Pools sized from observed allocations, Netty's default since 4.2. */
+    ADAPTIVE,
+    /** A new buffer per allocation, released to the JVM or the OS when freed. */
+    UNPOOLED
+}
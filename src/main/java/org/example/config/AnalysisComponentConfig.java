@@ -0,0 +1,28 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for a tokenizer or token filter of an analyzer.
+ *
+ * <p>The type is the Lucene SPI name of the factory, such as {@code standard},
+ * {@code lowercase} or {@code porterStem}, and the parameters are the arguments that
+ * factory documents.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class AnalysisComponentConfig {
+    @NonNull
+    private String type;
+    @NonNull
+    private Map<String, Object> params = new HashMap<>();
+    /** For {@code synonymGraph} filters: the name of the shared synonym set to apply. */
+    private String synonyms;
+}
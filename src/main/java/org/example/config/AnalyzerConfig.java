@@ -0,0 +1,25 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for a named analyzer: a tokenizer followed by a chain of
+ * token filters, all taken from the analysis factories Lucene ships.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class AnalyzerConfig {
+    @NonNull
+    private String name;
+    @NonNull
+    private AnalysisComponentConfig tokenizer;
+    @NonNull
+    private List<AnalysisComponentConfig> filters = new ArrayList<>();
+}
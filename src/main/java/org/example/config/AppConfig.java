@@ -35,6 +35,7 @@ public class AppConfig {
      */
     public AppConfig(String resourceName) throws IOException, YAMLException {
         LoaderOptions loaderOptions = new LoaderOptions();
+        loaderOptions.setEnumCaseSensitive(false);
         Constructor constructor = new Constructor(Root.class, loaderOptions);
         constructor.setPropertyUtils(new CaseInsensitivePropertyUtils());
 
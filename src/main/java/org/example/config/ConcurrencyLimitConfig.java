@@ -0,0 +1,28 @@
+package org.example.config;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Bounds and tuning of the adaptive concurrency limit of one class of routes.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ConcurrencyLimitConfig {
+    /** Requests admitted concurrently before any latency was observed. */
+    private int initialLimit = 32;
+    /** The limit never drops below this, so the node always makes progress. */
+    private int minLimit = 4;
+    /** The limit never grows beyond this. */
+    private int maxLimit = 512;
+    /** How much slower than their long-term average requests may get before the limit shrinks. */
+    private double tolerance = 1.5;
+
+    public ConcurrencyLimitConfig(int initialLimit, int minLimit, int maxLimit) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+}
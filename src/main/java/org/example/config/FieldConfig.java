@@ -0,0 +1,33 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Configuration properties for a field in an index schema.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class FieldConfig {
+    @NonNull
+    private String name;
+    @NonNull
+    private FieldType type;
+    /** Whether a keyword field also feeds facet counts. */
+    private boolean facet;
+    /** Name of the configured analyzer a text field is indexed with; the standard analyzer if unset. */
+    private String analyzer;
+    /** Name of the configured analyzer queries on a text field are analyzed with; the index analyzer if unset. */
+    private String searchAnalyzer;
+    /** Number of dimensions of a vector field. */
+    private Integer dimensions;
+    private VectorSimilarity similarity = VectorSimilarity.COSINE;
+    private VectorFormat vectorFormat = VectorFormat.HNSW;
+    /** Maximum connections per node of the HNSW graph. */
+    private int hnswM = 16;
+    /** Candidates considered while inserting into the HNSW graph. */
+    private int hnswBeamWidth = 100;
+}
@@ -0,0 +1,26 @@
+package org.example.config;
+
+/**
+ * Supported field types of an index schema.
+ */
+public enum FieldType {
+    /** Analyzed full-text field. */
+    TEXT,
+    /** Exact-match string, sortable through doc values. */
+    KEYWORD,
+    /** Single-valued 64-bit integer, range-queryable and sortable. */
+    LONG,
+    /** Single-valued double, range-queryable and sortable. */
+    DOUBLE,
+    /** Dense float vector for approximate nearest-neighbour search; not stored. */
+    VECTOR;
+
+    /**
+     * Returns whether values of this type carry doc values usable for sorting.
+     *
+     * @return {@code true} if the type is sortable
+     */
+    public boolean isSortable() {
+        return this != TEXT && this != VECTOR;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for a single Lucene index.
+ *
+ * <p>Settings that are baked into the segments, such as the index sort, only take
+ * effect when the index is first created. Opening an existing index with a different
+ * sort fails instead of silently mixing layouts.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class IndexConfig {
+    @NonNull
+    private String name;
+    private String defaultField;
+    @NonNull
+    private List<FieldConfig> fields = new ArrayList<>();
+    private IndexSortConfig indexSort;
+    /**
+     * How long a searcher stays pinned for cursors after it last issued one.
+     * Zero disables pinning; cursors then resume on the current searcher.
+     */
+    private int cursorLeaseSeconds = 60;
+    /**
+     * Queries run against every new searcher before it becomes visible, so that the first
+     * user queries after a refresh do not pay for cold caches.
+     */
+    @NonNull
+    private List<String> warmupQueries = new ArrayList<>();
+    /**
+     * How many decoded documents to keep for fetching the fields of frequent hits.
+     * Zero disables the cache.
+     */
+    private int documentCacheSize = 0;
+    /**
+     * How stored fields are compressed. Applies to segments written from then on; existing
+     * segments keep their mode until merges rewrite them.
+     */
+    @NonNull
+    private StoredFieldsCompression storedFieldsCompression = StoredFieldsCompression.BEST_SPEED;
+}
@@ -0,0 +1,19 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the sort order documents are stored in within each segment.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class IndexSortConfig {
+    @NonNull
+    private String field;
+    @NonNull
+    private SortOrder order = SortOrder.ASC;
+}
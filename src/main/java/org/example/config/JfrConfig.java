@@ -0,0 +1,32 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A continuous JDK Flight Recorder recording started with the node.
+ *
+ * <p>The recording uses a JDK settings file for the JVM's own events and the thresholds
+ * below for the request and Lucene events of the node; events shorter than their
+ * threshold are not recorded. It is kept on disk within the age and size limits and
+ * written to {@code destination}, if set, when the node stops. A running recording can
+ * be dumped at any time with {@code jcmd <pid> JFR.dump name=minisearch}.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class JfrConfig {
+    private boolean enabled;
+    /** JDK settings file: {@code default} (about 1% overhead) or {@code profile}. */
+    private String settings = "default";
+    private long maxAgeMinutes = 60;
+    private long maxSizeMb = 256;
+    /** File the recording is written to when the node stops, none if unset. */
+    private String destination;
+    private long requestThresholdMillis = 50;
+    private long searchThresholdMillis = 50;
+    private long refreshThresholdMillis;
+    private long commitThresholdMillis;
+    private long mergeThresholdMillis;
+}
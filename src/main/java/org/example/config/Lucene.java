@@ -5,6 +5,9 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration properties for Lucene indexing and searching.
  */
@@ -14,4 +17,27 @@ import lombok.Setter;
 public class Lucene {
     @NonNull
     private String dataStore;
+    private Integer searchThreads;
+    @NonNull
+    private List<IndexConfig> indices = new ArrayList<>();
+    /** Directory backups are written to; backup routes are disabled when unset. */
+    private String backupStore;
+    /** Upper bound of the combined write rate of backups, to protect query latency. */
+    private double backupMaxMbPerSec = 40;
+    /** How many backed-up commits to keep per index; older ones are deleted after each backup. */
+    private int backupMaxGenerations = 10;
+    /** Primary/replica settings; the node runs standalone when unset. */
+    private ReplicationConfig replication;
+    /** Synonym sets, compiled once and shared by every analyzer that references them. */
+    @NonNull
+    private List<SynonymsConfig> synonyms = new ArrayList<>();
+    /** Analyzers text fields can refer to by name. */
+    @NonNull
+    private List<AnalyzerConfig> analyzers = new ArrayList<>();
+    /** Cost limits searches are checked against before they run. */
+    @NonNull
+    private SearchLimitsConfig searchLimits = new SearchLimitsConfig();
+    /** Phase thresholds above which searches are written to the slow log. */
+    @NonNull
+    private SlowLogConfig slowLog = new SlowLogConfig();
 }
@@ -0,0 +1,39 @@
+package org.example.config;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Socket options, buffer allocation and HTTP codec limits of the application port.
+ *
+ * <p>Sizes of zero leave the operating system's default in place.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class NettyConfig {
+    /** Connections the kernel queues while none is accepted, zero for Netty's default ({@code somaxconn}). */
+    private int soBacklog;
+    /** Socket receive buffer size in bytes. */
+    private int receiveBufferBytes;
+    /** Socket send buffer size in bytes. */
+    private int sendBufferBytes;
+    /** Queued outbound bytes below which a connection becomes writable again. */
+    private int writeBufferLowWaterMark = 32 * 1024;
+    /** Queued outbound bytes above which a connection stops being writable. */
+    private int writeBufferHighWaterMark = 64 * 1024;
+    @NonNull
+    private AllocatorType allocator = AllocatorType.ADAPTIVE;
+    /** Whether buffers are allocated off-heap. */
+    private boolean preferDirect = true;
+    /** Longest request line, such as {@code GET /_search?index=events HTTP/1.1}. */
+    private int maxInitialLineLength = 4096;
+    /** Largest total size of the request headers. */
+    private int maxHeaderSize = 8192;
+    /** Largest piece of a request body passed to the aggregator at once. */
+    private int maxChunkSize = 8192;
+    /** Largest request body; larger requests are answered with {@code 413 Request Entity Too Large}. */
+    private int maxContentLength = 1024 * 1024;
+}
@@ -0,0 +1,28 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Configuration properties for primary/replica segment replication.
+ *
+ * <p>Replicas poll the primary's metrics port for its latest searcher and copy the
+ * segment files they are missing, so documents are only analyzed and indexed once.
+ *
+ * <p>The primary serves those files from a searcher leased for
+ * {@link IndexConfig#getCursorLeaseSeconds()}, so every index of a primary needs a
+ * positive {@code cursor-lease-seconds}; an index without one fails to open.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ReplicationConfig {
+    @NonNull
+    private ReplicationRole role;
+    /** Base URL of the primary's metrics port, such as {@code http://primary:9090}; replicas only. */
+    private String primaryUrl;
+    /** How often replicas ask the primary for a newer searcher. */
+    private int pollIntervalMillis = 500;
+}
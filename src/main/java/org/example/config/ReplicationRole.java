@@ -0,0 +1,11 @@
+package org.example.config;
+
+/**
+ * The part a node plays in segment replication.
+ */
+public enum ReplicationRole {
+    /** Indexes documents and serves its segment files to replicas. */
+    PRIMARY,
+    /** Copies segment files from a primary and serves searches read-only. */
+    REPLICA
+}
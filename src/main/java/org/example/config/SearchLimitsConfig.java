@@ -0,0 +1,35 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Limits that protect the node from expensive searches.
+ *
+ * <p>Query and aggregation limits are checked against index statistics before a search
+ * runs, and requests exceeding them are rejected as invalid. The heap limits apply to
+ * all searches in flight together, which are rejected as overload instead.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class SearchLimitsConfig {
+    /** Leaf clauses of a rewritten query, counting each term of a term set. */
+    private int maxClauses = 1024;
+    /** Terms that wildcard, prefix, regexp, fuzzy and range clauses may match, summed over segments. */
+    private int maxTermExpansions = 50_000;
+    /**
+     * Terms of one segment that counting the expansions of a wildcard, regexp or range
+     * clause may step through, matching or not.
+     */
+    private int maxTermsScanned = 100_000;
+    /** States of the automaton of a wildcard, regexp or fuzzy clause. */
+    private int maxAutomatonStates = 10_000;
+    /** Buckets the aggregations of a request may create together. */
+    private long maxAggregationBuckets = 65_536;
+    /** Share of the maximum heap that the estimated needs of in-flight searches may add up to. */
+    private int inFlightHeapPercent = 40;
+    /** Heap usage above which new searches are rejected until garbage collection catches up. */
+    private int maxHeapUsedPercent = 95;
+}
@@ -16,4 +16,32 @@ public class Server {
     private Integer appPort;
     @NonNull
     private Integer metricPort;
+    /** Event loop threads accepting connections on the application port. */
+    private int bossThreads = 1;
+    /** Event loop threads handling the I/O of the application port, zero for twice the number of CPUs. */
+    private int workerThreads;
+    /**
+     * Event loop threads of the metrics port. They serve nothing else, so health checks
+     * and scrapes are answered while the application port is saturated.
+     */
+    private int metricThreads = 1;
+    /** Deadline of searches in milliseconds unless a request sets its own, zero for none. */
+    private long searchTimeoutMillis;
+    /** Whether searches past their deadline return what they found so far instead of failing. */
+    private boolean allowPartialSearchResults = true;
+    /** Whether identical searches running at the same time share one execution. */
+    private boolean coalesceSearches = true;
+    /** How many searches one multi-search request may hold. */
+    private int maxMultiSearchRequests = 100;
+    /** How often each event loop is probed for scheduling delay, in milliseconds; zero disables the probes. */
+    private long eventLoopProbeIntervalMillis = 100;
+    /** Socket, allocator and codec settings of the application port. */
+    @NonNull
+    private NettyConfig netty = new NettyConfig();
+    /** Adaptive concurrency limits of the application routes. */
+    @NonNull
+    private AdmissionConfig admission = new AdmissionConfig();
+    /** Continuous flight recording of request and Lucene events. */
+    @NonNull
+    private JfrConfig jfr = new JfrConfig();
 }
@@ -0,0 +1,26 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Thresholds of the search slow log.
+ *
+ * <p>A search is logged when any of its phases takes longer than that phase's
+ * threshold. A threshold of {@code -1} disables a phase and {@code 0} logs every
+ * search that reaches it.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class SlowLogConfig {
+    /** Rewriting the query and checking its cost against the search limits. */
+    private long rewriteMillis = -1;
+    /** Creating the weights of the rewritten query, which looks up term statistics. */
+    private long weightMillis = -1;
+    /** Collecting hits, facets and aggregations. */
+    private long collectMillis = -1;
+    /** Loading the fields of the returned hits. */
+    private long fetchMillis = -1;
+}
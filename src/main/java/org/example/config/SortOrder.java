@@ -0,0 +1,18 @@
+package org.example.config;
+
+/**
+ * Sort direction for index sorts and search-time sorts.
+ */
+public enum SortOrder {
+    ASC,
+    DESC;
+
+    /**
+     * Returns whether this order is descending, matching Lucene's {@code reverse} flag.
+     *
+     * @return {@code true} for {@link #DESC}
+     */
+    public boolean isReverse() {
+        return this == DESC;
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.config;
+
+/**
+ * Compression modes of stored fields, trading fetch speed against disk size.
+ */
+public enum StoredFieldsCompression {
+    /** LZ4 over small blocks: fast to decompress when hits are fetched. */
+    BEST_SPEED,
+    /** DEFLATE over larger blocks: noticeably smaller, slower to fetch from. */
+    BEST_COMPRESSION
+}
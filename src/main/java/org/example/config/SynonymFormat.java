@@ -0,0 +1,11 @@
+package org.example.config;
+
+/**
+ * File formats of synonym sets.
+ */
+public enum SynonymFormat {
+    /** One rule per line: {@code a, b, c} for equivalents or {@code a, b => c} for explicit mappings. */
+    SOLR,
+    /** The WordNet prolog format. */
+    WORDNET
+}
@@ -0,0 +1,25 @@
+package org.example.config;
+
+import lombok.NoArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Configuration properties for a named synonym set loaded from a file.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class SynonymsConfig {
+    @NonNull
+    private String name;
+    @NonNull
+    private String path;
+    @NonNull
+    private SynonymFormat format = SynonymFormat.SOLR;
+    /** Whether equivalent synonyms such as {@code a, b, c} map to each other rather than to the first. */
+    private boolean expand = true;
+    /** Whether rules match regardless of case; the rules are lowercased when compiled. */
+    private boolean ignoreCase = true;
+}
@@ -0,0 +1,18 @@
+package org.example.config;
+
+/**
+ * On-disk formats of dense vector fields.
+ *
+ * <p>All formats search an HNSW graph. Quantized formats keep the raw vectors on disk for
+ * rescoring but search over compact copies, so far less memory needs to be resident.
+ */
+public enum VectorFormat {
+    /** Full 32-bit float vectors. */
+    HNSW,
+    /** Scalar quantized to 7-bit integers, about 4x smaller. */
+    INT8_HNSW,
+    /** Scalar quantized to 4-bit integers packed two per byte, about 8x smaller. */
+    INT4_HNSW,
+    /** Binary quantized to one bit per dimension, about 32x smaller. */
+    BBQ_HNSW
+}
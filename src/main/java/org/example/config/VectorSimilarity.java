@@ -0,0 +1,15 @@
+package org.example.config;
+
+/**
+ * Similarity functions for comparing dense vectors.
+ */
+public enum VectorSimilarity {
+    /** Angle between the vectors; vectors need not be normalized. */
+    COSINE,
+    /** Dot product of unit-length vectors; cheaper than cosine when vectors are normalized upfront. */
+    DOT_PRODUCT,
+    /** Euclidean (L2) distance. */
+    EUCLIDEAN,
+    /** Dot product of vectors of any length. */
+    MAXIMUM_INNER_PRODUCT
+}
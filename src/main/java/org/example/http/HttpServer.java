@@ -2,8 +2,13 @@ package org.example.http;
 
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.AdaptiveByteBufAllocator;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.example.config.NettyConfig;
 import org.example.router.Router;
 
 /**
@@ -11,6 +16,8 @@ import org.example.router.Router;
  *
  * <p>This class provides a minimal abstraction to start and stop
  * an HTTP server with a configurable port and {@link Router} for handling requests.
+ * Socket options, the buffer allocator and codec limits come from a {@link NettyConfig};
+ * without one, Netty's defaults apply.
  */
 
 public final class HttpServer {
@@ -20,6 +27,18 @@ public final class HttpServer {
     private Channel serverChannel;
     private ChannelFuture closeFuture;
     private Router router;
+    private NettyConfig config = new NettyConfig();
+    private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+    /**
+     * Creates a new HTTP server that accepts connections and handles their I/O on the
+     * same event loop group.
+     *
+     * @param group the group for accepting connections and handling I/O
+     */
+    public HttpServer(EventLoopGroup group) {
+        this(group, group);
+    }
 
     /**
      * Creates a new HTTP server with shared event loop groups.
@@ -54,6 +73,32 @@ public final class HttpServer {
         return this;
     }
 
+    /**
+     * Sets the socket options, buffer allocator and codec limits of this server. The
+     * server gets an allocator of its own.
+     *
+     * @param config the settings
+     * @return this server instance
+     */
+    public HttpServer withConfig(NettyConfig config){
+        this.config = config;
+        this.allocator = switch (config.getAllocator()) {
+            case POOLED -> new PooledByteBufAllocator(config.isPreferDirect());
+            case ADAPTIVE -> new AdaptiveByteBufAllocator(config.isPreferDirect());
+            case UNPOOLED -> new UnpooledByteBufAllocator(config.isPreferDirect());
+        };
+        return this;
+    }
+
+    /**
+     * Returns the allocator of the connections of this server.
+     *
+     * @return the allocator
+     */
+    public ByteBufAllocator allocator(){
+        return allocator;
+    }
+
     /**
      * Starts the Netty HTTP server and binds to the configured port.
      *
@@ -64,8 +109,22 @@ public final class HttpServer {
         var b = new ServerBootstrap()
                 .group(boss, worker)
                 .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.ALLOCATOR, allocator)
                 .childOption(ChannelOption.TCP_NODELAY, true)
-                .childHandler(new NettyHttpInitializer(router));
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
+                .childHandler(new NettyHttpInitializer(router, config));
+        if (config.getSoBacklog() > 0) {
+            b.option(ChannelOption.SO_BACKLOG, config.getSoBacklog());
+        }
+        if (config.getReceiveBufferBytes() > 0) {
+            // set on the listening socket so that accepted sockets negotiate their window with it
+            b.option(ChannelOption.SO_RCVBUF, config.getReceiveBufferBytes());
+        }
+        if (config.getSendBufferBytes() > 0) {
+            b.childOption(ChannelOption.SO_SNDBUF, config.getSendBufferBytes());
+        }
 
         serverChannel = b.bind(port).sync().channel();
         closeFuture = serverChannel.closeFuture();
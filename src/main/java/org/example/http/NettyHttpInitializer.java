@@ -3,32 +3,44 @@ package org.example.http;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpDecoderConfig;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.cors.CorsConfigBuilder;
 import io.netty.handler.codec.http.cors.CorsHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import org.example.config.NettyConfig;
 import org.example.router.Router;
 
 /**
  * Configures the Netty pipeline for incoming HTTP connections.
  *
  * <p>This class sets up the HTTP codec, CORS, and routing handler chain.
- * It is used internally by {@link HttpServer}.
+ * It is used internally by {@link HttpServer}. The codec and aggregator limits come
+ * from the {@link NettyConfig}.
  */
 
 final class NettyHttpInitializer extends ChannelInitializer<SocketChannel> {
     private final Router router;
+    private final NettyConfig config;
 
     NettyHttpInitializer(Router router) {
+        this(router, new NettyConfig());
+    }
+
+    NettyHttpInitializer(Router router, NettyConfig config) {
         this.router = router;
+        this.config = config;
     }
 
     @Override
     protected void initChannel(SocketChannel ch) throws Exception {
         ChannelPipeline p = ch.pipeline();
-        p.addLast(new HttpServerCodec());
-        p.addLast(new HttpObjectAggregator(1 * 1024 * 1024)); // 1 MB max content length
+        p.addLast(new HttpServerCodec(new HttpDecoderConfig()
+                .setMaxInitialLineLength(config.getMaxInitialLineLength())
+                .setMaxHeaderSize(config.getMaxHeaderSize())
+                .setMaxChunkSize(config.getMaxChunkSize())));
+        p.addLast(new HttpObjectAggregator(config.getMaxContentLength()));
         p.addLast(new ChunkedWriteHandler());
         p.addLast(new CorsHandler(CorsConfigBuilder.forAnyOrigin().build()));
         p.addLast("router", router.handler());
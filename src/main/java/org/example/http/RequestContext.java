@@ -1,11 +1,27 @@
 package org.example.http;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
 import lombok.AccessLevel;
 import lombok.Getter;
+import org.example.search.CircuitBreakingException;
+import org.example.search.SearchTimeoutException;
+import org.example.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.exc.StreamReadException;
+
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Encapsulates the request and response context for a single HTTP call.
@@ -16,15 +32,103 @@ import java.nio.charset.StandardCharsets;
 
 @Getter
 public class RequestContext {
+    private static final Logger logger = LoggerFactory.getLogger(RequestContext.class);
+
     @Getter(AccessLevel.NONE)
     private final ChannelHandlerContext context;
     private final FullHttpRequest request;
+    @Getter(AccessLevel.NONE)
+    private Map<String, List<String>> parameters;
+    /** When the request was received, from {@link System#nanoTime()}. */
+    private final long receivedNanos = System.nanoTime();
+    /** Whether the client went away before the response was sent. */
+    private volatile boolean cancelled;
+    /** The status code of the response, or 0 until one was sent. */
+    private volatile int responseStatus;
+    @Getter(AccessLevel.NONE)
+    private volatile Runnable cancelListener;
+    @Getter(AccessLevel.NONE)
+    private volatile Runnable completionListener;
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean completed = new AtomicBoolean();
 
     public RequestContext(ChannelHandlerContext context, FullHttpRequest request) {
         this.context = context;
         this.request = request;
     }
 
+    /**
+     * Registers an action to run once, when the response was sent or the request was
+     * cancelled. Listeners must be registered before the request is handed to another
+     * thread, and run in registration order.
+     *
+     * @param listener the action
+     */
+    public void onComplete(Runnable listener) {
+        Runnable previous = completionListener;
+        completionListener = previous == null ? listener : () -> {
+            previous.run();
+            listener.run();
+        };
+    }
+
+    /**
+     * Registers work to stop when the request is cancelled. Runs it right away if the
+     * request is cancelled already.
+     *
+     * @param listener the action stopping the work
+     */
+    public void onCancel(Runnable listener) {
+        cancelListener = listener;
+        if (cancelled) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Cancels the request because its connection closed before a response was sent.
+     */
+    public void cancel() {
+        cancelled = true;
+        Runnable listener = cancelListener;
+        if (listener != null) {
+            listener.run();
+        }
+        complete();
+    }
+
+    private void complete() {
+        if (completed.compareAndSet(false, true)) {
+            Runnable listener = completionListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * Returns the first value of a query string parameter.
+     *
+     * @param name the parameter name
+     * @return the value, or {@code null} if the parameter is absent
+     */
+    public String param(String name) {
+        if (parameters == null) {
+            parameters = new QueryStringDecoder(request.uri()).parameters();
+        }
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+
+    /**
+     * Returns the allocator of the underlying channel, for building response bodies.
+     *
+     * @return the channel's buffer allocator
+     */
+    public ByteBufAllocator alloc() {
+        return context.alloc();
+    }
+
     /**
      * Writes a plain-text response with the specified status and body.
      *
@@ -32,24 +136,186 @@ public class RequestContext {
      * @param body   response content
      */
     public void text(HttpResponseStatus status, String body) {
-        var content  = Unpooled.copiedBuffer(body, StandardCharsets.UTF_8);
+        send(status, "text/plain; charset=UTF-8", Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a JSON response rendered by the given callback.
+     *
+     * @param status HTTP status code
+     * @param body   callback writing the JSON document
+     */
+    public void json(HttpResponseStatus status, Consumer<JsonGenerator> body) {
+        json(status, JsonUtil.write(alloc(), body));
+    }
+
+    /**
+     * Writes a JSON response from an already encoded buffer. Ownership of the buffer
+     * passes to this method.
+     *
+     * @param status  HTTP status code
+     * @param content the encoded JSON document
+     */
+    public void json(HttpResponseStatus status, ByteBuf content) {
+        send(status, "application/json; charset=UTF-8", content);
+    }
+
+    /**
+     * Writes a binary response. Ownership of the buffer passes to this method.
+     *
+     * @param status  HTTP status code
+     * @param content the response bytes
+     */
+    public void bytes(HttpResponseStatus status, ByteBuf content) {
+        send(status, "application/octet-stream", content);
+    }
+
+    /**
+     * Rejects the request with {@code 429 Too Many Requests}, telling the client when to
+     * retry.
+     *
+     * @param body              the reason
+     * @param retryAfterSeconds the {@code Retry-After} delay in seconds
+     */
+    public void tooManyRequests(String body, long retryAfterSeconds) {
+        send(HttpResponseStatus.TOO_MANY_REQUESTS, "text/plain; charset=UTF-8",
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8), retryAfterSeconds);
+    }
+
+    /**
+     * Sends a simple "200 OK" response with body "OK".
+     * */
+    public void ok(){
+        text(HttpResponseStatus.OK, "OK");
+    }
+
+    /**
+     * Responds to a failed request with a status matching the error.
+     *
+     * <p>Invalid input ({@link IllegalArgumentException} or malformed JSON) yields
+     * {@code 400 Bad Request}, a saturated executor {@code 503 Service Unavailable}.
+     * A tripped search circuit breaker yields {@code 429 Too Many Requests} while other
+     * searches hold the heap it protects, and {@code 503} when the heap itself is nearly
+     * full. A search past its deadline yields {@code 504 Gateway Timeout}, and a
+     * cancelled request no response, since nobody is left to read it. Anything else is
+     * logged and answered with {@code 500 Internal Server Error}.
+     *
+     * @param error the failure
+     */
+    public void fail(Throwable error) {
+        if (error instanceof CancellationException) {
+            logger.debug("Cancelled {} {}: {}", request.method(), request.uri(), error.getMessage());
+            return;
+        }
+        HttpResponseStatus status = errorStatus(error);
+        if (status == HttpResponseStatus.INTERNAL_SERVER_ERROR) {
+            logger.error(error.getMessage(), error);
+        }
+        if (status == HttpResponseStatus.TOO_MANY_REQUESTS) {
+            tooManyRequests(errorMessage(error), 1);
+        } else {
+            text(status, errorMessage(error));
+        }
+    }
+
+    /**
+     * Returns the status {@link #fail} answers a failure other than cancellation with.
+     *
+     * @param error the failure
+     * @return the status
+     */
+    public static HttpResponseStatus errorStatus(Throwable error) {
+        if (error instanceof IllegalArgumentException || error instanceof StreamReadException) {
+            return HttpResponseStatus.BAD_REQUEST;
+        } else if (error instanceof CircuitBreakingException breaker) {
+            return breaker.isHeapExhausted() ? HttpResponseStatus.SERVICE_UNAVAILABLE
+                    : HttpResponseStatus.TOO_MANY_REQUESTS;
+        } else if (error instanceof SearchTimeoutException) {
+            return HttpResponseStatus.GATEWAY_TIMEOUT;
+        } else if (error instanceof RejectedExecutionException) {
+            return HttpResponseStatus.SERVICE_UNAVAILABLE;
+        }
+        return HttpResponseStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Returns the message {@link #fail} answers a failure other than cancellation with;
+     * internal details of unexpected failures are not exposed.
+     *
+     * @param error the failure
+     * @return the message
+     */
+    public static String errorMessage(Throwable error) {
+        HttpResponseStatus status = errorStatus(error);
+        if (status == HttpResponseStatus.INTERNAL_SERVER_ERROR) {
+            return "Internal Server Error";
+        }
+        if (error instanceof RejectedExecutionException) {
+            return "Service Unavailable";
+        }
+        return String.valueOf(error.getMessage());
+    }
+
+    /**
+     * Starts a streamed response with the specified status, whose body is sent in
+     * chunks as it becomes available through {@link #writeChunk} and ended with
+     * {@link #endStream}. The request counts as answered only once the stream ended.
+     *
+     * @param status      HTTP status code
+     * @param contentType the content type of the body
+     */
+    public void startStream(HttpResponseStatus status, String contentType) {
+        var response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setTransferEncodingChunked(response, true);
+        if (HttpUtil.isKeepAlive(request)) {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        }
+        responseStatus = status.code();
+        context.writeAndFlush(response);
+    }
+
+    /**
+     * Sends the next chunk of a streamed response. Chunks are sent in the order of the
+     * calls, so callers on several threads must order them themselves.
+     *
+     * @param content the chunk, released once written
+     */
+    public void writeChunk(ByteBuf content) {
+        context.writeAndFlush(new DefaultHttpContent(content));
+    }
+
+    /**
+     * Ends a streamed response.
+     */
+    public void endStream() {
+        var f = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        if (!HttpUtil.isKeepAlive(request)) {
+            f.addListener(ch -> context.close());
+        }
+        complete();
+    }
+
+    private void send(HttpResponseStatus status, String contentType, ByteBuf content) {
+        send(status, contentType, content, 0);
+    }
+
+    private void send(HttpResponseStatus status, String contentType, ByteBuf content, long retryAfterSeconds) {
         var response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
         response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        if (retryAfterSeconds > 0) {
+            response.headers().set(HttpHeaderNames.RETRY_AFTER, retryAfterSeconds);
+        }
         boolean keepAlive = HttpUtil.isKeepAlive(request);
         if(keepAlive){
             response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
         }
+        responseStatus = status.code();
         var f = context.writeAndFlush(response);
         if(!keepAlive){
             f.addListener(ch -> context.close());
         }
-    }
-
-    /**
-     * Sends a simple "200 OK" response with body "OK".
-     * */
-    public void ok(){
-        text(HttpResponseStatus.OK, "OK");
+        complete();
     }
 }
@@ -0,0 +1,204 @@
+package org.example.index;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimitedIndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.example.config.Lucene;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Backs up and restores indices through a directory of commit points per index.
+ *
+ * <p>A backup pins the latest commit of an index and copies its files into
+ * {@code <backup-store>/<index>}. Segment files are write-once, so files already in the
+ * backup with the same length and checksum are skipped; each backup only copies what
+ * changed since the previous one. The commit's {@code segments_N} file is copied last,
+ * so an interrupted backup never leaves a commit point referencing missing files.
+ * After each backup, only the latest {@link Lucene#getBackupMaxGenerations()} commits
+ * are kept, and files none of them references are deleted.
+ *
+ * <p>Copies are throttled by a rate limiter shared by all backups and run on a single
+ * dedicated thread, keeping disk bandwidth and search threads free for queries.
+ */
+public final class BackupService implements Closeable {
+    private final Path root;
+    private final RateLimiter rateLimiter;
+    private final int maxGenerations;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new DefaultThreadFactory("lucene-backup"));
+
+    /**
+     * Summary of a completed backup.
+     *
+     * @param generation  the generation of the backed-up commit
+     * @param files       number of files the commit consists of
+     * @param copiedFiles number of files that had to be copied
+     * @param copiedBytes number of bytes copied
+     */
+    public record Result(long generation, int files, int copiedFiles, long copiedBytes) {
+    }
+
+    /**
+     * @param config the Lucene configuration with a backup store
+     * @throws IllegalArgumentException if fewer than one generation is to be kept
+     */
+    public BackupService(Lucene config) {
+        if (config.getBackupMaxGenerations() < 1) {
+            throw new IllegalArgumentException("'backup-max-generations' must be positive");
+        }
+        this.maxGenerations = config.getBackupMaxGenerations();
+        this.root = Path.of(config.getBackupStore());
+        this.rateLimiter = new RateLimiter.SimpleRateLimiter(config.getBackupMaxMbPerSec());
+    }
+
+    /**
+     * Returns the executor backup routes should run on.
+     *
+     * @return a single-threaded executor, so concurrent backup requests queue up
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Commits the index and copies the files of that commit that are missing from its
+     * backup, then deletes the commits beyond the ones to keep.
+     *
+     * @param index the index to back up
+     * @return what was copied
+     * @throws IOException if reading the index or writing the backup fails
+     */
+    public Result backup(ManagedIndex index) throws IOException {
+        IndexCommit commit = index.snapshot();
+        try (Directory target = FSDirectory.open(root.resolve(index.getName()))) {
+            Directory source = commit.getDirectory();
+            Collection<String> files = commit.getFileNames();
+            List<String> copied = new ArrayList<>();
+            long bytes = 0;
+            for (String file : files) {
+                if (!file.equals(commit.getSegmentsFileName()) && !isPresent(source, target, file)) {
+                    bytes += copy(source, target, file);
+                    copied.add(file);
+                }
+            }
+            target.sync(copied);
+            // the commit point goes last: only complete commits become visible in the backup
+            bytes += copy(source, target, commit.getSegmentsFileName());
+            copied.add(commit.getSegmentsFileName());
+            target.sync(List.of(commit.getSegmentsFileName()));
+            target.syncMetaData();
+            prune(target);
+            return new Result(commit.getGeneration(), files.size(), copied.size(), bytes);
+        } finally {
+            index.releaseSnapshot(commit);
+        }
+    }
+
+    /**
+     * Lists the commit generations held in the backup of an index.
+     *
+     * @param index the backed-up index
+     * @return generations in ascending order; empty if there is no backup yet
+     * @throws IOException if the backup cannot be read
+     */
+    public List<Long> generations(ManagedIndex index) throws IOException {
+        try (Directory target = FSDirectory.open(root.resolve(index.getName()))) {
+            return DirectoryReader.listCommits(target).stream().map(IndexCommit::getGeneration).toList();
+        } catch (IndexNotFoundException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Replaces the content of an index with a backed-up commit.
+     *
+     * @param index      the index to restore
+     * @param generation the generation to restore, or {@code null} for the latest
+     * @throws IOException if reading the backup or writing the index fails
+     * @throws IllegalArgumentException if the backup holds no such generation
+     */
+    public void restore(ManagedIndex index, Long generation) throws IOException {
+        try (Directory target = FSDirectory.open(root.resolve(index.getName()))) {
+            List<IndexCommit> commits;
+            try {
+                commits = DirectoryReader.listCommits(target);
+            } catch (IndexNotFoundException e) {
+                commits = List.of();
+            }
+            IndexCommit commit = commits.stream()
+                    .filter(c -> generation == null || c.getGeneration() == generation)
+                    .reduce((first, second) -> second)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "No backup generation " + generation + " of index '" + index.getName() + "'"));
+            index.restore(commit);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void prune(Directory target) throws IOException {
+        List<IndexCommit> commits = DirectoryReader.listCommits(target);
+        List<IndexCommit> expired = commits.subList(0, Math.max(0, commits.size() - maxGenerations));
+        Set<String> referenced = new HashSet<>();
+        for (IndexCommit commit : commits.subList(expired.size(), commits.size())) {
+            referenced.addAll(commit.getFileNames());
+        }
+        // commit points first: a listed commit never references a deleted file
+        for (IndexCommit commit : expired) {
+            target.deleteFile(commit.getSegmentsFileName());
+        }
+        // also leftovers of interrupted backups
+        for (String file : target.listAll()) {
+            if (!referenced.contains(file)) {
+                target.deleteFile(file);
+            }
+        }
+    }
+
+    private static boolean isPresent(Directory source, Directory target, String file) throws IOException {
+        try (IndexInput existing = target.openInput(file, IOContext.READONCE);
+             IndexInput original = source.openInput(file, IOContext.READONCE)) {
+            return existing.length() == original.length()
+                    && CodecUtil.retrieveChecksum(existing) == CodecUtil.retrieveChecksum(original);
+        } catch (IOException e) {
+            // missing, or a truncated leftover of an interrupted backup: copy it (again)
+            return false;
+        }
+    }
+
+    private long copy(Directory source, Directory target, String file) throws IOException {
+        try {
+            target.deleteFile(file);
+        } catch (NoSuchFileException e) {
+            // nothing to replace
+        }
+        try (IndexInput in = source.openInput(file, IOContext.READONCE);
+             IndexOutput out = new RateLimitedIndexOutput(rateLimiter, target.createOutput(file, IOContext.DEFAULT))) {
+            out.copyBytes(in, in.length());
+            return in.length();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.IndexSearcher;
+import org.example.config.FieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Loads the fields of search hits.
+ *
+ * <p>Without a field list, hits get all their stored fields. With one, only the listed
+ * fields are decoded: numeric fields are read from their doc values, which skips the
+ * stored fields entirely when only numbers are requested, and the rest with a visitor
+ * that ignores every other stored field.
+ *
+ * <p>With a positive cache size, decoded documents are kept in an LRU cache keyed by
+ * segment core and segment-local doc id. Segments are write-once and deleted documents
+ * never become hits again, so entries stay valid across refreshes as long as their
+ * segment exists; they are dropped when it is closed after a merge. Cached documents
+ * are shared between searches and must not be modified.
+ */
+final class DocumentLoader {
+    private final DocumentMapper mapper;
+    private final Map<CacheKey, Document> cache;
+    private final Set<IndexReader.CacheKey> cachedCores = ConcurrentHashMap.newKeySet();
+
+    private record CacheKey(IndexReader.CacheKey core, int doc) {
+    }
+
+    /**
+     * @param mapper    the schema of the index
+     * @param cacheSize how many decoded documents to cache, or zero to disable the cache
+     */
+    DocumentLoader(DocumentMapper mapper, int cacheSize) {
+        this.mapper = mapper;
+        this.cache = cacheSize <= 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Document> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Loads the fields of documents of a searcher.
+     *
+     * @param searcher the searcher the doc ids belong to
+     * @param docs     the top-level doc ids
+     * @param fields   the fields to load, or {@code null} for all stored fields
+     * @return the documents, in the order of {@code docs}
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if a field is not part of the schema or not retrievable
+     */
+    List<Document> load(IndexSearcher searcher, int[] docs, Set<String> fields) throws IOException {
+        Set<String> numericFields = Set.of();
+        Set<String> storedFields = null;
+        if (fields != null) {
+            numericFields = new HashSet<>();
+            storedFields = new HashSet<>();
+            for (String field : fields) {
+                FieldType type = DocumentMapper.ID_FIELD.equals(field) ? FieldType.KEYWORD : mapper.type(field);
+                if (type == null || type == FieldType.VECTOR) {
+                    throw new IllegalArgumentException("Field '" + field + "' cannot be retrieved");
+                }
+                (type == FieldType.LONG || type == FieldType.DOUBLE ? numericFields : storedFields).add(field);
+            }
+        }
+        // doc values iterators only move forward, so visit the hits in doc id order
+        Integer[] order = IntStream.range(0, docs.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingInt(i -> docs[i]));
+
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        Document[] loaded = new Document[docs.length];
+        LeafReaderContext leaf = null;
+        StoredFields leafStoredFields = null;
+        Map<String, NumericDocValues> docValues = Map.of();
+        for (int i : order) {
+            if (leaf == null || docs[i] >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(docs[i], leaves));
+                leafStoredFields = leaf.reader().storedFields();
+                docValues = docValues(leaf.reader(), numericFields);
+            }
+            int doc = docs[i] - leaf.docBase;
+            IndexReader.CacheHelper core = leaf.reader().getCoreCacheHelper();
+            if (cache != null && core != null) {
+                Document document = cached(core, doc, leafStoredFields);
+                loaded[i] = fields == null ? document : project(document, fields);
+            } else if (fields == null) {
+                loaded[i] = leafStoredFields.document(doc);
+            } else {
+                Document document = new Document();
+                if (!storedFields.isEmpty()) {
+                    var visitor = new DocumentStoredFieldVisitor(storedFields);
+                    leafStoredFields.document(doc, visitor);
+                    document = visitor.getDocument();
+                }
+                addDocValues(document, doc, docValues);
+                loaded[i] = document;
+            }
+        }
+        return Arrays.asList(loaded);
+    }
+
+    private Document cached(IndexReader.CacheHelper core, int doc, StoredFields storedFields) throws IOException {
+        var key = new CacheKey(core.getKey(), doc);
+        Document document;
+        synchronized (cache) {
+            document = cache.get(key);
+        }
+        if (document == null) {
+            document = storedFields.document(doc);
+            if (cachedCores.add(key.core())) {
+                core.addClosedListener(this::evict);
+            }
+            synchronized (cache) {
+                cache.put(key, document);
+            }
+        }
+        return document;
+    }
+
+    private void evict(IndexReader.CacheKey core) {
+        cachedCores.remove(core);
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.core() == core);
+        }
+    }
+
+    private static Map<String, NumericDocValues> docValues(LeafReader reader, Set<String> fields) throws IOException {
+        if (fields.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, NumericDocValues> docValues = new LinkedHashMap<>();
+        for (String field : fields) {
+            NumericDocValues values = reader.getNumericDocValues(field);
+            if (values != null) {
+                docValues.put(field, values);
+            }
+        }
+        return docValues;
+    }
+
+    private void addDocValues(Document document, int doc, Map<String, NumericDocValues> docValues) throws IOException {
+        for (var entry : docValues.entrySet()) {
+            NumericDocValues values = entry.getValue();
+            if (values.advanceExact(doc)) {
+                long value = values.longValue();
+                document.add(mapper.type(entry.getKey()) == FieldType.DOUBLE
+                        ? new StoredField(entry.getKey(), Double.longBitsToDouble(value))
+                        : new StoredField(entry.getKey(), value));
+            }
+        }
+    }
+
+    private static Document project(Document document, Set<String> fields) {
+        Document projected = new Document();
+        for (IndexableField field : document.getFields()) {
+            if (fields.contains(field.name())) {
+                projected.add(field);
+            }
+        }
+        return projected;
+    }
+}
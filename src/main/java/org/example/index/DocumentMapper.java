@@ -0,0 +1,415 @@
+package org.example.index;
+
+import lombok.Getter;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene102.Lucene102HnswBinaryQuantizedVectorsFormat;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswScalarQuantizedVectorsFormat;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswVectorsFormat;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
+import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
+import org.apache.lucene.queryparser.flexible.standard.config.PointsConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RescoreTopNQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
+import org.example.analysis.AnalysisRegistry;
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.config.SortOrder;
+import org.example.config.VectorFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates between JSON-shaped documents and Lucene documents for one index schema.
+ *
+ * <p>The mapper also owns the schema-aware pieces of query handling: parsing query
+ * strings with numeric range support and building sort fields that match how each
+ * field type is indexed. Instances are immutable and thread-safe.
+ *
+ * <p>Keyword fields marked as facets are additionally indexed as facet dimensions in the
+ * shared {@value FacetsConfig#DEFAULT_INDEX_FIELD_NAME} doc values field, which
+ * {@link org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts} counts over.
+ *
+ * <p>Text fields are analyzed with the standard analyzer unless they name a configured
+ * analyzer. Documents and queries may be analyzed differently, for example to expand
+ * synonyms only at query time; see {@link #getSearchAnalyzer()}.
+ *
+ * <p>Vector fields are indexed into an HNSW graph in the field's configured
+ * {@link VectorFormat}; see {@link #vectorsFormat(String)}.
+ */
+public final class DocumentMapper {
+    public static final String ID_FIELD = "_id";
+
+    private final Map<String, FieldType> fields;
+    private final Set<String> facetFields;
+    private final Map<String, VectorField> vectorFields;
+    @Getter
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    @Getter
+    private final String defaultField;
+    /** Analyzes documents for indexing. */
+    @Getter
+    private final Analyzer analyzer;
+    /** Analyzes query strings. */
+    @Getter
+    private final Analyzer searchAnalyzer;
+    @Getter
+    private final Sort indexSort;
+
+    public DocumentMapper(IndexConfig config) {
+        this(config, AnalysisRegistry.EMPTY);
+    }
+
+    /**
+     * Creates a mapper whose text fields may use the analyzers of a registry.
+     *
+     * @param config   the index schema
+     * @param analysis the configured analyzers
+     * @throws IllegalArgumentException if the schema is invalid or names an unknown analyzer
+     */
+    public DocumentMapper(IndexConfig config, AnalysisRegistry analysis) {
+        Map<String, FieldType> types = new LinkedHashMap<>();
+        Map<String, Analyzer> indexAnalyzers = new HashMap<>();
+        Map<String, Analyzer> searchAnalyzers = new HashMap<>();
+        Set<String> facets = new HashSet<>();
+        Map<String, VectorField> vectors = new HashMap<>();
+        for (FieldConfig field : config.getFields()) {
+            if (ID_FIELD.equals(field.getName()) || types.put(field.getName(), field.getType()) != null) {
+                throw new IllegalArgumentException("Invalid or duplicate field '" + field.getName()
+                        + "' in index " + config.getName());
+            }
+            if (field.isFacet()) {
+                if (field.getType() != FieldType.KEYWORD) {
+                    throw new IllegalArgumentException("Facet field '" + field.getName() + "' must be a keyword");
+                }
+                facets.add(field.getName());
+                facetsConfig.setMultiValued(field.getName(), true);
+            }
+            if (field.getType() == FieldType.VECTOR) {
+                vectors.put(field.getName(), VectorField.of(field));
+            }
+            if (field.getAnalyzer() != null || field.getSearchAnalyzer() != null) {
+                if (field.getType() != FieldType.TEXT) {
+                    throw new IllegalArgumentException("Analyzed field '" + field.getName() + "' must be text");
+                }
+                if (field.getAnalyzer() != null) {
+                    indexAnalyzers.put(field.getName(), analysis.indexAnalyzer(field.getAnalyzer()));
+                }
+                String searchAnalyzer = field.getSearchAnalyzer() != null ? field.getSearchAnalyzer() : field.getAnalyzer();
+                searchAnalyzers.put(field.getName(), analysis.searchAnalyzer(searchAnalyzer));
+            }
+        }
+        this.fields = Map.copyOf(types);
+        this.facetFields = Set.copyOf(facets);
+        this.vectorFields = Map.copyOf(vectors);
+        this.defaultField = config.getDefaultField() != null
+                ? config.getDefaultField()
+                : types.entrySet().stream()
+                        .filter(e -> e.getValue() == FieldType.TEXT)
+                        .map(Map.Entry::getKey)
+                        .findFirst()
+                        .orElse(ID_FIELD);
+        Analyzer standard = new StandardAnalyzer();
+        this.analyzer = indexAnalyzers.isEmpty() ? standard : new PerFieldAnalyzerWrapper(standard, indexAnalyzers);
+        this.searchAnalyzer = searchAnalyzers.isEmpty() ? standard : new PerFieldAnalyzerWrapper(standard, searchAnalyzers);
+        this.indexSort = config.getIndexSort() == null
+                ? null
+                : new Sort(sortField(config.getIndexSort().getField(), config.getIndexSort().getOrder()));
+    }
+
+    /**
+     * Returns the configured type of a field.
+     *
+     * @param name the field name
+     * @return the field type, or {@code null} if the field is not part of the schema
+     */
+    public FieldType type(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Returns whether a field is indexed as a facet dimension.
+     *
+     * @param name the field name
+     * @return {@code true} if facet counts can be requested for the field
+     */
+    public boolean isFacet(String name) {
+        return facetFields.contains(name);
+    }
+
+    /**
+     * Returns whether the schema has any vector field.
+     *
+     * @return {@code true} if the index needs per-field vector formats
+     */
+    public boolean hasVectorFields() {
+        return !vectorFields.isEmpty();
+    }
+
+    /**
+     * Returns the vector format a field is written with.
+     *
+     * @param name the field name
+     * @return the format, or {@code null} if the field is not a vector field
+     */
+    public KnnVectorsFormat vectorsFormat(String name) {
+        VectorField field = vectorFields.get(name);
+        return field == null ? null : field.format();
+    }
+
+    /**
+     * Builds an approximate nearest-neighbour query.
+     *
+     * <p>The filter is applied while the HNSW graph is searched rather than after it, so the
+     * query still finds {@code candidates} nearest matching documents when the filter is
+     * selective. For quantized formats the candidates are rescored with the full-precision
+     * vectors, so raising {@code candidates} oversamples and recovers the recall lost
+     * to quantization.
+     *
+     * @param name       the vector field
+     * @param vector     the query vector
+     * @param candidates how many nearest neighbours to find per segment
+     * @param filter     query documents must match, or {@code null}
+     * @return the query
+     * @throws IllegalArgumentException if the field is not a vector field or dimensions differ
+     */
+    public Query knnQuery(String name, float[] vector, int candidates, Query filter) {
+        VectorField field = vectorFields.get(name);
+        if (field == null) {
+            throw new IllegalArgumentException("Field '" + name + "' is not a vector field");
+        }
+        field.check(vector);
+        Query query = new KnnFloatVectorQuery(name, vector, candidates, filter);
+        return field.quantized()
+                ? RescoreTopNQuery.createFullPrecisionRescorerQuery(query, vector, name, candidates)
+                : query;
+    }
+
+    /**
+     * Converts a source document into a Lucene document.
+     *
+     * <p>Text and keyword fields accept arrays; numeric fields are single-valued because
+     * they are sortable. An {@value #ID_FIELD} value, if present, is indexed so that
+     * re-sending the document replaces the previous version.
+     *
+     * @param source field values as read by {@link org.example.utils.JsonUtil#readObject}
+     * @return the Lucene document
+     * @throws IllegalArgumentException if a field is unknown or has the wrong shape
+     */
+    public Document toDocument(Map<String, Object> source) {
+        Document document = new Document();
+        for (var entry : source.entrySet()) {
+            String name = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (ID_FIELD.equals(name)) {
+                document.add(new StringField(ID_FIELD, value.toString(), Field.Store.YES));
+                continue;
+            }
+            FieldType type = fields.get(name);
+            if (type == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'");
+            }
+            if (type == FieldType.VECTOR) {
+                VectorField vector = vectorFields.get(name);
+                document.add(new KnnFloatVectorField(name, vector.check(toVector(name, value)), vector.similarity()));
+            } else if (value instanceof List<?> values) {
+                if (type == FieldType.LONG || type == FieldType.DOUBLE) {
+                    throw new IllegalArgumentException("Field '" + name + "' is single-valued");
+                }
+                for (Object element : values) {
+                    addField(document, name, type, element);
+                }
+            } else {
+                addField(document, name, type, value);
+            }
+        }
+        if (facetFields.isEmpty()) {
+            return document;
+        }
+        try {
+            return facetsConfig.build(document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void addField(Document document, String name, FieldType type, Object value) {
+        switch (type) {
+            case TEXT -> document.add(new TextField(name, value.toString(), Field.Store.YES));
+            case KEYWORD -> {
+                String keyword = value.toString();
+                document.add(new StringField(name, keyword, Field.Store.YES));
+                document.add(new SortedSetDocValuesField(name, new BytesRef(keyword)));
+                if (facetFields.contains(name)) {
+                    document.add(new SortedSetDocValuesFacetField(name, keyword));
+                }
+            }
+            case LONG -> {
+                long number = toNumber(name, value).longValue();
+                document.add(new LongPoint(name, number));
+                document.add(new NumericDocValuesField(name, number));
+                document.add(new StoredField(name, number));
+            }
+            case DOUBLE -> {
+                double number = toNumber(name, value).doubleValue();
+                document.add(new DoublePoint(name, number));
+                document.add(new DoubleDocValuesField(name, number));
+                document.add(new StoredField(name, number));
+            }
+            case VECTOR -> throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Converts a JSON array of numbers into a vector.
+     *
+     * @param name  the field name, for error messages
+     * @param value the parsed JSON value
+     * @return the vector
+     * @throws IllegalArgumentException if the value is not an array of numbers
+     */
+    public static float[] toVector(String name, Object value) {
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Field '" + name + "' expects an array of numbers");
+        }
+        float[] vector = new float[list.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = toNumber(name, list.get(i)).floatValue();
+        }
+        return vector;
+    }
+
+    private static Number toNumber(String name, Object value) {
+        if (value instanceof Number number) {
+            return number;
+        }
+        throw new IllegalArgumentException("Field '" + name + "' expects a number but got '" + value + "'");
+    }
+
+    /**
+     * Parses a query string using the standard query syntax.
+     *
+     * <p>Numeric fields are registered with the parser so that range clauses such as
+     * {@code timestamp:[1000 TO 2000]} become point queries.
+     *
+     * @param query the query string; {@code null} or blank matches all documents
+     * @return the parsed query
+     * @throws IllegalArgumentException if the query cannot be parsed
+     */
+    public Query parseQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return new MatchAllDocsQuery();
+        }
+        var parser = new StandardQueryParser(searchAnalyzer);
+        Map<String, PointsConfig> points = new HashMap<>();
+        var format = new DecimalFormat("#", DecimalFormatSymbols.getInstance(Locale.ROOT));
+        fields.forEach((name, type) -> {
+            if (type == FieldType.LONG) {
+                points.put(name, new PointsConfig(format, Long.class));
+            } else if (type == FieldType.DOUBLE) {
+                points.put(name, new PointsConfig(format, Double.class));
+            }
+        });
+        parser.setPointsConfigMap(points);
+        try {
+            return parser.parse(query, defaultField);
+        } catch (QueryNodeException e) {
+            throw new IllegalArgumentException("Invalid query: " + e.getMessage(), e);
+        } catch (TooComplexToDeterminizeException | IndexSearcher.TooManyClauses e) {
+            throw new IllegalArgumentException("Query is too complex: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds the sort field for a schema field.
+     *
+     * @param name  the field name
+     * @param order the sort direction
+     * @return a sort field reading the doc values the field is indexed with
+     * @throws IllegalArgumentException if the field is unknown or not sortable
+     */
+    public SortField sortField(String name, SortOrder order) {
+        FieldType type = fields.get(name);
+        if (type == null || !type.isSortable()) {
+            throw new IllegalArgumentException("Field '" + name + "' is not a sortable field");
+        }
+        return switch (type) {
+            case KEYWORD -> new SortedSetSortField(name, order.isReverse());
+            case LONG -> new SortField(name, SortField.Type.LONG, order.isReverse());
+            case DOUBLE -> new SortField(name, SortField.Type.DOUBLE, order.isReverse());
+            case TEXT, VECTOR -> throw new IllegalStateException();
+        };
+    }
+
+    private record VectorField(int dimensions, VectorSimilarityFunction similarity, KnnVectorsFormat format,
+                               boolean quantized) {
+
+        static VectorField of(FieldConfig config) {
+            if (config.getDimensions() == null || config.getDimensions() <= 0) {
+                throw new IllegalArgumentException("Vector field '" + config.getName() + "' requires 'dimensions'");
+            }
+            var similarity = switch (config.getSimilarity()) {
+                case COSINE -> VectorSimilarityFunction.COSINE;
+                case DOT_PRODUCT -> VectorSimilarityFunction.DOT_PRODUCT;
+                case EUCLIDEAN -> VectorSimilarityFunction.EUCLIDEAN;
+                case MAXIMUM_INNER_PRODUCT -> VectorSimilarityFunction.MAXIMUM_INNER_PRODUCT;
+            };
+            int m = config.getHnswM();
+            int beamWidth = config.getHnswBeamWidth();
+            KnnVectorsFormat format = switch (config.getVectorFormat()) {
+                case HNSW -> new Lucene99HnswVectorsFormat(m, beamWidth);
+                case INT8_HNSW -> new Lucene99HnswScalarQuantizedVectorsFormat(m, beamWidth, 1, 7, false, null, null);
+                case INT4_HNSW -> new Lucene99HnswScalarQuantizedVectorsFormat(m, beamWidth, 1, 4, true, null, null);
+                case BBQ_HNSW -> new Lucene102HnswBinaryQuantizedVectorsFormat(m, beamWidth);
+            };
+            return new VectorField(config.getDimensions(), similarity, format,
+                    config.getVectorFormat() != VectorFormat.HNSW);
+        }
+
+        float[] check(float[] vector) {
+            if (vector.length != dimensions) {
+                throw new IllegalArgumentException("Expected a vector of " + dimensions
+                        + " dimensions but got " + vector.length);
+            }
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.index;
+
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the facet reader state of each searcher generation.
+ *
+ * <p>Building a {@link SortedSetDocValuesReaderState} creates the global ordinal map over
+ * all segments, which costs time proportional to the number of unique facet labels. The
+ * state is only valid for the reader it was built from, so it is built once per reader,
+ * shared by all concurrent searches on it and dropped when the reader closes.
+ */
+final class FacetStateCache {
+    private final FacetsConfig facetsConfig;
+    private final Map<IndexReader.CacheKey, SortedSetDocValuesReaderState> states = new ConcurrentHashMap<>();
+
+    FacetStateCache(FacetsConfig facetsConfig) {
+        this.facetsConfig = facetsConfig;
+    }
+
+    /**
+     * Returns the facet state of a reader, building it on first use.
+     *
+     * @param reader the top-level reader of a searcher
+     * @return the state, or {@code null} if no document in the reader has facet values
+     * @throws IOException if building the state fails
+     */
+    SortedSetDocValuesReaderState get(IndexReader reader) throws IOException {
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return build(reader);
+        }
+        try {
+            return states.computeIfAbsent(cacheHelper.getKey(), key -> {
+                try {
+                    SortedSetDocValuesReaderState state = build(reader);
+                    if (state != null) {
+                        cacheHelper.addClosedListener(states::remove);
+                    }
+                    return state;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private SortedSetDocValuesReaderState build(IndexReader reader) throws IOException {
+        if (FieldInfos.getMergedFieldInfos(reader).fieldInfo(FacetsConfig.DEFAULT_INDEX_FIELD_NAME) == null) {
+            return null;
+        }
+        return new DefaultSortedSetDocValuesReaderState(reader, FacetsConfig.DEFAULT_INDEX_FIELD_NAME, facetsConfig);
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.index;
+
+import org.example.metrics.MetricsSource;
+import org.example.metrics.PrometheusWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Gauges of the size of every index, read from its current searcher when scraped. Only
+ * the summary of {@link IndexStats} is read. Segment sizes come from the lengths of their
+ * files, which Lucene reads from the directory the first time a segment is sized and
+ * caches afterwards, so a scrape after a refresh or merge does a few file-length lookups
+ * on the metrics event loop.
+ */
+public final class IndexMetrics implements MetricsSource {
+    private static final Logger logger = LoggerFactory.getLogger(IndexMetrics.class);
+
+    private final IndexRegistry indices;
+
+    public IndexMetrics(IndexRegistry indices) {
+        this.indices = indices;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        List<IndexStats> stats = new ArrayList<>();
+        for (ManagedIndex index : indices.all()) {
+            try {
+                stats.add(index.stats(false));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to read stats of index '{}'", index.getName(), e);
+            }
+        }
+        metric(out, stats, "minisearch_index_docs", "gauge", "Live documents.", IndexStats::docs);
+        metric(out, stats, "minisearch_index_deleted_docs", "gauge",
+                "Deleted documents not merged away yet.", IndexStats::deletedDocs);
+        metric(out, stats, "minisearch_index_size_bytes", "gauge", "Size on disk of the searched segments.",
+                IndexStats::sizeBytes);
+        metric(out, stats, "minisearch_index_segments", "gauge", "Searched segments.", IndexStats::segmentCount);
+        metric(out, stats, "minisearch_index_writer_ram_bytes", "gauge", "Heap used by the indexing buffer.",
+                IndexStats::writerRamBytes);
+        metric(out, stats, "minisearch_index_merges_total", "counter", "Completed merges.",
+                s -> s.merges().total());
+        metric(out, stats, "minisearch_index_merged_bytes_total", "counter", "Bytes of the merged segments.",
+                s -> s.merges().bytes());
+        out.family("minisearch_index_merge_seconds_total", "counter", "Time spent merging.");
+        for (IndexStats index : stats) {
+            out.sample("minisearch_index_merge_seconds_total", new String[]{"index", index.name()},
+                    index.merges().millis() / 1e3);
+        }
+    }
+
+    private static void metric(PrometheusWriter out, List<IndexStats> stats, String name, String type, String help,
+                              ToLongFunction<IndexStats> value) {
+        out.family(name, type, help);
+        for (IndexStats index : stats) {
+            out.sample(name, new String[]{"index", index.name()}, value.applyAsLong(index));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.index;
+
+import lombok.Getter;
+import org.apache.lucene.util.IOUtils;
+import org.example.analysis.AnalysisRegistry;
+import org.example.config.IndexConfig;
+import org.example.config.Lucene;
+import org.example.config.ReplicationRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Opens and owns all indices declared in the {@link Lucene} configuration.
+ *
+ * <p>Each index lives in its own sub-directory of {@link Lucene#getDataStore()}. All indices
+ * share the replication role of the node and the configured analyzers.
+ */
+public final class IndexRegistry implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(IndexRegistry.class);
+
+    private final Map<String, ManagedIndex> indices;
+    @Getter
+    private final AnalysisRegistry analysis;
+
+    /**
+     * Opens every configured index.
+     *
+     * @param config         the Lucene configuration
+     * @param searchExecutor executor shared by all searchers for concurrent segment search
+     * @throws IOException if an index cannot be opened
+     */
+    public IndexRegistry(Lucene config, Executor searchExecutor) throws IOException {
+        Path root = Path.of(config.getDataStore());
+        ReplicationRole role = config.getReplication() == null ? null : config.getReplication().getRole();
+        this.analysis = new AnalysisRegistry(config.getSynonyms(), config.getAnalyzers());
+        Map<String, ManagedIndex> opened = new LinkedHashMap<>();
+        try {
+            for (IndexConfig index : config.getIndices()) {
+                if (opened.containsKey(index.getName())) {
+                    throw new IllegalArgumentException("Duplicate index name " + index.getName());
+                }
+                opened.put(index.getName(), new ManagedIndex(index, root.resolve(index.getName()), searchExecutor, role, analysis));
+            }
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeWhileHandlingException(opened.values());
+            IOUtils.closeWhileHandlingException(analysis);
+            throw e;
+        }
+        this.indices = Map.copyOf(opened);
+    }
+
+    /**
+     * Looks up an index by name.
+     *
+     * @param name the index name
+     * @return the index
+     * @throws IllegalArgumentException if no index with that name is configured
+     */
+    public ManagedIndex get(String name) {
+        ManagedIndex index = name == null ? null : indices.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown index '" + name + "'");
+        }
+        return index;
+    }
+
+    /**
+     * Returns all open indices.
+     *
+     * @return the indices
+     */
+    public Collection<ManagedIndex> all() {
+        return indices.values();
+    }
+
+    /**
+     * Warms the current searcher of every index. Warming is best effort: a failure is
+     * logged and the remaining queries and indices are still warmed.
+     *
+     * @return how many warm-up queries or indices failed to warm
+     */
+    public int warmUp() {
+        int failed = 0;
+        for (ManagedIndex index : indices.values()) {
+            try {
+                failed += index.warmUp();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to warm up index {}", index.getName(), e);
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (analysis) {
+            IOUtils.close(indices.values());
+        }
+    }
+}
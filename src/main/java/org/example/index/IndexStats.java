@@ -0,0 +1,319 @@
+package org.example.index;
+
+import org.apache.lucene.codecs.CompoundDirectory;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Accountable;
+import tools.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A point-in-time report of an index for capacity planning: documents, size on disk by
+ * kind of data, heap used, and merges, for the whole index and optionally per segment.
+ *
+ * <p>Lucene stores the data of all fields of a segment in shared files, so the size on
+ * disk is broken down by kind of data (postings, doc values, stored fields and so on)
+ * rather than by field. Fields report the statistics their terms dictionary keeps
+ * instead, which cost nothing to read.
+ *
+ * <p>Since Lucene 10, segment readers keep almost nothing on the heap and most no longer
+ * report it; {@code ram_bytes} covers the readers that still do, such as vector readers.
+ * The heap of an index is dominated by its writer's indexing buffer, reported as
+ * {@code writer_ram_bytes}.
+ *
+ * @param name           the index name
+ * @param generation     the generation of the searcher the report was read from
+ * @param docs           live documents
+ * @param deletedDocs    deleted documents not merged away yet
+ * @param sizeBytes      size on disk of the searched segments
+ * @param segmentCount   the number of searched segments
+ * @param writerRamBytes heap used by the writer's indexing buffer, 0 for replicas
+ * @param sizeByType     size on disk per kind of data; empty unless segments are reported
+ * @param segments       the segments, or an empty list if not requested
+ * @param merges         the merges of this index since it was opened
+ */
+public record IndexStats(String name, long generation, long docs, long deletedDocs, long sizeBytes,
+                         int segmentCount, long writerRamBytes, Map<String, Long> sizeByType, List<Segment> segments, Merges merges) {
+
+    /**
+     * A segment of the searcher.
+     *
+     * @param name        the segment name
+     * @param docs        live documents
+     * @param deletedDocs deleted documents
+     * @param sizeBytes   size on disk
+     * @param compound    whether the segment is stored in a compound file
+     * @param source      how the segment was written: {@code flush}, {@code merge} or {@code addIndexes}
+     * @param ramBytes    heap used by the readers that report it
+     * @param sizeByType  size on disk per kind of data
+     * @param fields      statistics of the fields of the segment
+     */
+    public record Segment(String name, int docs, int deletedDocs, long sizeBytes, boolean compound, String source,
+                          long ramBytes, Map<String, Long> sizeByType, List<Field> fields) {
+    }
+
+    /**
+     * Statistics of a field in a segment.
+     *
+     * @param name             the field name
+     * @param terms            distinct terms, or -1 if unknown or not indexed
+     * @param sumDocFreq       sum of the document frequencies of the terms, or -1
+     * @param sumTotalTermFreq sum of the occurrences of the terms, or -1
+     * @param docValues        the doc values type, or {@code null} if none
+     * @param points           whether the field is indexed as points
+     * @param vectorDimension  the vector dimension, or 0 if the field has no vectors
+     */
+    public record Field(String name, long terms, long sumDocFreq, long sumTotalTermFreq, String docValues,
+                        boolean points, int vectorDimension) {
+    }
+
+    /**
+     * A completed merge.
+     *
+     * @param endEpochMillis when it completed
+     * @param tookMillis     how long it took
+     * @param segments       how many segments were merged
+     * @param docs           documents in the merged segments, including deleted ones
+     * @param inputBytes     size of the merged segments
+     * @param outputBytes    size of the resulting segment
+     */
+    public record Merge(long endEpochMillis, long tookMillis, int segments, int docs, long inputBytes,
+                        long outputBytes) {
+    }
+
+    /**
+     * Merge totals and the most recent merges, oldest first.
+     *
+     * @param total  completed merges
+     * @param docs   documents merged
+     * @param bytes  bytes merged
+     * @param millis time spent merging
+     * @param recent the most recent merges
+     */
+    public record Merges(long total, long docs, long bytes, long millis, List<Merge> recent) {
+        static final Merges NONE = new Merges(0, 0, 0, 0, List.of());
+    }
+
+    /** File extensions by the kind of data they hold. */
+    private static final Map<String, String> TYPES = Map.ofEntries(
+            Map.entry("tim", "postings"), Map.entry("tip", "postings"), Map.entry("tmd", "postings"),
+            Map.entry("doc", "postings"), Map.entry("pos", "postings"), Map.entry("pay", "postings"),
+            Map.entry("psm", "postings"),
+            Map.entry("dvd", "doc_values"), Map.entry("dvm", "doc_values"),
+            Map.entry("fdt", "stored_fields"), Map.entry("fdx", "stored_fields"), Map.entry("fdm", "stored_fields"),
+            Map.entry("nvd", "norms"), Map.entry("nvm", "norms"),
+            Map.entry("kdd", "points"), Map.entry("kdi", "points"), Map.entry("kdm", "points"),
+            Map.entry("vec", "vectors"), Map.entry("vem", "vectors"), Map.entry("vex", "vectors"),
+            Map.entry("veq", "vectors"), Map.entry("vemq", "vectors"), Map.entry("vemf", "vectors"),
+            Map.entry("veb", "vectors"), Map.entry("vemb", "vectors"),
+            Map.entry("tvd", "term_vectors"), Map.entry("tvx", "term_vectors"), Map.entry("tvm", "term_vectors"),
+            Map.entry("liv", "live_docs"));
+
+    /**
+     * Reads the report from an acquired searcher.
+     *
+     * @param name           the index name
+     * @param searcher       the searcher
+     * @param directory      the directory of the index
+     * @param writerRamBytes heap used by the writer
+     * @param merges         the merge history
+     * @param withSegments   whether to report segments and sizes per kind of data, which
+     *                       reads the length of every file
+     * @return the report
+     * @throws IOException if reading segment files fails
+     */
+    static IndexStats read(String name, IndexSearcher searcher, Directory directory, long writerRamBytes,
+                           Merges merges, boolean withSegments) throws IOException {
+        long docs = 0;
+        long deletedDocs = 0;
+        long sizeBytes = 0;
+        Map<String, Long> sizeByType = new TreeMap<>();
+        List<Segment> segments = new ArrayList<>();
+        for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+            docs += leaf.reader().numDocs();
+            deletedDocs += leaf.reader().numDeletedDocs();
+            if (!(FilterLeafReader.unwrap(leaf.reader()) instanceof SegmentReader reader)) {
+                continue;
+            }
+            SegmentCommitInfo info = reader.getSegmentInfo();
+            sizeBytes += info.sizeInBytes();
+            if (withSegments) {
+                Segment segment = segment(reader, info, directory);
+                segment.sizeByType().forEach((type, bytes) -> sizeByType.merge(type, bytes, Long::sum));
+                segments.add(segment);
+            }
+        }
+        return new IndexStats(name, ManagedIndex.generation(searcher), docs, deletedDocs, sizeBytes,
+                searcher.getIndexReader().leaves().size(), writerRamBytes, sizeByType, segments, merges);
+    }
+
+    private static Segment segment(SegmentReader reader, SegmentCommitInfo info, Directory directory)
+            throws IOException {
+        Map<String, Long> sizeByType = new TreeMap<>();
+        for (String file : info.files()) {
+            String extension = IndexFileNames.getExtension(file);
+            if ("cfs".equals(extension)) {
+                try (CompoundDirectory compound = info.info.getCodec().compoundFormat()
+                        .getCompoundReader(directory, info.info)) {
+                    for (String inner : compound.listAll()) {
+                        add(sizeByType, IndexFileNames.getExtension(inner), compound.fileLength(inner));
+                    }
+                }
+            } else if (!"cfe".equals(extension)) {
+                try {
+                    add(sizeByType, extension, directory.fileLength(file));
+                } catch (NoSuchFileException e) {
+                    // superseded live docs or field infos of a segment that was updated since
+                }
+            }
+        }
+        List<Field> fields = new ArrayList<>();
+        for (FieldInfo field : reader.getFieldInfos()) {
+            fields.add(field(reader, field));
+        }
+        return new Segment(info.info.name, reader.numDocs(), reader.numDeletedDocs(), info.sizeInBytes(),
+                info.info.getUseCompoundFile(), info.info.getDiagnostics().getOrDefault("source", "unknown"),
+                ramBytes(reader), sizeByType, fields);
+    }
+
+    private static void add(Map<String, Long> sizeByType, String extension, long bytes) {
+        sizeByType.merge(TYPES.getOrDefault(extension, "other"), bytes, Long::sum);
+    }
+
+    private static Field field(CodecReader reader, FieldInfo field) throws IOException {
+        long terms = -1;
+        long sumDocFreq = -1;
+        long sumTotalTermFreq = -1;
+        if (field.getIndexOptions() != IndexOptions.NONE) {
+            Terms fieldTerms = reader.terms(field.getName());
+            if (fieldTerms != null) {
+                terms = fieldTerms.size();
+                sumDocFreq = fieldTerms.getSumDocFreq();
+                sumTotalTermFreq = fieldTerms.getSumTotalTermFreq();
+            }
+        }
+        String docValues = field.getDocValuesType() == DocValuesType.NONE
+                ? null
+                : field.getDocValuesType().name().toLowerCase(Locale.ROOT);
+        return new Field(field.getName(), terms, sumDocFreq, sumTotalTermFreq, docValues,
+                field.getPointDimensionCount() > 0, field.hasVectorValues() ? field.getVectorDimension() : 0);
+    }
+
+    private static long ramBytes(CodecReader reader) {
+        long bytes = 0;
+        for (Object producer : new Object[]{reader.getPostingsReader(), reader.getDocValuesReader(),
+                reader.getNormsReader(), reader.getFieldsReader(), reader.getPointsReader(),
+                reader.getVectorReader(), reader.getTermVectorsReader()}) {
+            if (producer instanceof Accountable accountable) {
+                bytes += accountable.ramBytesUsed();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes this report as a JSON object.
+     *
+     * @param generator the generator to write to
+     */
+    public void writeTo(JsonGenerator generator) {
+        generator.writeStartObject();
+        generator.writeNumberProperty("generation", generation);
+        generator.writeNumberProperty("docs", docs);
+        generator.writeNumberProperty("deleted_docs", deletedDocs);
+        generator.writeNumberProperty("size_bytes", sizeBytes);
+        generator.writeNumberProperty("segment_count", segmentCount);
+        generator.writeNumberProperty("writer_ram_bytes", writerRamBytes);
+        if (!segments.isEmpty()) {
+            writeSizes(generator, sizeByType);
+        }
+        generator.writeName("merges");
+        generator.writeStartObject();
+        generator.writeNumberProperty("total", merges.total());
+        generator.writeNumberProperty("docs", merges.docs());
+        generator.writeNumberProperty("bytes", merges.bytes());
+        generator.writeNumberProperty("millis", merges.millis());
+        generator.writeName("recent");
+        generator.writeStartArray();
+        for (Merge merge : merges.recent()) {
+            generator.writeStartObject();
+            generator.writeNumberProperty("end_epoch_millis", merge.endEpochMillis());
+            generator.writeNumberProperty("took_millis", merge.tookMillis());
+            generator.writeNumberProperty("segments", merge.segments());
+            generator.writeNumberProperty("docs", merge.docs());
+            generator.writeNumberProperty("input_bytes", merge.inputBytes());
+            generator.writeNumberProperty("output_bytes", merge.outputBytes());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        if (!segments.isEmpty()) {
+            generator.writeName("segments");
+            generator.writeStartArray();
+            for (Segment segment : segments) {
+                writeSegment(generator, segment);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeSegment(JsonGenerator generator, Segment segment) {
+        generator.writeStartObject();
+        generator.writeStringProperty("name", segment.name());
+        generator.writeNumberProperty("docs", segment.docs());
+        generator.writeNumberProperty("deleted_docs", segment.deletedDocs());
+        generator.writeNumberProperty("size_bytes", segment.sizeBytes());
+        generator.writeBooleanProperty("compound", segment.compound());
+        generator.writeStringProperty("source", segment.source());
+        generator.writeNumberProperty("ram_bytes", segment.ramBytes());
+        writeSizes(generator, segment.sizeByType());
+        generator.writeName("fields");
+        generator.writeStartObject();
+        for (Field field : segment.fields()) {
+            generator.writeName(field.name());
+            generator.writeStartObject();
+            if (field.terms() >= 0 || field.sumDocFreq() >= 0) {
+                generator.writeNumberProperty("terms", field.terms());
+                generator.writeNumberProperty("sum_doc_freq", field.sumDocFreq());
+                generator.writeNumberProperty("sum_total_term_freq", field.sumTotalTermFreq());
+            }
+            if (field.docValues() != null) {
+                generator.writeStringProperty("doc_values", field.docValues());
+            }
+            if (field.points()) {
+                generator.writeBooleanProperty("points", true);
+            }
+            if (field.vectorDimension() > 0) {
+                generator.writeNumberProperty("vector_dimension", field.vectorDimension());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private static void writeSizes(JsonGenerator generator, Map<String, Long> sizeByType) {
+        generator.writeName("size_bytes_by_type");
+        generator.writeStartObject();
+        sizeByType.forEach(generator::writeNumberProperty);
+        generator.writeEndObject();
+    }
+}
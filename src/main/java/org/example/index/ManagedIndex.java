@@ -0,0 +1,591 @@
+package org.example.index;
+
+import lombok.Getter;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene103.Lucene103Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.KeepOnlyLastCommitDeletionPolicy;
+import org.apache.lucene.index.QueryTimeout;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.SlowCodecReaderWrapper;
+import org.apache.lucene.index.SnapshotDeletionPolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherLifetimeManager;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.example.analysis.AnalysisRegistry;
+import org.example.config.IndexConfig;
+import org.example.config.ReplicationRole;
+import org.example.config.StoredFieldsCompression;
+import org.example.jfr.CommitEvent;
+import org.example.jfr.RefreshEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * A single Lucene index with its writer and near-real-time searcher.
+ *
+ * <p>Writes go straight to the shared {@link IndexWriter}; they become visible to
+ * searches after {@link #refresh()} and durable after {@link #commit()}. Searchers
+ * are reference counted and must be returned with {@link #release(IndexSearcher)}.
+ *
+ * <p>Searchers handed out for cursor pagination can be leased: a leased searcher stays
+ * acquirable by its generation for {@link IndexConfig#getCursorLeaseSeconds()} after it
+ * was last leased, so follow-up pages read the same point-in-time view. Only searchers
+ * that actually issued a cursor are leased; refreshes release the others right away.
+ *
+ * <p>Commits can be pinned with {@link #snapshot()} so that their files stay on disk while
+ * they are copied elsewhere, even if later commits and merges make them obsolete.
+ * While {@link #restore(IndexCommit)} replaces the content of the index, writes, refreshes
+ * and commits are rejected, so that none of them lands in or exposes a half-restored index.
+ *
+ * <p>Every searcher a refresh opens is warmed before it replaces the current one: the
+ * configured {@link IndexConfig#getWarmupQueries() warm-up queries} run against it and its
+ * facet ordinal map is built. The searcher opened with the index is warmed by
+ * {@link #warmUp()} instead, so that startup is not delayed.
+ *
+ * <p>Refreshes, commits and merges are recorded as flight recorder events while a
+ * recording is running; see {@link RefreshEvent}, {@link CommitEvent} and
+ * {@link TrackingMergeScheduler}.
+ *
+ * <p>A {@link ReplicationRole#REPLICA replica} index has no writer. It only searches the
+ * segments a {@link Replicator} copied from the primary, and rejects writes.
+ */
+public final class ManagedIndex implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ManagedIndex.class);
+
+    @Getter
+    private final String name;
+    @Getter
+    private final DocumentMapper mapper;
+    private final Directory directory;
+    /** {@code null} for replicas. */
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final SearcherLifetimeManager leases = new SearcherLifetimeManager();
+    private final int leaseSeconds;
+    /** When each leased generation was last leased, from {@link System#nanoTime()}. */
+    private final Map<Long, Long> leasedNanos = new ConcurrentHashMap<>();
+    private final FacetStateCache facetStates;
+    private final DocumentLoader documents;
+    private final StoredFieldsCompression storedFieldsCompression;
+    private final List<Query> warmupQueries;
+    private final Executor searchExecutor;
+    private final TrackingMergeScheduler merges;
+    private final SnapshotDeletionPolicy snapshots = new SnapshotDeletionPolicy(new KeepOnlyLastCommitDeletionPolicy());
+    /** Held shared by writes, refreshes and commits, and exclusively by a restore. */
+    private final ReentrantReadWriteLock restoreLock = new ReentrantReadWriteLock();
+    private final AtomicInteger pendingRestores = new AtomicInteger();
+
+    /**
+     * Opens the index at the given path, creating it if it does not exist yet.
+     *
+     * @param config         the index configuration
+     * @param path           the directory holding the index files
+     * @param searchExecutor executor used to search segments concurrently, or {@code null}
+     * @throws IOException if the index cannot be opened
+     * @throws IllegalArgumentException if the configuration conflicts with the existing index
+     */
+    public ManagedIndex(IndexConfig config, Path path, Executor searchExecutor) throws IOException {
+        this(config, path, searchExecutor, null, AnalysisRegistry.EMPTY);
+    }
+
+    /**
+     * Opens the index at the given path for a replication role.
+     *
+     * <p>A primary writes deletes to disk on every refresh, so that replicas copying its
+     * searcher see them too. A replica opens the index read-only.
+     *
+     * @param config         the index configuration
+     * @param path           the directory holding the index files
+     * @param searchExecutor executor used to search segments concurrently, or {@code null}
+     * @param role           the replication role, or {@code null} for a standalone index
+     * @param analysis       the analyzers text fields may refer to
+     * @throws IOException if the index cannot be opened
+     * @throws IllegalArgumentException if the configuration conflicts with the existing index,
+     *                                  or a primary has no cursor lease for replicas to copy under
+     */
+    public ManagedIndex(IndexConfig config, Path path, Executor searchExecutor, ReplicationRole role,
+                        AnalysisRegistry analysis) throws IOException {
+        if (role == ReplicationRole.PRIMARY && config.getCursorLeaseSeconds() <= 0) {
+            throw new IllegalArgumentException("Index " + config.getName()
+                    + " requires a positive 'cursor-lease-seconds' on a primary, replicas copy leased searchers");
+        }
+        this.name = config.getName();
+        this.merges = new TrackingMergeScheduler(name);
+        this.mapper = new DocumentMapper(config, analysis);
+        this.leaseSeconds = config.getCursorLeaseSeconds();
+        this.facetStates = new FacetStateCache(mapper.getFacetsConfig());
+        this.documents = new DocumentLoader(mapper, config.getDocumentCacheSize());
+        this.storedFieldsCompression = config.getStoredFieldsCompression();
+        this.warmupQueries = config.getWarmupQueries().stream().map(mapper::parseQuery).toList();
+        this.searchExecutor = searchExecutor;
+        this.directory = FSDirectory.open(path);
+        var searcherFactory = new SearcherFactory() {
+            @Override
+            public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) throws IOException {
+                var searcher = new IndexSearcher(reader, searchExecutor);
+                if (previousReader != null) {
+                    warm(searcher);
+                }
+                return searcher;
+            }
+        };
+        try {
+            if (role == ReplicationRole.REPLICA) {
+                this.writer = null;
+                if (!DirectoryReader.indexExists(directory)) {
+                    // an empty commit to search until the first copy from the primary arrives
+                    new IndexWriter(directory, writerConfig()).close();
+                }
+                this.searcherManager = new SearcherManager(directory, searcherFactory);
+            } else {
+                this.writer = new IndexWriter(directory, writerConfig().setMergeScheduler(merges));
+                this.searcherManager = new SearcherManager(writer, true, role == ReplicationRole.PRIMARY, searcherFactory);
+            }
+        } catch (IOException | RuntimeException e) {
+            directory.close();
+            throw e;
+        }
+    }
+
+    private IndexWriterConfig writerConfig() {
+        var writerConfig = new IndexWriterConfig(mapper.getAnalyzer())
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setIndexDeletionPolicy(snapshots);
+        if (mapper.getIndexSort() != null) {
+            writerConfig.setIndexSort(mapper.getIndexSort());
+        }
+        Lucene103Codec.Mode mode = switch (storedFieldsCompression) {
+            case BEST_SPEED -> Lucene103Codec.Mode.BEST_SPEED;
+            case BEST_COMPRESSION -> Lucene103Codec.Mode.BEST_COMPRESSION;
+        };
+        writerConfig.setCodec(!mapper.hasVectorFields() ? new Lucene103Codec(mode) : new Lucene103Codec(mode) {
+            @Override
+            public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                KnnVectorsFormat format = mapper.vectorsFormat(field);
+                return format != null ? format : super.getKnnVectorsFormatForField(field);
+            }
+        });
+        return writerConfig;
+    }
+
+    /**
+     * Returns whether this index is a read-only replica.
+     *
+     * @return {@code true} if writes are rejected
+     */
+    public boolean isReplica() {
+        return writer == null;
+    }
+
+    /**
+     * Adds a document, replacing any previous document with the same id.
+     *
+     * @param document the document to index
+     * @throws IOException if the write fails
+     */
+    public void index(Document document) throws IOException {
+        IndexWriter writer = writer();
+        String id = document.get(DocumentMapper.ID_FIELD);
+        Lock lock = lockAgainstRestore();
+        try {
+            if (id == null) {
+                writer.addDocument(document);
+            } else {
+                writer.updateDocument(new Term(DocumentMapper.ID_FIELD, id), document);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes all writes so far visible to newly acquired searchers.
+     *
+     * @throws IOException if reopening the reader fails
+     */
+    public void refresh() throws IOException {
+        Lock lock = lockAgainstRestore();
+        try {
+            refreshSearcher();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshSearcher() throws IOException {
+        var event = new RefreshEvent();
+        event.begin();
+        searcherManager.maybeRefreshBlocking();
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = name;
+            event.commit();
+        }
+        if (leaseSeconds > 0) {
+            leases.prune((ageSec, searcher) -> leaseExpired(searcher));
+        }
+    }
+
+    /**
+     * Warms the current searcher the way refreshes warm each new one. Meant to run once
+     * after the index was opened, before it receives traffic.
+     *
+     * @return how many warm-up queries failed
+     * @throws IOException if the searcher or its facet state cannot be loaded
+     */
+    public int warmUp() throws IOException {
+        IndexSearcher searcher = acquire();
+        try {
+            return warm(searcher);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    private int warm(IndexSearcher searcher) throws IOException {
+        int failed = 0;
+        for (Query query : warmupQueries) {
+            // best effort: a cold cache only costs latency, so one failing query does not stop the others
+            try {
+                searcher.search(query, 10);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Warm-up query {} failed on index {}", query, name, e);
+                failed++;
+            }
+        }
+        facetStates.get(searcher.getIndexReader());
+        return failed;
+    }
+
+    /**
+     * Durably commits all writes so far.
+     *
+     * @throws IOException if the commit fails
+     */
+    public void commit() throws IOException {
+        commitWriter();
+    }
+
+    /**
+     * Commits pending writes and pins the resulting commit. Its files are not deleted
+     * until the snapshot is passed to {@link #releaseSnapshot(IndexCommit)}.
+     *
+     * @return the pinned commit
+     * @throws IOException if the commit fails
+     */
+    public IndexCommit snapshot() throws IOException {
+        commitWriter();
+        return snapshots.snapshot();
+    }
+
+    private void commitWriter() throws IOException {
+        IndexWriter writer = writer();
+        var event = new CommitEvent();
+        Lock lock = lockAgainstRestore();
+        long sequenceNumber;
+        try {
+            event.begin();
+            sequenceNumber = writer.commit();
+            event.end();
+        } finally {
+            lock.unlock();
+        }
+        if (event.shouldCommit()) {
+            event.index = name;
+            event.sequenceNumber = sequenceNumber;
+            event.commit();
+        }
+    }
+
+    /**
+     * Releases a commit pinned by {@link #snapshot()} and deletes files no longer needed.
+     *
+     * @param commit the pinned commit
+     * @throws IOException if deleting files fails
+     */
+    public void releaseSnapshot(IndexCommit commit) throws IOException {
+        snapshots.release(commit);
+        writer.deleteUnusedFiles();
+    }
+
+    /**
+     * Replaces the whole content of this index with the documents of another commit,
+     * typically one of a backup. The replacement is committed and becomes visible to
+     * searches atomically with the refresh that ends the restore. The restore waits for
+     * writes in progress; writes, refreshes and commits arriving meanwhile are rejected.
+     *
+     * @param commit the commit to restore
+     * @throws IOException if reading the commit or writing the index fails
+     */
+    public void restore(IndexCommit commit) throws IOException {
+        IndexWriter writer = writer();
+        // raised before waiting for the lock, so that new writes cannot keep a restore waiting
+        pendingRestores.incrementAndGet();
+        restoreLock.writeLock().lock();
+        try (DirectoryReader reader = DirectoryReader.open(commit)) {
+            CodecReader[] leaves = new CodecReader[reader.leaves().size()];
+            for (int i = 0; i < leaves.length; i++) {
+                leaves[i] = SlowCodecReaderWrapper.wrap(reader.leaves().get(i).reader());
+            }
+            writer.deleteAll();
+            writer.addIndexes(leaves);
+            writer.commit();
+            refreshSearcher();
+        } finally {
+            restoreLock.writeLock().unlock();
+            pendingRestores.decrementAndGet();
+        }
+    }
+
+    /**
+     * Locks out restores for a write, a refresh or a commit.
+     *
+     * @return the lock to release when done
+     * @throws RejectedExecutionException if a restore is running or waiting to run
+     */
+    private Lock lockAgainstRestore() {
+        Lock lock = restoreLock.readLock();
+        if (pendingRestores.get() > 0 || !lock.tryLock()) {
+            throw new RejectedExecutionException("Index '" + name + "' is being restored");
+        }
+        return lock;
+    }
+
+    /**
+     * Makes a copy of the primary's segments the current state of this replica. The
+     * segment files must already be in this index's directory. The segments are committed
+     * locally, so a restarted replica resumes from them, and files no longer referenced
+     * are deleted.
+     *
+     * @param infos the primary's segments
+     * @throws IOException if committing or reopening fails
+     */
+    void installReplica(SegmentInfos infos) throws IOException {
+        if (!isReplica()) {
+            throw new IllegalStateException("Index '" + name + "' is not a replica");
+        }
+        // the primary's commit generation may lag behind the ones written here
+        infos.setNextWriteGeneration(Math.max(infos.getGeneration(), SegmentInfos.getLastCommitGeneration(directory)));
+        infos.commit(directory);
+        refresh();
+        Set<String> referenced = new HashSet<>(infos.files(true));
+        for (String file : directory.listAll()) {
+            if (!referenced.contains(file) && !file.equals(IndexWriter.WRITE_LOCK_NAME)) {
+                try {
+                    directory.deleteFile(file);
+                } catch (IOException e) {
+                    // still open on a platform that cannot delete open files; retried next time
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the directory holding the index files, for copying them.
+     *
+     * @return the directory
+     */
+    Directory directory() {
+        return directory;
+    }
+
+    /**
+     * Acquires the current searcher. Every call must be paired with {@link #release}.
+     *
+     * @return the current searcher
+     * @throws IOException if the searcher cannot be acquired
+     */
+    public IndexSearcher acquire() throws IOException {
+        return searcherManager.acquire();
+    }
+
+    /**
+     * Returns a view of an acquired searcher that stops searches once a timeout says so.
+     *
+     * <p>The timeout is a property of the searcher, so each request with a deadline gets
+     * its own view; views are cheap and share the reader, executor and query cache. The
+     * view must not be released; the searcher it was made from is.
+     *
+     * @param searcher a searcher acquired from this index
+     * @param timeout  the timeout to check while searching
+     * @return the view
+     */
+    public IndexSearcher withTimeout(IndexSearcher searcher, QueryTimeout timeout) {
+        IndexSearcher view = view(searcher, IndexSearcher::new);
+        view.setTimeout(timeout);
+        return view;
+    }
+
+    /**
+     * Returns a view of an acquired searcher made by a searcher subclass, such as one
+     * that profiles or times the searches it runs. Like {@link #withTimeout}, the view
+     * shares the reader, similarity and query cache and must not be released.
+     *
+     * @param searcher a searcher acquired from this index
+     * @param factory  creates the view from the reader and the search executor
+     * @param <S>      the type of the view
+     * @return the view
+     */
+    public <S extends IndexSearcher> S view(IndexSearcher searcher,
+                                            BiFunction<IndexReader, Executor, S> factory) {
+        S view = factory.apply(searcher.getIndexReader(), searchExecutor);
+        view.setSimilarity(searcher.getSimilarity());
+        view.setQueryCache(searcher.getQueryCache());
+        view.setQueryCachingPolicy(searcher.getQueryCachingPolicy());
+        return view;
+    }
+
+    /**
+     * Acquires the searcher of a specific generation if it is still leased.
+     * Every non-null result must be paired with {@link #release}.
+     *
+     * @param generation the generation returned by {@link #generation(IndexSearcher)}
+     * @return the searcher, or {@code null} if its lease expired or leasing is disabled
+     */
+    public IndexSearcher acquire(long generation) {
+        return leaseSeconds > 0 ? leases.acquire(generation) : null;
+    }
+
+    /**
+     * Pins a searcher so that it can be re-acquired by generation until its lease expires,
+     * {@link IndexConfig#getCursorLeaseSeconds()} from now. Leasing the same generation
+     * again is cheap and extends its lease.
+     *
+     * @param searcher a searcher acquired from this index
+     * @throws IOException if recording the searcher fails
+     */
+    public void lease(IndexSearcher searcher) throws IOException {
+        if (leaseSeconds > 0) {
+            leasedNanos.put(generation(searcher), System.nanoTime());
+            leases.record(searcher);
+        }
+    }
+
+    private boolean leaseExpired(IndexSearcher searcher) {
+        long generation = generation(searcher);
+        Long leased = leasedNanos.get(generation);
+        if (leased != null && System.nanoTime() - leased < TimeUnit.SECONDS.toNanos(leaseSeconds)) {
+            return false;
+        }
+        if (leased != null) {
+            leasedNanos.remove(generation, leased);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the generation of a searcher, which changes whenever a refresh exposes new writes.
+     *
+     * @param searcher a searcher acquired from this index
+     * @return the reader version of the searcher
+     */
+    public static long generation(IndexSearcher searcher) {
+        return ((DirectoryReader) searcher.getIndexReader()).getVersion();
+    }
+
+    /**
+     * Returns the facet reader state of a searcher, shared by all searches on its generation.
+     *
+     * @param searcher a searcher acquired from this index
+     * @return the state, or {@code null} if the searcher holds no facet values
+     * @throws IOException if building the state fails
+     */
+    public SortedSetDocValuesReaderState facetState(IndexSearcher searcher) throws IOException {
+        return facetStates.get(searcher.getIndexReader());
+    }
+
+    /**
+     * Loads the fields of documents of a searcher, such as the hits of a search.
+     *
+     * <p>Listed numeric fields are read from doc values and other listed fields with a
+     * visitor that skips the unlisted ones. Documents may come from the
+     * {@link IndexConfig#getDocumentCacheSize() document cache} and must not be modified.
+     *
+     * @param searcher a searcher acquired from this index
+     * @param docs     top-level doc ids of the searcher
+     * @param fields   the fields to load, or {@code null} for all stored fields
+     * @return the documents, in the order of {@code docs}
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if a field is unknown or not retrievable
+     */
+    public List<Document> documents(IndexSearcher searcher, int[] docs, Set<String> fields) throws IOException {
+        return documents.load(searcher, docs, fields);
+    }
+
+    /**
+     * Reports the documents, size, heap use and merges of the current searcher. Reading
+     * only holds a reference to the searcher, so searches and refreshes go on meanwhile.
+     *
+     * @param withSegments whether to report every segment, which reads the length of
+     *                     every index file
+     * @return the report
+     * @throws IOException if reading segment files fails
+     */
+    public IndexStats stats(boolean withSegments) throws IOException {
+        IndexSearcher searcher = acquire();
+        try {
+            return IndexStats.read(name, searcher, directory, writer == null ? 0 : writer.ramBytesUsed(),
+                    writer == null ? IndexStats.Merges.NONE : merges.history(), withSegments);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /**
+     * Releases a searcher obtained from {@link #acquire()} or {@link #acquire(long)}.
+     *
+     * @param searcher the searcher to release
+     * @throws IOException if decrementing the reader reference fails
+     */
+    public void release(IndexSearcher searcher) throws IOException {
+        searcherManager.release(searcher);
+    }
+
+    private IndexWriter writer() {
+        if (writer == null) {
+            throw new IllegalArgumentException("Index '" + name + "' is a read-only replica");
+        }
+        return writer;
+    }
+
+    /**
+     * Closes the searcher manager and the writer, committing pending changes.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try (directory; writer; searcherManager; leases) {
+            // resources are closed in reverse order: leases, searchers, writer, then directory
+        }
+    }
+}
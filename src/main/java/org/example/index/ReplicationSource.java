@@ -0,0 +1,252 @@
+package org.example.index;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StandardDirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.ByteBuffersIndexOutput;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the segments of a primary's indices to replicas.
+ *
+ * <p>A replica first fetches a {@link Checkpoint}: the serialized segment infos of the
+ * current searcher together with the name, length and checksum of every file they
+ * reference. The searcher is leased like a cursor's, which keeps its files on disk while
+ * the replica downloads the ones it is missing in chunks of at most
+ * {@link #MAX_CHUNK_BYTES}; every chunk renews the lease. Replication therefore requires a positive
+ * {@link org.example.config.IndexConfig#getCursorLeaseSeconds() cursor lease}.
+ *
+ * <p>Deletes only reach the files of a searcher if the primary writes them on refresh,
+ * which {@link ManagedIndex} does for the {@link org.example.config.ReplicationRole#PRIMARY
+ * primary} role.
+ */
+public final class ReplicationSource implements Closeable {
+    /** Upper bound of the bytes returned by a single {@link #read} call. */
+    public static final int MAX_CHUNK_BYTES = 1 << 20;
+
+    private final IndexRegistry indices;
+    private final Map<String, Map<String, FileMetadata>> metadata = new ConcurrentHashMap<>();
+    private final ExecutorService executor =
+            Executors.newFixedThreadPool(2, new DefaultThreadFactory("lucene-replication"));
+
+    /**
+     * A file of a checkpoint.
+     *
+     * @param name     the file name
+     * @param length   the file length in bytes
+     * @param checksum the checksum stored in the file's footer
+     */
+    public record FileMetadata(String name, long length, long checksum) {
+    }
+
+    /**
+     * The state of an index a replica can copy.
+     *
+     * @param version    the version of the primary's searcher, which the replica's searcher takes over
+     * @param generation the commit generation the segment infos were serialized with
+     * @param infos      the serialized segment infos
+     * @param files      the files the segment infos reference, excluding any {@code segments_N} file
+     */
+    public record Checkpoint(long version, long generation, byte[] infos, List<FileMetadata> files) {
+
+        /**
+         * Writes this checkpoint as a JSON object, with the segment infos base64 encoded.
+         *
+         * @param generator the generator to write to
+         */
+        public void writeTo(JsonGenerator generator) {
+            generator.writeStartObject();
+            generator.writeNumberProperty("version", version);
+            generator.writeNumberProperty("generation", generation);
+            generator.writeName("infos");
+            generator.writeBinary(infos);
+            generator.writeName("files");
+            generator.writeStartArray();
+            for (FileMetadata file : files) {
+                generator.writeStartObject();
+                generator.writeStringProperty("name", file.name());
+                generator.writeNumberProperty("length", file.length());
+                generator.writeNumberProperty("checksum", file.checksum());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        /**
+         * Parses a checkpoint written by {@link #writeTo(JsonGenerator)}.
+         *
+         * @param parser parser positioned before the checkpoint object
+         * @return the checkpoint
+         * @throws IllegalArgumentException if the content is not a checkpoint
+         */
+        public static Checkpoint parse(JsonParser parser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Checkpoint must be a JSON object");
+            }
+            long version = -1;
+            long generation = -1;
+            byte[] infos = null;
+            List<FileMetadata> files = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "version" -> version = parser.getLongValue();
+                    case "generation" -> generation = parser.getLongValue();
+                    case "infos" -> infos = parser.getBinaryValue();
+                    case "files" -> {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            files.add(parseFile(parser));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown checkpoint property '" + name + "'");
+                }
+            }
+            if (infos == null) {
+                throw new IllegalArgumentException("Checkpoint requires 'infos'");
+            }
+            return new Checkpoint(version, generation, infos, files);
+        }
+
+        private static FileMetadata parseFile(JsonParser parser) {
+            String name = null;
+            long length = -1;
+            long checksum = -1;
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String property = parser.currentName();
+                parser.nextToken();
+                switch (property) {
+                    case "name" -> name = parser.getString();
+                    case "length" -> length = parser.getLongValue();
+                    case "checksum" -> checksum = parser.getLongValue();
+                    default -> throw new IllegalArgumentException("Unknown checkpoint file property '" + property + "'");
+                }
+            }
+            return new FileMetadata(name, length, checksum);
+        }
+    }
+
+    /**
+     * @param indices the indices to serve
+     */
+    public ReplicationSource(IndexRegistry indices) {
+        this.indices = indices;
+    }
+
+    /**
+     * Returns the executor replication routes should run on.
+     *
+     * @return a small pool, so that copying replicas cannot occupy search threads
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Leases the current searcher of an index and describes its files.
+     *
+     * @param name the index name
+     * @return the checkpoint of the current searcher
+     * @throws IOException if reading file checksums fails
+     * @throws IllegalArgumentException if the index does not exist
+     */
+    public Checkpoint checkpoint(String name) throws IOException {
+        ManagedIndex index = indices.get(name);
+        IndexSearcher searcher = index.acquire();
+        try {
+            index.lease(searcher);
+            SegmentInfos infos = segmentInfos(searcher);
+            var bytes = new ByteBuffersDataOutput();
+            try (var out = new ByteBuffersIndexOutput(bytes, "checkpoint", "checkpoint")) {
+                infos.write(out);
+            }
+            Collection<String> names = infos.files(false);
+            // segment files are write-once, so their checksums are read once and reused
+            Map<String, FileMetadata> known = metadata.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+            List<FileMetadata> files = new ArrayList<>(names.size());
+            for (String file : names) {
+                FileMetadata meta = known.get(file);
+                if (meta == null) {
+                    meta = readMetadata(index, file);
+                    known.put(file, meta);
+                }
+                files.add(meta);
+            }
+            known.keySet().retainAll(names);
+            return new Checkpoint(ManagedIndex.generation(searcher), infos.getGeneration(), bytes.toArrayCopy(), files);
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    /**
+     * Reads a chunk of a file of a leased checkpoint and renews its lease, so that a
+     * download taking longer than one lease is not cut off by the next refresh.
+     *
+     * @param name    the index name
+     * @param version the version of the checkpoint
+     * @param file    the file name, which must belong to the checkpoint
+     * @param offset  the position to read from
+     * @param length  the maximum number of bytes to read, capped at {@link #MAX_CHUNK_BYTES}
+     * @return the bytes read; shorter than {@code length} at the end of the file
+     * @throws IOException if reading the file fails
+     * @throws IllegalArgumentException if the checkpoint expired or does not hold the file
+     */
+    public byte[] read(String name, long version, String file, long offset, int length) throws IOException {
+        ManagedIndex index = indices.get(name);
+        IndexSearcher searcher = index.acquire(version);
+        if (searcher == null) {
+            throw new IllegalArgumentException("Checkpoint " + version + " of index '" + name + "' expired");
+        }
+        try {
+            index.lease(searcher);
+            if (!segmentInfos(searcher).files(false).contains(file)) {
+                throw new IllegalArgumentException("File '" + file + "' is not part of checkpoint " + version);
+            }
+            try (IndexInput in = index.directory().openInput(file, IOContext.READONCE)) {
+                if (offset < 0 || offset > in.length() || length < 0) {
+                    throw new IllegalArgumentException("Invalid range of file '" + file + "'");
+                }
+                byte[] bytes = new byte[(int) Math.min(Math.min(length, MAX_CHUNK_BYTES), in.length() - offset)];
+                in.seek(offset);
+                in.readBytes(bytes, 0, bytes.length);
+                return bytes;
+            }
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static SegmentInfos segmentInfos(IndexSearcher searcher) {
+        return ((StandardDirectoryReader) searcher.getIndexReader()).getSegmentInfos();
+    }
+
+    private static FileMetadata readMetadata(ManagedIndex index, String file) throws IOException {
+        try (IndexInput in = index.directory().openInput(file, IOContext.READONCE)) {
+            return new FileMetadata(file, in.length(), CodecUtil.retrieveChecksum(in));
+        }
+    }
+}
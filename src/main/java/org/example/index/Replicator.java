@@ -0,0 +1,209 @@
+package org.example.index;
+
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.BufferedChecksumIndexInput;
+import org.apache.lucene.store.ByteBuffersDataInput;
+import org.apache.lucene.store.ByteBuffersIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.example.config.ReplicationConfig;
+import org.example.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the indices of a replica in sync with a primary.
+ *
+ * <p>Every poll interval the replicator asks the primary's {@link ReplicationSource} for
+ * the checkpoint of each index. When the primary's searcher moved on, the files missing
+ * locally are downloaded and verified against their checksums, and the primary's segment
+ * infos are installed with {@link ManagedIndex#installReplica}. Searches on the replica
+ * then see exactly the documents the primary's searcher saw. Since segment files are
+ * write-once, unchanged segments are never copied twice and documents are never analyzed
+ * on the replica.
+ *
+ * <p>Polling runs on a single thread. A failed round, for example because the primary is
+ * restarting, is logged once and retried on the next poll.
+ */
+public final class Replicator implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(Replicator.class);
+
+    private final IndexRegistry indices;
+    private final String primaryUrl;
+    private final int pollIntervalMillis;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("lucene-replica"));
+    /** Files per index known to match the primary's, to skip verifying them again. */
+    private final Map<String, Map<String, ReplicationSource.FileMetadata>> verified = new ConcurrentHashMap<>();
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param indices the replica indices to keep in sync
+     * @param config  the replication configuration naming the primary
+     * @throws IllegalArgumentException if no primary URL is configured
+     */
+    public Replicator(IndexRegistry indices, ReplicationConfig config) {
+        if (config.getPrimaryUrl() == null) {
+            throw new IllegalArgumentException("Replicas require a 'primary-url'");
+        }
+        this.indices = indices;
+        this.primaryUrl = config.getPrimaryUrl().replaceAll("/+$", "");
+        this.pollIntervalMillis = config.getPollIntervalMillis();
+    }
+
+    /**
+     * Starts polling the primary in the background.
+     */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::replicateAll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void replicateAll() {
+        for (ManagedIndex index : indices.all()) {
+            try {
+                replicate(index);
+                if (failing.remove(index.getName())) {
+                    logger.info("Replication of index '{}' from {} recovered", index.getName(), primaryUrl);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (failing.add(index.getName())) {
+                    logger.warn("Replication of index '{}' from {} failed", index.getName(), primaryUrl, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the primary's current checkpoint of an index unless the replica already has it.
+     *
+     * @param index the replica index
+     * @return whether a new checkpoint was installed
+     * @throws IOException if talking to the primary or writing the files fails
+     * @throws InterruptedException if interrupted while waiting for the primary
+     */
+    public boolean replicate(ManagedIndex index) throws IOException, InterruptedException {
+        String name = index.getName();
+        var checkpoint = ReplicationSource.Checkpoint.parse(
+                JsonUtil.parser(Unpooled.wrappedBuffer(get("/_replication/checkpoint?index=" + encode(name)))));
+        if (checkpoint.version() == version(index)) {
+            return false;
+        }
+        Directory directory = index.directory();
+        Map<String, ReplicationSource.FileMetadata> known = verified.computeIfAbsent(name, k -> new HashMap<>());
+        List<String> copied = new ArrayList<>();
+        for (ReplicationSource.FileMetadata file : checkpoint.files()) {
+            if (file.equals(known.get(file.name())) || matches(directory, file)) {
+                known.put(file.name(), file);
+                continue;
+            }
+            download(name, checkpoint.version(), file, directory);
+            known.put(file.name(), file);
+            copied.add(file.name());
+        }
+        directory.sync(copied);
+
+        var input = new ByteBuffersIndexInput(
+                new ByteBuffersDataInput(List.of(ByteBuffer.wrap(checkpoint.infos()))), "checkpoint");
+        SegmentInfos infos = SegmentInfos.readCommit(directory, new BufferedChecksumIndexInput(input), checkpoint.generation());
+        index.installReplica(infos);
+        known.keySet().retainAll(checkpoint.files().stream().map(ReplicationSource.FileMetadata::name).toList());
+        return true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        client.close();
+    }
+
+    private static long version(ManagedIndex index) throws IOException {
+        IndexSearcher searcher = index.acquire();
+        try {
+            return ManagedIndex.generation(searcher);
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    private static boolean matches(Directory directory, ReplicationSource.FileMetadata file) throws IOException {
+        try (IndexInput in = directory.openInput(file.name(), IOContext.READONCE)) {
+            return in.length() == file.length() && CodecUtil.retrieveChecksum(in) == file.checksum();
+        } catch (IOException e) {
+            // missing, or a truncated leftover of an interrupted copy
+            return false;
+        }
+    }
+
+    private void download(String index, long version, ReplicationSource.FileMetadata file, Directory directory)
+            throws IOException, InterruptedException {
+        try {
+            directory.deleteFile(file.name());
+        } catch (NoSuchFileException e) {
+            // first copy
+        }
+        try (IndexOutput out = directory.createOutput(file.name(), IOContext.DEFAULT)) {
+            for (long offset = 0; offset < file.length(); ) {
+                byte[] chunk = get("/_replication/file?index=" + encode(index) + "&version=" + version
+                        + "&name=" + encode(file.name()) + "&offset=" + offset
+                        + "&length=" + ReplicationSource.MAX_CHUNK_BYTES);
+                if (chunk.length == 0) {
+                    throw new IOException("File '" + file.name() + "' ended early at " + offset + " bytes");
+                }
+                out.writeBytes(chunk, chunk.length);
+                offset += chunk.length;
+            }
+        }
+        try (IndexInput in = directory.openInput(file.name(), IOContext.READONCE)) {
+            if (CodecUtil.checksumEntireFile(in) != file.checksum()) {
+                throw new CorruptIndexException("Checksum differs from the primary's", in);
+            }
+        }
+    }
+
+    private byte[] get(String path) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(primaryUrl + path)).timeout(Duration.ofSeconds(30)).build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Primary answered " + path + " with " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return response.body();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.index;
+
+import org.apache.lucene.index.ConcurrentMergeScheduler;
+import org.apache.lucene.index.MergePolicy;
+import org.example.jfr.MergeEvent;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A {@link ConcurrentMergeScheduler} that keeps totals of the merges it completed and
+ * the most recent ones, for {@link IndexStats}, and records every merge as a
+ * {@link MergeEvent}.
+ */
+final class TrackingMergeScheduler extends ConcurrentMergeScheduler {
+    /** How many completed merges are remembered. */
+    static final int RECENT_MERGES = 20;
+
+    private final String index;
+    private final Deque<IndexStats.Merge> recent = new ArrayDeque<>();
+    private long merges;
+    private long docs;
+    private long bytes;
+    private long millis;
+
+    TrackingMergeScheduler(String index) {
+        this.index = index;
+    }
+
+    @Override
+    protected void doMerge(MergeSource mergeSource, MergePolicy.OneMerge merge) throws IOException {
+        var event = new MergeEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long outputBytes;
+        try {
+            super.doMerge(mergeSource, merge);
+        } finally {
+            outputBytes = outputBytes(merge);
+            commit(event, merge, outputBytes);
+        }
+        if (isAborted(merge)) {
+            return;
+        }
+        long tookMillis = (System.nanoTime() - start) / 1_000_000;
+        var completed = new IndexStats.Merge(System.currentTimeMillis(), tookMillis, merge.segments.size(),
+                merge.totalNumDocs(), merge.totalBytesSize(), outputBytes);
+        synchronized (this) {
+            merges++;
+            docs += completed.docs();
+            bytes += completed.inputBytes();
+            millis += tookMillis;
+            if (recent.size() == RECENT_MERGES) {
+                recent.removeFirst();
+            }
+            recent.addLast(completed);
+        }
+    }
+
+    private static boolean isAborted(MergePolicy.OneMerge merge) {
+        return merge.isAborted() || merge.getMergeInfo() == null;
+    }
+
+    /** Returns the size of the merged segment, or 0 if it is unknown. */
+    private static long outputBytes(MergePolicy.OneMerge merge) {
+        if (isAborted(merge)) {
+            return 0;
+        }
+        try {
+            return merge.getMergeInfo().sizeInBytes();
+        } catch (IOException e) {
+            // the size is informational; the merge itself succeeded
+            return 0;
+        }
+    }
+
+    private void commit(MergeEvent event, MergePolicy.OneMerge merge, long outputBytes) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.index = index;
+        event.segments = merge.segments.size();
+        event.docs = merge.totalNumDocs();
+        event.inputBytes = merge.totalBytesSize();
+        event.aborted = isAborted(merge);
+        event.outputBytes = outputBytes;
+        event.commit();
+    }
+
+    /**
+     * Returns the merge totals and the recent merges, oldest first.
+     *
+     * @return the history
+     */
+    synchronized IndexStats.Merges history() {
+        return new IndexStats.Merges(merges, docs, bytes, millis, List.copyOf(recent));
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A commit of an index, which flushes pending documents and fsyncs the new segments.
+ */
+@Name(CommitEvent.NAME)
+@Label("Index Commit")
+@Category({"MiniSearch", "Lucene"})
+@StackTrace(false)
+@Threshold("0 ms")
+public final class CommitEvent extends Event {
+    public static final String NAME = "minisearch.Commit";
+
+    @Label("Index")
+    public String index;
+
+    @Label("Sequence Number")
+    @Description("Sequence number of the last operation the commit contains")
+    public long sequenceNumber;
+}
@@ -0,0 +1,56 @@
+package org.example.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.example.config.JfrConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Starts the continuous flight recording of the node.
+ *
+ * <p>The node's events also work with recordings started by other means, such as
+ * {@code -XX:StartFlightRecording}; they are then recorded with the thresholds of their
+ * {@link jdk.jfr.Threshold} annotations unless a settings file overrides them, for
+ * example with {@code minisearch.Search#threshold=10 ms}.
+ */
+public final class FlightRecording {
+    /** The name of the recording, for {@code jcmd JFR.dump}. */
+    public static final String NAME = "minisearch";
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts a recording with the given settings and event thresholds.
+     *
+     * @param config the recording settings
+     * @return the running recording, to be closed when the node stops
+     * @throws IOException if the settings file cannot be read or the recording cannot be started
+     * @throws ParseException if the settings file is invalid
+     */
+    public static Recording start(JfrConfig config) throws IOException, ParseException {
+        var recording = new Recording(Configuration.getConfiguration(config.getSettings()));
+        recording.setName(NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(config.getMaxAgeMinutes()));
+        recording.setMaxSize(config.getMaxSizeMb() * 1024 * 1024);
+        if (config.getDestination() != null) {
+            recording.setDestination(Path.of(config.getDestination()));
+        }
+        enable(recording, RequestEvent.NAME, config.getRequestThresholdMillis());
+        enable(recording, SearchEvent.NAME, config.getSearchThresholdMillis());
+        enable(recording, RefreshEvent.NAME, config.getRefreshThresholdMillis());
+        enable(recording, CommitEvent.NAME, config.getCommitThresholdMillis());
+        enable(recording, MergeEvent.NAME, config.getMergeThresholdMillis());
+        recording.start();
+        return recording;
+    }
+
+    private static void enable(Recording recording, String event, long thresholdMillis) {
+        recording.enable(event).withThreshold(Duration.ofMillis(thresholdMillis));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A segment merge, committed by the merge thread that ran it.
+ */
+@Name(MergeEvent.NAME)
+@Label("Segment Merge")
+@Category({"MiniSearch", "Lucene"})
+@StackTrace(false)
+@Threshold("0 ms")
+public final class MergeEvent extends Event {
+    public static final String NAME = "minisearch.Merge";
+
+    @Label("Index")
+    public String index;
+
+    @Label("Segments")
+    @Description("Segments merged")
+    public int segments;
+
+    @Label("Documents")
+    @Description("Documents in the merged segments, including deleted ones")
+    public long docs;
+
+    @Label("Input Size")
+    @DataAmount
+    public long inputBytes;
+
+    @Label("Output Size")
+    @DataAmount
+    @Description("Size of the new segment, or 0 if the merge was aborted")
+    public long outputBytes;
+
+    @Label("Aborted")
+    public boolean aborted;
+}
@@ -0,0 +1,23 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A refresh of an index, including warming the new searcher.
+ */
+@Name(RefreshEvent.NAME)
+@Label("Index Refresh")
+@Category({"MiniSearch", "Lucene"})
+@StackTrace(false)
+@Threshold("0 ms")
+public final class RefreshEvent extends Event {
+    public static final String NAME = "minisearch.Refresh";
+
+    @Label("Index")
+    public String index;
+}
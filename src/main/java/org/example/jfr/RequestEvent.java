@@ -0,0 +1,30 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An HTTP request, from dispatch to its route until the response was sent. Committed by
+ * the thread that sent the response, which is a search thread for routes offloaded to one.
+ */
+@Name(RequestEvent.NAME)
+@Label("HTTP Request")
+@Category({"MiniSearch", "HTTP"})
+@StackTrace(false)
+@Threshold("50 ms")
+public final class RequestEvent extends Event {
+    public static final String NAME = "minisearch.Request";
+
+    @Label("Route")
+    @Description("Method and path of the matched route, or 'unmatched'")
+    public String route;
+
+    @Label("Status")
+    @Description("Response status, or 499 if the client went away before a response was sent")
+    public int status;
+}
@@ -0,0 +1,44 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The execution of a search, kNN or hybrid request against one index, from parsing its
+ * query until its hits were loaded.
+ */
+@Name(SearchEvent.NAME)
+@Label("Search")
+@Category({"MiniSearch", "Lucene"})
+@StackTrace(false)
+@Threshold("50 ms")
+public final class SearchEvent extends Event {
+    public static final String NAME = "minisearch.Search";
+
+    @Label("Type")
+    @Description("search, knn or hybrid")
+    public String type;
+
+    @Label("Index")
+    public String index;
+
+    @Label("Query Hash")
+    @Description("String hash code of the query string, or 0 for none; the slow log prints the query itself")
+    public int queryHash;
+
+    @Label("Hits")
+    @Description("Hits returned, or -1 if the search failed")
+    public int hits;
+
+    @Label("Total Hits")
+    @Description("Matches counted, a lower bound if collection terminated early")
+    public long totalHits;
+
+    @Label("Timed Out")
+    public boolean timedOut;
+}
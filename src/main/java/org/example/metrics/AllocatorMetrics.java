@@ -0,0 +1,78 @@
+package org.example.metrics;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+
+import java.util.List;
+
+/**
+ * The memory held by a Netty buffer allocator.
+ *
+ * <p>Every allocator that reports metrics reports its used heap and direct memory. A
+ * pooled allocator also reports its arenas, the allocations and bytes active in them and
+ * the thread-local caches, which show whether buffers leak or pile up in caches of idle
+ * threads.
+ */
+public final class AllocatorMetrics implements MetricsSource {
+    private final ByteBufAllocatorMetric metric;
+
+    /**
+     * @param allocator the allocator, usually {@link ByteBufAllocator#DEFAULT}; allocators
+     *                  that do not report metrics report nothing
+     */
+    public AllocatorMetrics(ByteBufAllocator allocator) {
+        this.metric = allocator instanceof ByteBufAllocatorMetricProvider provider ? provider.metric() : null;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        if (metric == null) {
+            return;
+        }
+        out.family("minisearch_netty_allocator_used_bytes", "gauge", "Memory held by the Netty allocator.");
+        out.sample("minisearch_netty_allocator_used_bytes", new String[]{"memory", "heap"}, metric.usedHeapMemory());
+        out.sample("minisearch_netty_allocator_used_bytes", new String[]{"memory", "direct"}, metric.usedDirectMemory());
+        if (!(metric instanceof PooledByteBufAllocatorMetric pooled)) {
+            return;
+        }
+        out.family("minisearch_netty_allocator_arenas", "gauge", "Arenas of the pooled Netty allocator.");
+        out.sample("minisearch_netty_allocator_arenas", new String[]{"memory", "heap"}, pooled.numHeapArenas());
+        out.sample("minisearch_netty_allocator_arenas", new String[]{"memory", "direct"}, pooled.numDirectArenas());
+        out.family("minisearch_netty_allocator_active_allocations", "gauge",
+                "Buffers allocated from the arenas and not released yet.");
+        out.sample("minisearch_netty_allocator_active_allocations", new String[]{"memory", "heap"},
+                activeAllocations(pooled.heapArenas()));
+        out.sample("minisearch_netty_allocator_active_allocations", new String[]{"memory", "direct"},
+                activeAllocations(pooled.directArenas()));
+        out.family("minisearch_netty_allocator_active_bytes", "gauge",
+                "Bytes of the arena chunks in use.");
+        out.sample("minisearch_netty_allocator_active_bytes", new String[]{"memory", "heap"},
+                activeBytes(pooled.heapArenas()));
+        out.sample("minisearch_netty_allocator_active_bytes", new String[]{"memory", "direct"},
+                activeBytes(pooled.directArenas()));
+        out.family("minisearch_netty_allocator_thread_local_caches", "gauge",
+                "Threads holding a cache of the pooled Netty allocator.");
+        out.sample("minisearch_netty_allocator_thread_local_caches", new String[0], pooled.numThreadLocalCaches());
+        out.family("minisearch_netty_allocator_chunk_size_bytes", "gauge", "Size of an arena chunk.");
+        out.sample("minisearch_netty_allocator_chunk_size_bytes", new String[0], pooled.chunkSize());
+    }
+
+    private static long activeAllocations(List<PoolArenaMetric> arenas) {
+        long sum = 0;
+        for (PoolArenaMetric arena : arenas) {
+            sum += arena.numActiveAllocations();
+        }
+        return sum;
+    }
+
+    private static long activeBytes(List<PoolArenaMetric> arenas) {
+        long sum = 0;
+        for (PoolArenaMetric arena : arenas) {
+            sum += arena.numActiveBytes();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.metrics;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The backlog and responsiveness of Netty event loops.
+ *
+ * <p>The tasks queued on every loop are read when scraped. Responsiveness is measured
+ * by a probe per loop: a task scheduled every interval records how late it ran. A loop
+ * busy with slow handlers or a long queue runs it late, and so delays the I/O of every
+ * connection it serves by as much.
+ */
+public final class EventLoopMetrics implements MetricsSource {
+    private final long intervalNanos;
+    private final List<Group> groups = new ArrayList<>();
+
+    private record Group(String name, EventLoopGroup loops, LatencyHistogram delays) {
+    }
+
+    /**
+     * @param probeIntervalMillis how often each loop is probed, zero to not probe
+     */
+    public EventLoopMetrics(long probeIntervalMillis) {
+        if (probeIntervalMillis < 0) {
+            throw new IllegalArgumentException("probe interval must not be negative: " + probeIntervalMillis);
+        }
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(probeIntervalMillis);
+    }
+
+    /**
+     * Adds an event loop group and starts probing its loops.
+     *
+     * @param name  the name reported in the {@code group} label
+     * @param loops the group
+     * @return this source
+     */
+    public EventLoopMetrics register(String name, EventLoopGroup loops) {
+        var group = new Group(name, loops, new LatencyHistogram());
+        groups.add(group);
+        if (intervalNanos > 0) {
+            for (EventExecutor loop : loops) {
+                probe(loop, group.delays());
+            }
+        }
+        return this;
+    }
+
+    private void probe(EventExecutor loop, LatencyHistogram delays) {
+        if (loop.isShuttingDown()) {
+            return;
+        }
+        long deadline = System.nanoTime() + intervalNanos;
+        try {
+            loop.schedule(() -> {
+                delays.record(System.nanoTime() - deadline);
+                probe(loop, delays);
+            }, intervalNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the loop shut down in between
+        }
+    }
+
+    /**
+     * Returns the probe delays of a group.
+     *
+     * @param name the group name
+     * @return its histogram, or {@code null} if no such group was registered
+     */
+    public LatencyHistogram delays(String name) {
+        for (Group group : groups) {
+            if (group.name().equals(name)) {
+                return group.delays();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("minisearch_netty_event_loop_pending_tasks", "gauge", "Tasks queued on an event loop.");
+        for (Group group : groups) {
+            int index = 0;
+            for (EventExecutor loop : group.loops()) {
+                if (loop instanceof SingleThreadEventExecutor executor) {
+                    out.sample("minisearch_netty_event_loop_pending_tasks",
+                            new String[]{"group", group.name(), "loop", Integer.toString(index)},
+                            executor.pendingTasks());
+                }
+                index++;
+            }
+        }
+        if (intervalNanos > 0) {
+            out.family("minisearch_netty_event_loop_delay_seconds", "histogram",
+                    "How late a task scheduled on an event loop ran.");
+            for (Group group : groups) {
+                group.delays().writeTo(out, "minisearch_netty_event_loop_delay_seconds", "group", group.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts per route and status, latency histograms per route, and the CPU time
+ * and heap allocations of requests per route and index.
+ *
+ * <p>Recording looks up the route in a concurrent map and the status in a fixed array,
+ * and allocates only the first time a route or status is seen. Requests whose client
+ * disconnected before a response was sent are counted with status
+ * {@value #CLIENT_CLOSED}, as nginx does.
+ */
+public final class HttpMetrics implements MetricsSource {
+    /** The status recorded for requests that never got a response. */
+    public static final int CLIENT_CLOSED = 499;
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    private static final class RouteMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(600);
+        /** By index name, empty for requests without one. */
+        final Map<String, Usage> usage = new ConcurrentHashMap<>();
+    }
+
+    private static final class Usage {
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @param route  the matched route, such as {@code POST /_search}
+     * @param status the response status, or 0 if no response was sent
+     * @param nanos  the time from receiving the request to sending the response
+     */
+    public void record(String route, int status, long nanos) {
+        RouteMetrics metrics = route(route);
+        metrics.latency.record(nanos);
+        int index = status <= 0 || status >= metrics.statuses.length() ? CLIENT_CLOSED : status;
+        LongAdder count = metrics.statuses.get(index);
+        if (count == null) {
+            metrics.statuses.compareAndSet(index, null, new LongAdder());
+            count = metrics.statuses.get(index);
+        }
+        count.increment();
+    }
+
+    /**
+     * Records the resources a completed request used.
+     *
+     * @param route          the matched route
+     * @param index          the index the request was for, or {@code null}; callers should
+     *                       only pass names of existing indices, since each becomes a label
+     * @param cpuNanos       the CPU time of all threads working on the request
+     * @param allocatedBytes the heap those threads allocated for it
+     */
+    public void recordUsage(String route, String index, long cpuNanos, long allocatedBytes) {
+        Map<String, Usage> byIndex = route(route).usage;
+        String key = index == null ? "" : index;
+        Usage usage = byIndex.get(key);
+        if (usage == null) {
+            usage = byIndex.computeIfAbsent(key, i -> new Usage());
+        }
+        usage.cpuNanos.add(cpuNanos);
+        usage.allocatedBytes.add(allocatedBytes);
+    }
+
+    private RouteMetrics route(String route) {
+        RouteMetrics metrics = routes.get(route);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(route, r -> new RouteMetrics());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("minisearch_http_requests_total", "counter", "HTTP requests by route and response status.");
+        routes.forEach((route, metrics) -> {
+            for (int status = 0; status < metrics.statuses.length(); status++) {
+                LongAdder count = metrics.statuses.get(status);
+                if (count != null) {
+                    out.sample("minisearch_http_requests_total",
+                            new String[]{"route", route, "status", Integer.toString(status)}, count.sum());
+                }
+            }
+        });
+        out.family("minisearch_http_request_duration_seconds", "histogram",
+                "Time from receiving an HTTP request to sending its response, by route.");
+        routes.forEach((route, metrics) ->
+                metrics.latency.writeTo(out, "minisearch_http_request_duration_seconds", "route", route));
+        out.family("minisearch_http_request_cpu_seconds_total", "counter",
+                "CPU time of all threads working on HTTP requests, by route and index.");
+        routes.forEach((route, metrics) -> metrics.usage.forEach((index, usage) ->
+                out.sample("minisearch_http_request_cpu_seconds_total", new String[]{"route", route, "index", index},
+                        usage.cpuNanos.sum() / 1e9)));
+        out.family("minisearch_http_request_allocated_bytes_total", "counter",
+                "Heap allocated by all threads working on HTTP requests, by route and index.");
+        routes.forEach((route, metrics) -> metrics.usage.forEach((index, usage) ->
+                out.sample("minisearch_http_request_allocated_bytes_total",
+                        new String[]{"route", route, "index", index}, usage.allocatedBytes.sum())));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory, garbage collection and thread metrics of the JVM, read from its platform
+ * MXBeans.
+ *
+ * <p>Besides the total count and time of collections, every collection reported by a
+ * collector's notifications is recorded in a histogram, so long pauses show up even when
+ * the total time grows slowly. Collectors report durations in milliseconds; for
+ * concurrent collectors such as ZGC the {@code Cycles} collectors report whole cycles
+ * and the {@code Pauses} collectors the pauses.
+ */
+public final class JvmMetrics implements MetricsSource, AutoCloseable {
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<MemoryPoolMXBean> memoryPools = ManagementFactory.getMemoryPoolMXBeans();
+    private final List<BufferPoolMXBean> bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Map<String, LatencyHistogram> collections = new ConcurrentHashMap<>();
+    private final NotificationListener listener = this::onNotification;
+
+    public JvmMetrics() {
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            collections.computeIfAbsent(info.getGcName(), name -> new LatencyHistogram())
+                    .record(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()));
+        }
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        out.family("minisearch_jvm_memory_used_bytes", "gauge", "Used JVM memory.");
+        out.sample("minisearch_jvm_memory_used_bytes", new String[]{"area", "heap"}, heap.getUsed());
+        out.sample("minisearch_jvm_memory_used_bytes", new String[]{"area", "nonheap"}, nonHeap.getUsed());
+        out.family("minisearch_jvm_memory_committed_bytes", "gauge", "JVM memory committed by the OS.");
+        out.sample("minisearch_jvm_memory_committed_bytes", new String[]{"area", "heap"}, heap.getCommitted());
+        out.sample("minisearch_jvm_memory_committed_bytes", new String[]{"area", "nonheap"}, nonHeap.getCommitted());
+        out.family("minisearch_jvm_memory_max_bytes", "gauge", "Maximum JVM heap.");
+        out.sample("minisearch_jvm_memory_max_bytes", new String[]{"area", "heap"}, heap.getMax());
+
+        out.family("minisearch_jvm_memory_pool_used_bytes", "gauge", "Used memory per JVM memory pool.");
+        for (MemoryPoolMXBean pool : memoryPools) {
+            MemoryUsage usage = pool.getUsage();
+            if (usage != null) {
+                out.sample("minisearch_jvm_memory_pool_used_bytes", new String[]{"pool", pool.getName()},
+                        usage.getUsed());
+            }
+        }
+
+        out.family("minisearch_jvm_buffer_pool_used_bytes", "gauge",
+                "Memory used by direct and mapped byte buffers.");
+        for (BufferPoolMXBean pool : bufferPools) {
+            out.sample("minisearch_jvm_buffer_pool_used_bytes", new String[]{"pool", pool.getName()},
+                    pool.getMemoryUsed());
+        }
+        out.family("minisearch_jvm_buffer_pool_buffers", "gauge", "Direct and mapped byte buffers.");
+        for (BufferPoolMXBean pool : bufferPools) {
+            out.sample("minisearch_jvm_buffer_pool_buffers", new String[]{"pool", pool.getName()}, pool.getCount());
+        }
+
+        out.family("minisearch_jvm_gc_collections_total", "counter", "Collections per garbage collector.");
+        for (GarbageCollectorMXBean collector : collectors) {
+            out.sample("minisearch_jvm_gc_collections_total", new String[]{"gc", collector.getName()},
+                    collector.getCollectionCount());
+        }
+        out.family("minisearch_jvm_gc_collection_seconds_total", "counter",
+                "Time spent per garbage collector.");
+        for (GarbageCollectorMXBean collector : collectors) {
+            out.sample("minisearch_jvm_gc_collection_seconds_total", new String[]{"gc", collector.getName()},
+                    collector.getCollectionTime() / 1e3);
+        }
+        out.family("minisearch_jvm_gc_duration_seconds", "histogram", "Duration of garbage collections.");
+        collections.forEach((name, histogram) ->
+                histogram.writeTo(out, "minisearch_jvm_gc_duration_seconds", "gc", name));
+
+        out.family("minisearch_jvm_threads", "gauge", "Live JVM threads.");
+        out.sample("minisearch_jvm_threads", new String[]{"kind", "live"}, threads.getThreadCount());
+        out.sample("minisearch_jvm_threads", new String[]{"kind", "daemon"}, threads.getDaemonThreadCount());
+        out.sample("minisearch_jvm_threads", new String[]{"kind", "peak"}, threads.getPeakThreadCount());
+    }
+
+    /**
+     * Stops listening to garbage collections.
+     */
+    @Override
+    public void close() {
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (collector instanceof NotificationEmitter emitter) {
+                try {
+                    emitter.removeNotificationListener(listener);
+                } catch (ListenerNotFoundException e) {
+                    // not registered
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.metrics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with logarithmic buckets, cheap enough to record every request.
+ *
+ * <p>As in HdrHistogram, the bucket of a value is found from its highest set bit
+ * instead of by searching bucket bounds: each power of two between {@value #MIN_EXPONENT}
+ * and {@value #MAX_EXPONENT} bits of nanoseconds (8 µs to 17 s) is split into two
+ * halves, which bounds the relative error of a bucket to 50%. Shorter latencies share
+ * the first bucket and longer ones the overflow bucket.
+ *
+ * <p>Every bucket is a {@link LongAdder}, so recording is lock-free and threads rarely
+ * contend on the same cache line. Reads are not atomic across buckets, which
+ * Prometheus tolerates.
+ */
+public final class LatencyHistogram {
+    private static final int MIN_EXPONENT = 13;
+    private static final int MAX_EXPONENT = 34;
+    /** The first bucket, then two per power of two, then the overflow bucket. */
+    private static final int BUCKETS = 2 + 2 * (MAX_EXPONENT - MIN_EXPONENT);
+    /** Exclusive upper bounds of the finite buckets, in nanoseconds. */
+    private static final long[] UPPER_BOUNDS = new long[BUCKETS - 1];
+    /** The bounds as Prometheus {@code le} values in seconds. */
+    private static final String[] LE = new String[BUCKETS];
+
+    static {
+        UPPER_BOUNDS[0] = 1L << MIN_EXPONENT;
+        for (int exponent = MIN_EXPONENT; exponent < MAX_EXPONENT; exponent++) {
+            int index = 1 + 2 * (exponent - MIN_EXPONENT);
+            UPPER_BOUNDS[index] = 3L << (exponent - 1);
+            UPPER_BOUNDS[index + 1] = 1L << (exponent + 1);
+        }
+        for (int i = 0; i < UPPER_BOUNDS.length; i++) {
+            LE[i] = BigDecimal.valueOf(UPPER_BOUNDS[i]).movePointLeft(9).stripTrailingZeros().toPlainString();
+        }
+        LE[BUCKETS - 1] = "+Inf";
+    }
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        Arrays.setAll(counts, i -> new LongAdder());
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)].increment();
+        sumNanos.add(value);
+    }
+
+    static int bucket(long nanos) {
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int half = (int) (nanos >>> (exponent - 1)) & 1;
+        return 1 + 2 * (exponent - MIN_EXPONENT) + half;
+    }
+
+    /**
+     * Returns how many latencies were recorded.
+     *
+     * @return the count
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded latencies.
+     *
+     * @return the sum in nanoseconds
+     */
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Returns an upper bound of a quantile of the recorded latencies: the upper bound of
+     * the bucket it falls into.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the bound in nanoseconds, {@link Long#MAX_VALUE} if it falls into the
+     *         overflow bucket, or 0 if nothing was recorded
+     */
+    public long quantileUpperBound(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < UPPER_BOUNDS.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return UPPER_BOUNDS[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Writes the histogram as the buckets, sum and count of a Prometheus histogram in
+     * seconds. The family header must have been written already.
+     *
+     * @param out    the writer
+     * @param name   the metric name, without suffix
+     * @param labels alternating label names and values identifying this histogram
+     */
+    public void writeTo(PrometheusWriter out, String name, String... labels) {
+        String[] bucketLabels = Arrays.copyOf(labels, labels.length + 2);
+        bucketLabels[labels.length] = "le";
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i].sum();
+            bucketLabels[labels.length + 1] = LE[i];
+            out.sample(name + "_bucket", bucketLabels, cumulative);
+        }
+        out.sample(name + "_sum", labels, sumNanos.sum() / 1e9);
+        out.sample(name + "_count", labels, cumulative);
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The metric sources of the node, scraped together for {@code /metrics}.
+ */
+public final class MetricsRegistry {
+    private final List<MetricsSource> sources = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a source; it is scraped after the ones added before.
+     *
+     * @param source the source
+     * @return this registry
+     */
+    public MetricsRegistry register(MetricsSource source) {
+        sources.add(source);
+        return this;
+    }
+
+    /**
+     * Renders every source in the Prometheus text format.
+     *
+     * @return the exposition
+     */
+    public String scrape() {
+        var out = new PrometheusWriter();
+        for (MetricsSource source : sources) {
+            source.writeTo(out);
+        }
+        return out.toString();
+    }
+}
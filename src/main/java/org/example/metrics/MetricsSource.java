@@ -0,0 +1,14 @@
+package org.example.metrics;
+
+/**
+ * Something that reports metrics when they are scraped.
+ */
+@FunctionalInterface
+public interface MetricsSource {
+    /**
+     * Writes the current values of the metrics.
+     *
+     * @param out the writer
+     */
+    void writeTo(PrometheusWriter out);
+}
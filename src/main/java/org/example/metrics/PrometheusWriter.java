@@ -0,0 +1,87 @@
+package org.example.metrics;
+
+/**
+ * Writes metrics in the Prometheus text exposition format.
+ *
+ * <p>Label values are escaped; metric and label names are expected to be valid already.
+ */
+public final class PrometheusWriter {
+    private final StringBuilder out = new StringBuilder(4096);
+
+    /**
+     * Starts a metric family.
+     *
+     * @param name the metric name
+     * @param type {@code counter}, {@code gauge} or {@code histogram}
+     * @param help what the metric measures
+     */
+    public void family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Writes an integer sample.
+     *
+     * @param name   the sample name
+     * @param labels alternating label names and values
+     * @param value  the value
+     */
+    public void sample(String name, String[] labels, long value) {
+        labels(name, labels);
+        out.append(value).append('\n');
+    }
+
+    /**
+     * Writes a floating-point sample.
+     *
+     * @param name   the sample name
+     * @param labels alternating label names and values
+     * @param value  the value
+     */
+    public void sample(String name, String[] labels, double value) {
+        labels(name, labels);
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private void labels(String name, String[] labels) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"");
+                escape(labels[i + 1]);
+                out.append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The CPU time and heap allocations of one request, summed over every thread that
+ * worked on it.
+ *
+ * <p>A thread is metered for a request while it runs code through {@link #run}: the
+ * thread's CPU time and allocated bytes, read from the {@link com.sun.management.ThreadMXBean},
+ * are sampled before and after and the difference is added to the request. Executors
+ * wrapped with {@link #propagating} meter their tasks for the request that submitted
+ * them, so work handed off to search threads, and the per-segment tasks Lucene forks from
+ * there, is counted too. A thread already metered for a request counts the tasks it
+ * runs itself, such as those Lucene runs on the calling thread, as part of what it is
+ * doing.
+ *
+ * <p>Each metered stretch reads the thread counters four times, which together with
+ * recording the totals costs about a microsecond (see {@code MetricsBenchmark}). Work on
+ * threads of unwrapped executors, such as facet counting, and the I/O Netty does after a
+ * response was handed to it are not counted.
+ */
+public final class ResourceUsage {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported()
+            && THREADS.isThreadCpuTimeEnabled();
+    private static final boolean ALLOCATIONS = THREADS.isThreadAllocatedMemorySupported()
+            && THREADS.isThreadAllocatedMemoryEnabled();
+    private static final ThreadLocal<Meter> METER = ThreadLocal.withInitial(Meter::new);
+
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    /** What the current thread is metered for, and its counters when it last took stock. */
+    private static final class Meter {
+        ResourceUsage usage;
+        long cpuNanos;
+        long allocatedBytes;
+
+        void start(ResourceUsage usage) {
+            this.usage = usage;
+            cpuNanos = cpuTime();
+            allocatedBytes = allocated();
+        }
+
+        void flush() {
+            long cpu = cpuTime();
+            long bytes = allocated();
+            usage.cpuNanos.add(cpu - cpuNanos);
+            usage.allocatedBytes.add(bytes - allocatedBytes);
+            cpuNanos = cpu;
+            allocatedBytes = bytes;
+        }
+    }
+
+    /**
+     * Runs a task on the current thread, metering it for this request unless the thread
+     * is metered for a request already.
+     *
+     * @param task the task
+     */
+    public void run(Runnable task) {
+        Meter meter = METER.get();
+        if (meter.usage != null) {
+            task.run();
+            return;
+        }
+        meter.start(this);
+        try {
+            task.run();
+        } finally {
+            meter.flush();
+            meter.usage = null;
+        }
+    }
+
+    /**
+     * Adds what the current thread used so far to this request, if the thread is
+     * metered for it, so that the totals are complete when read while the request's
+     * last stretch of work is still running, as completion listeners do.
+     */
+    public void flush() {
+        Meter meter = METER.get();
+        if (meter.usage == this) {
+            meter.flush();
+        }
+    }
+
+    /**
+     * Returns the CPU time used for this request so far.
+     *
+     * @return the time in nanoseconds, or 0 if the JVM does not measure thread CPU time
+     */
+    public long cpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    /**
+     * Returns the bytes allocated on the heap for this request so far.
+     *
+     * @return the bytes, or 0 if the JVM does not measure thread allocations
+     */
+    public long allocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * Wraps an executor so that its tasks are metered for the request that submitted
+     * them. Tasks submitted by threads not metered for any request run as they are.
+     *
+     * @param executor the executor
+     * @return the wrapping executor
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> {
+            ResourceUsage usage = METER.get().usage;
+            executor.execute(usage == null ? task : () -> usage.run(task));
+        };
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocated() {
+        return ALLOCATIONS ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.router;
+
+import org.example.config.AdmissionConfig;
+import org.example.metrics.MetricsSource;
+import org.example.metrics.PrometheusWriter;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * The concurrency limiters of the application routes, one per {@link RouteClass}.
+ *
+ * <p>As a metrics source it reports the current concurrency limit, the requests in
+ * flight and the admitted and rejected requests of each route class.
+ */
+public final class AdmissionControl implements MetricsSource {
+    private final Map<RouteClass, ConcurrencyLimiter> limiters = new EnumMap<>(RouteClass.class);
+
+    /**
+     * @param config the limits per route class
+     * @throws IllegalArgumentException if a limit is misconfigured
+     */
+    public AdmissionControl(AdmissionConfig config) {
+        limiters.put(RouteClass.SEARCH, new ConcurrencyLimiter("search", config.getSearch()));
+        limiters.put(RouteClass.INGEST, new ConcurrencyLimiter("ingest", config.getIngest()));
+        limiters.put(RouteClass.ADMIN, new ConcurrencyLimiter("admin", config.getAdmin()));
+    }
+
+    /**
+     * Wraps a handler so that it is admitted under the limit of a route class.
+     *
+     * @param routeClass the kind of route
+     * @param handler    the handler to limit
+     * @return the limited handler
+     */
+    public RouteHandler limit(RouteClass routeClass, RouteHandler handler) {
+        return new LimitedRouteHandler(limiters.get(routeClass), handler);
+    }
+
+    /**
+     * Returns the limiter of a route class.
+     *
+     * @param routeClass the kind of route
+     * @return its limiter
+     */
+    public ConcurrencyLimiter limiter(RouteClass routeClass) {
+        return limiters.get(routeClass);
+    }
+
+    /**
+     * Returns all limiters, in route class order.
+     *
+     * @return the limiters
+     */
+    public List<ConcurrencyLimiter> limiters() {
+        return List.copyOf(limiters.values());
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        metric(out, "minisearch_admission_limit", "gauge",
+                "Adaptive concurrency limit per route class.", ConcurrencyLimiter::limit);
+        metric(out, "minisearch_admission_in_flight", "gauge",
+                "Admitted requests not answered yet per route class.", ConcurrencyLimiter::inFlight);
+        metric(out, "minisearch_admission_admitted_total", "counter",
+                "Requests admitted per route class.", ConcurrencyLimiter::admitted);
+        metric(out, "minisearch_admission_rejected_total", "counter",
+                "Requests rejected with 429 per route class.", ConcurrencyLimiter::rejected);
+    }
+
+    private void metric(PrometheusWriter out, String name, String type, String help,
+                        ToLongFunction<ConcurrencyLimiter> value) {
+        out.family(name, type, help);
+        for (ConcurrencyLimiter limiter : limiters.values()) {
+            out.sample(name, new String[]{"route_class", limiter.name()}, value.applyAsLong(limiter));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.router;
+
+import org.example.http.RequestContext;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link RouteHandler} decorator that runs the wrapped handler on an executor
+ * instead of the Netty event loop.
+ *
+ * <p>Use it for routes that block, such as searches and index writes, so that slow
+ * requests never stall I/O for other connections. The request is retained until the
+ * delegate finishes, so its content stays readable on the executor thread. Failures
+ * are answered through {@link RequestContext#fail(Throwable)}.
+ */
+public final class AsyncRouteHandler implements RouteHandler {
+    private final Executor executor;
+    private final RouteHandler delegate;
+
+    public AsyncRouteHandler(Executor executor, RouteHandler delegate) {
+        this.executor = executor;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void handle(RequestContext context) {
+        var request = context.getRequest().retain();
+        try {
+            executor.execute(() -> {
+                try {
+                    delegate.handle(context);
+                } catch (Exception e) {
+                    context.fail(e);
+                } finally {
+                    request.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            request.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.router;
+
+import org.example.config.ConcurrencyLimitConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An adaptive limit on concurrent requests, derived from their latency.
+ *
+ * <p>The limit follows the gradient between the long-term and the recent average
+ * latency: while recent requests are as fast as usual, it grows by about the square
+ * root of itself per sample, probing for more capacity; once they queue up and slow
+ * down, it shrinks in proportion, by at most half per sample. Requests over the limit
+ * are rejected right away, which keeps latency for the admitted ones close to the
+ * unloaded latency instead of letting everyone's queueing time grow without bound.
+ *
+ * <p>A limit that is far from being used does not grow, so idle periods cannot inflate
+ * it. If latency rises for good, for example because the index grew, the long-term
+ * average slowly follows, so the limit does not stay depressed.
+ *
+ * <p>Admission is lock-free; samples update the limit under a lock held for a few
+ * arithmetic operations.
+ */
+public final class ConcurrencyLimiter {
+    /** Weight of a new sample in the recent average, about the last ten requests. */
+    private static final double SHORT_WEIGHT = 0.1;
+    /** Weight of a new sample in the long-term average, about the last 600 requests. */
+    private static final double LONG_WEIGHT = 1.0 / 600;
+    /** Share of the computed limit that replaces the current one per sample. */
+    private static final double SMOOTHING = 0.2;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    /**
+     * @param name   the name of the limited routes, for metrics
+     * @param config the bounds and tolerance of the limit
+     * @throws IllegalArgumentException if the bounds are inconsistent
+     */
+    public ConcurrencyLimiter(String name, ConcurrencyLimitConfig config) {
+        if (config.getMinLimit() < 1 || config.getMinLimit() > config.getMaxLimit()
+                || config.getInitialLimit() < config.getMinLimit() || config.getInitialLimit() > config.getMaxLimit()) {
+            throw new IllegalArgumentException("Concurrency limit of '" + name + "' needs 1 <= min-limit <= "
+                    + "initial-limit <= max-limit");
+        }
+        if (config.getTolerance() < 1) {
+            throw new IllegalArgumentException("Concurrency limit tolerance of '" + name + "' must be at least 1");
+        }
+        this.name = name;
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.tolerance = config.getTolerance();
+        this.limit = config.getInitialLimit();
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in flight. Every admitted request must
+     * be paired with {@link #release}.
+     *
+     * @return whether the request was admitted
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        admitted.increment();
+        return true;
+    }
+
+    /**
+     * Admits further concurrent work of a request that was admitted already, as much as
+     * the limit leaves room for. Not getting all of it is not counted as a rejection,
+     * since the request runs anyway, with less concurrency. Every granted permit must be
+     * paired with {@link #release}.
+     *
+     * @param permits how many permits the request could use
+     * @return how many it was granted, between 0 and {@code permits}
+     */
+    public int tryAcquireUpTo(int permits) {
+        int current;
+        int granted;
+        do {
+            current = inFlight.get();
+            granted = Math.min(permits, (int) limit - current);
+            if (granted <= 0) {
+                return 0;
+            }
+        } while (!inFlight.compareAndSet(current, current + granted));
+        admitted.add(granted);
+        return granted;
+    }
+
+    /**
+     * Ends an admitted request.
+     *
+     * @param startNanos when the request arrived, from {@link System#nanoTime()}
+     * @param sample     whether its latency is representative; cancelled requests are not
+     */
+    public void release(long startNanos, boolean sample) {
+        int current = inFlight.getAndDecrement();
+        if (sample) {
+            onSample(System.nanoTime() - startNanos, current);
+        }
+    }
+
+    synchronized void onSample(long rttNanos, int inFlight) {
+        if (shortRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) * SHORT_WEIGHT;
+        longRttNanos += (rttNanos - longRttNanos) * LONG_WEIGHT;
+        if (longRttNanos > 2 * shortRttNanos) {
+            // latency dropped for good, so let the baseline catch up
+            longRttNanos *= 0.95;
+        }
+        double current = limit;
+        if (inFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.clamp(tolerance * longRttNanos / shortRttNanos, 0.5, 1.0);
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.clamp(current * (1 - SMOOTHING) + target * SMOOTHING, minLimit, maxLimit);
+    }
+
+    /**
+     * Returns how long a rejected client should wait before retrying: the recent average
+     * latency, rounded up to whole seconds.
+     *
+     * @return the delay in seconds, at least one
+     */
+    public synchronized long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(shortRttNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /** @return the name of the limited routes */
+    public String name() {
+        return name;
+    }
+
+    /** @return the current limit */
+    public int limit() {
+        return (int) limit;
+    }
+
+    /** @return the requests in flight */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** @return how many requests were admitted so far */
+    public long admitted() {
+        return admitted.sum();
+    }
+
+    /** @return how many requests were rejected so far */
+    public long rejected() {
+        return rejected.sum();
+    }
+}
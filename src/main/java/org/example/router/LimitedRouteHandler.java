@@ -0,0 +1,33 @@
+package org.example.router;
+
+import org.example.http.RequestContext;
+
+/**
+ * A {@link RouteHandler} decorator that admits requests through a {@link ConcurrencyLimiter}.
+ *
+ * <p>It runs on the event loop, in front of any {@link AsyncRouteHandler}, so rejected
+ * requests are answered with {@code 429 Too Many Requests} and a {@code Retry-After}
+ * header without ever being queued. Admitted requests hold their permit until their
+ * response is sent or their connection closes; the latency between arrival and
+ * response feeds the limit.
+ */
+public final class LimitedRouteHandler implements RouteHandler {
+    private final ConcurrencyLimiter limiter;
+    private final RouteHandler delegate;
+
+    public LimitedRouteHandler(ConcurrencyLimiter limiter, RouteHandler delegate) {
+        this.limiter = limiter;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void handle(RequestContext context) throws Exception {
+        if (!limiter.tryAcquire()) {
+            context.tooManyRequests("Too many concurrent " + limiter.name() + " requests",
+                    limiter.retryAfterSeconds());
+            return;
+        }
+        context.onComplete(() -> limiter.release(context.getReceivedNanos(), !context.isCancelled()));
+        delegate.handle(context);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.router;
+
+/**
+ * Kinds of routes that are admitted under separate concurrency limits.
+ */
+public enum RouteClass {
+    /** Searches of any kind. */
+    SEARCH,
+    /** Index writes, refreshes and commits. */
+    INGEST,
+    /** Maintenance such as backups, restores and synonym reloads. */
+    ADMIN
+}
@@ -1,6 +1,8 @@
 package org.example.router;
 
 import io.netty.handler.codec.http.HttpMethod;
+import org.example.metrics.HttpMetrics;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -17,6 +19,8 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class RouterBuilder {
     private final Map<String, RouteHandler> routes = new ConcurrentHashMap<>();
+    private HttpMetrics metrics;
+    private boolean accessLog;
 
     /** Adds a GET route to the router. */
     public RouterBuilder get(String path, RouteHandler handler) {
@@ -42,6 +46,27 @@ public final class RouterBuilder {
         return this;
     }
 
+    /**
+     * Records the status and latency of every request in the given metrics.
+     *
+     * @param metrics the metrics to record into
+     * @return this builder
+     */
+    public RouterBuilder withMetrics(HttpMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Writes every request to the access log, the {@code org.example.access} logger.
+     *
+     * @return this builder
+     */
+    public RouterBuilder withAccessLog() {
+        this.accessLog = true;
+        return this;
+    }
+
     /**
      * Builds and returns an immutable {@link Router}.
      *
@@ -49,7 +74,9 @@ public final class RouterBuilder {
      */
     public Router build() {
         var table = Map.copyOf(routes);
-        return () -> new SimpleRouteHandler(table);
+        var httpMetrics = metrics;
+        boolean logAccess = accessLog;
+        return () -> new SimpleRouteHandler(table, httpMetrics, logAccess);
     }
 
     private static String key(HttpMethod method, String path) {
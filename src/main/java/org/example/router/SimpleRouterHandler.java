@@ -5,23 +5,45 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.example.http.RequestContext;
+import org.example.jfr.RequestEvent;
+import org.example.metrics.HttpMetrics;
+import org.example.metrics.ResourceUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A simple Netty handler that dispatches HTTP requests
  * to registered {@link RouteHandler} instances based on path and method.
+ *
+ * <p>One instance serves one connection. It tracks the requests of that connection
+ * that have not been answered yet and cancels them when the connection closes, so
+ * handlers running on other threads can stop work nobody waits for anymore.
+ *
+ * <p>With {@link HttpMetrics}, every request is recorded under its route once it
+ * completes, requests matching no route under {@value #UNMATCHED}, together with the
+ * CPU time and heap allocations the request caused; see {@link ResourceUsage}. With the
+ * access log enabled, the same numbers go to the {@code org.example.access} logger at
+ * {@code INFO}, one line per request. Requests are metered only if either is on.
+ * While a flight recording is running, every request is also recorded as a
+ * {@link RequestEvent}.
  */
-
 final class SimpleRouteHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
-    private static final Logger logger = LoggerFactory.getLogger(SimpleRouteHandler.class);
+    static final String UNMATCHED = "unmatched";
+    private static final Logger accessLog = LoggerFactory.getLogger("org.example.access");
 
     private final Map<String, RouteHandler> routes;
+    private final HttpMetrics metrics;
+    private final boolean accessLogged;
+    private final Set<RequestContext> pending = ConcurrentHashMap.newKeySet();
 
-    SimpleRouteHandler(Map<String, RouteHandler> routes) {
+    SimpleRouteHandler(Map<String, RouteHandler> routes, HttpMetrics metrics, boolean accessLogged) {
         this.routes = routes;
+        this.metrics = metrics;
+        this.accessLogged = accessLogged;
     }
 
     /**
@@ -29,8 +51,10 @@ final class SimpleRouteHandler extends SimpleChannelInboundHandler<FullHttpReque
      *
      * <p>This method dispatches the request to a matching {@link RouteHandler}
      * based on the HTTP method and request path. If no route is found, a
-     * {@code 404 Not Found} response is returned. Any unexpected error during
-     * handling results in a {@code 500 Internal Server Error} response.
+     * {@code 404 Not Found} response is returned. Errors during handling are
+     * answered through {@link RequestContext#fail(Throwable)}, which maps invalid
+     * input to {@code 400 Bad Request} and anything unexpected to
+     * {@code 500 Internal Server Error}.
      *
      * @param channelHandlerContext the Netty {@link ChannelHandlerContext} for this channel
      * @param fullHttpRequest the full HTTP request received from the client
@@ -41,15 +65,74 @@ final class SimpleRouteHandler extends SimpleChannelInboundHandler<FullHttpReque
         var key = fullHttpRequest.method().name() + " " + fullHttpRequest.uri().split("\\?")[0];
         var handler = routes.get(key);
         var requestContext = new RequestContext(channelHandlerContext, fullHttpRequest);
+        String route = handler == null ? UNMATCHED : key;
+        ResourceUsage usage = metrics != null || logsAccess() ? new ResourceUsage() : null;
+        if (usage != null) {
+            requestContext.onComplete(() -> completed(requestContext, route, usage));
+        }
+        var event = new RequestEvent();
+        if (event.isEnabled()) {
+            // only an enabled event escapes into the listener, so a disabled one costs nothing
+            event.begin();
+            requestContext.onComplete(() -> {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.route = route;
+                    int status = requestContext.getResponseStatus();
+                    event.status = status == 0 ? HttpMetrics.CLIENT_CLOSED : status;
+                    event.commit();
+                }
+            });
+        }
         if (handler == null){
             requestContext.text(HttpResponseStatus.NOT_FOUND, "Not Found");
             return;
         }
+        pending.add(requestContext);
+        requestContext.onComplete(() -> pending.remove(requestContext));
+        if (usage == null) {
+            dispatch(handler, requestContext);
+        } else {
+            usage.run(() -> dispatch(handler, requestContext));
+        }
+    }
+
+    private static void dispatch(RouteHandler handler, RequestContext requestContext) {
         try{
             handler.handle(requestContext);
         } catch (Exception e){
-            logger.error(e.getMessage(), e);
-            requestContext.text(HttpResponseStatus.INTERNAL_SERVER_ERROR, "Internal Server Error");
+            requestContext.fail(e);
+        }
+    }
+
+    private void completed(RequestContext requestContext, String route, ResourceUsage usage) {
+        // the thread sending the response is still working on the request
+        usage.flush();
+        long nanos = System.nanoTime() - requestContext.getReceivedNanos();
+        int status = requestContext.getResponseStatus();
+        if (metrics != null) {
+            metrics.record(route, status, nanos);
+            // only indices a request succeeded on, so that made-up names do not become labels
+            String index = status > 0 && status < 400 ? requestContext.param("index") : null;
+            metrics.recordUsage(route, index, usage.cpuNanos(), usage.allocatedBytes());
+        }
+        if (logsAccess()) {
+            accessLog.info("{} {} {} took_us={} cpu_us={} alloc_bytes={}", requestContext.getRequest().method(),
+                    requestContext.getRequest().uri(), status == 0 ? HttpMetrics.CLIENT_CLOSED : status,
+                    nanos / 1000, usage.cpuNanos() / 1000, usage.allocatedBytes());
+        }
+    }
+
+    private boolean logsAccess() {
+        return accessLogged && accessLog.isInfoEnabled();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (RequestContext requestContext : pending) {
+            requestContext.cancel();
         }
+        pending.clear();
+        super.channelInactive(ctx);
     }
 }
@@ -1,14 +1,29 @@
 package org.example.routes;
 
 import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.example.config.Server;
+import org.example.index.BackupService;
+import org.example.index.IndexRegistry;
+import org.example.metrics.HttpMetrics;
+import org.example.router.AdmissionControl;
+import org.example.router.AsyncRouteHandler;
+import org.example.router.RouteClass;
+import org.example.router.RouteHandler;
 import org.example.router.Router;
 import org.example.router.RouterBuilder;
+import org.example.search.SearchService;
+
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Defines the primary application routes.
  *
- * <p>This router can be extended to expose REST endpoints for
- * the business logic of the service.
+ * <p>Index and search routes address an index through the {@code index} query
+ * parameter and run on the search executor rather than the event loop. With admission
+ * control, search, ingest and admin routes are admitted under separate concurrency
+ * limits before they are queued there.
  */
 public class AppRouter implements Router {
     private final Router delegate;
@@ -19,6 +34,127 @@ public class AppRouter implements Router {
                 .build();
     }
 
+    /**
+     * Creates a router exposing the index and search API for the given indices.
+     *
+     * @param indices        the open indices
+     * @param searchService  the service executing searches
+     * @param backups        the backup service, or {@code null} to disable backup routes
+     * @param searchExecutor executor that runs blocking index and search work
+     */
+    public AppRouter(IndexRegistry indices, SearchService searchService, BackupService backups,
+                     Executor searchExecutor) {
+        this(indices, searchService, backups, searchExecutor, new Server());
+    }
+
+    /**
+     * Creates a router exposing the index and search API for the given indices.
+     *
+     * @param indices        the open indices
+     * @param searchService  the service executing searches
+     * @param backups        the backup service, or {@code null} to disable backup routes
+     * @param searchExecutor executor that runs blocking index and search work
+     * @param server         the server settings, for search deadlines
+     */
+    public AppRouter(IndexRegistry indices, SearchService searchService, BackupService backups,
+                     Executor searchExecutor, Server server) {
+        this(indices, searchService, backups, searchExecutor, server, null, null);
+    }
+
+    /**
+     * Creates a router exposing the index and search API for the given indices.
+     *
+     * @param indices        the open indices
+     * @param searchService  the service executing searches
+     * @param backups        the backup service, or {@code null} to disable backup routes
+     * @param searchExecutor executor that runs blocking index and search work
+     * @param server         the server settings, for search deadlines
+     * @param admission      the concurrency limits per route class, or {@code null} to admit everything
+     * @param metrics        the request metrics to record into, or {@code null} to record nothing
+     */
+    public AppRouter(IndexRegistry indices, SearchService searchService, BackupService backups,
+                     Executor searchExecutor, Server server, AdmissionControl admission, HttpMetrics metrics) {
+        var tasks = new SearchTasks(server);
+        var coalescer = server.isCoalesceSearches() ? new SearchCoalescer() : null;
+        var builder = new RouterBuilder()
+                .withMetrics(metrics)
+                .withAccessLog()
+                .get("/health", ctx -> ctx.ok())
+                .post("/_bulk", limit(admission, RouteClass.INGEST,
+                        new AsyncRouteHandler(searchExecutor, new BulkHandler(indices))))
+                .post("/_refresh", limit(admission, RouteClass.INGEST, new AsyncRouteHandler(searchExecutor, ctx -> {
+                    indices.get(ctx.param("index")).refresh();
+                    ctx.ok();
+                })))
+                .post("/_commit", limit(admission, RouteClass.INGEST, new AsyncRouteHandler(searchExecutor, ctx -> {
+                    indices.get(ctx.param("index")).commit();
+                    ctx.ok();
+                })))
+                .post("/_reload_synonyms", limit(admission, RouteClass.ADMIN, new AsyncRouteHandler(searchExecutor, ctx -> {
+                    List<String> reloaded = indices.getAnalysis().reloadSynonyms();
+                    ctx.json(HttpResponseStatus.OK, json -> {
+                        json.writeStartObject();
+                        json.writeName("reloaded");
+                        json.writeStartArray();
+                        for (String name : reloaded) {
+                            json.writeString(name);
+                        }
+                        json.writeEndArray();
+                        json.writeEndObject();
+                    });
+                })))
+                .get("/_stats", limit(admission, RouteClass.ADMIN,
+                        new AsyncRouteHandler(searchExecutor, new StatsHandler(indices))))
+                .post("/_search", limit(admission, RouteClass.SEARCH,
+                        new AsyncRouteHandler(searchExecutor, new SearchHandler(indices, searchService, tasks, coalescer))))
+                .post("/_msearch", limit(admission, RouteClass.SEARCH, new AsyncRouteHandler(searchExecutor,
+                        new MultiSearchHandler(indices, searchService, tasks, searchExecutor,
+                                server.getMaxMultiSearchRequests(),
+                                admission == null ? null : admission.limiter(RouteClass.SEARCH)))))
+                .post("/_knn", limit(admission, RouteClass.SEARCH,
+                        new AsyncRouteHandler(searchExecutor, new KnnHandler(indices, searchService, tasks))))
+                .post("/_hybrid", limit(admission, RouteClass.SEARCH,
+                        new AsyncRouteHandler(searchExecutor, new HybridHandler(indices, searchService, tasks))));
+        if (backups != null) {
+            Executor backupExecutor = backups.getExecutor();
+            builder.post("/_backup", limit(admission, RouteClass.ADMIN, new AsyncRouteHandler(backupExecutor, ctx -> {
+                        BackupService.Result result = backups.backup(indices.get(ctx.param("index")));
+                        ctx.json(HttpResponseStatus.OK, json -> {
+                            json.writeStartObject();
+                            json.writeNumberProperty("generation", result.generation());
+                            json.writeNumberProperty("files", result.files());
+                            json.writeNumberProperty("copied_files", result.copiedFiles());
+                            json.writeNumberProperty("copied_bytes", result.copiedBytes());
+                            json.writeEndObject();
+                        });
+                    })))
+                    .get("/_backups", limit(admission, RouteClass.ADMIN, new AsyncRouteHandler(backupExecutor, ctx -> {
+                        List<Long> generations = backups.generations(indices.get(ctx.param("index")));
+                        ctx.json(HttpResponseStatus.OK, json -> {
+                            json.writeStartObject();
+                            json.writeName("generations");
+                            json.writeStartArray();
+                            for (long generation : generations) {
+                                json.writeNumber(generation);
+                            }
+                            json.writeEndArray();
+                            json.writeEndObject();
+                        });
+                    })))
+                    .post("/_restore", limit(admission, RouteClass.ADMIN, new AsyncRouteHandler(backupExecutor, ctx -> {
+                        String generation = ctx.param("generation");
+                        backups.restore(indices.get(ctx.param("index")),
+                                generation == null ? null : Long.parseLong(generation));
+                        ctx.ok();
+                    })));
+        }
+        delegate = builder.build();
+    }
+
+    private static RouteHandler limit(AdmissionControl admission, RouteClass routeClass, RouteHandler handler) {
+        return admission == null ? handler : admission.limit(routeClass, handler);
+    }
+
     @Override
     public ChannelHandler handler() {
         return delegate.handler();
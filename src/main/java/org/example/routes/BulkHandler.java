@@ -0,0 +1,47 @@
+package org.example.routes;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.example.http.RequestContext;
+import org.example.index.IndexRegistry;
+import org.example.index.ManagedIndex;
+import org.example.router.RouteHandler;
+import org.example.utils.JsonUtil;
+import tools.jackson.core.JsonToken;
+
+/**
+ * Indexes a stream of JSON documents into the index named by the {@code index} parameter.
+ *
+ * <p>The body holds one JSON object per document, typically newline-delimited. With
+ * {@code refresh=true} the documents are searchable when the response is sent.
+ */
+final class BulkHandler implements RouteHandler {
+    private final IndexRegistry indices;
+
+    BulkHandler(IndexRegistry indices) {
+        this.indices = indices;
+    }
+
+    @Override
+    public void handle(RequestContext context) throws Exception {
+        ManagedIndex index = indices.get(context.param("index"));
+        int count = 0;
+        try (var parser = JsonUtil.parser(context.getRequest().content())) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Each bulk entry must be a JSON object");
+                }
+                index.index(index.getMapper().toDocument(JsonUtil.readObject(parser)));
+                count++;
+            }
+        }
+        if (Boolean.parseBoolean(context.param("refresh"))) {
+            index.refresh();
+        }
+        int indexed = count;
+        context.json(HttpResponseStatus.OK, json -> {
+            json.writeStartObject();
+            json.writeNumberProperty("indexed", indexed);
+            json.writeEndObject();
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.routes;
+
+import org.example.http.RequestContext;
+import org.example.index.IndexRegistry;
+import org.example.index.ManagedIndex;
+import org.example.router.RouteHandler;
+import org.example.search.KnnRequest;
+import org.example.search.SearchResponse;
+import org.example.search.SearchService;
+import org.example.utils.JsonUtil;
+
+/**
+ * Runs a {@link KnnRequest} against the index named by the {@code index} parameter.
+ */
+final class KnnHandler implements RouteHandler {
+    private final IndexRegistry indices;
+    private final SearchService searchService;
+    private final SearchTasks tasks;
+
+    KnnHandler(IndexRegistry indices, SearchService searchService, SearchTasks tasks) {
+        this.indices = indices;
+        this.searchService = searchService;
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void handle(RequestContext context) throws Exception {
+        ManagedIndex index = indices.get(context.param("index"));
+        KnnRequest request;
+        try (var parser = JsonUtil.parser(context.getRequest().content())) {
+            request = KnnRequest.parse(parser);
+        }
+        SearchResponse response = searchService.knn(index, request, tasks.start(context));
+        SearchHandler.respond(context, searchService, response);
+    }
+}
@@ -1,16 +1,77 @@
 package org.example.routes;
 
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.example.index.ReplicationSource;
+import org.example.metrics.MetricsRegistry;
+import org.example.router.AsyncRouteHandler;
 import org.example.router.Router;
 import org.example.router.RouterBuilder;
 
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Defines the routes of the metrics and admin port.
+ *
+ * <p>{@code /health} answers {@code 503 Service Unavailable} until the node is ready to
+ * receive traffic, that is until the searchers opened at startup are warmed up. On a
+ * primary this port also serves segment files to replicas, which keeps replication
+ * traffic away from the application port.
+ *
+ * <p>{@code /metrics} scrapes the sources of a {@link MetricsRegistry} in the Prometheus
+ * text format.
+ */
 public class MetricsRouter implements Router {
     private final Router delegate;
 
     public MetricsRouter() {
-        delegate = new RouterBuilder()
-                .get("/health", ctx -> ctx.ok())
-                .build();
+        this(null, () -> true);
+    }
+
+    /**
+     * Creates a router reporting readiness and optionally serving replication routes.
+     *
+     * @param replication the source of segments to replicate, or {@code null} if this node is not a primary
+     * @param ready       whether the node is ready to receive traffic
+     */
+    public MetricsRouter(ReplicationSource replication, BooleanSupplier ready) {
+        this(replication, ready, null);
+    }
+
+    /**
+     * Creates a router reporting readiness and metrics and optionally serving replication
+     * routes.
+     *
+     * @param replication the source of segments to replicate, or {@code null} if this node is not a primary
+     * @param ready       whether the node is ready to receive traffic
+     * @param metrics     the metrics to expose, or {@code null} to expose none
+     */
+    public MetricsRouter(ReplicationSource replication, BooleanSupplier ready, MetricsRegistry metrics) {
+        var builder = new RouterBuilder()
+                .get("/health", ctx -> {
+                    if (ready.getAsBoolean()) {
+                        ctx.ok();
+                    } else {
+                        ctx.text(HttpResponseStatus.SERVICE_UNAVAILABLE, "Warming up");
+                    }
+                })
+                .get("/metrics", ctx -> ctx.text(HttpResponseStatus.OK, metrics == null ? "" : metrics.scrape()));
+        if (replication != null) {
+            Executor executor = replication.getExecutor();
+            builder.get("/_replication/checkpoint", new AsyncRouteHandler(executor, ctx -> {
+                        ReplicationSource.Checkpoint checkpoint = replication.checkpoint(ctx.param("index"));
+                        ctx.json(HttpResponseStatus.OK, checkpoint::writeTo);
+                    }))
+                    .get("/_replication/file", new AsyncRouteHandler(executor, ctx -> {
+                        byte[] chunk = replication.read(ctx.param("index"), Long.parseLong(ctx.param("version")),
+                                ctx.param("name"), Long.parseLong(ctx.param("offset")),
+                                Integer.parseInt(ctx.param("length")));
+                        ctx.bytes(HttpResponseStatus.OK, Unpooled.wrappedBuffer(chunk));
+                    }));
+        }
+        delegate = builder.build();
     }
 
     @Override
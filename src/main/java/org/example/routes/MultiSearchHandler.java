@@ -0,0 +1,256 @@
+package org.example.routes;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.lucene.search.IndexSearcher;
+import org.example.http.RequestContext;
+import org.example.index.IndexRegistry;
+import org.example.index.ManagedIndex;
+import org.example.router.ConcurrencyLimiter;
+import org.example.router.RouteHandler;
+import org.example.search.SearchRequest;
+import org.example.search.SearchService;
+import org.example.search.SearchTask;
+import org.example.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a batch of searches in one request.
+ *
+ * <p>The body holds pairs of JSON objects, typically one per line: a header naming the
+ * index, which defaults to the {@code index} parameter, and a {@link SearchRequest}.
+ *
+ * <pre>{@code
+ * {"index": "logs"}
+ * {"query": "message:disk", "size": 10}
+ * {}
+ * {"size": 0, "facets": [{"field": "service", "size": 5}]}
+ * }</pre>
+ *
+ * <p>The searches of a batch run in parallel on the search executor, against one
+ * searcher per index acquired before the first of them starts, so they all see the
+ * same snapshot. They share the deadline and cancellation of the request. Under
+ * admission control the batch runs as many searches at once as it holds search permits:
+ * the one that admitted the request, plus as many more as the limit leaves free at that
+ * moment. Each permit is handed from one finished search to the next, and extra
+ * permits are returned once no searches are left for them. The response
+ * is streamed as newline-delimited JSON, one line per search in request order: each
+ * line is written as soon as its search and all searches before it completed. A search
+ * that failed yields {@code {"error": <message>, "status": <status>}} in its line,
+ * with the status it would have been answered with on its own.
+ */
+final class MultiSearchHandler implements RouteHandler {
+    static final String CONTENT_TYPE = "application/x-ndjson";
+    private static final Logger logger = LoggerFactory.getLogger(MultiSearchHandler.class);
+
+    private final IndexRegistry indices;
+    private final SearchService searchService;
+    private final SearchTasks tasks;
+    private final Executor executor;
+    private final int maxRequests;
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * @param executor    runs the searches of a batch
+     * @param maxRequests how many searches a batch may hold
+     * @param limiter     the limiter that admitted the request, or {@code null} to run
+     *                    every search of a batch at once
+     */
+    MultiSearchHandler(IndexRegistry indices, SearchService searchService, SearchTasks tasks, Executor executor,
+                       int maxRequests, ConcurrencyLimiter limiter) {
+        this.indices = indices;
+        this.searchService = searchService;
+        this.tasks = tasks;
+        this.executor = executor;
+        this.maxRequests = maxRequests;
+        this.limiter = limiter;
+    }
+
+    /** One search of a batch. */
+    private record Item(ManagedIndex index, SearchRequest request) {
+    }
+
+    @Override
+    public void handle(RequestContext context) throws Exception {
+        List<Item> items = parse(context);
+        SearchTask task = tasks.start(context);
+        Map<ManagedIndex, IndexSearcher> snapshot = acquire(items);
+        Batch batch;
+        try {
+            batch = new Batch(context, items, snapshot, task);
+            context.startStream(HttpResponseStatus.OK, CONTENT_TYPE);
+        } catch (RuntimeException e) {
+            release(snapshot);
+            throw e;
+        }
+        int lanes = limiter == null ? items.size() : 1 + limiter.tryAcquireUpTo(items.size() - 1);
+        for (int lane = 0; lane < lanes; lane++) {
+            // the first lane runs on the permit that admitted the request
+            batch.runNext(limiter != null && lane > 0);
+        }
+    }
+
+    private List<Item> parse(RequestContext context) {
+        String defaultIndex = context.param("index");
+        List<Item> items = new ArrayList<>();
+        try (var parser = JsonUtil.parser(context.getRequest().content())) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Each multi-search header must be a JSON object");
+                }
+                String name = defaultIndex;
+                for (Map.Entry<String, Object> entry : JsonUtil.readObject(parser).entrySet()) {
+                    if (!entry.getKey().equals("index") || !(entry.getValue() instanceof String value)) {
+                        throw new IllegalArgumentException("Invalid multi-search header '" + entry.getKey()
+                                + "', expected only an index name");
+                    }
+                    name = value;
+                }
+                ManagedIndex index = indices.get(name);
+                SearchRequest request = SearchRequest.parse(parser);
+                if (parser.currentToken() == null) {
+                    throw new IllegalArgumentException("Multi-search header " + (items.size() + 1)
+                            + " is not followed by a search request");
+                }
+                items.add(new Item(index, request));
+                if (items.size() > maxRequests) {
+                    throw new IllegalArgumentException("A multi-search request may hold at most "
+                            + maxRequests + " searches");
+                }
+            }
+        }
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("A multi-search request must hold at least one search");
+        }
+        return items;
+    }
+
+    private static Map<ManagedIndex, IndexSearcher> acquire(List<Item> items) throws IOException {
+        Map<ManagedIndex, IndexSearcher> snapshot = new IdentityHashMap<>();
+        try {
+            for (Item item : items) {
+                if (!snapshot.containsKey(item.index())) {
+                    snapshot.put(item.index(), item.index().acquire());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            release(snapshot);
+            throw e;
+        }
+        return snapshot;
+    }
+
+    private static void release(Map<ManagedIndex, IndexSearcher> snapshot) {
+        snapshot.forEach((index, searcher) -> {
+            try {
+                index.release(searcher);
+            } catch (IOException e) {
+                logger.warn("Failed to release searcher of index {}", index.getName(), e);
+            }
+        });
+    }
+
+    private static ByteBuf error(RequestContext context, Exception error) {
+        HttpResponseStatus status = RequestContext.errorStatus(error);
+        if (status == HttpResponseStatus.INTERNAL_SERVER_ERROR && !(error instanceof CancellationException)) {
+            logger.error(error.getMessage(), error);
+        }
+        return JsonUtil.write(context.alloc(), json -> {
+            json.writeStartObject();
+            json.writeStringProperty("error", RequestContext.errorMessage(error));
+            json.writeNumberProperty("status", status.code());
+            json.writeEndObject();
+        });
+    }
+
+    /**
+     * The searches of a batch and their lines, written in order as they complete. Once
+     * all are written, the stream ends and the snapshot is released.
+     */
+    private final class Batch {
+        private final RequestContext context;
+        private final List<Item> items;
+        private final Map<ManagedIndex, IndexSearcher> snapshot;
+        private final SearchTask task;
+        /** The next search no lane has started yet. */
+        private final AtomicInteger started = new AtomicInteger();
+        /** Completed lines not written yet, by position. */
+        private final ByteBuf[] lines;
+        private int next;
+
+        Batch(RequestContext context, List<Item> items, Map<ManagedIndex, IndexSearcher> snapshot, SearchTask task) {
+            this.context = context;
+            this.items = items;
+            this.snapshot = snapshot;
+            this.task = task;
+            this.lines = new ByteBuf[items.size()];
+        }
+
+        /**
+         * Starts the next search of a lane, or ends the lane if none is left.
+         *
+         * @param ownsPermit whether the lane holds a permit of its own, to return when it ends
+         */
+        void runNext(boolean ownsPermit) {
+            int slot = started.getAndIncrement();
+            if (slot >= items.size()) {
+                if (ownsPermit) {
+                    limiter.release(context.getReceivedNanos(), false);
+                }
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    complete(slot, run(items.get(slot)));
+                    runNext(ownsPermit);
+                });
+            } catch (RejectedExecutionException e) {
+                complete(slot, error(context, e).writeByte('\n'));
+                runNext(ownsPermit);
+            }
+        }
+
+        private ByteBuf run(Item item) {
+            ByteBuf line;
+            try {
+                line = SearchHandler.render(context, searchService,
+                        searchService.search(item.index(), snapshot.get(item.index()), item.request(), task));
+            } catch (Exception e) {
+                line = error(context, e);
+            }
+            return line.writeByte('\n');
+        }
+
+        private synchronized void complete(int slot, ByteBuf line) {
+            lines[slot] = line;
+            // writing under the lock keeps the chunks in order across search threads
+            while (next < lines.length && lines[next] != null) {
+                ByteBuf ready = lines[next];
+                lines[next++] = null;
+                if (context.isCancelled()) {
+                    ready.release();
+                } else {
+                    context.writeChunk(ready);
+                }
+            }
+            if (next == lines.length) {
+                release(snapshot);
+                if (!context.isCancelled()) {
+                    context.endStream();
+                }
+            }
+        }
+    }
+}
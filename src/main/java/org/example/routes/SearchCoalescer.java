@@ -0,0 +1,166 @@
+package org.example.routes;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.example.http.RequestContext;
+import org.example.search.SearchRequest;
+import org.example.search.SearchTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets identical searches that arrive while one of them is running share its execution.
+ *
+ * <p>The first request for a {@link Key} runs the search and renders the response once;
+ * requests with an equal key that arrive before it finishes join it instead of searching
+ * themselves, and return their thread right away. Every waiter, including the first,
+ * is then sent a {@link ByteBuf#retainedDuplicate() retained duplicate} of the rendered
+ * buffer, so the JSON is neither rendered nor copied more than once. A failure is
+ * answered to every waiter the same way.
+ *
+ * <p>The shared search runs with the task of the first request and stops only when every
+ * waiter has disconnected. Waiters that disconnect earlier just get no response. A search
+ * abandoned that way is no longer joined: the next request with its key runs its own.
+ */
+final class SearchCoalescer {
+    private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * What makes two searches identical: the same parsed request against the same
+     * searcher generation, with the same deadline settings.
+     *
+     * @param index         the index name
+     * @param generation    the generation of the index's current searcher
+     * @param request       the parsed request, compared by value
+     * @param timeout       the {@value SearchTasks#TIMEOUT_HEADER} header, or {@code null}
+     * @param allowPartial  the {@code allow_partial_results} parameter, or {@code null}
+     */
+    record Key(String index, long generation, SearchRequest request, String timeout, String allowPartial) {
+    }
+
+    /**
+     * Returns whether a request may share its execution. Profiles time one execution,
+     * and cursor pages are bound to a searcher generation of their own.
+     *
+     * @param request the request
+     * @return {@code true} if it can be coalesced
+     */
+    static boolean canCoalesce(SearchRequest request) {
+        return !request.isProfile() && request.getSearchAfter() == null;
+    }
+
+    /**
+     * Answers a request with the response of the running search for its key, or runs
+     * the search if none is running.
+     *
+     * @param context the request
+     * @param key     what identifies the search
+     * @param task    the task of the request, shared by the waiters if it runs the search
+     * @param search  runs the search and renders its response
+     */
+    void execute(RequestContext context, Key key, SearchTask task, Callable<ByteBuf> search) {
+        var flight = new Flight(key, task);
+        flight.join(context);
+        while (true) {
+            Flight running = flights.putIfAbsent(key, flight);
+            if (running == null) {
+                break;
+            }
+            if (running.join(context)) {
+                coalesced.increment();
+                return;
+            }
+            // the running flight finished or was abandoned between the lookup and the join
+            flights.remove(key, running);
+        }
+        ByteBuf content = null;
+        Exception error = null;
+        try {
+            content = search.call();
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            flights.remove(key, flight);
+        }
+        flight.complete(content, error);
+    }
+
+    /**
+     * Returns how many requests were answered by another request's search.
+     *
+     * @return the count
+     */
+    long coalesced() {
+        return coalesced.sum();
+    }
+
+    /** One running search and the requests waiting for it. */
+    private final class Flight {
+        private final Key key;
+        private final SearchTask task;
+        private final List<RequestContext> waiters = new ArrayList<>();
+        private boolean done;
+
+        Flight(Key key, SearchTask task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        /** Adds a waiter unless the search finished already or every waiter left it. */
+        boolean join(RequestContext context) {
+            synchronized (this) {
+                if (done || task.isCancelled()) {
+                    return false;
+                }
+                waiters.add(context);
+            }
+            // replaces the listener cancelling the waiter's own task, which never runs
+            context.onCancel(() -> leave(context));
+            return true;
+        }
+
+        private void leave(RequestContext context) {
+            boolean abandoned;
+            synchronized (this) {
+                abandoned = waiters.remove(context) && waiters.isEmpty() && !done;
+                if (abandoned) {
+                    // under the lock, so that no request joins between the last leaving and this
+                    task.cancel();
+                }
+            }
+            if (abandoned) {
+                flights.remove(key, this);
+            }
+        }
+
+        void complete(ByteBuf content, Exception error) {
+            List<RequestContext> answered;
+            synchronized (this) {
+                done = true;
+                answered = List.copyOf(waiters);
+            }
+            try {
+                for (RequestContext context : answered) {
+                    if (context.isCancelled()) {
+                        continue;
+                    }
+                    if (error != null) {
+                        context.fail(error);
+                    } else {
+                        context.json(HttpResponseStatus.OK, content.retainedDuplicate());
+                    }
+                }
+            } finally {
+                if (content != null) {
+                    content.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.routes;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.lucene.search.IndexSearcher;
+import org.example.http.RequestContext;
+import org.example.index.IndexRegistry;
+import org.example.index.ManagedIndex;
+import org.example.router.RouteHandler;
+import org.example.search.SearchMetrics;
+import org.example.search.SearchRequest;
+import org.example.search.SearchResponse;
+import org.example.search.SearchService;
+import org.example.search.SearchTask;
+import org.example.utils.JsonUtil;
+
+/**
+ * Runs a {@link SearchRequest} against the index named by the {@code index} parameter.
+ *
+ * <p>With a {@link SearchCoalescer}, a request identical to one already running on the
+ * same searcher generation is answered with that request's response.
+ */
+final class SearchHandler implements RouteHandler {
+    private final IndexRegistry indices;
+    private final SearchService searchService;
+    private final SearchTasks tasks;
+    private final SearchCoalescer coalescer;
+
+    SearchHandler(IndexRegistry indices, SearchService searchService, SearchTasks tasks) {
+        this(indices, searchService, tasks, null);
+    }
+
+    /**
+     * @param coalescer shares executions of identical searches, or {@code null} to run each one
+     */
+    SearchHandler(IndexRegistry indices, SearchService searchService, SearchTasks tasks, SearchCoalescer coalescer) {
+        this.indices = indices;
+        this.searchService = searchService;
+        this.tasks = tasks;
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public void handle(RequestContext context) throws Exception {
+        ManagedIndex index = indices.get(context.param("index"));
+        SearchRequest request;
+        try (var parser = JsonUtil.parser(context.getRequest().content())) {
+            request = SearchRequest.parse(parser);
+        }
+        SearchTask task = tasks.start(context);
+        if (coalescer == null || !SearchCoalescer.canCoalesce(request)) {
+            respond(context, searchService, searchService.search(index, request, task));
+            return;
+        }
+        // the key names the point in time the shared search actually runs on
+        IndexSearcher searcher = index.acquire();
+        try {
+            var key = new SearchCoalescer.Key(index.getName(), ManagedIndex.generation(searcher), request,
+                    context.getRequest().headers().get(SearchTasks.TIMEOUT_HEADER),
+                    context.param("allow_partial_results"));
+            coalescer.execute(context, key, task,
+                    () -> render(context, searchService, searchService.search(index, searcher, request, task)));
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    /** Sends a search response, recording how long it took to render. */
+    static void respond(RequestContext context, SearchService searchService, SearchResponse response) {
+        context.json(HttpResponseStatus.OK, render(context, searchService, response));
+    }
+
+    /** Renders a search response as JSON, recording how long it took. */
+    static ByteBuf render(RequestContext context, SearchService searchService, SearchResponse response) {
+        long start = System.nanoTime();
+        ByteBuf content = JsonUtil.write(context.alloc(), response::writeTo);
+        searchService.getMetrics().record(SearchMetrics.Phase.SERIALIZE, System.nanoTime() - start);
+        return content;
+    }
+}
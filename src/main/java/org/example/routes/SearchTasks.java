@@ -0,0 +1,56 @@
+package org.example.routes;
+
+import org.example.config.Server;
+import org.example.http.RequestContext;
+import org.example.search.SearchTask;
+
+/**
+ * Creates the {@link SearchTask} of a search request and ties it to the request's
+ * connection.
+ *
+ * <p>The deadline comes from the {@value #TIMEOUT_HEADER} header in milliseconds, or
+ * the server default without one. The {@code allow_partial_results} parameter overrides
+ * whether a search past its deadline returns partial results.
+ */
+final class SearchTasks {
+    static final String TIMEOUT_HEADER = "X-Search-Timeout";
+
+    private final long timeoutMillis;
+    private final boolean allowPartialResults;
+
+    SearchTasks(Server server) {
+        this.timeoutMillis = server.getSearchTimeoutMillis();
+        this.allowPartialResults = server.isAllowPartialSearchResults();
+    }
+
+    /**
+     * Starts the task of a request; it is cancelled when the client disconnects.
+     *
+     * @param context the request
+     * @return the task
+     * @throws IllegalArgumentException if the header or parameter is malformed
+     */
+    SearchTask start(RequestContext context) {
+        String header = context.getRequest().headers().get(TIMEOUT_HEADER);
+        long timeout = timeoutMillis;
+        if (header != null) {
+            try {
+                timeout = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + TIMEOUT_HEADER + " header '" + header
+                        + "', expected milliseconds", e);
+            }
+        }
+        String partial = context.param("allow_partial_results");
+        boolean allowPartial = allowPartialResults;
+        if (partial != null) {
+            if (!partial.equals("true") && !partial.equals("false")) {
+                throw new IllegalArgumentException("Invalid allow_partial_results '" + partial + "'");
+            }
+            allowPartial = Boolean.parseBoolean(partial);
+        }
+        var task = new SearchTask(context.getReceivedNanos(), timeout, allowPartial);
+        context.onCancel(task::cancel);
+        return task;
+    }
+}
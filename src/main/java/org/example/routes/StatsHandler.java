@@ -0,0 +1,46 @@
+package org.example.routes;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.example.http.RequestContext;
+import org.example.index.IndexRegistry;
+import org.example.index.IndexStats;
+import org.example.index.ManagedIndex;
+import org.example.router.RouteHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reports the {@link IndexStats} of the index named by the {@code index} parameter, or
+ * of all indices without it. Segments are reported unless {@code segments=false}.
+ */
+final class StatsHandler implements RouteHandler {
+    private final IndexRegistry indices;
+
+    StatsHandler(IndexRegistry indices) {
+        this.indices = indices;
+    }
+
+    @Override
+    public void handle(RequestContext context) throws Exception {
+        String name = context.param("index");
+        Collection<ManagedIndex> selected = name == null ? indices.all() : List.of(indices.get(name));
+        boolean withSegments = !"false".equals(context.param("segments"));
+        List<IndexStats> stats = new ArrayList<>();
+        for (ManagedIndex index : selected) {
+            stats.add(index.stats(withSegments));
+        }
+        context.json(HttpResponseStatus.OK, json -> {
+            json.writeStartObject();
+            json.writeName("indices");
+            json.writeStartObject();
+            for (IndexStats index : stats) {
+                json.writeName(index.name());
+                index.writeTo(json);
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.search;
+
+import lombok.Getter;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a search is rejected because the node lacks the heap to run it now.
+ *
+ * <p>Unlike a request exceeding a cost limit, the same request may succeed later, once
+ * other searches finished or garbage was collected.
+ */
+@Getter
+public final class CircuitBreakingException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the heap itself is nearly full, rather than reserved by other searches. */
+    private final boolean heapExhausted;
+
+    public CircuitBreakingException(String message, boolean heapExhausted) {
+        super(message);
+        this.heapExhausted = heapExhausted;
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * An opaque search-after position: the last hit of a page plus the searcher generation
+ * it was read from.
+ *
+ * <p>Resuming from the exact hit makes every page cost the same as the first one, no
+ * matter how deep the client scrolls. Doc ids break ties between equal sort values, so
+ * pages are only gap- and duplicate-free when they are read from the same searcher
+ * generation.
+ *
+ * @param generation the reader version of the searcher the page was read from
+ * @param after      the last hit of the page, a {@link FieldDoc} for field sorts
+ */
+public record Cursor(long generation, ScoreDoc after) {
+    private static final byte NONE = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte FLOAT = 3;
+    private static final byte INT = 4;
+    private static final byte BYTES = 5;
+
+    /**
+     * Encodes this cursor as a URL-safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeLong(generation);
+            out.writeInt(after.doc);
+            out.writeFloat(after.score);
+            Object[] fields = after instanceof FieldDoc fieldDoc ? fieldDoc.fields : null;
+            out.writeInt(fields == null ? -1 : fields.length);
+            if (fields != null) {
+                for (Object value : fields) {
+                    writeValue(out, value);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the token
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static Cursor decode(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try (var in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            long generation = in.readLong();
+            int doc = in.readInt();
+            float score = in.readFloat();
+            int count = in.readInt();
+            if (count < 0) {
+                return new Cursor(generation, new ScoreDoc(doc, score));
+            }
+            if (count > in.available()) {
+                throw new IOException("Invalid sort value count " + count);
+            }
+            Object[] fields = new Object[count];
+            for (int i = 0; i < count; i++) {
+                fields[i] = readValue(in);
+            }
+            if (in.available() > 0) {
+                throw new IOException("trailing bytes");
+            }
+            return new Cursor(generation, new FieldDoc(doc, score, fields));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NONE);
+            case Long l -> {
+                out.writeByte(LONG);
+                out.writeLong(l);
+            }
+            case Double d -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            }
+            case Float f -> {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            }
+            case Integer i -> {
+                out.writeByte(INT);
+                out.writeInt(i);
+            }
+            case BytesRef bytes -> {
+                out.writeByte(BYTES);
+                out.writeInt(bytes.length);
+                out.write(bytes.bytes, bytes.offset, bytes.length);
+            }
+            default -> throw new IllegalArgumentException("Unsupported sort value " + value.getClass());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case NONE -> null;
+            case LONG -> in.readLong();
+            case DOUBLE -> in.readDouble();
+            case FLOAT -> in.readFloat();
+            case INT -> in.readInt();
+            case BYTES -> {
+                int length = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    throw new IOException("Invalid length " + length);
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                yield new BytesRef(bytes);
+            }
+            default -> throw new IOException("Unknown value type " + type);
+        };
+    }
+}
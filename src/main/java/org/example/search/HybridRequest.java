@@ -0,0 +1,155 @@
+package org.example.search;
+
+import lombok.Getter;
+import org.example.index.DocumentMapper;
+import org.example.utils.JsonUtil;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A parsed hybrid search request body, combining a lexical query with a kNN query.
+ *
+ * <pre>{@code
+ * {
+ *   "query": "disk full",
+ *   "knn": {"field": "embedding", "vector": [0.12, -0.53, ...], "num_candidates": 100},
+ *   "filter": "service:api",
+ *   "size": 10,
+ *   "fusion": {"method": "rrf", "rank_constant": 60, "window": 100},
+ *   "fields": ["message"]
+ * }
+ * }</pre>
+ *
+ * <p>Each sub-query retrieves its best {@code window} documents (default
+ * {@code max(size, 100)}), which are then fused into a single ranking. {@code rrf}
+ * (reciprocal rank fusion) only looks at ranks; {@code linear} min-max normalizes the
+ * scores of each sub-query and combines them with {@code lexical_weight} and
+ * {@code knn_weight}. The optional {@code filter} restricts both sub-queries.
+ */
+@Getter
+public final class HybridRequest {
+    public static final int DEFAULT_WINDOW = 100;
+    public static final int DEFAULT_RANK_CONSTANT = 60;
+
+    /**
+     * How the two result lists are fused.
+     */
+    public enum Fusion {
+        RRF,
+        LINEAR
+    }
+
+    private String query;
+    private String knnField;
+    private float[] vector;
+    private Integer numCandidates;
+    private String filter;
+    private int size = SearchRequest.DEFAULT_SIZE;
+    private Fusion fusion = Fusion.RRF;
+    private int rankConstant = DEFAULT_RANK_CONSTANT;
+    private Integer window;
+    private float lexicalWeight = 0.5f;
+    private float knnWeight = 0.5f;
+    /** {@code null} to return all stored fields. */
+    private Set<String> fields;
+
+    /**
+     * Parses a request body.
+     *
+     * @param parser parser positioned before the request object
+     * @return the request
+     * @throws IllegalArgumentException if the body is not a valid hybrid request
+     */
+    public static HybridRequest parse(JsonParser parser) {
+        var request = new HybridRequest();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Hybrid request must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (name) {
+                case "query" -> request.query = parser.getString();
+                case "knn" -> request.parseKnn(parser, token);
+                case "filter" -> request.filter = parser.getString();
+                case "size" -> request.size = parser.getIntValue();
+                case "fusion" -> request.parseFusion(parser, token);
+                case "fields" -> request.fields = SearchRequest.parseFields(parser, token);
+                default -> throw new IllegalArgumentException("Unknown hybrid parameter '" + name + "'");
+            }
+        }
+        request.validate();
+        return request;
+    }
+
+    /**
+     * Returns how many documents each sub-query retrieves before fusion.
+     *
+     * @return the rank window
+     */
+    public int getWindow() {
+        return window != null ? window : Math.max(size, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Returns how many neighbours the kNN sub-query gathers per segment.
+     *
+     * @return the number of candidates, never fewer than the window
+     */
+    public int getNumCandidates() {
+        return numCandidates != null ? Math.max(numCandidates, getWindow()) : getWindow();
+    }
+
+    private void parseKnn(JsonParser parser, JsonToken token) {
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("'knn' must be an object");
+        }
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "field" -> knnField = parser.getString();
+                case "vector" -> vector = DocumentMapper.toVector(name, JsonUtil.readValue(parser));
+                case "num_candidates" -> numCandidates = parser.getIntValue();
+                default -> throw new IllegalArgumentException("Unknown knn parameter '" + name + "'");
+            }
+        }
+    }
+
+    private void parseFusion(JsonParser parser, JsonToken token) {
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("'fusion' must be an object");
+        }
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "method" -> fusion = Fusion.valueOf(parser.getString().toUpperCase(Locale.ROOT));
+                case "rank_constant" -> rankConstant = parser.getIntValue();
+                case "window" -> window = parser.getIntValue();
+                case "lexical_weight" -> lexicalWeight = parser.getFloatValue();
+                case "knn_weight" -> knnWeight = parser.getFloatValue();
+                default -> throw new IllegalArgumentException("Unknown fusion parameter '" + name + "'");
+            }
+        }
+    }
+
+    private void validate() {
+        if (query == null || knnField == null || vector == null) {
+            throw new IllegalArgumentException("Hybrid request requires 'query' and a 'knn' field and vector");
+        }
+        if (size <= 0 || getWindow() < size || getWindow() > SearchRequest.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("'size' must be positive and 'window' between 'size' and "
+                    + SearchRequest.MAX_RESULT_WINDOW);
+        }
+        if (numCandidates != null && numCandidates > SearchRequest.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("'num_candidates' must not exceed " + SearchRequest.MAX_RESULT_WINDOW);
+        }
+        if (rankConstant < 1 || lexicalWeight < 0 || knnWeight < 0) {
+            throw new IllegalArgumentException("'rank_constant' must be positive and weights must not be negative");
+        }
+    }
+}
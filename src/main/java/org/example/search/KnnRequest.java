@@ -0,0 +1,93 @@
+package org.example.search;
+
+import lombok.Getter;
+import org.example.index.DocumentMapper;
+import org.example.utils.JsonUtil;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+
+import java.util.Set;
+
+/**
+ * A parsed approximate nearest-neighbour search request body.
+ *
+ * <pre>{@code
+ * {
+ *   "field": "embedding",
+ *   "vector": [0.12, -0.53, ...],
+ *   "k": 10,
+ *   "num_candidates": 100,
+ *   "filter": "service:api AND timestamp:[1700000000000 TO *]",
+ *   "fields": ["service"]
+ * }
+ * }</pre>
+ *
+ * <p>{@code num_candidates} nearest neighbours are gathered per segment and the best
+ * {@code k} of them are returned; more candidates improve recall at the cost of latency.
+ * The optional {@code filter} uses the query string syntax of {@code /_search} and is
+ * applied during the graph search.
+ */
+@Getter
+public final class KnnRequest {
+    public static final int DEFAULT_K = 10;
+    public static final int DEFAULT_NUM_CANDIDATES = 100;
+
+    private String field;
+    private float[] vector;
+    private int k = DEFAULT_K;
+    private Integer numCandidates;
+    private String filter;
+    /** {@code null} to return all stored fields. */
+    private Set<String> fields;
+
+    /**
+     * Parses a request body.
+     *
+     * @param parser parser positioned before the request object
+     * @return the request
+     * @throws IllegalArgumentException if the body is not a valid kNN request
+     */
+    public static KnnRequest parse(JsonParser parser) {
+        var request = new KnnRequest();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("kNN request must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (name) {
+                case "field" -> request.field = parser.getString();
+                case "vector" -> request.vector = DocumentMapper.toVector(name, JsonUtil.readValue(parser));
+                case "k" -> request.k = parser.getIntValue();
+                case "num_candidates" -> request.numCandidates = parser.getIntValue();
+                case "filter" -> request.filter = parser.getString();
+                case "fields" -> request.fields = SearchRequest.parseFields(parser, token);
+                default -> throw new IllegalArgumentException("Unknown kNN parameter '" + name + "'");
+            }
+        }
+        request.validate();
+        return request;
+    }
+
+    /**
+     * Returns how many neighbours to gather per segment, never fewer than {@code k}.
+     *
+     * @return the number of candidates
+     */
+    public int getNumCandidates() {
+        return numCandidates != null ? numCandidates : Math.max(k, DEFAULT_NUM_CANDIDATES);
+    }
+
+    private void validate() {
+        if (field == null || vector == null) {
+            throw new IllegalArgumentException("kNN request requires 'field' and 'vector'");
+        }
+        if (k <= 0 || k > SearchRequest.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("'k' must be between 1 and " + SearchRequest.MAX_RESULT_WINDOW);
+        }
+        if (numCandidates != null && (numCandidates < k || numCandidates > SearchRequest.MAX_RESULT_WINDOW)) {
+            throw new IllegalArgumentException("'num_candidates' must be between 'k' and "
+                    + SearchRequest.MAX_RESULT_WINDOW);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fuses ranked result lists of different queries over the same searcher into one ranking.
+ */
+final class RankFusion {
+
+    private RankFusion() {
+    }
+
+    /**
+     * Reciprocal rank fusion: a document scores {@code sum(1 / (rankConstant + rank))} over
+     * the lists it appears in, with ranks starting at 1. Only ranks matter, so lists with
+     * incomparable score scales fuse without tuning.
+     *
+     * @param lists        the ranked lists
+     * @param rankConstant dampens the influence of top ranks; 60 is the customary value
+     * @param size         how many fused documents to return
+     * @return the best documents by fused score, with the number of distinct documents as total
+     */
+    static TopDocs reciprocalRank(TopDocs[] lists, int rankConstant, int size) {
+        Map<Integer, ScoreDoc> fused = new HashMap<>();
+        for (TopDocs list : lists) {
+            for (int rank = 0; rank < list.scoreDocs.length; rank++) {
+                float score = 1f / (rankConstant + rank + 1);
+                fused.computeIfAbsent(list.scoreDocs[rank].doc, doc -> new ScoreDoc(doc, 0f)).score += score;
+            }
+        }
+        return top(fused, size);
+    }
+
+    /**
+     * Weighted sum of min-max normalized scores. A list whose scores are all equal
+     * contributes its full weight to each of its documents.
+     *
+     * @param lists   the ranked lists
+     * @param weights one weight per list
+     * @param size    how many fused documents to return
+     * @return the best documents by fused score, with the number of distinct documents as total
+     */
+    static TopDocs linear(TopDocs[] lists, float[] weights, int size) {
+        Map<Integer, ScoreDoc> fused = new HashMap<>();
+        for (int i = 0; i < lists.length; i++) {
+            ScoreDoc[] scoreDocs = lists[i].scoreDocs;
+            if (scoreDocs.length == 0) {
+                continue;
+            }
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                min = Math.min(min, scoreDoc.score);
+                max = Math.max(max, scoreDoc.score);
+            }
+            float range = max - min;
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                float normalized = range > 0 ? (scoreDoc.score - min) / range : 1f;
+                fused.computeIfAbsent(scoreDoc.doc, doc -> new ScoreDoc(doc, 0f)).score += weights[i] * normalized;
+            }
+        }
+        return top(fused, size);
+    }
+
+    private static TopDocs top(Map<Integer, ScoreDoc> fused, int size) {
+        ScoreDoc[] all = fused.values().toArray(ScoreDoc[]::new);
+        Arrays.sort(all, (a, b) -> a.score != b.score ? Float.compare(b.score, a.score) : Integer.compare(a.doc, b.doc));
+        return new TopDocs(new TotalHits(all.length, TotalHits.Relation.EQUAL_TO),
+                all.length > size ? Arrays.copyOf(all, size) : all);
+    }
+}
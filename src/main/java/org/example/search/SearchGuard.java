@@ -0,0 +1,297 @@
+package org.example.search;
+
+import org.apache.lucene.index.AutomatonTermsEnum;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.AutomatonQuery;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.CompiledAutomaton;
+import org.example.config.SearchLimitsConfig;
+import org.example.search.aggregation.Aggregation;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Checks the cost of searches before they run.
+ *
+ * <p>{@link #rewrite} rejects queries whose rewritten form has too many clauses, whose
+ * wildcard, regexp or fuzzy automata are too large, or whose multi-term clauses would
+ * expand to too many terms in the searched segments. Counting the terms of a wildcard,
+ * regexp or range clause steps through at most a budget of terms per segment, so that
+ * sparse patterns such as leading wildcards are rejected instead of scanning the whole
+ * term dictionary to be costed. {@link #reserve} rejects
+ * aggregations that would create too many buckets, judged from the field statistics of
+ * the searched reader. These limits yield {@link IllegalArgumentException}s, since
+ * retrying the same request cannot help.
+ *
+ * <p>{@link #reserve} also acts as a circuit breaker for the heap: every admitted search
+ * reserves its estimated memory until it completes. A search is rejected with a
+ * {@link CircuitBreakingException} when the reservations of all searches in flight would
+ * exceed their share of the heap, or when the heap is nearly full already.
+ */
+public final class SearchGuard {
+    /** Rough heap cost of a collected hit: the score doc and its priority queue slot. */
+    private static final long BYTES_PER_HIT = 64;
+    /** Rough heap cost of a returned hit: its loaded fields and their JSON rendering. */
+    private static final long BYTES_PER_LOADED_HIT = 2_048;
+
+    private final SearchLimitsConfig limits;
+    private final long maxHeapBytes;
+    private final LongSupplier heapUsed;
+    private final AtomicLong inFlight = new AtomicLong();
+
+    /**
+     * @param limits the limits to enforce
+     */
+    public SearchGuard(SearchLimitsConfig limits) {
+        this(limits, Runtime.getRuntime().maxMemory(), heapUsage());
+    }
+
+    SearchGuard(SearchLimitsConfig limits, long maxHeapBytes, LongSupplier heapUsed) {
+        this.limits = limits;
+        this.maxHeapBytes = maxHeapBytes;
+        this.heapUsed = heapUsed;
+    }
+
+    private static LongSupplier heapUsage() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        return () -> memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * A share of the heap reserved by an admitted search.
+     */
+    public final class Reservation implements AutoCloseable {
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Returns the reserved share once the search completed.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.addAndGet(-bytes);
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated heap reserved by the searches in flight.
+     *
+     * @return the reserved bytes
+     */
+    public long inFlightBytes() {
+        return inFlight.get();
+    }
+
+    /**
+     * Rewrites a query against a searcher and checks its cost.
+     *
+     * @param searcher the searcher the query will run on
+     * @param query    the parsed query
+     * @return the rewritten query, ready to run on the searcher
+     * @throws IOException if reading the term dictionaries fails
+     * @throws IllegalArgumentException if the query exceeds a limit
+     */
+    public Query rewrite(IndexSearcher searcher, Query query) throws IOException {
+        Query rewritten;
+        try {
+            rewritten = searcher.rewrite(query);
+        } catch (IndexSearcher.TooManyClauses e) {
+            throw new IllegalArgumentException("Query has too many clauses: " + e.getMessage(), e);
+        }
+        var cost = new CostVisitor();
+        rewritten.visit(cost);
+        if (cost.clauses > limits.getMaxClauses()) {
+            throw new IllegalArgumentException("Query has " + cost.clauses + " clauses, more than the limit of "
+                    + limits.getMaxClauses());
+        }
+        long expansions = 0;
+        for (MultiTermQuery multiTerm : cost.multiTermQueries) {
+            expansions += countTerms(searcher.getIndexReader(), multiTerm, limits.getMaxTermExpansions() - expansions,
+                    limits.getMaxTermsScanned());
+            if (expansions > limits.getMaxTermExpansions()) {
+                throw new IllegalArgumentException("Query clause " + multiTerm + " matches more than "
+                        + limits.getMaxTermExpansions() + " terms");
+            }
+        }
+        return rewritten;
+    }
+
+    /**
+     * Checks the aggregations of a search and reserves the heap the search is estimated
+     * to need, to be released when it completes.
+     *
+     * @param searcher     the searcher the search will run on
+     * @param collected    how many top hits are collected
+     * @param returned     how many of them are loaded and returned
+     * @param aggregations the aggregations to compute
+     * @param otherBytes   further bytes the search needs, such as facet counts
+     * @return the reservation, to be closed when the search completed
+     * @throws IOException if reading index statistics fails
+     * @throws IllegalArgumentException if the aggregations create too many buckets, or the
+     *                                  search alone needs more than the in-flight share of the heap
+     * @throws CircuitBreakingException if the heap cannot take the search right now
+     */
+    public Reservation reserve(IndexSearcher searcher, int collected, int returned,
+                               List<Aggregation<?>> aggregations, long otherBytes) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        long buckets = 0;
+        long bytes = collected * BYTES_PER_HIT + returned * BYTES_PER_LOADED_HIT + otherBytes;
+        for (Aggregation<?> aggregation : aggregations) {
+            buckets += aggregation.estimateBuckets(reader);
+            bytes += aggregation.estimateBytes(reader);
+        }
+        if (buckets > limits.getMaxAggregationBuckets()) {
+            throw new IllegalArgumentException("Aggregations would create up to " + buckets
+                    + " buckets, more than the limit of " + limits.getMaxAggregationBuckets());
+        }
+        return reserve(bytes);
+    }
+
+    Reservation reserve(long bytes) {
+        long inFlightLimit = maxHeapBytes / 100 * limits.getInFlightHeapPercent();
+        if (bytes > inFlightLimit) {
+            throw new IllegalArgumentException("Search needs an estimated " + megabytes(bytes)
+                    + " of heap, more than the limit of " + megabytes(inFlightLimit));
+        }
+        if (heapUsed.getAsLong() + bytes > maxHeapBytes / 100 * limits.getMaxHeapUsedPercent()) {
+            throw new CircuitBreakingException("Heap usage is above " + limits.getMaxHeapUsedPercent() + "%", true);
+        }
+        long reserved;
+        do {
+            reserved = inFlight.get();
+            if (reserved + bytes > inFlightLimit) {
+                throw new CircuitBreakingException("Searches in flight already reserve " + megabytes(reserved)
+                        + " of " + megabytes(inFlightLimit) + " heap", false);
+            }
+        } while (!inFlight.compareAndSet(reserved, reserved + bytes));
+        return new Reservation(bytes);
+    }
+
+    /**
+     * Counts the terms a multi-term query matches over all segments, stopping once the
+     * count exceeds {@code limit}. Automaton queries are intersected with the plain term
+     * dictionary instead of its optimized intersection, so that every term stepped
+     * through counts against {@code scanBudget}.
+     *
+     * @throws IllegalArgumentException if a segment needs more than {@code scanBudget} terms
+     */
+    private static long countTerms(IndexReader reader, MultiTermQuery query, long limit, long scanBudget)
+            throws IOException {
+        long count = 0;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            Terms terms = leaf.reader().terms(query.getField());
+            if (terms == null) {
+                continue;
+            }
+            TermsEnum termsEnum = query instanceof AutomatonQuery automaton
+                    && automaton.getCompiled().type == CompiledAutomaton.AUTOMATON_TYPE.NORMAL
+                    ? new AutomatonTermsEnum(new BudgetedTermsEnum(terms.iterator(), scanBudget, query),
+                    automaton.getCompiled())
+                    : query.getTermsEnum(terms);
+            while (termsEnum.next() != null) {
+                if (++count > limit) {
+                    return count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Steps through a term dictionary, failing once it stepped through too many terms. */
+    private static final class BudgetedTermsEnum extends FilterLeafReader.FilterTermsEnum {
+        private final long budget;
+        private final Query query;
+        private long scanned;
+
+        BudgetedTermsEnum(TermsEnum in, long budget, Query query) {
+            super(in);
+            this.budget = budget;
+            this.query = query;
+        }
+
+        @Override
+        public BytesRef next() throws IOException {
+            step();
+            return in.next();
+        }
+
+        @Override
+        public SeekStatus seekCeil(BytesRef text) throws IOException {
+            step();
+            return in.seekCeil(text);
+        }
+
+        private void step() {
+            if (++scanned > budget) {
+                throw new IllegalArgumentException("Query clause " + query + " scans more than " + budget
+                        + " terms of a segment");
+            }
+        }
+    }
+
+    private static String megabytes(long bytes) {
+        return (bytes >> 20) + " MB";
+    }
+
+    /**
+     * Counts the leaf clauses of a query, checks automaton sizes and collects the
+     * multi-term queries whose expansions need counting.
+     */
+    private final class CostVisitor extends QueryVisitor {
+        private long clauses;
+        private final List<MultiTermQuery> multiTermQueries = new ArrayList<>();
+
+        @Override
+        public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+            return this;
+        }
+
+        @Override
+        public void consumeTerms(Query query, Term... terms) {
+            clauses += terms.length;
+        }
+
+        @Override
+        public void consumeTermsMatching(Query query, String field, Supplier<ByteRunAutomaton> automaton) {
+            clauses++;
+            int states = automaton.get().getSize();
+            if (states > limits.getMaxAutomatonStates()) {
+                throw new IllegalArgumentException("Query clause " + query + " compiles to " + states
+                        + " automaton states, more than the limit of " + limits.getMaxAutomatonStates());
+            }
+            if (query instanceof MultiTermQuery multiTerm) {
+                multiTermQueries.add(multiTerm);
+            }
+        }
+
+        @Override
+        public void visitLeaf(Query query) {
+            clauses++;
+        }
+    }
+}
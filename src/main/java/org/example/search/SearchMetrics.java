@@ -0,0 +1,64 @@
+package org.example.search;
+
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.MetricsSource;
+import org.example.metrics.PrometheusWriter;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency histograms of the phases of searches, across search, kNN and hybrid requests.
+ */
+public final class SearchMetrics implements MetricsSource {
+
+    /**
+     * The phases of a search.
+     */
+    public enum Phase {
+        /** Parsing and rewriting the query and checking its cost. */
+        PARSE,
+        /** Collecting hits, facets and aggregations. */
+        SEARCH,
+        /** Loading the fields of the returned hits. */
+        FETCH,
+        /** Rendering the response as JSON. */
+        SERIALIZE
+    }
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+
+    public SearchMetrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records how long a phase took.
+     *
+     * @param phase the phase
+     * @param nanos its duration
+     */
+    public void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    /**
+     * Returns the histogram of a phase.
+     *
+     * @param phase the phase
+     * @return its histogram
+     */
+    public LatencyHistogram histogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    @Override
+    public void writeTo(PrometheusWriter out) {
+        out.family("minisearch_search_phase_duration_seconds", "histogram", "Duration of search phases.");
+        phases.forEach((phase, histogram) -> histogram.writeTo(out, "minisearch_search_phase_duration_seconds",
+                "phase", phase.name().toLowerCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.search;
+
+import lombok.Getter;
+import org.apache.lucene.sandbox.search.AggregatedQueryLeafProfilerResult;
+import org.apache.lucene.sandbox.search.QueryProfilerResult;
+import tools.jackson.core.JsonGenerator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How long the phases of a search took and, for searches with {@code profile}, the
+ * per-clause timings of Lucene's query profiler.
+ *
+ * <p>Phase durations are measured for every search the slow log can see; the query
+ * tree is only filled in when the request asked for a profile, since profiling runs the
+ * search single-threaded, without the query cache and with a timer around every call
+ * into the scorers.
+ */
+@Getter
+public final class SearchProfile {
+    private long rewriteNanos;
+    private long weightNanos;
+    private long collectNanos;
+    private long fetchNanos;
+    private List<QueryProfilerResult> queries = List.of();
+
+    void rewrite(long nanos) {
+        rewriteNanos = nanos;
+    }
+
+    /**
+     * Records the time spent in the search call, which includes creating the weight.
+     */
+    void search(long nanos, long weightNanos) {
+        this.weightNanos = weightNanos;
+        collectNanos = Math.max(0, nanos - weightNanos);
+    }
+
+    void fetch(long nanos) {
+        fetchNanos = nanos;
+    }
+
+    void queries(List<QueryProfilerResult> queries) {
+        this.queries = queries;
+    }
+
+    /**
+     * Writes the phase durations and the query tree as a JSON object.
+     *
+     * @param generator the generator to write to
+     */
+    public void writeTo(JsonGenerator generator) {
+        generator.writeStartObject();
+        generator.writeNumberProperty("rewrite_nanos", rewriteNanos);
+        generator.writeNumberProperty("weight_nanos", weightNanos);
+        generator.writeNumberProperty("collect_nanos", collectNanos);
+        generator.writeNumberProperty("fetch_nanos", fetchNanos);
+        generator.writeName("query");
+        writeQueries(generator, queries);
+        generator.writeEndObject();
+    }
+
+    private static void writeQueries(JsonGenerator generator, List<QueryProfilerResult> queries) {
+        generator.writeStartArray();
+        for (QueryProfilerResult query : queries) {
+            generator.writeStartObject();
+            generator.writeStringProperty("type", query.getQueryName());
+            generator.writeStringProperty("description", query.getDescription());
+            generator.writeNumberProperty("time_nanos", query.getTotalTime());
+            // profiled searches run on one thread, so summing the per-thread leaf timings
+            // into the weight's loses nothing
+            Map<String, Long> breakdown = new TreeMap<>(query.getTimeBreakdown());
+            for (AggregatedQueryLeafProfilerResult leaves : query.getAggregatedQueryLeafBreakdowns()) {
+                leaves.getTimeBreakdown().forEach((timing, nanos) -> breakdown.merge(timing, nanos, Long::sum));
+            }
+            generator.writeName("breakdown");
+            generator.writeStartObject();
+            for (Map.Entry<String, Long> timing : breakdown.entrySet()) {
+                generator.writeNumberProperty(timing.getKey(), timing.getValue());
+            }
+            generator.writeEndObject();
+            if (!query.getProfiledChildren().isEmpty()) {
+                generator.writeName("children");
+                writeQueries(generator, query.getProfiledChildren());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.search;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.example.config.SortOrder;
+import org.example.utils.JsonUtil;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A parsed search request body.
+ *
+ * <pre>{@code
+ * {
+ *   "query": "title:lucene AND timestamp:[1700000000000 TO *]",
+ *   "from": 0,
+ *   "size": 20,
+ *   "sort": [{"field": "timestamp", "order": "desc"}],
+ *   "track_total_hits": 1000,
+ *   "search_after": "<cursor of the previous page>",
+ *   "facets": [{"field": "service", "size": 10}],
+ *   "aggs": {"latency": {"stats": {"field": "latency"}}},
+ *   "fields": ["message", "timestamp"],
+ *   "profile": false
+ * }
+ * }</pre>
+ *
+ * <p>{@code track_total_hits} bounds how many matches are counted exactly. Once the
+ * top hits are final and that many matches were seen, collection may stop early and
+ * the reported total becomes a lower bound. {@code true} counts every match.
+ *
+ * <p>For deep pagination, pass the {@code cursor} of the previous response as
+ * {@code search_after} together with the same query and sort instead of increasing
+ * {@code from}.
+ *
+ * <p>{@code aggs} is kept as parsed JSON and interpreted by
+ * {@link org.example.search.aggregation.AggregationParser} against the searched index.
+ *
+ * <p>{@code fields} limits the {@code _source} of hits to the listed fields, which are
+ * then the only ones decoded. Without it, hits carry all stored fields.
+ *
+ * <p>{@code profile} adds the phase durations and the per-clause timings of Lucene's
+ * query profiler to the response; see {@link SearchProfile}.
+ *
+ * <p>Requests are equal when they were parsed from equivalent bodies, which lets
+ * identical concurrent searches share one execution.
+ */
+@Getter
+@EqualsAndHashCode
+public final class SearchRequest {
+    public static final int DEFAULT_SIZE = 10;
+    public static final int DEFAULT_TRACK_TOTAL_HITS = 1000;
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private String query;
+    private int from = 0;
+    private int size = DEFAULT_SIZE;
+    private final List<SortClause> sort = new ArrayList<>();
+    private int trackTotalHits = DEFAULT_TRACK_TOTAL_HITS;
+    private Cursor searchAfter;
+    private final List<FacetRequest> facets = new ArrayList<>();
+    private Map<String, Object> aggregations = Map.of();
+    /** {@code null} to return all stored fields. */
+    private Set<String> fields;
+    private boolean profile;
+
+    /**
+     * A single sort criterion.
+     *
+     * @param field the field to sort on
+     * @param order the sort direction
+     */
+    public record SortClause(String field, SortOrder order) {
+    }
+
+    /**
+     * Requests the top values of a facet field among all matches.
+     *
+     * @param field the facet field
+     * @param size  how many values to return
+     */
+    public record FacetRequest(String field, int size) {
+    }
+
+    /**
+     * Parses a request body. An empty body yields a match-all request with defaults.
+     *
+     * @param parser parser positioned before the request object
+     * @return the request
+     * @throws IllegalArgumentException if the body is not a valid search request
+     */
+    public static SearchRequest parse(JsonParser parser) {
+        var request = new SearchRequest();
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return request;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Search request must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            token = parser.nextToken();
+            switch (name) {
+                case "query" -> request.query = parser.getString();
+                case "from" -> request.from = parser.getIntValue();
+                case "size" -> request.size = parser.getIntValue();
+                case "sort" -> request.parseSort(parser, token);
+                case "track_total_hits" -> request.trackTotalHits = switch (token) {
+                    case VALUE_TRUE -> Integer.MAX_VALUE;
+                    case VALUE_FALSE -> 0;
+                    default -> parser.getIntValue();
+                };
+                case "search_after" -> {
+                    if (token != JsonToken.VALUE_STRING) {
+                        throw new IllegalArgumentException("'search_after' must be a cursor string");
+                    }
+                    request.searchAfter = Cursor.decode(parser.getString());
+                }
+                case "facets" -> request.parseFacets(parser, token);
+                case "aggs" -> request.aggregations = JsonUtil.readObject(parser);
+                case "fields" -> request.fields = parseFields(parser, token);
+                case "profile" -> request.profile = parser.getBooleanValue();
+                default -> throw new IllegalArgumentException("Unknown search parameter '" + name + "'");
+            }
+        }
+        request.validate();
+        return request;
+    }
+
+    /**
+     * Parses the {@code fields} parameter shared by all search requests.
+     *
+     * @param parser parser positioned on the parameter value
+     * @param token  the current token
+     * @return the field names
+     * @throws IllegalArgumentException if the value is not an array of strings
+     */
+    static Set<String> parseFields(JsonParser parser, JsonToken token) {
+        if (token != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("'fields' must be an array");
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_STRING) {
+                throw new IllegalArgumentException("'fields' must contain field names");
+            }
+            fields.add(parser.getString());
+        }
+        return fields;
+    }
+
+    private void parseSort(JsonParser parser, JsonToken token) {
+        if (token != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("'sort' must be an array");
+        }
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("'sort' must contain objects");
+            }
+            String field = null;
+            SortOrder order = SortOrder.ASC;
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "field" -> field = parser.getString();
+                    case "order" -> order = SortOrder.valueOf(parser.getString().toUpperCase(Locale.ROOT));
+                    default -> throw new IllegalArgumentException("Unknown sort parameter '" + name + "'");
+                }
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("Sort clause requires a 'field'");
+            }
+            sort.add(new SortClause(field, order));
+        }
+    }
+
+    private void parseFacets(JsonParser parser, JsonToken token) {
+        if (token != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("'facets' must be an array");
+        }
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("'facets' must contain objects");
+            }
+            String field = null;
+            int facetSize = DEFAULT_SIZE;
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "field" -> field = parser.getString();
+                    case "size" -> facetSize = parser.getIntValue();
+                    default -> throw new IllegalArgumentException("Unknown facet parameter '" + name + "'");
+                }
+            }
+            if (field == null || facetSize <= 0) {
+                throw new IllegalArgumentException("Facet requires a 'field' and a positive 'size'");
+            }
+            facets.add(new FacetRequest(field, facetSize));
+        }
+    }
+
+    private void validate() {
+        if (from < 0 || size < 0) {
+            throw new IllegalArgumentException("'from' and 'size' must not be negative");
+        }
+        if ((long) from + size > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("'from' + 'size' must not exceed " + MAX_RESULT_WINDOW);
+        }
+        if (searchAfter != null && from > 0) {
+            throw new IllegalArgumentException("'from' cannot be combined with 'search_after'");
+        }
+        if (trackTotalHits < 0) {
+            throw new IllegalArgumentException("'track_total_hits' must not be negative");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.search;
+
+import lombok.Getter;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
+import org.example.search.aggregation.AggregationResult;
+import tools.jackson.core.JsonGenerator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a search: the hit count, the requested page of hits and timing.
+ *
+ * <p>The hit count is reported with a relation: {@code "eq"} if it is exact and
+ * {@code "gte"} if collection terminated early and the count is a lower bound.
+ * Non-empty pages carry a {@code cursor} that fetches the next page.
+ * Requested facets are reported per field with their top values and counts, and
+ * aggregations by their request name. {@code timed_out} tells whether the search
+ * stopped at its deadline and reports only what it collected until then.
+ * Requests with {@code profile} get a {@code profile} section; see {@link SearchProfile}.
+ */
+@Getter
+public final class SearchResponse {
+    private final long tookMillis;
+    private final TotalHits totalHits;
+    private final List<Hit> hits;
+    private final Cursor cursor;
+    private final List<FacetResult> facets;
+    private final Map<String, AggregationResult> aggregations;
+    private final boolean timedOut;
+    /** {@code null} unless the request asked for a profile. */
+    private final SearchProfile profile;
+
+    /**
+     * A single search hit.
+     *
+     * @param score      the relevance score, or {@code NaN} when sorting by field
+     * @param sortValues the values the hit was sorted by, or {@code null} for relevance order
+     * @param source     the stored fields of the hit
+     */
+    public record Hit(float score, Object[] sortValues, Document source) {
+    }
+
+    public SearchResponse(long tookMillis, TotalHits totalHits, List<Hit> hits, Cursor cursor,
+                          List<FacetResult> facets, Map<String, AggregationResult> aggregations) {
+        this(tookMillis, totalHits, hits, cursor, facets, aggregations, false);
+    }
+
+    public SearchResponse(long tookMillis, TotalHits totalHits, List<Hit> hits, Cursor cursor,
+                          List<FacetResult> facets, Map<String, AggregationResult> aggregations, boolean timedOut) {
+        this(tookMillis, totalHits, hits, cursor, facets, aggregations, timedOut, null);
+    }
+
+    public SearchResponse(long tookMillis, TotalHits totalHits, List<Hit> hits, Cursor cursor,
+                          List<FacetResult> facets, Map<String, AggregationResult> aggregations, boolean timedOut,
+                          SearchProfile profile) {
+        this.tookMillis = tookMillis;
+        this.totalHits = totalHits;
+        this.hits = hits;
+        this.cursor = cursor;
+        this.facets = facets;
+        this.aggregations = aggregations;
+        this.timedOut = timedOut;
+        this.profile = profile;
+    }
+
+    /**
+     * Returns whether the reported hit count is exact.
+     *
+     * @return {@code false} if the count is only a lower bound
+     */
+    public boolean isTotalHitsExact() {
+        return totalHits.relation() == TotalHits.Relation.EQUAL_TO;
+    }
+
+    /**
+     * Writes this response as a JSON object.
+     *
+     * @param generator the generator to write to
+     */
+    public void writeTo(JsonGenerator generator) {
+        generator.writeStartObject();
+        generator.writeNumberProperty("took", tookMillis);
+        generator.writeBooleanProperty("timed_out", timedOut);
+        generator.writeName("total");
+        generator.writeStartObject();
+        generator.writeNumberProperty("value", totalHits.value());
+        generator.writeStringProperty("relation", isTotalHitsExact() ? "eq" : "gte");
+        generator.writeEndObject();
+        generator.writeName("hits");
+        generator.writeStartArray();
+        for (Hit hit : hits) {
+            writeHit(generator, hit);
+        }
+        generator.writeEndArray();
+        if (cursor != null) {
+            generator.writeStringProperty("cursor", cursor.encode());
+        }
+        if (!facets.isEmpty()) {
+            generator.writeName("facets");
+            generator.writeStartObject();
+            for (FacetResult facet : facets) {
+                writeFacet(generator, facet);
+            }
+            generator.writeEndObject();
+        }
+        if (!aggregations.isEmpty()) {
+            generator.writeName("aggs");
+            generator.writeStartObject();
+            for (var entry : aggregations.entrySet()) {
+                generator.writeName(entry.getKey());
+                entry.getValue().writeTo(generator);
+            }
+            generator.writeEndObject();
+        }
+        if (profile != null) {
+            generator.writeName("profile");
+            profile.writeTo(generator);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeFacet(JsonGenerator generator, FacetResult facet) {
+        generator.writeName(facet.dim);
+        generator.writeStartObject();
+        // the per-dimension document count is unknown for multi-valued fields, so report
+        // how many distinct values matched instead
+        generator.writeNumberProperty("distinct", facet.childCount);
+        generator.writeName("values");
+        generator.writeStartArray();
+        for (LabelAndValue labelAndValue : facet.labelValues) {
+            generator.writeStartObject();
+            generator.writeStringProperty("value", labelAndValue.label);
+            generator.writeNumberProperty("count", labelAndValue.value.longValue());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeHit(JsonGenerator generator, Hit hit) {
+        generator.writeStartObject();
+        if (!Float.isNaN(hit.score())) {
+            generator.writeNumberProperty("_score", hit.score());
+        }
+        if (hit.sortValues() != null) {
+            generator.writeName("_sort");
+            generator.writeStartArray();
+            for (Object value : hit.sortValues()) {
+                writeSortValue(generator, value);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeName("_source");
+        writeSource(generator, hit.source());
+        generator.writeEndObject();
+    }
+
+    private static void writeSortValue(JsonGenerator generator, Object value) {
+        switch (value) {
+            case null -> generator.writeNull();
+            case Long l -> generator.writeNumber(l);
+            case Integer i -> generator.writeNumber(i);
+            case Double d -> generator.writeNumber(d);
+            case Float f -> generator.writeNumber(f);
+            case BytesRef bytes -> generator.writeString(bytes.utf8ToString());
+            default -> generator.writeString(value.toString());
+        }
+    }
+
+    static void writeSource(JsonGenerator generator, Document source) {
+        Map<String, List<IndexableField>> grouped = new LinkedHashMap<>();
+        for (IndexableField field : source.getFields()) {
+            grouped.computeIfAbsent(field.name(), k -> new ArrayList<>(1)).add(field);
+        }
+        generator.writeStartObject();
+        for (var entry : grouped.entrySet()) {
+            generator.writeName(entry.getKey());
+            List<IndexableField> values = entry.getValue();
+            if (values.size() == 1) {
+                writeFieldValue(generator, values.getFirst());
+            } else {
+                generator.writeStartArray();
+                for (IndexableField value : values) {
+                    writeFieldValue(generator, value);
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeFieldValue(JsonGenerator generator, IndexableField field) {
+        Number number = field.numericValue();
+        if (number instanceof Long || number instanceof Integer) {
+            generator.writeNumber(number.longValue());
+        } else if (number != null) {
+            generator.writeNumber(number.doubleValue());
+        } else {
+            generator.writeString(field.stringValue());
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package org.example.search;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.ConcurrentSortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.sandbox.search.QueryProfilerIndexSearcher;
+import org.apache.lucene.sandbox.search.QueryProfilerResult;
+import org.apache.lucene.sandbox.search.QueryProfilerTimingType;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiCollectorManager;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.search.TotalHitCountCollectorManager;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.example.config.SearchLimitsConfig;
+import org.example.config.SlowLogConfig;
+import org.example.index.DocumentMapper;
+import org.example.index.ManagedIndex;
+import org.example.jfr.SearchEvent;
+import org.example.search.aggregation.Aggregation;
+import org.example.search.aggregation.AggregationCollectorManager;
+import org.example.search.aggregation.AggregationParser;
+import org.example.search.aggregation.AggregationResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes {@link SearchRequest}s against a {@link ManagedIndex}.
+ *
+ * <p>Top hits are collected with Lucene's top-k collector managers and the request's
+ * {@code track_total_hits} threshold. When the requested sort is a prefix of the
+ * index sort, each segment stops collecting as soon as its top hits are final and the
+ * threshold is reached, so sorted "latest N" queries touch only a handful of documents
+ * per segment.
+ *
+ * <p>Requests with a {@link Cursor} resume after the cursor's last hit with Lucene's
+ * search-after support, so every page costs the same regardless of depth. They run
+ * against the searcher generation the cursor was issued from while that searcher is
+ * still leased, and against the current searcher otherwise.
+ *
+ * <p>Facets are collected in the same pass as the top hits and counted from the
+ * index's {@code SortedSetDocValues} facet field. The global ordinal state this needs
+ * is built once per searcher generation by {@link ManagedIndex#facetState}; counting
+ * then runs one task per segment on the facet executor.
+ *
+ * <p>Aggregations are collected in that same pass from doc values; see
+ * {@link AggregationCollectorManager}.
+ *
+ * <p>Fields are loaded only for the returned hits, once collection is done, and only the
+ * fields a request lists; see {@link ManagedIndex#documents}.
+ *
+ * <p>Searches with a {@link SearchTask} run on a view of the searcher that Lucene checks
+ * against the task's deadline and cancellation while collecting; see
+ * {@link ManagedIndex#withTimeout}.
+ *
+ * <p>While a {@link SlowLog} threshold is set, searches run on a view that times weight
+ * creation so the log can tell it apart from collection. Requests with {@code profile}
+ * run on Lucene's profiling searcher instead; other requests take neither detour.
+ *
+ * <p>Searches, kNN and hybrid searches are recorded as {@link SearchEvent}s while a
+ * flight recording is running.
+ */
+public final class SearchService {
+    private static final String CREATE_WEIGHT = QueryProfilerTimingType.CREATE_WEIGHT.toString();
+
+    private final ExecutorService facetExecutor;
+    private final SearchGuard guard;
+    private final SearchMetrics metrics;
+    private final SlowLog slowLog;
+
+    /**
+     * Creates a service that counts facets on the calling thread and enforces the
+     * default search limits.
+     */
+    public SearchService() {
+        this(null);
+    }
+
+    /**
+     * Creates a service that counts facets of different segments concurrently.
+     *
+     * <p>Facet counting blocks on its per-segment tasks, so the executor must not be
+     * the one the search itself runs on, or a saturated pool would wait on itself.
+     *
+     * @param facetExecutor executor for per-segment facet counting, or {@code null}
+     */
+    public SearchService(ExecutorService facetExecutor) {
+        this(facetExecutor, new SearchGuard(new SearchLimitsConfig()));
+    }
+
+    /**
+     * Creates a service that checks every search with a guard before running it.
+     *
+     * @param facetExecutor executor for per-segment facet counting, or {@code null}
+     * @param guard         the cost limits and heap circuit breaker
+     */
+    public SearchService(ExecutorService facetExecutor, SearchGuard guard) {
+        this(facetExecutor, guard, new SearchMetrics());
+    }
+
+    /**
+     * Creates a service that checks every search with a guard and records the duration
+     * of its phases.
+     *
+     * @param facetExecutor executor for per-segment facet counting, or {@code null}
+     * @param guard         the cost limits and heap circuit breaker
+     * @param metrics       the phase histograms to record into
+     */
+    public SearchService(ExecutorService facetExecutor, SearchGuard guard, SearchMetrics metrics) {
+        this(facetExecutor, guard, metrics, new SlowLog(new SlowLogConfig()));
+    }
+
+    /**
+     * Creates a service that checks every search with a guard, records the duration of
+     * its phases and logs searches with slow phases.
+     *
+     * @param facetExecutor executor for per-segment facet counting, or {@code null}
+     * @param guard         the cost limits and heap circuit breaker
+     * @param metrics       the phase histograms to record into
+     * @param slowLog       the slow log
+     */
+    public SearchService(ExecutorService facetExecutor, SearchGuard guard, SearchMetrics metrics, SlowLog slowLog) {
+        this.facetExecutor = facetExecutor;
+        this.guard = guard;
+        this.metrics = metrics;
+        this.slowLog = slowLog;
+    }
+
+    /**
+     * Returns the phase histograms this service records into. Callers rendering
+     * responses record the {@link SearchMetrics.Phase#SERIALIZE} phase themselves.
+     *
+     * @return the metrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Runs a search without a deadline and loads the requested fields of the requested
+     * page of hits.
+     *
+     * @param index   the index to search
+     * @param request the search request
+     * @return the search response
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     */
+    public SearchResponse search(ManagedIndex index, SearchRequest request) throws IOException {
+        return search(index, request, null);
+    }
+
+    /**
+     * Runs a search that stops when its task times out or is cancelled, and loads the
+     * requested fields of the requested page of hits.
+     *
+     * <p>A timed-out search reports the hits, facets and aggregations collected so far,
+     * a lower bound for the total and no cursor, since later pages would skip documents
+     * that were never looked at.
+     *
+     * @param index   the index to search
+     * @param request the search request
+     * @param task    the deadline and cancellation state, or {@code null} for neither
+     * @return the search response
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     * @throws SearchTimeoutException if the search timed out and partial results are not allowed
+     * @throws CancellationException if the task was cancelled
+     */
+    public SearchResponse search(ManagedIndex index, SearchRequest request, SearchTask task) throws IOException {
+        return search(index, null, request, task);
+    }
+
+    /**
+     * Runs a search like {@link #search(ManagedIndex, SearchRequest, SearchTask)} on a
+     * searcher the caller acquired, so that several searches see the same snapshot of
+     * the index. Requests with a {@code search_after} cursor still run on the generation
+     * of their cursor.
+     *
+     * @param index    the index to search
+     * @param searcher a searcher acquired from the index and released by the caller,
+     *                 or {@code null} to search the current one
+     * @param request  the search request
+     * @param task     the deadline and cancellation state, or {@code null} for neither
+     * @return the search response
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     * @throws SearchTimeoutException if the search timed out and partial results are not allowed
+     * @throws CancellationException if the task was cancelled
+     */
+    public SearchResponse search(ManagedIndex index, IndexSearcher searcher, SearchRequest request, SearchTask task)
+            throws IOException {
+        var event = new SearchEvent();
+        event.begin();
+        SearchResponse response = null;
+        try {
+            response = runSearch(index, searcher, request, task);
+            return response;
+        } finally {
+            commit(event, "search", index, request.getQuery(), response);
+        }
+    }
+
+    private SearchResponse runSearch(ManagedIndex index, IndexSearcher snapshot, SearchRequest request,
+                                     SearchTask task) throws IOException {
+        long start = System.nanoTime();
+        checkCancelled(task);
+        DocumentMapper mapper = index.getMapper();
+        Query query = mapper.parseQuery(request.getQuery());
+        Sort sort = sort(mapper, request);
+        int numHits = request.getFrom() + request.getSize();
+        Cursor cursor = request.getSearchAfter();
+        ScoreDoc after = cursor == null ? null : checkCursor(cursor, sort);
+        for (SearchRequest.FacetRequest facet : request.getFacets()) {
+            if (!mapper.isFacet(facet.field())) {
+                throw new IllegalArgumentException("Field '" + facet.field() + "' is not a facet field");
+            }
+        }
+        List<Aggregation<?>> aggregations = AggregationParser.parse(request.getAggregations(), mapper);
+
+        boolean pinned = snapshot != null && cursor == null;
+        IndexSearcher searcher = pinned ? snapshot : cursor == null ? null : index.acquire(cursor.generation());
+        if (searcher == null) {
+            searcher = index.acquire();
+        }
+        try {
+            long rewriteStart = System.nanoTime();
+            query = guard.rewrite(searcher, query);
+            SearchProfile profile = request.isProfile() || slowLog.isEnabled() ? new SearchProfile() : null;
+            if (profile != null) {
+                profile.rewrite(System.nanoTime() - rewriteStart);
+            }
+            boolean withFacets = !request.getFacets().isEmpty();
+            long facetBytes = withFacets ? facetBytes(index, searcher) : 0;
+            SearchGuard.Reservation reservation =
+                    guard.reserve(searcher, numHits, request.getSize(), aggregations, facetBytes);
+            try {
+                phase(SearchMetrics.Phase.PARSE, start);
+                SearchResponse response = collect(index, searcher, task, request, query, sort, after, aggregations,
+                        start, profile);
+                if (profile != null) {
+                    slowLog.log(index.getName(), request, response, profile);
+                }
+                return response;
+            } finally {
+                reservation.close();
+            }
+        } finally {
+            if (!pinned) {
+                index.release(searcher);
+            }
+        }
+    }
+
+    private SearchResponse collect(ManagedIndex index, IndexSearcher searcher, SearchTask task, SearchRequest request,
+                                   Query query, Sort sort, ScoreDoc after, List<Aggregation<?>> aggregations,
+                                   long start, SearchProfile profile) throws IOException {
+        long searchStart = System.nanoTime();
+        IndexSearcher view = view(index, searcher, task, request.isProfile(), profile != null);
+        SearchProfile reported = request.isProfile() ? profile : null;
+        int numHits = request.getFrom() + request.getSize();
+        boolean withFacets = !request.getFacets().isEmpty();
+        if (numHits == 0 && !withFacets && aggregations.isEmpty()) {
+            int count = view.count(query);
+            searched(profile, view, phase(SearchMetrics.Phase.SEARCH, searchStart) - searchStart);
+            boolean timedOut = checkTimedOut(task, view);
+            TotalHits total = total(count, TotalHits.Relation.EQUAL_TO, timedOut);
+            return new SearchResponse(elapsedMillis(start), total, List.of(), null, List.of(), Map.of(), timedOut,
+                    reported);
+        }
+        CollectorManager<?, ?> hitsManager;
+        if (numHits == 0) {
+            hitsManager = new TotalHitCountCollectorManager(view.getSlices());
+        } else if (sort == null) {
+            hitsManager = new TopScoreDocCollectorManager(numHits, after, request.getTrackTotalHits());
+        } else {
+            hitsManager = new TopFieldCollectorManager(sort, numHits, (FieldDoc) after, request.getTrackTotalHits());
+        }
+        Object hitsResult;
+        List<FacetResult> facets = List.of();
+        Map<String, AggregationResult> aggregationResults = Map.of();
+        if (!withFacets && aggregations.isEmpty()) {
+            hitsResult = view.search(query, hitsManager);
+        } else {
+            // facets and aggregations need every match, so collection cannot terminate early here
+            List<CollectorManager<?, ?>> managers = new ArrayList<>(3);
+            managers.add(hitsManager);
+            if (withFacets) {
+                managers.add(new FacetsCollectorManager());
+            }
+            if (!aggregations.isEmpty()) {
+                managers.add(new AggregationCollectorManager(aggregations, view.getTaskExecutor()));
+            }
+            Object[] results = view.search(query,
+                    new MultiCollectorManager(managers.toArray(new CollectorManager<?, ?>[0])));
+            hitsResult = results[0];
+            if (withFacets) {
+                facets = countFacets(index, searcher, request, (FacetsCollector) results[1]);
+            }
+            if (!aggregations.isEmpty()) {
+                aggregationResults = castAggregations(results[results.length - 1]);
+            }
+        }
+        long fetchStart = phase(SearchMetrics.Phase.SEARCH, searchStart);
+        searched(profile, view, fetchStart - searchStart);
+        boolean timedOut = checkTimedOut(task, view);
+        if (hitsResult instanceof Integer count) {
+            TotalHits total = total(count, TotalHits.Relation.EQUAL_TO, timedOut);
+            return new SearchResponse(elapsedMillis(start), total, List.of(), null, facets, aggregationResults, timedOut,
+                    reported);
+        }
+        TopDocs topDocs = (TopDocs) hitsResult;
+
+        ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+        List<SearchResponse.Hit> hits = loadHits(index, searcher, scoreDocs, request.getFrom(), request.getFields());
+        long fetchEnd = phase(SearchMetrics.Phase.FETCH, fetchStart);
+        if (profile != null) {
+            profile.fetch(fetchEnd - fetchStart);
+        }
+        Cursor next = null;
+        if (scoreDocs.length > request.getFrom() && !timedOut) {
+            index.lease(searcher);
+            next = new Cursor(ManagedIndex.generation(searcher), scoreDocs[scoreDocs.length - 1]);
+        }
+        TotalHits total = total(topDocs.totalHits.value(), topDocs.totalHits.relation(), timedOut);
+        return new SearchResponse(elapsedMillis(start), total, hits, next, facets, aggregationResults, timedOut,
+                reported);
+    }
+
+    /** Commits the flight recorder event of a search if it is enabled and over its threshold. */
+    private static void commit(SearchEvent event, String type, ManagedIndex index, String query,
+                               SearchResponse response) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.type = type;
+        event.index = index.getName();
+        event.queryHash = Objects.hashCode(query);
+        event.hits = response == null ? -1 : response.getHits().size();
+        if (response != null) {
+            event.totalHits = response.getTotalHits().value();
+            event.timedOut = response.isTimedOut();
+        }
+        event.commit();
+    }
+
+    /**
+     * Returns the searcher a search runs on: the acquired one, a view checking the task,
+     * or, when phases are measured, a view that times weight creation or profiles the
+     * whole query.
+     */
+    private static IndexSearcher view(ManagedIndex index, IndexSearcher searcher, SearchTask task, boolean profile,
+                                      boolean timed) {
+        IndexSearcher view;
+        if (profile) {
+            view = index.view(searcher, (reader, executor) -> new QueryProfilerIndexSearcher(reader));
+        } else if (timed) {
+            view = index.view(searcher, WeightTimingSearcher::new);
+        } else {
+            return task == null ? searcher : index.withTimeout(searcher, task);
+        }
+        if (task != null) {
+            view.setTimeout(task);
+        }
+        return view;
+    }
+
+    /** Records the search call in a profile, splitting weight creation from collection. */
+    private static void searched(SearchProfile profile, IndexSearcher view, long nanos) {
+        if (profile == null) {
+            return;
+        }
+        long weightNanos = 0;
+        if (view instanceof QueryProfilerIndexSearcher profiler) {
+            List<QueryProfilerResult> queries = profiler.getProfileResult();
+            for (QueryProfilerResult query : queries) {
+                weightNanos += query.getTimeBreakdown().getOrDefault(CREATE_WEIGHT, 0L);
+            }
+            profile.queries(queries);
+        } else if (view instanceof WeightTimingSearcher timed) {
+            weightNanos = timed.weightNanos();
+        }
+        profile.search(nanos, weightNanos);
+    }
+
+    /**
+     * Runs an approximate nearest-neighbour search without a deadline and loads the
+     * stored fields of the hits.
+     *
+     * @param index   the index to search
+     * @param request the kNN request
+     * @return the search response, hits ordered by descending similarity
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     */
+    public SearchResponse knn(ManagedIndex index, KnnRequest request) throws IOException {
+        return knn(index, request, null);
+    }
+
+    /**
+     * Runs an approximate nearest-neighbour search that stops exploring the graph when
+     * its task times out or is cancelled, and loads the stored fields of the hits.
+     *
+     * @param index   the index to search
+     * @param request the kNN request
+     * @param task    the deadline and cancellation state, or {@code null} for neither
+     * @return the search response, hits ordered by descending similarity
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     * @throws SearchTimeoutException if the search timed out and partial results are not allowed
+     * @throws CancellationException if the task was cancelled
+     */
+    public SearchResponse knn(ManagedIndex index, KnnRequest request, SearchTask task) throws IOException {
+        var event = new SearchEvent();
+        event.begin();
+        SearchResponse response = null;
+        try {
+            response = runKnn(index, request, task);
+            return response;
+        } finally {
+            commit(event, "knn", index, request.getFilter(), response);
+        }
+    }
+
+    private SearchResponse runKnn(ManagedIndex index, KnnRequest request, SearchTask task) throws IOException {
+        long start = System.nanoTime();
+        checkCancelled(task);
+        DocumentMapper mapper = index.getMapper();
+        Query parsedFilter = request.getFilter() == null ? null : mapper.parseQuery(request.getFilter());
+
+        IndexSearcher searcher = index.acquire();
+        try {
+            // rewriting a kNN query runs the vector search, so only its filter is checked up front
+            Query filter = parsedFilter == null ? null : guard.rewrite(searcher, parsedFilter);
+            Query query = mapper.knnQuery(request.getField(), request.getVector(), request.getNumCandidates(), filter);
+            int candidates = request.getNumCandidates() * searcher.getIndexReader().leaves().size();
+            SearchGuard.Reservation reservation = guard.reserve(searcher, candidates, request.getK(), List.of(), 0);
+            try {
+                long searchStart = phase(SearchMetrics.Phase.PARSE, start);
+                IndexSearcher view = task == null ? searcher : index.withTimeout(searcher, task);
+                TopDocs topDocs = view.search(query, request.getK());
+                long fetchStart = phase(SearchMetrics.Phase.SEARCH, searchStart);
+                boolean timedOut = checkTimedOut(task, view);
+                List<SearchResponse.Hit> hits = loadHits(index, searcher, topDocs.scoreDocs, 0, request.getFields());
+                phase(SearchMetrics.Phase.FETCH, fetchStart);
+                TotalHits total = total(topDocs.totalHits.value(), topDocs.totalHits.relation(), timedOut);
+                return new SearchResponse(elapsedMillis(start), total, hits, null, List.of(), Map.of(), timedOut);
+            } finally {
+                reservation.close();
+            }
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    /**
+     * Runs the lexical and kNN parts of a hybrid request concurrently against the same
+     * searcher and fuses their rankings.
+     *
+     * <p>Both sub-queries only collect doc ids and scores; stored fields are loaded for
+     * the fused top hits alone. The sub-queries are submitted to the searcher's task
+     * executor, which lets the calling thread run whichever one no pool thread has picked
+     * up yet, so a saturated search pool cannot deadlock on itself.
+     *
+     * @param index   the index to search
+     * @param request the hybrid request
+     * @return the search response, hits ordered by fused score
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     */
+    public SearchResponse hybrid(ManagedIndex index, HybridRequest request) throws IOException {
+        return hybrid(index, request, null);
+    }
+
+    /**
+     * Runs a hybrid search whose sub-queries stop when its task times out or is
+     * cancelled, and fuses their rankings.
+     *
+     * @param index   the index to search
+     * @param request the hybrid request
+     * @param task    the deadline and cancellation state, or {@code null} for neither
+     * @return the search response, hits ordered by fused score
+     * @throws IOException if reading the index fails
+     * @throws IllegalArgumentException if the request does not fit the index schema
+     * @throws SearchTimeoutException if the search timed out and partial results are not allowed
+     * @throws CancellationException if the task was cancelled
+     */
+    public SearchResponse hybrid(ManagedIndex index, HybridRequest request, SearchTask task) throws IOException {
+        var event = new SearchEvent();
+        event.begin();
+        SearchResponse response = null;
+        try {
+            response = runHybrid(index, request, task);
+            return response;
+        } finally {
+            commit(event, "hybrid", index, request.getQuery(), response);
+        }
+    }
+
+    private SearchResponse runHybrid(ManagedIndex index, HybridRequest request, SearchTask task) throws IOException {
+        long start = System.nanoTime();
+        checkCancelled(task);
+        DocumentMapper mapper = index.getMapper();
+        Query parsedFilter = request.getFilter() == null ? null : mapper.parseQuery(request.getFilter());
+        Query parsedLexical = mapper.parseQuery(request.getQuery());
+        int window = request.getWindow();
+
+        IndexSearcher searcher = index.acquire();
+        try {
+            Query filter = parsedFilter == null ? null : guard.rewrite(searcher, parsedFilter);
+            Query lexical = guard.rewrite(searcher, parsedLexical);
+            if (filter != null) {
+                lexical = new BooleanQuery.Builder()
+                        .add(lexical, BooleanClause.Occur.MUST)
+                        .add(filter, BooleanClause.Occur.FILTER)
+                        .build();
+            }
+            Query lexicalQuery = lexical;
+            Query knnQuery = mapper.knnQuery(request.getKnnField(), request.getVector(), request.getNumCandidates(), filter);
+            int candidates = window + request.getNumCandidates() * searcher.getIndexReader().leaves().size();
+            SearchGuard.Reservation reservation = guard.reserve(searcher, candidates, request.getSize(), List.of(), 0);
+            try {
+                long searchStart = phase(SearchMetrics.Phase.PARSE, start);
+                IndexSearcher view = task == null ? searcher : index.withTimeout(searcher, task);
+                List<Callable<TopDocs>> subQueries = List.of(
+                        () -> view.search(lexicalQuery, window),
+                        () -> view.search(knnQuery, window));
+                TopDocs[] ranked = view.getTaskExecutor().invokeAll(subQueries).toArray(TopDocs[]::new);
+                boolean timedOut = checkTimedOut(task, view);
+
+                TopDocs fused = switch (request.getFusion()) {
+                    case RRF -> RankFusion.reciprocalRank(ranked, request.getRankConstant(), request.getSize());
+                    case LINEAR -> RankFusion.linear(
+                            ranked, new float[]{request.getLexicalWeight(), request.getKnnWeight()}, request.getSize());
+                };
+                // the total counts fused candidates; it is a lower bound if lexical matches were cut off
+                boolean complete = ranked[0].totalHits.relation() == TotalHits.Relation.EQUAL_TO
+                        && ranked[0].totalHits.value() <= window;
+                TotalHits total = total(fused.totalHits.value(),
+                        complete ? TotalHits.Relation.EQUAL_TO : TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO, timedOut);
+                long fetchStart = phase(SearchMetrics.Phase.SEARCH, searchStart);
+                List<SearchResponse.Hit> hits = loadHits(index, searcher, fused.scoreDocs, 0, request.getFields());
+                phase(SearchMetrics.Phase.FETCH, fetchStart);
+                return new SearchResponse(elapsedMillis(start), total, hits, null, List.of(), Map.of(), timedOut);
+            } finally {
+                reservation.close();
+            }
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    private static List<SearchResponse.Hit> loadHits(ManagedIndex index, IndexSearcher searcher, ScoreDoc[] scoreDocs,
+                                                     int from, Set<String> fields) throws IOException {
+        int[] docs = new int[Math.max(0, scoreDocs.length - from)];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = scoreDocs[from + i].doc;
+        }
+        List<Document> documents = index.documents(searcher, docs, fields);
+        List<SearchResponse.Hit> hits = new ArrayList<>(docs.length);
+        for (int i = 0; i < docs.length; i++) {
+            ScoreDoc scoreDoc = scoreDocs[from + i];
+            Object[] sortValues = scoreDoc instanceof FieldDoc fieldDoc ? fieldDoc.fields : null;
+            hits.add(new SearchResponse.Hit(scoreDoc.score, sortValues, documents.get(i)));
+        }
+        return hits;
+    }
+
+    /** Records a phase that started at {@code startNanos} and returns the current time. */
+    private long phase(SearchMetrics.Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        metrics.record(phase, now - startNanos);
+        return now;
+    }
+
+    private static void checkCancelled(SearchTask task) {
+        if (task != null && task.isCancelled()) {
+            throw new CancellationException("Search was cancelled");
+        }
+    }
+
+    /**
+     * Returns whether a search stopped early because its deadline passed, failing it if
+     * it was cancelled instead or may not return partial results.
+     */
+    private static boolean checkTimedOut(SearchTask task, IndexSearcher view) {
+        if (task == null || !view.timedOut()) {
+            return false;
+        }
+        checkCancelled(task);
+        if (!task.isAllowPartialResults()) {
+            throw new SearchTimeoutException("Search timed out");
+        }
+        return true;
+    }
+
+    private static TotalHits total(long value, TotalHits.Relation relation, boolean timedOut) {
+        return new TotalHits(value, timedOut ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : relation);
+    }
+
+    /** Heap the facet counts need: one int per global ordinal. */
+    private static long facetBytes(ManagedIndex index, IndexSearcher searcher) throws IOException {
+        SortedSetDocValuesReaderState state = index.facetState(searcher);
+        return state == null ? 0 : (long) state.getSize() * Integer.BYTES;
+    }
+
+    private List<FacetResult> countFacets(ManagedIndex index, IndexSearcher searcher, SearchRequest request,
+                                          FacetsCollector collector) throws IOException {
+        SortedSetDocValuesReaderState state = index.facetState(searcher);
+        Facets counts = null;
+        if (state != null && facetExecutor == null) {
+            counts = new SortedSetDocValuesFacetCounts(state, collector);
+        } else if (state != null) {
+            try {
+                counts = new ConcurrentSortedSetDocValuesFacetCounts(state, collector, facetExecutor);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            }
+        }
+        List<FacetResult> results = new ArrayList<>(request.getFacets().size());
+        for (SearchRequest.FacetRequest facet : request.getFacets()) {
+            FacetResult result = null;
+            if (counts != null && state.getOrdRange(facet.field()) != null) {
+                result = counts.getTopChildren(facet.size(), facet.field());
+            }
+            results.add(result != null
+                    ? result
+                    : new FacetResult(facet.field(), new String[0], 0, new LabelAndValue[0], 0));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, AggregationResult> castAggregations(Object result) {
+        return (Map<String, AggregationResult>) result;
+    }
+
+    private static Sort sort(DocumentMapper mapper, SearchRequest request) {
+        if (request.getSort().isEmpty()) {
+            return null;
+        }
+        SortField[] fields = request.getSort().stream()
+                .map(clause -> mapper.sortField(clause.field(), clause.order()))
+                .toArray(SortField[]::new);
+        return new Sort(fields);
+    }
+
+    private static ScoreDoc checkCursor(Cursor cursor, Sort sort) {
+        ScoreDoc after = cursor.after();
+        int cursorFields = after instanceof FieldDoc fieldDoc ? fieldDoc.fields.length : 0;
+        int sortFields = sort == null ? 0 : sort.getSort().length;
+        if ((sort == null) == (after instanceof FieldDoc) || cursorFields != sortFields) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        for (int i = 0; i < sortFields; i++) {
+            // a value of another type would make the comparator fail with a ClassCastException
+            if (!fitsSortField(sort.getSort()[i], ((FieldDoc) after).fields[i])) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+        return after;
+    }
+
+    private static boolean fitsSortField(SortField field, Object value) {
+        SortField.Type type = field instanceof SortedSetSortField ? SortField.Type.STRING : field.getType();
+        return switch (type) {
+            case STRING, STRING_VAL -> value == null || value instanceof BytesRef;
+            case LONG -> value instanceof Long;
+            case INT, DOC -> value instanceof Integer;
+            case DOUBLE -> value instanceof Double;
+            case FLOAT, SCORE -> value instanceof Float;
+            default -> false;
+        };
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
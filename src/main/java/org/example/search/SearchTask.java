@@ -0,0 +1,58 @@
+package org.example.search;
+
+import lombok.Getter;
+import org.apache.lucene.index.QueryTimeout;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline and cancellation state of one search request.
+ *
+ * <p>Lucene polls {@link #shouldExit()} between blocks of collected documents and
+ * while exploring vector graphs, and stops the search once the deadline passed or the
+ * task was cancelled, keeping what it collected so far. The deadline counts from when
+ * the request was received, so time spent queued for a search thread is included.
+ */
+public final class SearchTask implements QueryTimeout {
+    private final long deadlineNanos;
+    private final boolean bounded;
+    /** Whether hits collected before the deadline are returned rather than failing the request. */
+    @Getter
+    private final boolean allowPartialResults;
+    private volatile boolean cancelled;
+
+    /**
+     * @param startNanos          when the request was received, from {@link System#nanoTime()}
+     * @param timeoutMillis       how long the search may run, or zero for no deadline
+     * @param allowPartialResults whether to return partial results when the deadline passes
+     */
+    public SearchTask(long startNanos, long timeoutMillis, boolean allowPartialResults) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Search timeout must not be negative, got " + timeoutMillis);
+        }
+        this.bounded = timeoutMillis > 0;
+        this.deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.allowPartialResults = allowPartialResults;
+    }
+
+    /**
+     * Stops the search at the next check, for example because its client disconnected.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether the search was cancelled.
+     *
+     * @return {@code true} after {@link #cancel()}
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean shouldExit() {
+        return cancelled || (bounded && System.nanoTime() - deadlineNanos >= 0);
+    }
+}
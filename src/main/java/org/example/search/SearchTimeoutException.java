@@ -0,0 +1,15 @@
+package org.example.search;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a search ran out of time and its request does not accept partial results.
+ */
+public final class SearchTimeoutException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public SearchTimeoutException(String message) {
+        super(message);
+    }
+}
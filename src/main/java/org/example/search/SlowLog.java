@@ -0,0 +1,76 @@
+package org.example.search;
+
+import org.example.config.SlowLogConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs searches whose phases took longer than the configured thresholds.
+ *
+ * <p>Entries are written at {@code WARN} to the {@code org.example.search.SlowLog}
+ * logger, which goes through the asynchronous appender of the root logger, so a burst
+ * of slow searches does not block search threads on console output. Each entry names
+ * the index, the phase durations in milliseconds, the hit count and the query string.
+ */
+public final class SlowLog {
+    private static final Logger logger = LoggerFactory.getLogger(SlowLog.class);
+
+    private final long rewriteNanos;
+    private final long weightNanos;
+    private final long collectNanos;
+    private final long fetchNanos;
+
+    /**
+     * Creates a slow log with the given thresholds.
+     *
+     * @param config the thresholds, {@code -1} disabling a phase
+     */
+    public SlowLog(SlowLogConfig config) {
+        rewriteNanos = threshold(config.getRewriteMillis());
+        weightNanos = threshold(config.getWeightMillis());
+        collectNanos = threshold(config.getCollectMillis());
+        fetchNanos = threshold(config.getFetchMillis());
+    }
+
+    private static long threshold(long millis) {
+        return millis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Returns whether any phase has a threshold, that is, whether searches need to
+     * measure weight creation separately.
+     *
+     * @return {@code true} if some searches may be logged
+     */
+    public boolean isEnabled() {
+        return rewriteNanos != Long.MAX_VALUE || weightNanos != Long.MAX_VALUE
+                || collectNanos != Long.MAX_VALUE || fetchNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Logs a search if any of its phases exceeded its threshold.
+     *
+     * @param index    the name of the searched index
+     * @param request  the request
+     * @param response the response
+     * @param profile  the phase durations of the search
+     */
+    void log(String index, SearchRequest request, SearchResponse response, SearchProfile profile) {
+        if (profile.getRewriteNanos() < rewriteNanos && profile.getWeightNanos() < weightNanos
+                && profile.getCollectNanos() < collectNanos && profile.getFetchNanos() < fetchNanos) {
+            return;
+        }
+        logger.warn("[{}] took[{}ms] rewrite[{}ms] weight[{}ms] collect[{}ms] fetch[{}ms] total_hits[{}{}] size[{}]"
+                        + " query[{}]",
+                index, response.getTookMillis(), millis(profile.getRewriteNanos()),
+                millis(profile.getWeightNanos()), millis(profile.getCollectNanos()), millis(profile.getFetchNanos()),
+                response.getTotalHits().value(), response.isTotalHitsExact() ? "" : "+", request.getSize(),
+                request.getQuery() == null ? "*:*" : request.getQuery());
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
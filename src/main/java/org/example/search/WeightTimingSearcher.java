@@ -0,0 +1,50 @@
+package org.example.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * A searcher that measures how long creating the top-level weights of its searches
+ * takes, for the slow log.
+ *
+ * <p>Compound queries create the weights of their clauses through the searcher too;
+ * only the outermost call is timed, so nested clauses are not counted twice. Weights
+ * are created on the thread that calls {@code search}, before the per-slice tasks start,
+ * so the counters need no synchronization.
+ */
+final class WeightTimingSearcher extends IndexSearcher {
+    private int depth;
+    private long weightNanos;
+
+    WeightTimingSearcher(IndexReader reader, Executor executor) {
+        super(reader, executor);
+    }
+
+    @Override
+    public Weight createWeight(Query query, ScoreMode scoreMode, float boost) throws IOException {
+        if (depth++ > 0) {
+            try {
+                return super.createWeight(query, scoreMode, boost);
+            } finally {
+                depth--;
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            return super.createWeight(query, scoreMode, boost);
+        } finally {
+            depth--;
+            weightNanos += System.nanoTime() - start;
+        }
+    }
+
+    long weightNanos() {
+        return weightNanos;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.search.aggregation;
+
+import lombok.Getter;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A named aggregation computed from doc values in the same pass as the top hits.
+ *
+ * <p>Every search slice fills its own {@link Partial}, so collection needs no
+ * synchronization. Partials keep their state in primitive arrays and are combined by
+ * {@link #reduce(List)} once all slices are done.
+ *
+ * @param <P> the per-slice partial result type
+ */
+public abstract class Aggregation<P extends Aggregation.Partial> {
+    /** Rough heap cost of a bucket: its key, its count and hash table slack. */
+    static final long BYTES_PER_BUCKET = 32;
+
+    @Getter
+    private final String name;
+
+    protected Aggregation(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Estimates from index statistics how many buckets this aggregation creates, before
+     * any document is collected.
+     *
+     * @param reader the reader that will be searched
+     * @return an upper bound of the buckets
+     * @throws IOException if reading the statistics fails
+     */
+    public long estimateBuckets(IndexReader reader) throws IOException {
+        return 1;
+    }
+
+    /**
+     * Estimates from index statistics how much heap this aggregation needs, before any
+     * document is collected.
+     *
+     * @param reader the reader that will be searched
+     * @return the estimated bytes
+     * @throws IOException if reading the statistics fails
+     */
+    public long estimateBytes(IndexReader reader) throws IOException {
+        return estimateBuckets(reader) * BYTES_PER_BUCKET;
+    }
+
+    /**
+     * Creates the empty partial result of one search slice.
+     *
+     * @return a new partial result
+     */
+    abstract P newPartial();
+
+    /**
+     * Merges the partial results of all slices.
+     *
+     * @param partials one partial per slice
+     * @return the final result
+     */
+    abstract AggregationResult reduce(List<P> partials);
+
+    /**
+     * The state an aggregation accumulates over the segments of one slice.
+     */
+    abstract static class Partial {
+
+        /**
+         * Starts aggregating a segment.
+         *
+         * @param context the segment
+         * @return the per-document callback for the segment
+         * @throws IOException if the doc values cannot be read
+         */
+        abstract LeafAggregator leaf(LeafReaderContext context) throws IOException;
+    }
+
+    /**
+     * Aggregates the matching documents of one segment.
+     */
+    interface LeafAggregator {
+
+        void collect(int doc) throws IOException;
+
+        /**
+         * Called once after the last document of the segment.
+         *
+         * @throws IOException if reading the doc values fails
+         */
+        default void finish() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TaskExecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Collects a set of aggregations, one collector per search slice.
+ *
+ * <p>Combine it with the top hits collector manager through a
+ * {@link org.apache.lucene.search.MultiCollectorManager} so that hits and aggregations
+ * are computed in a single pass over the matches. The per-slice partials of different
+ * aggregations are merged concurrently on the searcher's task executor.
+ */
+public final class AggregationCollectorManager
+        implements CollectorManager<AggregationCollectorManager.SliceCollector, Map<String, AggregationResult>> {
+    private final List<Aggregation<?>> aggregations;
+    private final TaskExecutor taskExecutor;
+
+    /**
+     * @param aggregations the aggregations to compute
+     * @param taskExecutor executor of the searcher, used to merge partial results
+     */
+    public AggregationCollectorManager(List<Aggregation<?>> aggregations, TaskExecutor taskExecutor) {
+        this.aggregations = aggregations;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public SliceCollector newCollector() {
+        Aggregation.Partial[] partials = new Aggregation.Partial[aggregations.size()];
+        for (int i = 0; i < partials.length; i++) {
+            partials[i] = aggregations.get(i).newPartial();
+        }
+        return new SliceCollector(partials);
+    }
+
+    @Override
+    public Map<String, AggregationResult> reduce(Collection<SliceCollector> collectors) throws IOException {
+        List<Callable<AggregationResult>> tasks = new ArrayList<>(aggregations.size());
+        for (int i = 0; i < aggregations.size(); i++) {
+            int index = i;
+            tasks.add(() -> reduce(aggregations.get(index), collectors, index));
+        }
+        List<AggregationResult> results = taskExecutor.invokeAll(tasks);
+        Map<String, AggregationResult> byName = new LinkedHashMap<>();
+        for (int i = 0; i < aggregations.size(); i++) {
+            byName.put(aggregations.get(i).getName(), results.get(i));
+        }
+        return byName;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P extends Aggregation.Partial> AggregationResult reduce(
+            Aggregation<P> aggregation, Collection<SliceCollector> collectors, int index) {
+        List<P> partials = new ArrayList<>(collectors.size());
+        for (SliceCollector collector : collectors) {
+            partials.add((P) collector.partials[index]);
+        }
+        return aggregation.reduce(partials);
+    }
+
+    /**
+     * Feeds the matches of one slice to every aggregation.
+     */
+    public static final class SliceCollector implements Collector {
+        private final Aggregation.Partial[] partials;
+
+        private SliceCollector(Aggregation.Partial[] partials) {
+            this.partials = partials;
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            Aggregation.LeafAggregator[] leaves = new Aggregation.LeafAggregator[partials.length];
+            for (int i = 0; i < leaves.length; i++) {
+                leaves[i] = partials[i].leaf(context);
+            }
+            return new LeafCollector() {
+                @Override
+                public void setScorer(Scorable scorer) {
+                }
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    for (Aggregation.LeafAggregator leaf : leaves) {
+                        leaf.collect(doc);
+                    }
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    for (Aggregation.LeafAggregator leaf : leaves) {
+                        leaf.finish();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.search.aggregation;
+
+import lombok.experimental.UtilityClass;
+import org.example.config.FieldType;
+import org.example.index.DocumentMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds aggregations from the {@code aggs} object of a search request.
+ *
+ * <pre>{@code
+ * "aggs": {
+ *   "services":  {"terms": {"field": "service", "size": 10}},
+ *   "latency":   {"stats": {"field": "latency"}},
+ *   "tail":      {"percentiles": {"field": "latency", "percents": [50, 95, 99]}},
+ *   "slow":      {"range": {"field": "latency", "ranges": [{"to": 100}, {"from": 100}]}},
+ *   "by_50ms":   {"histogram": {"field": "latency", "interval": 50}},
+ *   "per_hour":  {"date_histogram": {"field": "timestamp", "fixed_interval": "1h"}}
+ * }
+ * }</pre>
+ *
+ * <p>{@code terms} works on keyword fields, all other types on long or double fields;
+ * {@code date_histogram} requires a long field holding epoch milliseconds.
+ */
+@UtilityClass
+public class AggregationParser {
+    public static final int DEFAULT_TERMS_SIZE = 10;
+    private static final Pattern FIXED_INTERVAL = Pattern.compile("(\\d+)(ms|s|m|h|d)");
+
+    /**
+     * Parses and validates aggregation definitions against an index schema.
+     *
+     * @param aggs   the aggregation definitions by name
+     * @param mapper the schema of the searched index
+     * @return the aggregations in definition order
+     * @throws IllegalArgumentException if a definition is malformed or does not fit the schema
+     */
+    public static List<Aggregation<?>> parse(Map<String, Object> aggs, DocumentMapper mapper) {
+        List<Aggregation<?>> aggregations = new ArrayList<>(aggs.size());
+        for (var entry : aggs.entrySet()) {
+            String name = entry.getKey();
+            if (!(entry.getValue() instanceof Map<?, ?> definition) || definition.size() != 1) {
+                throw new IllegalArgumentException("Aggregation '" + name + "' must define exactly one type");
+            }
+            var typed = definition.entrySet().iterator().next();
+            if (!(typed.getValue() instanceof Map<?, ?> params)) {
+                throw new IllegalArgumentException("Aggregation '" + name + "' parameters must be an object");
+            }
+            aggregations.add(parse(name, String.valueOf(typed.getKey()), params, mapper));
+        }
+        return aggregations;
+    }
+
+    private static Aggregation<?> parse(String name, String type, Map<?, ?> params, DocumentMapper mapper) {
+        String field = string(name, params, "field");
+        FieldType fieldType = mapper.type(field);
+        if (type.equals("terms")) {
+            if (fieldType != FieldType.KEYWORD) {
+                throw new IllegalArgumentException("Aggregation '" + name + "' requires a keyword field");
+            }
+            int size = params.containsKey("size") ? (int) number(name, params, "size") : DEFAULT_TERMS_SIZE;
+            if (size <= 0) {
+                throw new IllegalArgumentException("Aggregation '" + name + "' requires a positive 'size'");
+            }
+            return new TermsAggregation(name, field, size);
+        }
+        if (fieldType != FieldType.LONG && fieldType != FieldType.DOUBLE) {
+            throw new IllegalArgumentException("Aggregation '" + name + "' requires a numeric field");
+        }
+        return switch (type) {
+            case "stats" -> new StatsAggregation(name, field, fieldType);
+            case "percentiles" -> new PercentilesAggregation(name, field, fieldType, percents(name, params));
+            case "range" -> range(name, field, fieldType, params);
+            case "histogram" -> new HistogramAggregation(
+                    name, field, fieldType, positive(name, number(name, params, "interval")), false);
+            case "date_histogram" -> {
+                if (fieldType != FieldType.LONG) {
+                    throw new IllegalArgumentException("Aggregation '" + name + "' requires a long field");
+                }
+                long interval = fixedInterval(name, string(name, params, "fixed_interval"));
+                yield new HistogramAggregation(name, field, fieldType, interval, true);
+            }
+            default -> throw new IllegalArgumentException("Unknown aggregation type '" + type + "'");
+        };
+    }
+
+    private static double[] percents(String name, Map<?, ?> params) {
+        if (!params.containsKey("percents")) {
+            return new double[]{50, 95, 99};
+        }
+        if (!(params.get("percents") instanceof List<?> list) || list.isEmpty()) {
+            throw new IllegalArgumentException("Aggregation '" + name + "' requires a 'percents' array");
+        }
+        double[] percents = new double[list.size()];
+        for (int i = 0; i < percents.length; i++) {
+            if (!(list.get(i) instanceof Number percent) || percent.doubleValue() < 0 || percent.doubleValue() > 100) {
+                throw new IllegalArgumentException("Percents of '" + name + "' must be between 0 and 100");
+            }
+            percents[i] = percent.doubleValue();
+        }
+        return percents;
+    }
+
+    private static RangeAggregation range(String name, String field, FieldType type, Map<?, ?> params) {
+        if (!(params.get("ranges") instanceof List<?> ranges) || ranges.isEmpty()) {
+            throw new IllegalArgumentException("Aggregation '" + name + "' requires a 'ranges' array");
+        }
+        double[] from = new double[ranges.size()];
+        double[] to = new double[ranges.size()];
+        for (int i = 0; i < from.length; i++) {
+            if (!(ranges.get(i) instanceof Map<?, ?> range)) {
+                throw new IllegalArgumentException("Ranges of '" + name + "' must be objects");
+            }
+            from[i] = range.containsKey("from") ? number(name, range, "from") : Double.NEGATIVE_INFINITY;
+            to[i] = range.containsKey("to") ? number(name, range, "to") : Double.POSITIVE_INFINITY;
+        }
+        return new RangeAggregation(name, field, type, from, to);
+    }
+
+    private static long fixedInterval(String name, String interval) {
+        Matcher matcher = FIXED_INTERVAL.matcher(interval);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid 'fixed_interval' of '" + name + "': " + interval);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        Duration unit = switch (matcher.group(2)) {
+            case "ms" -> Duration.ofMillis(1);
+            case "s" -> Duration.ofSeconds(1);
+            case "m" -> Duration.ofMinutes(1);
+            case "h" -> Duration.ofHours(1);
+            default -> Duration.ofDays(1);
+        };
+        long millis;
+        try {
+            millis = unit.multipliedBy(amount).toMillis();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("'fixed_interval' of '" + name + "' is too large: " + interval, e);
+        }
+        return (long) positive(name, millis);
+    }
+
+    private static String string(String name, Map<?, ?> params, String key) {
+        if (!(params.get(key) instanceof String value)) {
+            throw new IllegalArgumentException("Aggregation '" + name + "' requires '" + key + "'");
+        }
+        return value;
+    }
+
+    private static double number(String name, Map<?, ?> params, String key) {
+        if (!(params.get(key) instanceof Number value)) {
+            throw new IllegalArgumentException("Aggregation '" + name + "' requires a numeric '" + key + "'");
+        }
+        return value.doubleValue();
+    }
+
+    private static double positive(String name, double value) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException("Interval of '" + name + "' must be positive");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.search.aggregation;
+
+import tools.jackson.core.JsonGenerator;
+
+/**
+ * The final result of an {@link Aggregation}.
+ */
+public interface AggregationResult {
+
+    /**
+     * Writes the result as a JSON object.
+     *
+     * @param generator the generator to write to
+     */
+    void writeTo(JsonGenerator generator);
+}
@@ -0,0 +1,107 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.example.config.FieldType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Counts the values of a numeric field per fixed-width bucket.
+ *
+ * <p>A bucket's key is its lower bound, a multiple of the interval. Long fields with a
+ * whole interval are bucketed with exact integer arithmetic; date histograms are such
+ * histograms over epoch milliseconds and also render each key as an ISO-8601 instant.
+ * Only non-empty buckets are returned.
+ */
+final class HistogramAggregation extends NumericAggregation<HistogramAggregation.Buckets> {
+    private final double interval;
+    private final long longInterval;
+    private final boolean date;
+
+    HistogramAggregation(String name, String field, FieldType type, double interval, boolean date) {
+        super(name, field, type);
+        this.interval = interval;
+        this.longInterval = !floatingPoint && interval == Math.rint(interval) ? (long) interval : 0;
+        this.date = date;
+    }
+
+    /**
+     * Bounds the buckets by the span between the smallest and largest indexed value, and
+     * by the number of documents with a value, since only non-empty buckets are kept.
+     */
+    @Override
+    public long estimateBuckets(IndexReader reader) throws IOException {
+        byte[] min = PointValues.getMinPackedValue(reader, field);
+        byte[] max = PointValues.getMaxPackedValue(reader, field);
+        if (min == null || max == null) {
+            return 0;
+        }
+        double low = floatingPoint ? DoublePoint.decodeDimension(min, 0) : LongPoint.decodeDimension(min, 0);
+        double high = floatingPoint ? DoublePoint.decodeDimension(max, 0) : LongPoint.decodeDimension(max, 0);
+        double span = Math.floor(high / interval) - Math.floor(low / interval) + 1;
+        return (long) Math.min(span, docCount(reader));
+    }
+
+    @Override
+    Buckets newPartial() {
+        return new Buckets();
+    }
+
+    @Override
+    AggregationResult reduce(List<Buckets> partials) {
+        LongCounts total = new LongCounts();
+        for (Buckets partial : partials) {
+            total.addAll(partial.counts);
+        }
+        long[] bucketIndexes = total.sortedKeys();
+        return generator -> {
+            generator.writeStartObject();
+            generator.writeName("buckets");
+            generator.writeStartArray();
+            for (long bucket : bucketIndexes) {
+                generator.writeStartObject();
+                if (longInterval != 0) {
+                    long key = bucket * longInterval;
+                    generator.writeNumberProperty("key", key);
+                    if (date) {
+                        generator.writeStringProperty("key_as_string", Instant.ofEpochMilli(key).toString());
+                    }
+                } else {
+                    generator.writeNumberProperty("key", bucket * interval);
+                }
+                generator.writeNumberProperty("count", total.get(bucket));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        };
+    }
+
+    final class Buckets extends Aggregation.Partial {
+        private final LongCounts counts = new LongCounts();
+
+        @Override
+        LeafAggregator leaf(LeafReaderContext context) throws IOException {
+            NumericDocValues values = values(context);
+            if (longInterval != 0) {
+                return doc -> {
+                    if (values.advanceExact(doc)) {
+                        counts.add(Math.floorDiv(values.longValue(), longInterval), 1);
+                    }
+                };
+            }
+            return doc -> {
+                if (values.advanceExact(doc)) {
+                    counts.add((long) Math.floor(toDouble(values.longValue()) / interval), 1);
+                }
+            };
+        }
+    }
+}
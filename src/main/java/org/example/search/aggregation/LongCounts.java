@@ -0,0 +1,104 @@
+package org.example.search.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from {@code long} keys to counts, free of boxing.
+ * Not thread-safe; each search slice owns its instance.
+ */
+final class LongCounts {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+
+    LongCounts() {
+        this(16);
+    }
+
+    LongCounts(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(4, capacity) - 1) << 2;
+        keys = new long[tableSize];
+        counts = new long[tableSize];
+    }
+
+    /**
+     * Adds to the count of a key. A count of zero marks an empty slot, so the delta must be positive.
+     */
+    void add(long key, long delta) {
+        int slot = slot(keys, counts, key);
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            if (++size > keys.length * LOAD_FACTOR) {
+                counts[slot] = delta;
+                rehash();
+                return;
+            }
+        }
+        counts[slot] += delta;
+    }
+
+    long get(long key) {
+        return counts[slot(keys, counts, key)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds all counts of another map to this one.
+     */
+    void addAll(LongCounts other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.counts[i] != 0) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys in ascending order.
+     */
+    long[] sortedKeys() {
+        long[] sorted = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] != 0) {
+                sorted[n++] = keys[i];
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length << 1];
+        counts = new long[oldKeys.length << 1];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = slot(keys, counts, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slot(long[] keys, long[] counts, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        return key ^ (key >>> 33);
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
+import org.example.config.FieldType;
+
+import java.io.IOException;
+
+/**
+ * Base class of aggregations over the numeric doc values of a long or double field.
+ *
+ * @param <P> the per-slice partial result type
+ */
+abstract class NumericAggregation<P extends Aggregation.Partial> extends Aggregation<P> {
+    final String field;
+    final boolean floatingPoint;
+
+    NumericAggregation(String name, String field, FieldType type) {
+        super(name);
+        this.field = field;
+        this.floatingPoint = type == FieldType.DOUBLE;
+    }
+
+    /**
+     * Returns how many documents of a reader have a value, an upper bound of the matches
+     * that contribute to this aggregation.
+     */
+    int docCount(IndexReader reader) throws IOException {
+        return PointValues.getDocCount(reader, field);
+    }
+
+    NumericDocValues values(LeafReaderContext context) throws IOException {
+        return DocValues.getNumeric(context.reader(), field);
+    }
+
+    /**
+     * Decodes a raw doc value; double fields store the raw IEEE 754 bits of their values.
+     */
+    double toDouble(long raw) {
+        return floatingPoint ? Double.longBitsToDouble(raw) : raw;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.example.config.FieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes exact percentiles of a numeric field with linear interpolation between ranks.
+ *
+ * <p>Every matching value is buffered in a {@code double[]}, so memory grows by eight
+ * bytes per match; percentiles are read from the sorted union of all slices.
+ */
+final class PercentilesAggregation extends NumericAggregation<PercentilesAggregation.Values> {
+    private final double[] percents;
+
+    PercentilesAggregation(String name, String field, FieldType type, double[] percents) {
+        super(name, field, type);
+        this.percents = percents;
+    }
+
+    @Override
+    public long estimateBytes(IndexReader reader) throws IOException {
+        // the buffered values, and their sorted union in reduce
+        return 2L * Double.BYTES * docCount(reader);
+    }
+
+    @Override
+    Values newPartial() {
+        return new Values();
+    }
+
+    @Override
+    AggregationResult reduce(List<Values> partials) {
+        int total = 0;
+        for (Values partial : partials) {
+            total += partial.size;
+        }
+        double[] all = new double[total];
+        int offset = 0;
+        for (Values partial : partials) {
+            System.arraycopy(partial.values, 0, all, offset, partial.size);
+            offset += partial.size;
+        }
+        Arrays.sort(all);
+
+        double[] results = new double[percents.length];
+        for (int i = 0; i < percents.length; i++) {
+            results[i] = percentile(all, percents[i]);
+        }
+        return generator -> {
+            generator.writeStartObject();
+            generator.writeNumberProperty("count", all.length);
+            generator.writeName("values");
+            generator.writeStartObject();
+            for (int i = 0; i < percents.length; i++) {
+                generator.writeName(Double.toString(percents[i]));
+                if (all.length == 0) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(results[i]);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        };
+    }
+
+    static double percentile(double[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        double rank = percent / 100 * (sorted.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = (int) Math.ceil(rank);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+    }
+
+    final class Values extends Aggregation.Partial {
+        private double[] values = new double[64];
+        private int size;
+
+        @Override
+        LeafAggregator leaf(LeafReaderContext context) throws IOException {
+            NumericDocValues docValues = values(context);
+            return doc -> {
+                if (docValues.advanceExact(doc)) {
+                    values = ArrayUtil.grow(values, size + 1);
+                    values[size++] = toDouble(docValues.longValue());
+                }
+            };
+        }
+    }
+}
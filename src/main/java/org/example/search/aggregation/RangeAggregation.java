@@ -0,0 +1,85 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.example.config.FieldType;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Counts the values of a numeric field falling into each of a list of ranges.
+ * Ranges include their lower and exclude their upper bound and may overlap.
+ */
+final class RangeAggregation extends NumericAggregation<RangeAggregation.Counts> {
+    private final double[] from;
+    private final double[] to;
+
+    /**
+     * @param from lower bounds, {@link Double#NEGATIVE_INFINITY} if unbounded
+     * @param to   upper bounds, {@link Double#POSITIVE_INFINITY} if unbounded
+     */
+    RangeAggregation(String name, String field, FieldType type, double[] from, double[] to) {
+        super(name, field, type);
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public long estimateBuckets(IndexReader reader) {
+        return from.length;
+    }
+
+    @Override
+    Counts newPartial() {
+        return new Counts();
+    }
+
+    @Override
+    AggregationResult reduce(List<Counts> partials) {
+        long[] total = new long[from.length];
+        for (Counts partial : partials) {
+            for (int i = 0; i < total.length; i++) {
+                total[i] += partial.counts[i];
+            }
+        }
+        return generator -> {
+            generator.writeStartObject();
+            generator.writeName("buckets");
+            generator.writeStartArray();
+            for (int i = 0; i < total.length; i++) {
+                generator.writeStartObject();
+                if (from[i] != Double.NEGATIVE_INFINITY) {
+                    generator.writeNumberProperty("from", from[i]);
+                }
+                if (to[i] != Double.POSITIVE_INFINITY) {
+                    generator.writeNumberProperty("to", to[i]);
+                }
+                generator.writeNumberProperty("count", total[i]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        };
+    }
+
+    final class Counts extends Aggregation.Partial {
+        private final long[] counts = new long[from.length];
+
+        @Override
+        LeafAggregator leaf(LeafReaderContext context) throws IOException {
+            NumericDocValues values = values(context);
+            return doc -> {
+                if (values.advanceExact(doc)) {
+                    double value = toDouble(values.longValue());
+                    for (int i = 0; i < counts.length; i++) {
+                        if (value >= from[i] && value < to[i]) {
+                            counts[i]++;
+                        }
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.example.config.FieldType;
+import tools.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Computes count, min, max, sum and average of a numeric field.
+ */
+final class StatsAggregation extends NumericAggregation<StatsAggregation.Stats> {
+
+    StatsAggregation(String name, String field, FieldType type) {
+        super(name, field, type);
+    }
+
+    @Override
+    Stats newPartial() {
+        return new Stats();
+    }
+
+    @Override
+    AggregationResult reduce(List<Stats> partials) {
+        Stats total = new Stats();
+        for (Stats partial : partials) {
+            total.count += partial.count;
+            total.min = Math.min(total.min, partial.min);
+            total.max = Math.max(total.max, partial.max);
+            total.sum += partial.sum;
+        }
+        return total;
+    }
+
+    final class Stats extends Aggregation.Partial implements AggregationResult {
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+
+        @Override
+        LeafAggregator leaf(LeafReaderContext context) throws IOException {
+            NumericDocValues values = values(context);
+            return doc -> {
+                if (values.advanceExact(doc)) {
+                    double value = toDouble(values.longValue());
+                    count++;
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    sum += value;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(JsonGenerator generator) {
+            generator.writeStartObject();
+            generator.writeNumberProperty("count", count);
+            if (count > 0) {
+                generator.writeNumberProperty("min", min);
+                generator.writeNumberProperty("max", max);
+                generator.writeNumberProperty("sum", sum);
+                generator.writeNumberProperty("avg", sum / count);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.search.aggregation;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntroSorter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the most frequent values of a keyword field.
+ *
+ * <p>Each segment counts into a {@code long[]} indexed by segment ordinal. When the
+ * segment is done, the non-zero counts are resolved to terms, which yields a run sorted
+ * by term. Runs of all segments are merged pairwise, so counts are exact.
+ */
+final class TermsAggregation extends Aggregation<TermsAggregation.Runs> {
+    private final String field;
+    private final int size;
+
+    TermsAggregation(String name, String field, int size) {
+        super(name);
+        this.field = field;
+        this.size = size;
+    }
+
+    /**
+     * Sums the distinct values of every segment, since each segment's counted terms are
+     * kept until all runs are merged.
+     */
+    @Override
+    public long estimateBuckets(IndexReader reader) throws IOException {
+        long buckets = 0;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            buckets += DocValues.getSortedSet(leaf.reader(), field).getValueCount();
+        }
+        return buckets;
+    }
+
+    @Override
+    public long estimateBytes(IndexReader reader) throws IOException {
+        // per bucket a count slot and a copied term
+        return estimateBuckets(reader) * (BYTES_PER_BUCKET + 64);
+    }
+
+    @Override
+    Runs newPartial() {
+        return new Runs();
+    }
+
+    @Override
+    AggregationResult reduce(List<Runs> partials) {
+        List<Run> runs = new ArrayList<>();
+        for (Runs partial : partials) {
+            runs.addAll(partial.runs);
+        }
+        while (runs.size() > 1) {
+            List<Run> merged = new ArrayList<>((runs.size() + 1) / 2);
+            for (int i = 0; i + 1 < runs.size(); i += 2) {
+                merged.add(Run.merge(runs.get(i), runs.get(i + 1)));
+            }
+            if (runs.size() % 2 == 1) {
+                merged.add(runs.getLast());
+            }
+            runs = merged;
+        }
+        Run all = runs.isEmpty() ? new Run(new BytesRef[0], new long[0], 0) : runs.getFirst();
+
+        int[] order = all.byCountDescending();
+        int top = Math.min(size, order.length);
+        long other = 0;
+        for (int i = top; i < order.length; i++) {
+            other += all.counts[order[i]];
+        }
+        long otherCount = other;
+        return generator -> {
+            generator.writeStartObject();
+            generator.writeName("buckets");
+            generator.writeStartArray();
+            for (int i = 0; i < top; i++) {
+                generator.writeStartObject();
+                generator.writeStringProperty("key", all.terms[order[i]].utf8ToString());
+                generator.writeNumberProperty("count", all.counts[order[i]]);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeNumberProperty("other_count", otherCount);
+            generator.writeEndObject();
+        };
+    }
+
+    final class Runs extends Aggregation.Partial {
+        private final List<Run> runs = new ArrayList<>();
+
+        @Override
+        LeafAggregator leaf(LeafReaderContext context) throws IOException {
+            SortedSetDocValues values = DocValues.getSortedSet(context.reader(), field);
+            long[] ordCounts = new long[Math.toIntExact(values.getValueCount())];
+            return new LeafAggregator() {
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (values.advanceExact(doc)) {
+                        for (int i = values.docValueCount(); i > 0; i--) {
+                            ordCounts[(int) values.nextOrd()]++;
+                        }
+                    }
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    int n = 0;
+                    for (long count : ordCounts) {
+                        if (count != 0) {
+                            n++;
+                        }
+                    }
+                    if (n == 0) {
+                        return;
+                    }
+                    BytesRef[] terms = new BytesRef[n];
+                    long[] counts = new long[n];
+                    n = 0;
+                    for (int ord = 0; ord < ordCounts.length; ord++) {
+                        if (ordCounts[ord] != 0) {
+                            terms[n] = BytesRef.deepCopyOf(values.lookupOrd(ord));
+                            counts[n++] = ordCounts[ord];
+                        }
+                    }
+                    runs.add(new Run(terms, counts, n));
+                }
+            };
+        }
+    }
+
+    /**
+     * Terms in ascending order with their counts.
+     */
+    private record Run(BytesRef[] terms, long[] counts, int size) {
+
+        static Run merge(Run a, Run b) {
+            BytesRef[] terms = new BytesRef[a.size + b.size];
+            long[] counts = new long[a.size + b.size];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < a.size && j < b.size) {
+                int cmp = a.terms[i].compareTo(b.terms[j]);
+                if (cmp == 0) {
+                    terms[n] = a.terms[i];
+                    counts[n++] = a.counts[i++] + b.counts[j++];
+                } else if (cmp < 0) {
+                    terms[n] = a.terms[i];
+                    counts[n++] = a.counts[i++];
+                } else {
+                    terms[n] = b.terms[j];
+                    counts[n++] = b.counts[j++];
+                }
+            }
+            for (; i < a.size; i++, n++) {
+                terms[n] = a.terms[i];
+                counts[n] = a.counts[i];
+            }
+            for (; j < b.size; j++, n++) {
+                terms[n] = b.terms[j];
+                counts[n] = b.counts[j];
+            }
+            return new Run(ArrayUtil.copyOfSubArray(terms, 0, n), ArrayUtil.copyOfSubArray(counts, 0, n), n);
+        }
+
+        /**
+         * Returns term indexes ordered by descending count, ties broken by term.
+         */
+        int[] byCountDescending() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            new IntroSorter() {
+                private int pivot;
+
+                @Override
+                protected void setPivot(int i) {
+                    pivot = order[i];
+                }
+
+                @Override
+                protected int comparePivot(int j) {
+                    return byCount(pivot, order[j]);
+                }
+
+                @Override
+                protected int compare(int i, int j) {
+                    return byCount(order[i], order[j]);
+                }
+
+                private int byCount(int a, int b) {
+                    int cmp = Long.compare(counts[b], counts[a]);
+                    return cmp != 0 ? cmp : Integer.compare(a, b);
+                }
+
+                @Override
+                protected void swap(int i, int j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+            }.sort(0, size);
+            return order;
+        }
+    }
+}
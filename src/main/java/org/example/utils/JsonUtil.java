@@ -0,0 +1,151 @@
+package org.example.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import lombok.experimental.UtilityClass;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streaming JSON helpers shared by request parsing and response rendering.
+ */
+@UtilityClass
+public class JsonUtil {
+    public static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * Creates a streaming parser over the readable bytes of a buffer without copying them.
+     *
+     * @param content the JSON content
+     * @return a parser positioned before the first token
+     */
+    public static JsonParser parser(ByteBuf content) {
+        return FACTORY.createParser(ObjectReadContext.empty(), (InputStream) new ByteBufInputStream(content.duplicate()));
+    }
+
+    /**
+     * Creates a streaming parser over a JSON string.
+     *
+     * @param content the JSON content
+     * @return a parser positioned before the first token
+     */
+    public static JsonParser parser(String content) {
+        return FACTORY.createParser(ObjectReadContext.empty(), content);
+    }
+
+    /**
+     * Renders JSON straight into a newly allocated buffer.
+     *
+     * @param alloc the allocator to obtain the buffer from
+     * @param body  callback writing the JSON document
+     * @return the buffer holding the encoded document; the caller owns it
+     */
+    public static ByteBuf write(ByteBufAllocator alloc, Consumer<JsonGenerator> body) {
+        ByteBuf buffer = alloc.buffer();
+        try (var out = new ByteBufOutputStream(buffer);
+             var generator = FACTORY.createGenerator(ObjectWriteContext.empty(), (OutputStream) out)) {
+            body.accept(generator);
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            throw e instanceof RuntimeException re ? re : new IllegalStateException(e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads the object the parser currently points at into a map of plain Java values.
+     *
+     * <p>Integral numbers become {@link Long}, other numbers {@link Double}, arrays
+     * {@link List} and nested objects {@link Map}.
+     *
+     * @param parser a parser positioned on {@link JsonToken#START_OBJECT}
+     * @return the object's fields in document order
+     */
+    public static Map<String, Object> readObject(JsonParser parser) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a JSON object but found " + parser.currentToken());
+        }
+        Map<String, Object> object = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            object.put(name, readValue(parser));
+        }
+        return object;
+    }
+
+    /**
+     * Reads the value the parser currently points at.
+     *
+     * @param parser a parser positioned on a value token
+     * @return the value as a plain Java object, or {@code null} for JSON null
+     */
+    public static Object readValue(JsonParser parser) {
+        return switch (parser.currentToken()) {
+            case START_OBJECT -> readObject(parser);
+            case START_ARRAY -> {
+                List<Object> values = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(readValue(parser));
+                }
+                yield values;
+            }
+            case VALUE_STRING -> parser.getString();
+            case VALUE_NUMBER_INT -> parser.getLongValue();
+            case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            default -> throw new IllegalArgumentException("Unexpected JSON token " + parser.currentToken());
+        };
+    }
+
+    /**
+     * Writes a plain Java value as produced by {@link #readValue(JsonParser)}.
+     *
+     * @param generator the generator to write to
+     * @param value     the value to write
+     */
+    public static void writeValue(JsonGenerator generator, Object value) {
+        switch (value) {
+            case null -> generator.writeNull();
+            case String s -> generator.writeString(s);
+            case Integer i -> generator.writeNumber(i);
+            case Long l -> generator.writeNumber(l);
+            case Float f -> generator.writeNumber(f);
+            case Double d -> generator.writeNumber(d);
+            case Boolean b -> generator.writeBoolean(b);
+            case List<?> list -> {
+                generator.writeStartArray();
+                for (Object element : list) {
+                    writeValue(generator, element);
+                }
+                generator.writeEndArray();
+            }
+            case Map<?, ?> map -> {
+                generator.writeStartObject();
+                for (var entry : map.entrySet()) {
+                    generator.writeName(String.valueOf(entry.getKey()));
+                    writeValue(generator, entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            default -> generator.writeString(value.toString());
+        }
+    }
+}
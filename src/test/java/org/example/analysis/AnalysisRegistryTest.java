@@ -0,0 +1,128 @@
+package org.example.analysis;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.example.config.AnalysisComponentConfig;
+import org.example.config.AnalyzerConfig;
+import org.example.config.SynonymsConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AnalysisRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private static AnalysisComponentConfig component(String type) {
+        var component = new AnalysisComponentConfig();
+        component.setType(type);
+        return component;
+    }
+
+    private static AnalyzerConfig analyzer(String name, AnalysisComponentConfig... filters) {
+        var analyzer = new AnalyzerConfig();
+        analyzer.setName(name);
+        analyzer.setTokenizer(component("standard"));
+        analyzer.setFilters(List.of(filters));
+        return analyzer;
+    }
+
+    private SynonymsConfig synonyms(String rules) throws IOException {
+        Path file = dir.resolve("synonyms.txt");
+        Files.writeString(file, rules);
+        var synonyms = new SynonymsConfig();
+        synonyms.setName("products");
+        synonyms.setPath(file.toString());
+        return synonyms;
+    }
+
+    private static AnalysisComponentConfig synonymFilter() {
+        var filter = component("synonymGraph");
+        filter.setSynonyms("products");
+        return filter;
+    }
+
+    private static List<String> tokens(Analyzer analyzer, String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("field", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    @Test
+    void shouldApplyFilterChain_whenAnalyzerConfigured() throws IOException {
+        try (var registry = new AnalysisRegistry(List.of(),
+                List.of(analyzer("english", component("lowercase"), component("stop"), component("porterStem"))))) {
+
+            assertThat(tokens(registry.indexAnalyzer("english"), "The Running Dogs"))
+                    .containsExactly("run", "dog");
+        }
+    }
+
+    @Test
+    void shouldExpandSynonyms_whenSynonymSetReferenced() throws IOException {
+        try (var registry = new AnalysisRegistry(List.of(synonyms("laptop, notebook\n")),
+                List.of(analyzer("products", component("lowercase"), synonymFilter())))) {
+
+            assertThat(tokens(registry.searchAnalyzer("products"), "Laptop bag"))
+                    .containsExactlyInAnyOrder("laptop", "notebook", "bag");
+            assertThat(tokens(registry.indexAnalyzer("products"), "Laptop bag"))
+                    .containsExactlyInAnyOrder("laptop", "notebook", "bag");
+        }
+    }
+
+    @Test
+    void shouldUseReloadedSynonymsOnlyForSearch_whenSynonymsReloaded() throws IOException {
+        SynonymsConfig config = synonyms("laptop, notebook\n");
+        try (var registry = new AnalysisRegistry(List.of(config),
+                List.of(analyzer("products", component("lowercase"), synonymFilter())))) {
+            Analyzer search = registry.searchAnalyzer("products");
+            Analyzer index = registry.indexAnalyzer("products");
+            tokens(search, "laptop");
+            tokens(index, "laptop");
+
+            Files.writeString(Path.of(config.getPath()), "laptop, ultrabook\n");
+            assertThat(registry.reloadSynonyms()).containsExactly("products");
+
+            assertThat(tokens(search, "laptop")).containsExactlyInAnyOrder("laptop", "ultrabook");
+            assertThat(tokens(index, "laptop")).containsExactlyInAnyOrder("laptop", "notebook");
+        }
+    }
+
+    @Test
+    void shouldKeepPreviousSynonyms_whenReloadedFileInvalid() throws IOException {
+        SynonymsConfig config = synonyms("laptop, notebook\n");
+        try (var registry = new AnalysisRegistry(List.of(config),
+                List.of(analyzer("products", component("lowercase"), synonymFilter())))) {
+            Files.writeString(Path.of(config.getPath()), "a => b => c\n");
+
+            assertThatThrownBy(registry::reloadSynonyms).isInstanceOf(IllegalArgumentException.class);
+            assertThat(tokens(registry.searchAnalyzer("products"), "laptop"))
+                    .containsExactlyInAnyOrder("laptop", "notebook");
+        }
+    }
+
+    @Test
+    void shouldRejectConfiguration_whenComponentUnknown() {
+        assertThatThrownBy(() -> new AnalysisRegistry(List.of(), List.of(analyzer("broken", component("noSuchFilter")))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AnalysisRegistry(List.of(), List.of(analyzer("broken", synonymFilter()))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("products");
+    }
+}
@@ -18,6 +18,28 @@ class AppConfigTest {
         assertThat(cfg.getLucene().getDataStore()).isEqualTo("/sample-lucene-data");
     }
 
+    @Test
+    void loadsNettySettings() throws IOException, YAMLException {
+        NettyConfig netty = new AppConfig().getServer().getNetty();
+        assertThat(netty.getSoBacklog()).isEqualTo(2048);
+        assertThat(netty.getWriteBufferHighWaterMark()).isEqualTo(131072);
+        assertThat(netty.getWriteBufferLowWaterMark()).isEqualTo(32 * 1024);
+        assertThat(netty.getAllocator()).isEqualTo(AllocatorType.POOLED);
+        assertThat(netty.getMaxContentLength()).isEqualTo(1024 * 1024);
+    }
+
+    @Test
+    void loadsIndexDefinitions() throws IOException, YAMLException {
+        AppConfig cfg = new AppConfig();
+        assertThat(cfg.getLucene().getIndices()).hasSize(1);
+        IndexConfig index = cfg.getLucene().getIndices().getFirst();
+        assertThat(index.getName()).isEqualTo("events");
+        assertThat(index.getIndexSort().getField()).isEqualTo("timestamp");
+        assertThat(index.getIndexSort().getOrder()).isEqualTo(SortOrder.DESC);
+        assertThat(index.getFields()).extracting(FieldConfig::getType)
+                .containsExactly(FieldType.TEXT, FieldType.LONG);
+    }
+
     @Test
     void throwsIfResourceMissing() {
         assertThatThrownBy(() -> new AppConfig("does-not-exist.yaml"))
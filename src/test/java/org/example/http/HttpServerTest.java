@@ -1,6 +1,8 @@
 package org.example.http;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
@@ -9,15 +11,19 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.*;
+import org.example.config.AllocatorType;
+import org.example.config.NettyConfig;
 import org.example.router.Router;
 import org.example.router.RouterBuilder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -232,4 +238,88 @@ class HttpServerTest {
         // Block should now complete
         assertThat(blockCompleted.get()).isTrue();
     }
+
+    @Test
+    void shouldAnswerOnOwnGroup_whenOtherServerLoopsAreBlocked() throws Exception {
+        EventLoopGroup metricGroup = new NioEventLoopGroup(1);
+        server = new HttpServer(bossGroup, workerGroup)
+                .withPort(18083)
+                .withRouter(new RouterBuilder().get("/test", ctx -> ctx.ok()).build())
+                .start();
+        HttpServer metricsServer = new HttpServer(metricGroup)
+                .withPort(18084)
+                .withRouter(new RouterBuilder().get("/health", ctx -> ctx.ok()).build())
+                .start();
+        CountDownLatch release = new CountDownLatch(1);
+        workerGroup.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try {
+            assertThat(get(18084, "/health")).isEqualTo(HttpResponseStatus.OK);
+        } finally {
+            release.countDown();
+            metricsServer.stop();
+            metricGroup.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void shouldApplyCodecLimitsAndAllocator_whenConfigured() throws Exception {
+        var config = new NettyConfig();
+        config.setAllocator(AllocatorType.POOLED);
+        config.setMaxContentLength(16);
+        config.setSoBacklog(128);
+        server = new HttpServer(bossGroup, workerGroup)
+                .withConfig(config)
+                .withPort(18085)
+                .withRouter(new RouterBuilder().post("/test", ctx -> ctx.ok()).build())
+                .start();
+        FullHttpRequest small = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/test",
+                Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8));
+        FullHttpRequest large = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/test",
+                Unpooled.copiedBuffer("{\"message\":\"longer than sixteen bytes\"}", StandardCharsets.UTF_8));
+
+        assertThat(server.allocator()).isInstanceOf(PooledByteBufAllocator.class);
+        assertThat(send(18085, small)).isEqualTo(HttpResponseStatus.OK);
+        assertThat(send(18085, large)).isEqualTo(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+    }
+
+    private HttpResponseStatus get(int port, String path) throws InterruptedException {
+        return send(port, new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path));
+    }
+
+    private HttpResponseStatus send(int port, FullHttpRequest request) throws InterruptedException {
+        CountDownLatch responseLatch = new CountDownLatch(1);
+        AtomicReference<HttpResponseStatus> status = new AtomicReference<>();
+        Channel clientChannel = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec());
+                        ch.pipeline().addLast(new HttpObjectAggregator(1024 * 1024));
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<FullHttpResponse>() {
+                            @Override
+                            protected void channelRead0(io.netty.channel.ChannelHandlerContext ctx, FullHttpResponse msg) {
+                                status.set(msg.status());
+                                responseLatch.countDown();
+                            }
+                        });
+                    }
+                })
+                .connect("localhost", port).sync().channel();
+        request.headers().set(HttpHeaderNames.HOST, "localhost");
+        HttpUtil.setContentLength(request, request.content().readableBytes());
+        request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        clientChannel.writeAndFlush(request);
+        responseLatch.await(5, TimeUnit.SECONDS);
+        clientChannel.close().sync();
+        return status.get();
+    }
 }
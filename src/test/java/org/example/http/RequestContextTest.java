@@ -5,6 +5,7 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.*;
 import org.example.http.RequestContext;
+import org.example.search.CircuitBreakingException;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.atomic.AtomicReference;
@@ -135,4 +136,83 @@ class RequestContextTest {
         assertThat(context.getRequest().method()).isEqualTo(HttpMethod.POST);
         assertThat(context.getRequest().uri()).isEqualTo("/test");
     }
+
+    @Test
+    void shouldDecodeQueryParameters_whenParamCalled() {
+        FullHttpRequest request = new DefaultFullHttpRequest(
+                HttpVersion.HTTP_1_1,
+                HttpMethod.GET,
+                "/_search?index=events&refresh=true"
+        );
+        RequestContext context = new RequestContext(null, request);
+
+        assertThat(context.param("index")).isEqualTo("events");
+        assertThat(context.param("refresh")).isEqualTo("true");
+        assertThat(context.param("missing")).isNull();
+    }
+
+    @Test
+    void shouldSendJsonResponse_whenJsonCalled() {
+        AtomicReference<ChannelHandlerContext> ctxRef = new AtomicReference<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) {
+                ctxRef.set(ctx);
+            }
+        });
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        RequestContext context = new RequestContext(ctxRef.get(), request);
+
+        context.json(HttpResponseStatus.OK, json -> {
+            json.writeStartObject();
+            json.writeNumberProperty("count", 3);
+            json.writeEndObject();
+        });
+
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_TYPE))
+                .isEqualTo("application/json; charset=UTF-8");
+        assertThat(response.content().toString(java.nio.charset.StandardCharsets.UTF_8))
+                .isEqualTo("{\"count\":3}");
+        response.release();
+    }
+
+    @Test
+    void shouldSend400_whenFailedWithIllegalArgument() {
+        AtomicReference<ChannelHandlerContext> ctxRef = new AtomicReference<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) {
+                ctxRef.set(ctx);
+            }
+        });
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        RequestContext context = new RequestContext(ctxRef.get(), request);
+
+        context.fail(new IllegalArgumentException("Unknown index 'x'"));
+
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldSend429Or503_whenFailedWithCircuitBreaker() {
+        AtomicReference<ChannelHandlerContext> ctxRef = new AtomicReference<>();
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) {
+                ctxRef.set(ctx);
+            }
+        });
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        RequestContext context = new RequestContext(ctxRef.get(), request);
+
+        context.fail(new CircuitBreakingException("Searches in flight", false));
+        context.fail(new CircuitBreakingException("Heap usage", true));
+
+        HttpResponse overloaded = channel.readOutbound();
+        HttpResponse exhausted = channel.readOutbound();
+        assertThat(overloaded.status()).isEqualTo(HttpResponseStatus.TOO_MANY_REQUESTS);
+        assertThat(exhausted.status()).isEqualTo(HttpResponseStatus.SERVICE_UNAVAILABLE);
+    }
 }
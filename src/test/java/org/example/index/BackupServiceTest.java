@@ -0,0 +1,126 @@
+package org.example.index;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.example.config.Lucene;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BackupServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ManagedIndex index;
+    private BackupService backups;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        var lucene = new Lucene();
+        lucene.setDataStore(dir.resolve("data").toString());
+        lucene.setBackupStore(dir.resolve("backups").toString());
+        index = new ManagedIndex(TestSchemas.events(null, null), dir.resolve("data"), null);
+        backups = new BackupService(lucene);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        backups.close();
+        index.close();
+    }
+
+    private void indexDocs(int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            index.index(index.getMapper().toDocument(Map.of("_id", Integer.toString(i), "message", "doc " + i)));
+        }
+        index.refresh();
+    }
+
+    private int count() throws IOException {
+        IndexSearcher searcher = index.acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            index.release(searcher);
+        }
+    }
+
+    @Test
+    void shouldCopyOnlyNewFiles_whenBackingUpAgain() throws IOException {
+        indexDocs(0, 100);
+        BackupService.Result first = backups.backup(index);
+        indexDocs(100, 110);
+
+        BackupService.Result second = backups.backup(index);
+
+        assertThat(first.copiedFiles()).isEqualTo(first.files());
+        assertThat(second.generation()).isGreaterThan(first.generation());
+        assertThat(second.copiedFiles()).isLessThan(second.files());
+        assertThat(second.copiedBytes()).isLessThan(first.copiedBytes() + second.copiedBytes());
+        assertThat(backups.generations(index)).containsExactly(first.generation(), second.generation());
+    }
+
+    @Test
+    void shouldRestoreBackedUpGeneration_whenIndexChangedSince() throws IOException {
+        indexDocs(0, 50);
+        BackupService.Result first = backups.backup(index);
+        indexDocs(50, 80);
+        backups.backup(index);
+
+        backups.restore(index, first.generation());
+
+        assertThat(count()).isEqualTo(50);
+        backups.restore(index, null);
+        assertThat(count()).isEqualTo(80);
+    }
+
+    @Test
+    void shouldRejectRestore_whenGenerationUnknown() throws IOException {
+        indexDocs(0, 1);
+
+        assertThatThrownBy(() -> backups.restore(index, 42L)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(backups.generations(index)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepOnlyLatestGenerations_whenMoreBackupsThanRetained() throws IOException {
+        var lucene = new Lucene();
+        lucene.setDataStore(dir.resolve("data").toString());
+        lucene.setBackupStore(dir.resolve("backups").toString());
+        lucene.setBackupMaxGenerations(2);
+        List<Long> generations = new ArrayList<>();
+        try (var retaining = new BackupService(lucene)) {
+            for (int round = 0; round < 4; round++) {
+                indexDocs(round * 10, round * 10 + 10);
+                generations.add(retaining.backup(index).generation());
+            }
+
+            assertThat(retaining.generations(index)).containsExactlyElementsOf(generations.subList(2, 4));
+            try (Directory backup = FSDirectory.open(dir.resolve("backups").resolve(index.getName()))) {
+                Set<String> referenced = new HashSet<>();
+                for (IndexCommit commit : DirectoryReader.listCommits(backup)) {
+                    referenced.addAll(commit.getFileNames());
+                }
+                assertThat(backup.listAll()).containsExactlyInAnyOrderElementsOf(referenced);
+            }
+            retaining.restore(index, generations.get(2));
+        }
+
+        assertThat(count()).isEqualTo(30);
+    }
+}
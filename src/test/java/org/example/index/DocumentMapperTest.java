@@ -0,0 +1,140 @@
+package org.example.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.example.analysis.AnalysisRegistry;
+import org.example.config.AnalysisComponentConfig;
+import org.example.config.AnalyzerConfig;
+import org.example.config.SortOrder;
+import org.example.config.VectorFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DocumentMapperTest {
+
+    @Test
+    void shouldStoreAllFields_whenDocumentMapped() {
+        var mapper = new DocumentMapper(TestSchemas.events(null, null));
+
+        Document document = mapper.toDocument(Map.of(
+                "_id", "1", "message", "hello world", "service", List.of("a", "b"),
+                "timestamp", 42L, "latency", 1.5));
+
+        assertThat(document.get("_id")).isEqualTo("1");
+        assertThat(document.get("message")).isEqualTo("hello world");
+        assertThat(document.getValues("service")).containsExactly("a", "b");
+        assertThat(document.getField("timestamp").numericValue()).isNotNull();
+    }
+
+    @Test
+    void shouldRejectDocument_whenFieldUnknown() {
+        var mapper = new DocumentMapper(TestSchemas.events(null, null));
+
+        assertThatThrownBy(() -> mapper.toDocument(Map.of("nope", "x")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nope");
+    }
+
+    @Test
+    void shouldRejectDocument_whenNumericFieldHasText() {
+        var mapper = new DocumentMapper(TestSchemas.events(null, null));
+
+        assertThatThrownBy(() -> mapper.toDocument(Map.of("timestamp", "yesterday")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldBuildIndexSort_whenIndexSortConfigured() {
+        var mapper = new DocumentMapper(TestSchemas.events("timestamp", SortOrder.DESC));
+
+        SortField sortField = mapper.getIndexSort().getSort()[0];
+        assertThat(sortField.getField()).isEqualTo("timestamp");
+        assertThat(sortField.getType()).isEqualTo(SortField.Type.LONG);
+        assertThat(sortField.getReverse()).isTrue();
+    }
+
+    @Test
+    void shouldUseSortedSetSort_whenSortingOnKeyword() {
+        var mapper = new DocumentMapper(TestSchemas.events(null, null));
+
+        assertThat(mapper.sortField("service", SortOrder.ASC)).isInstanceOf(SortedSetSortField.class);
+    }
+
+    @Test
+    void shouldRejectSort_whenFieldIsText() {
+        assertThatThrownBy(() -> new DocumentMapper(TestSchemas.events("message", SortOrder.ASC)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("message");
+    }
+
+    @Test
+    void shouldParsePointRangeQuery_whenNumericFieldQueried() {
+        var mapper = new DocumentMapper(TestSchemas.events(null, null));
+
+        assertThat(mapper.parseQuery("timestamp:[10 TO 20]").toString()).isEqualTo("timestamp:[10 TO 20]");
+        assertThat(mapper.parseQuery("  ")).isInstanceOf(MatchAllDocsQuery.class);
+        assertThat(mapper.parseQuery("hello").toString()).isEqualTo("message:hello");
+    }
+
+    @Test
+    void shouldAnalyzeQueryWithFieldAnalyzer_whenAnalyzerConfigured() throws IOException {
+        var english = new AnalyzerConfig();
+        english.setName("english");
+        english.setTokenizer(component("standard"));
+        english.setFilters(List.of(component("lowercase"), component("porterStem")));
+        var config = TestSchemas.events(null, null);
+        config.getFields().get(0).setAnalyzer("english");
+
+        try (var analysis = new AnalysisRegistry(List.of(), List.of(english))) {
+            var mapper = new DocumentMapper(config, analysis);
+
+            assertThat(mapper.parseQuery("Running").toString()).isEqualTo("message:run");
+            config.getFields().get(1).setAnalyzer("english");
+            assertThatThrownBy(() -> new DocumentMapper(config, analysis))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("service");
+        }
+    }
+
+    @Test
+    void shouldThrowIllegalArgument_whenQueryMalformed() {
+        var mapper = new DocumentMapper(TestSchemas.events(null, null));
+
+        assertThatThrownBy(() -> mapper.parseQuery("message:(unbalanced"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectFacet_whenFieldIsNotKeyword() {
+        var config = TestSchemas.events(null, null);
+        config.getFields().get(2).setFacet(true);
+
+        assertThatThrownBy(() -> new DocumentMapper(config))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("timestamp");
+    }
+
+    @Test
+    void shouldRejectVector_whenDimensionsDiffer() {
+        var mapper = new DocumentMapper(TestSchemas.vectors(VectorFormat.HNSW));
+
+        assertThatThrownBy(() -> mapper.toDocument(Map.of("embedding", List.of(1.0, 2.0))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("8 dimensions");
+        assertThatThrownBy(() -> mapper.knnQuery("service", new float[8], 10, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static AnalysisComponentConfig component(String type) {
+        var component = new AnalysisComponentConfig();
+        component.setType(type);
+        return component;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.index;
+
+import org.example.config.IndexConfig;
+import org.example.config.Lucene;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IndexRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldWarmRemainingIndices_whenOneFailsToWarmUp() throws IOException {
+        IndexConfig broken = TestSchemas.events(null, null);
+        broken.setName("broken");
+        IndexConfig healthy = TestSchemas.events(null, null);
+        healthy.setWarmupQueries(List.of("message:disk"));
+        var lucene = new Lucene();
+        lucene.setDataStore(dir.toString());
+        lucene.setIndices(List.of(broken, healthy));
+        try (var indices = new IndexRegistry(lucene, null)) {
+            indices.get("broken").close();
+
+            assertThat(indices.warmUp()).isEqualTo(1);
+            assertThat(indices.get("test").warmUp()).isZero();
+        }
+    }
+}
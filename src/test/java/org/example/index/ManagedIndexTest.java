@@ -0,0 +1,210 @@
+package org.example.index;
+
+import org.apache.lucene.codecs.lucene90.Lucene90StoredFieldsFormat;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.example.analysis.AnalysisRegistry;
+import org.example.config.ReplicationRole;
+import org.example.config.StoredFieldsCompression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ManagedIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldFailToOpen_whenWarmupQueryInvalid() {
+        var config = TestSchemas.events(null, null);
+        config.setWarmupQueries(List.of("message:(unbalanced"));
+
+        assertThatThrownBy(() -> new ManagedIndex(config, dir, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFailToOpen_whenPrimaryHasNoCursorLease() {
+        var config = TestSchemas.events(null, null);
+        config.setCursorLeaseSeconds(0);
+
+        assertThatThrownBy(() -> new ManagedIndex(config, dir, null, ReplicationRole.PRIMARY, AnalysisRegistry.EMPTY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cursor-lease-seconds");
+    }
+
+    @Test
+    void shouldExposeWarmedSearcher_whenRefreshed() throws IOException {
+        var config = TestSchemas.events(null, null);
+        config.setWarmupQueries(List.of("message:disk", "timestamp:[0 TO 100]"));
+        try (var index = new ManagedIndex(config, dir, null)) {
+            index.warmUp();
+            index.index(index.getMapper().toDocument(Map.of("message", "disk full", "timestamp", 5L)));
+
+            index.refresh();
+
+            IndexSearcher searcher = index.acquire();
+            try {
+                assertThat(searcher.count(new MatchAllDocsQuery())).isEqualTo(1);
+            } finally {
+                index.release(searcher);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(StoredFieldsCompression.class)
+    void shouldWriteSegmentsInConfiguredMode_whenCompressionSet(StoredFieldsCompression compression)
+            throws IOException {
+        var config = TestSchemas.events(null, null);
+        config.setStoredFieldsCompression(compression);
+        try (var index = new ManagedIndex(config, dir, null)) {
+            index.index(index.getMapper().toDocument(Map.of("message", "disk full", "timestamp", 5L)));
+            index.refresh();
+
+            IndexSearcher searcher = index.acquire();
+            try {
+                var segment = (SegmentReader) searcher.getIndexReader().leaves().getFirst().reader();
+                assertThat(segment.getSegmentInfo().info.getAttribute(Lucene90StoredFieldsFormat.MODE_KEY))
+                        .isEqualTo(compression.name());
+                assertThat(searcher.storedFields().document(0).get("message")).isEqualTo("disk full");
+            } finally {
+                index.release(searcher);
+            }
+        }
+    }
+
+    @Test
+    void shouldReportSegmentsFieldsAndMerges_whenStatsRequested() throws Exception {
+        try (var index = new ManagedIndex(TestSchemas.events(null, null), dir, null)) {
+            for (int i = 0; i < 15; i++) {
+                index.index(index.getMapper().toDocument(Map.of("message", "disk full " + i, "timestamp", (long) i)));
+                index.refresh();
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (index.stats(false).merges().total() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            index.index(index.getMapper().toDocument(Map.of("message", "not refreshed", "timestamp", 99L)));
+
+            IndexStats stats = index.stats(true);
+
+            assertThat(stats.docs()).isEqualTo(15);
+            assertThat(stats.segmentCount()).isEqualTo(stats.segments().size()).isLessThan(15);
+            assertThat(stats.sizeBytes()).isEqualTo(stats.segments().stream().mapToLong(IndexStats.Segment::sizeBytes).sum());
+            assertThat(stats.sizeByType()).containsKeys("postings", "doc_values", "stored_fields", "points");
+            assertThat(stats.writerRamBytes()).isPositive();
+            assertThat(stats.merges().recent()).isNotEmpty()
+                    .allSatisfy(merge -> assertThat(merge.segments()).isGreaterThan(1));
+            assertThat(stats.segments()).extracting(IndexStats.Segment::source).contains("merge");
+            IndexStats.Segment segment = stats.segments().getFirst();
+            assertThat(segment.fields()).filteredOn(field -> field.name().equals("message")).singleElement()
+                    .satisfies(field -> assertThat(field.sumTotalTermFreq()).isGreaterThanOrEqualTo(field.sumDocFreq()));
+            assertThat(segment.fields()).filteredOn(field -> field.name().equals("timestamp")).singleElement()
+                    .satisfies(field -> {
+                        assertThat(field.points()).isTrue();
+                        assertThat(field.docValues()).isEqualTo("numeric");
+                    });
+        }
+    }
+
+    @Test
+    void shouldRejectWrites_whenRestoreRunning() throws Exception {
+        try (var source = new ManagedIndex(TestSchemas.events(null, null), dir.resolve("source"), null);
+             var index = new ManagedIndex(TestSchemas.events(null, null), dir.resolve("target"), null)) {
+            source.index(source.getMapper().toDocument(Map.of("message", "disk full", "timestamp", 5L)));
+            IndexCommit commit = source.snapshot();
+            var reading = new CountDownLatch(1);
+            var resume = new CountDownLatch(1);
+            IndexCommit blocking = new IndexCommit() {
+                @Override
+                public Directory getDirectory() {
+                    reading.countDown();
+                    try {
+                        resume.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return commit.getDirectory();
+                }
+
+                @Override
+                public String getSegmentsFileName() {
+                    return commit.getSegmentsFileName();
+                }
+
+                @Override
+                public Collection<String> getFileNames() throws IOException {
+                    return commit.getFileNames();
+                }
+
+                @Override
+                public void delete() {
+                    commit.delete();
+                }
+
+                @Override
+                public boolean isDeleted() {
+                    return commit.isDeleted();
+                }
+
+                @Override
+                public int getSegmentCount() {
+                    return commit.getSegmentCount();
+                }
+
+                @Override
+                public long getGeneration() {
+                    return commit.getGeneration();
+                }
+
+                @Override
+                public Map<String, String> getUserData() throws IOException {
+                    return commit.getUserData();
+                }
+            };
+            var restore = CompletableFuture.runAsync(() -> {
+                try {
+                    index.restore(blocking);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> index.index(index.getMapper().toDocument(Map.of("message", "lost"))))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThatThrownBy(index::refresh).isInstanceOf(RejectedExecutionException.class);
+            assertThatThrownBy(index::commit).isInstanceOf(RejectedExecutionException.class);
+
+            resume.countDown();
+            restore.get(10, TimeUnit.SECONDS);
+            index.index(index.getMapper().toDocument(Map.of("message", "after restore", "timestamp", 6L)));
+            index.refresh();
+            IndexSearcher searcher = index.acquire();
+            try {
+                assertThat(searcher.count(new MatchAllDocsQuery())).isEqualTo(2);
+            } finally {
+                index.release(searcher);
+            }
+            source.releaseSnapshot(commit);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.index;
+
+import org.example.config.IndexConfig;
+import org.example.config.Lucene;
+import org.example.config.ReplicationConfig;
+import org.example.config.ReplicationRole;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReplicationSourceTest {
+
+    @TempDir
+    Path dir;
+
+    private IndexRegistry indices;
+    private ReplicationSource source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        IndexConfig schema = TestSchemas.events(null, null);
+        schema.setCursorLeaseSeconds(1);
+        var replication = new ReplicationConfig();
+        replication.setRole(ReplicationRole.PRIMARY);
+        var lucene = new Lucene();
+        lucene.setDataStore(dir.toString());
+        lucene.setIndices(List.of(schema));
+        lucene.setReplication(replication);
+        indices = new IndexRegistry(lucene, null);
+        source = new ReplicationSource(indices);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        source.close();
+        indices.close();
+    }
+
+    private void indexAndRefresh(String message) throws IOException {
+        ManagedIndex index = indices.get("test");
+        index.index(index.getMapper().toDocument(Map.of("message", message, "timestamp", 1L)));
+        index.refresh();
+    }
+
+    @Test
+    void shouldKeepServingChunks_whenCopyOutlastsLeaseAcrossRefreshes() throws Exception {
+        indexAndRefresh("first");
+        ReplicationSource.Checkpoint checkpoint = source.checkpoint("test");
+        ReplicationSource.FileMetadata file = checkpoint.files().stream()
+                .filter(meta -> meta.length() > 64).findFirst().orElseThrow();
+        var copy = new ByteArrayOutputStream();
+
+        for (int chunks = 1; copy.size() < file.length(); chunks++) {
+            copy.write(source.read("test", checkpoint.version(), file.name(), copy.size(), 16));
+            if (chunks <= 4) {
+                // refreshes prune expired leases; together these outlast the checkpoint's lease
+                Thread.sleep(400);
+                indexAndRefresh("refresh " + chunks);
+            }
+        }
+
+        assertThat((long) copy.size()).isEqualTo(file.length());
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.index;
+
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.config.IndexSortConfig;
+import org.example.config.SortOrder;
+import org.example.config.VectorFormat;
+import org.example.config.VectorSimilarity;
+
+import java.util.List;
+
+/**
+ * Index configurations shared by unit tests.
+ */
+public final class TestSchemas {
+
+    private TestSchemas() {
+    }
+
+    /**
+     * Returns a log-event schema named {@code test} with text, keyword, long and double fields.
+     *
+     * @param sortField the index sort field, or {@code null} for an unsorted index
+     * @param order     the index sort order
+     * @return the index configuration
+     */
+    public static IndexConfig events(String sortField, SortOrder order) {
+        var config = new IndexConfig();
+        config.setName("test");
+        config.setFields(List.of(
+                field("message", FieldType.TEXT),
+                field("service", FieldType.KEYWORD),
+                field("timestamp", FieldType.LONG),
+                field("latency", FieldType.DOUBLE)));
+        if (sortField != null) {
+            var sort = new IndexSortConfig();
+            sort.setField(sortField);
+            sort.setOrder(order);
+            config.setIndexSort(sort);
+        }
+        return config;
+    }
+
+    /**
+     * Returns a schema named {@code test} with a keyword field and an 8-dimensional
+     * euclidean vector field {@code embedding}.
+     *
+     * @param format the vector format
+     * @return the index configuration
+     */
+    public static IndexConfig vectors(VectorFormat format) {
+        var embedding = field("embedding", FieldType.VECTOR);
+        embedding.setDimensions(8);
+        embedding.setSimilarity(VectorSimilarity.EUCLIDEAN);
+        embedding.setVectorFormat(format);
+        var config = new IndexConfig();
+        config.setName("test");
+        config.setFields(List.of(field("service", FieldType.KEYWORD), embedding));
+        return config;
+    }
+
+    public static FieldConfig field(String name, FieldType type) {
+        var field = new FieldConfig();
+        field.setName(name);
+        field.setType(type);
+        return field;
+    }
+}
@@ -28,6 +28,7 @@ public final class TestServerManager {
 
     private final EventLoopGroup bossGroup;
     private final EventLoopGroup workerGroup;
+    private final EventLoopGroup metricGroup;
     private final HttpServer appServer;
     private final HttpServer metricsServer;
     private final TestHttpClient httpClient;
@@ -35,6 +36,7 @@ public final class TestServerManager {
     private TestServerManager() throws InterruptedException, IOException {
         this.bossGroup = new NioEventLoopGroup(1);
         this.workerGroup = new NioEventLoopGroup(2);
+        this.metricGroup = new NioEventLoopGroup(1);
 
         // Start app server
         this.appServer = new HttpServer(bossGroup, workerGroup)
@@ -43,7 +45,7 @@ public final class TestServerManager {
                 .start();
 
         // Start metrics server
-        this.metricsServer = new HttpServer(workerGroup, bossGroup)
+        this.metricsServer = new HttpServer(metricGroup)
                 .withPort(METRICS_PORT)
                 .withRouter(new MetricsRouter())
                 .start();
@@ -149,5 +151,9 @@ public final class TestServerManager {
         if (workerGroup != null) {
             workerGroup.shutdownGracefully();
         }
+
+        if (metricGroup != null) {
+            metricGroup.shutdownGracefully();
+        }
     }
 }
@@ -0,0 +1,283 @@
+package org.example.integration.replication;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.example.config.FieldConfig;
+import org.example.config.FieldType;
+import org.example.config.IndexConfig;
+import org.example.config.Lucene;
+import org.example.config.ReplicationConfig;
+import org.example.config.ReplicationRole;
+import org.example.http.HttpServer;
+import org.example.index.IndexRegistry;
+import org.example.index.ManagedIndex;
+import org.example.index.ReplicationSource;
+import org.example.routes.MetricsRouter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for segment replication between two processes.
+ *
+ * <p>The primary runs inside the test JVM and serves its segments on a metrics port. The
+ * replica is a separate {@code App} process configured through an {@code application.yaml}
+ * placed in front of the test classpath. Replication lag and copy throughput are logged
+ * at {@code INFO}.
+ */
+@Tag("integration")
+@DisplayName("Segment Replication Integration Tests")
+class ReplicationIT {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationIT.class);
+    private static final String INDEX = "events";
+    private static final Pattern TOTAL = Pattern.compile("\"total\":\\{\"value\":(\\d+)");
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @TempDir
+    static Path dir;
+
+    private static EventLoopGroup group;
+    private static IndexRegistry primary;
+    private static ReplicationSource source;
+    private static HttpServer primaryServer;
+    private static Process replica;
+    private static int replicaPort;
+    private static final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        int primaryPort = freePort();
+        replicaPort = freePort();
+
+        var replication = new ReplicationConfig();
+        replication.setRole(ReplicationRole.PRIMARY);
+        var lucene = new Lucene();
+        lucene.setDataStore(dir.resolve("primary").toString());
+        lucene.setIndices(List.of(schema()));
+        lucene.setReplication(replication);
+        primary = new IndexRegistry(lucene, null);
+        source = new ReplicationSource(primary);
+        group = new NioEventLoopGroup(2);
+        primaryServer = new HttpServer(group, group)
+                .withPort(primaryPort)
+                .withRouter(new MetricsRouter(source, () -> true))
+                .start();
+
+        Path config = Files.createDirectories(dir.resolve("replica-config"));
+        Files.writeString(config.resolve("application.yaml"), """
+                server:
+                  app-port: %d
+                  metric-port: %d
+                lucene:
+                  data-store: "%s"
+                  replication:
+                    role: replica
+                    primary-url: "http://localhost:%d"
+                    poll-interval-millis: 20
+                  indices:
+                    - name: events
+                      fields:
+                        - name: message
+                          type: text
+                        - name: service
+                          type: keyword
+                        - name: timestamp
+                          type: long
+                """.formatted(replicaPort, freePort(), dir.resolve("replica"), primaryPort));
+        replica = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", config + File.pathSeparator + System.getProperty("java.class.path"),
+                "org.example.App")
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("replica.log").toFile())
+                .start();
+        awaitReplica(() -> get("/health").statusCode() == 200);
+    }
+
+    @AfterAll
+    static void stopNodes() throws Exception {
+        if (replica != null) {
+            replica.destroy();
+            if (!replica.waitFor(10, TimeUnit.SECONDS)) {
+                replica.destroyForcibly();
+            }
+        }
+        if (primaryServer != null) {
+            primaryServer.stop();
+        }
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+        if (source != null) {
+            source.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should make each primary refresh searchable on the replica")
+    void shouldReplicateEachRefresh_whenPrimaryRefreshes() throws Exception {
+        ManagedIndex index = primary.get(INDEX);
+        List<Long> lags = new ArrayList<>();
+
+        for (int round = 1; round <= 10; round++) {
+            // Given
+            index(index, "lag", (round - 1) * 500, round * 500, "message");
+
+            // When
+            index.refresh();
+            long start = System.nanoTime();
+
+            // Then
+            long expected = round * 500L;
+            awaitReplica(() -> count("service:lag") == expected);
+            lags.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        Collections.sort(lags);
+        logger.info("Replication lag over {} refreshes: median {} ms, max {} ms",
+                lags.size(), lags.get(lags.size() / 2), lags.getLast());
+    }
+
+    @Test
+    @DisplayName("Should replicate deletes of replaced documents")
+    void shouldReplicateUpdates_whenDocumentsReplaced() throws Exception {
+        // Given
+        ManagedIndex index = primary.get(INDEX);
+        index(index, "update", 0, 1_000, "original");
+        index.refresh();
+        awaitReplica(() -> count("service:update") == 1_000);
+
+        // When
+        index(index, "update", 0, 100, "updated");
+        index.refresh();
+
+        // Then
+        awaitReplica(() -> count("message:updated") == 100);
+        assertThat(count("service:update")).isEqualTo(1_000);
+    }
+
+    @Test
+    @DisplayName("Should copy a large refresh and report throughput")
+    void shouldCopyBulkIndex_whenManyDocumentsRefreshed() throws Exception {
+        // Given
+        ManagedIndex index = primary.get(INDEX);
+        index(index, "bulk", 0, 200_000, "bulk message with some more words to analyze");
+        index.commit();
+
+        // When
+        index.refresh();
+        long start = System.nanoTime();
+        awaitReplica(() -> count("service:bulk") == 200_000);
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        // Then
+        long bytes = source.checkpoint(INDEX).files().stream().mapToLong(ReplicationSource.FileMetadata::length).sum();
+        logger.info("Replicated {} MB in {} ms ({} MB/s, upper bound of copied bytes)",
+                String.format("%.1f", bytes / 1e6), millis, String.format("%.1f", bytes / 1e3 / millis));
+        assertThat(bytes).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should reject writes on the replica")
+    void shouldReturn400_whenBulkSentToReplica() throws Exception {
+        // When
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(replicaUri("/_bulk?index=" + INDEX))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"lost\"}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("read-only replica");
+    }
+
+    private static IndexConfig schema() {
+        var config = new IndexConfig();
+        config.setName(INDEX);
+        config.setFields(List.of(field("message", FieldType.TEXT), field("service", FieldType.KEYWORD),
+                field("timestamp", FieldType.LONG)));
+        return config;
+    }
+
+    private static FieldConfig field(String name, FieldType type) {
+        var field = new FieldConfig();
+        field.setName(name);
+        field.setType(type);
+        return field;
+    }
+
+    private static void index(ManagedIndex index, String service, int from, int to, String message) throws IOException {
+        for (int i = from; i < to; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "_id", service + "-" + i, "service", service, "message", message + " " + i, "timestamp", (long) i)));
+        }
+    }
+
+    private static long count(String query) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(replicaUri("/_search?index=" + INDEX))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"query\":\"" + query + "\",\"size\":0,\"track_total_hits\":true}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOTAL.matcher(response.body());
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(replicaUri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI replicaUri(String path) {
+        return URI.create("http://localhost:" + replicaPort + path);
+    }
+
+    private static void awaitReplica(Check check) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                if (check.test()) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Replica did not catch up; log:\n" + Files.readString(dir.resolve("replica.log")));
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        boolean test() throws Exception;
+    }
+}
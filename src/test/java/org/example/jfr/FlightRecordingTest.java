@@ -0,0 +1,74 @@
+package org.example.jfr;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.config.JfrConfig;
+import org.example.index.ManagedIndex;
+import org.example.index.TestSchemas;
+import org.example.router.RouterBuilder;
+import org.example.search.SearchRequest;
+import org.example.search.SearchService;
+import org.example.utils.JsonUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FlightRecordingTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldRecordRequestAndLuceneEvents_whenThresholdsAreZero() throws Exception {
+        var config = new JfrConfig();
+        config.setRequestThresholdMillis(0);
+        config.setSearchThresholdMillis(0);
+        Path file = dir.resolve("recording.jfr");
+        try (Recording recording = FlightRecording.start(config)) {
+            try (var index = new ManagedIndex(TestSchemas.events(null, null), dir.resolve("index"), null)) {
+                // enough flushed segments for the merge policy to merge them
+                for (int i = 0; i < 12; i++) {
+                    index.index(index.getMapper().toDocument(Map.of("message", "event " + i, "timestamp", (long) i)));
+                    index.refresh();
+                }
+                index.commit();
+                try (var parser = JsonUtil.parser("{\"query\":\"message:event\",\"size\":3}")) {
+                    new SearchService().search(index, SearchRequest.parse(parser));
+                }
+            }
+            var channel = new EmbeddedChannel(new RouterBuilder().get("/ok", ctx -> ctx.ok()).build().handler());
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/ok?pretty"));
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/missing"));
+            channel.close();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertThat(events(events, RequestEvent.NAME)).extracting(e -> e.getString("route") + " " + e.getInt("status"))
+                .containsExactlyInAnyOrder("GET /ok 200", "unmatched 404");
+        assertThat(events(events, SearchEvent.NAME)).singleElement().satisfies(search -> {
+            assertThat(search.getString("type")).isEqualTo("search");
+            assertThat(search.getInt("queryHash")).isEqualTo("message:event".hashCode());
+            assertThat(search.getInt("hits")).isEqualTo(3);
+            assertThat(search.getLong("totalHits")).isEqualTo(12);
+        });
+        assertThat(events(events, RefreshEvent.NAME)).hasSizeGreaterThanOrEqualTo(12);
+        assertThat(events(events, CommitEvent.NAME)).isNotEmpty();
+        assertThat(events(events, MergeEvent.NAME)).isNotEmpty()
+                .allSatisfy(merge -> assertThat(merge.getInt("segments")).isGreaterThan(1));
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+    }
+}
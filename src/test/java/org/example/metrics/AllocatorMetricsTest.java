@@ -0,0 +1,37 @@
+package org.example.metrics;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AllocatorMetricsTest {
+
+    @Test
+    void shouldReportActiveAllocations_whenPooledBuffersHeld() {
+        var allocator = new PooledByteBufAllocator(true);
+        ByteBuf buffer = allocator.directBuffer(1024);
+        var out = new PrometheusWriter();
+
+        new AllocatorMetrics(allocator).writeTo(out);
+        buffer.release();
+
+        assertThat(out.toString())
+                .contains("minisearch_netty_allocator_active_allocations{memory=\"direct\"} 1\n")
+                .contains("minisearch_netty_allocator_active_allocations{memory=\"heap\"} 0\n")
+                .contains("minisearch_netty_allocator_arenas{memory=\"direct\"} ");
+    }
+
+    @Test
+    void shouldReportOnlyUsedMemory_whenAllocatorIsUnpooled() {
+        var out = new PrometheusWriter();
+
+        new AllocatorMetrics(UnpooledByteBufAllocator.DEFAULT).writeTo(out);
+
+        assertThat(out.toString())
+                .contains("minisearch_netty_allocator_used_bytes{memory=\"direct\"} ")
+                .doesNotContain("minisearch_netty_allocator_arenas");
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.metrics;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EventLoopMetricsTest {
+
+    private final EventLoopGroup group = new DefaultEventLoopGroup(1);
+
+    @AfterEach
+    void tearDown() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    void shouldRecordProbeDelay_whenLoopIsBlocked() throws Exception {
+        var metrics = new EventLoopMetrics(1).register("worker", group);
+
+        group.submit(() -> sleep(50)).get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (metrics.delays("worker").quantileUpperBound(1.0) < TimeUnit.MILLISECONDS.toNanos(20)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThat(metrics.delays("worker").count()).isPositive();
+        assertThat(metrics.delays("worker").quantileUpperBound(1.0))
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void shouldReportPendingTasks_whenLoopIsBusy() throws Exception {
+        var metrics = new EventLoopMetrics(0).register("worker", group);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        group.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        group.execute(() -> {});
+        group.execute(() -> {});
+
+        var out = new PrometheusWriter();
+        metrics.writeTo(out);
+        release.countDown();
+
+        assertThat(out.toString())
+                .contains("minisearch_netty_event_loop_pending_tasks{group=\"worker\",loop=\"0\"} 2")
+                .doesNotContain("minisearch_netty_event_loop_delay_seconds");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class JvmMetricsTest {
+
+    @Test
+    void shouldReportMemoryGcAndThreads_whenScraped() {
+        var out = new PrometheusWriter();
+        try (var metrics = new JvmMetrics()) {
+            metrics.writeTo(out);
+        }
+
+        assertThat(out.toString())
+                .contains("minisearch_jvm_memory_used_bytes{area=\"heap\"} ")
+                .contains("minisearch_jvm_buffer_pool_used_bytes{pool=\"direct\"} ")
+                .contains("# TYPE minisearch_jvm_gc_collections_total counter")
+                .containsPattern("minisearch_jvm_threads\\{kind=\"live\"} [1-9]");
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldSplitEachPowerOfTwoInHalves_whenBucketing() {
+        assertThat(LatencyHistogram.bucket(0)).isZero();
+        assertThat(LatencyHistogram.bucket((1L << 13) - 1)).isZero();
+        assertThat(LatencyHistogram.bucket(1L << 13)).isEqualTo(1);
+        assertThat(LatencyHistogram.bucket((3L << 12) - 1)).isEqualTo(1);
+        assertThat(LatencyHistogram.bucket(3L << 12)).isEqualTo(2);
+        assertThat(LatencyHistogram.bucket(1L << 14)).isEqualTo(3);
+        assertThat(LatencyHistogram.bucket(Long.MAX_VALUE)).isEqualTo(43);
+    }
+
+    @Test
+    void shouldBoundQuantiles_whenLatenciesRecorded() {
+        var histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(histogram.count()).isEqualTo(100);
+        assertThat(histogram.quantileUpperBound(0.5))
+                .isGreaterThan(TimeUnit.MICROSECONDS.toNanos(100))
+                .isLessThanOrEqualTo(TimeUnit.MICROSECONDS.toNanos(150));
+        assertThat(histogram.quantileUpperBound(1.0))
+                .isGreaterThan(TimeUnit.MILLISECONDS.toNanos(50))
+                .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(75));
+        assertThat(new LatencyHistogram().quantileUpperBound(0.99)).isZero();
+    }
+
+    @Test
+    void shouldWriteCumulativeBuckets_whenRendered() {
+        var histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.record(10_000);
+        histogram.record(-5);
+        var out = new PrometheusWriter();
+
+        histogram.writeTo(out, "latency_seconds", "route", "GET /");
+
+        assertThat(out.toString())
+                .contains("latency_seconds_bucket{route=\"GET /\",le=\"0.000008192\"} 2\n")
+                .contains("latency_seconds_bucket{route=\"GET /\",le=\"0.000012288\"} 3\n")
+                .contains("latency_seconds_bucket{route=\"GET /\",le=\"+Inf\"} 3\n")
+                .contains("latency_seconds_sum{route=\"GET /\"} 1.1E-5\n")
+                .contains("latency_seconds_count{route=\"GET /\"} 3\n");
+    }
+}
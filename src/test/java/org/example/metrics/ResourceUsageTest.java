@@ -0,0 +1,91 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResourceUsageTest {
+
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static volatile Object sink;
+
+    private static void allocate(int bytes) {
+        for (int i = 0; i < bytes / 1024; i++) {
+            sink = new byte[1024];
+        }
+    }
+
+    @Test
+    void shouldCountAllocations_whenWorkIsHandedToPropagatingExecutor() {
+        var usage = new ResourceUsage();
+        var executor = ResourceUsage.propagating(pool);
+        var handedOff = new CompletableFuture<Void>();
+
+        usage.run(() -> {
+            allocate(1 << 20);
+            executor.execute(() -> {
+                allocate(4 << 20);
+                handedOff.complete(null);
+            });
+        });
+        handedOff.join();
+        // the pool thread adds its share when its task returns, just after completing the future
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (usage.allocatedBytes() < 5 << 20 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertThat(usage.allocatedBytes()).isBetween(5L << 20, 6L << 20);
+        assertThat(usage.cpuNanos()).isPositive();
+    }
+
+    @Test
+    void shouldCountNestedWorkOnce_whenThreadIsMeteredAlready() {
+        var usage = new ResourceUsage();
+
+        usage.run(() -> {
+            allocate(1 << 20);
+            usage.run(() -> allocate(1 << 20));
+            ResourceUsage.propagating(Runnable::run).execute(() -> allocate(1 << 20));
+        });
+
+        assertThat(usage.allocatedBytes()).isBetween(3L << 20, 4L << 20);
+    }
+
+    @Test
+    void shouldIncludeRunningWork_whenFlushedFromMeteredThread() {
+        var usage = new ResourceUsage();
+        var other = new ResourceUsage();
+
+        usage.run(() -> {
+            allocate(1 << 20);
+            usage.flush();
+            other.flush();
+            assertThat(usage.allocatedBytes()).isGreaterThanOrEqualTo(1 << 20);
+        });
+
+        assertThat(other.allocatedBytes()).isZero();
+    }
+
+    @Test
+    void shouldRunTaskUnmetered_whenSubmittedOutsideRequest() throws Exception {
+        var ran = new CompletableFuture<Boolean>();
+
+        ResourceUsage.propagating(pool).execute(() -> ran.complete(true));
+
+        assertThat(ran.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.router;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AsyncRouteHandlerTest {
+
+    private static HttpResponse dispatch(Router router, String uri) {
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+        channel.runPendingTasks();
+        HttpResponse response = channel.readOutbound();
+        channel.close();
+        return response;
+    }
+
+    @Test
+    void shouldRunDelegateOnExecutor_whenRouteMatches() {
+        List<Runnable> tasks = new ArrayList<>();
+        Router router = new RouterBuilder()
+                .get("/slow", new AsyncRouteHandler(tasks::add, ctx -> ctx.ok()))
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/slow"));
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(tasks).hasSize(1);
+
+        tasks.getFirst().run();
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+        channel.close();
+    }
+
+    @Test
+    void shouldReturn400_whenDelegateRejectsInput() {
+        Router router = new RouterBuilder()
+                .get("/bad", new AsyncRouteHandler(Runnable::run, ctx -> {
+                    throw new IllegalArgumentException("bad input");
+                }))
+                .build();
+
+        assertThat(dispatch(router, "/bad").status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldReturn503_whenExecutorRejectsTask() {
+        Router router = new RouterBuilder()
+                .get("/busy", new AsyncRouteHandler(task -> {
+                    throw new RejectedExecutionException();
+                }, ctx -> ctx.ok()))
+                .build();
+
+        assertThat(dispatch(router, "/busy").status()).isEqualTo(HttpResponseStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void shouldCancelPendingRequest_whenConnectionCloses() {
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Router router = new RouterBuilder()
+                .get("/slow", new AsyncRouteHandler(tasks::add, ctx -> {
+                    ctx.onCancel(() -> cancelled.set(true));
+                    ctx.ok();
+                }))
+                .get("/fast", ctx -> ctx.ok())
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/fast"));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/slow"));
+
+        channel.close();
+        tasks.getFirst().run();
+
+        assertThat(cancelled).isTrue();
+    }
+}
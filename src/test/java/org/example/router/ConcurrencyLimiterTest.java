@@ -0,0 +1,82 @@
+package org.example.router;
+
+import org.example.config.ConcurrencyLimitConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void shouldRejectRequests_whenLimitReached() {
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(2, 1, 10));
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(System.nanoTime(), false);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.admitted()).isEqualTo(3);
+        assertThat(limiter.rejected()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGrantOnlyFreePermits_whenAdmittedRequestAsksForMore() {
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(4, 1, 10));
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        assertThat(limiter.tryAcquireUpTo(5)).isEqualTo(3);
+        assertThat(limiter.tryAcquireUpTo(1)).isZero();
+        assertThat(limiter.inFlight()).isEqualTo(4);
+        assertThat(limiter.rejected()).isZero();
+    }
+
+    @Test
+    void shouldGrowLimit_whenLatencyStaysFlatUnderLoad() {
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(10, 1, 100));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(5 * MILLIS, limiter.limit());
+        }
+
+        assertThat(limiter.limit()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldShrinkLimit_whenLatencyRises() {
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(50, 4, 100));
+        for (int i = 0; i < 1_000; i++) {
+            limiter.onSample(5 * MILLIS, limiter.limit());
+        }
+        int before = limiter.limit();
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(50 * MILLIS, limiter.limit());
+        }
+
+        assertThat(limiter.limit()).isLessThan(before / 4);
+        assertThat(limiter.retryAfterSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepLimit_whenMostlyUnused() {
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(20, 1, 100));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(5 * MILLIS, 1);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldRejectConfig_whenBoundsInconsistent() {
+        assertThatThrownBy(() -> new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(50, 4, 10)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("search");
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.router;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import org.example.config.ConcurrencyLimitConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LimitedRouteHandlerTest {
+
+    @Test
+    void shouldReturn429WithRetryAfter_whenLimitReached() {
+        List<Runnable> tasks = new ArrayList<>();
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(1, 1, 1));
+        Router router = new RouterBuilder()
+                .get("/search", new LimitedRouteHandler(limiter, new AsyncRouteHandler(tasks::add, ctx -> ctx.ok())))
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/search"));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/search"));
+
+        HttpResponse rejected = channel.readOutbound();
+        assertThat(rejected.status()).isEqualTo(HttpResponseStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.headers().get(HttpHeaderNames.RETRY_AFTER)).isEqualTo("1");
+        assertThat(tasks).hasSize(1);
+
+        tasks.getFirst().run();
+        HttpResponse admitted = channel.readOutbound();
+        assertThat(admitted.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(limiter.inFlight()).isZero();
+        channel.close();
+    }
+
+    @Test
+    void shouldReleasePermit_whenConnectionClosesBeforeResponse() {
+        List<Runnable> tasks = new ArrayList<>();
+        var limiter = new ConcurrencyLimiter("search", new ConcurrencyLimitConfig(1, 1, 1));
+        Router router = new RouterBuilder()
+                .get("/search", new LimitedRouteHandler(limiter, new AsyncRouteHandler(tasks::add, ctx -> ctx.ok())))
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/search"));
+
+        channel.close();
+
+        assertThat(limiter.inFlight()).isZero();
+        tasks.getFirst().run();
+        assertThat(limiter.inFlight()).isZero();
+    }
+}
@@ -1,11 +1,19 @@
 package org.example.router;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.*;
+import org.example.metrics.HttpMetrics;
+import org.example.metrics.PrometheusWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.*;
@@ -205,4 +213,88 @@ class RouterBuilderTest {
 
         channel.close();
     }
+
+    @Test
+    void shouldRecordRouteAndStatus_whenMetricsEnabled() {
+        var metrics = new HttpMetrics();
+        Router router = builder
+                .withMetrics(metrics)
+                .get("/ok", ctx -> ctx.ok())
+                .get("/hang", ctx -> {})
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/ok?x=1"));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/missing"));
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/hang"));
+        channel.close();
+
+        var out = new PrometheusWriter();
+        metrics.writeTo(out);
+        assertThat(out.toString())
+                .contains("minisearch_http_requests_total{route=\"GET /ok\",status=\"200\"} 1")
+                .contains("minisearch_http_requests_total{route=\"unmatched\",status=\"404\"} 1")
+                .contains("minisearch_http_requests_total{route=\"GET /hang\",status=\"499\"} 1")
+                .contains("minisearch_http_request_duration_seconds_count{route=\"GET /ok\"} 1");
+    }
+
+    @Test
+    void shouldRecordAllocationsByRouteAndIndex_whenMetricsEnabled() {
+        var metrics = new HttpMetrics();
+        Router router = builder
+                .withMetrics(metrics)
+                .get("/_search", ctx -> {
+                    byte[] buffer = new byte[1 << 20];
+                    ctx.text(HttpResponseStatus.OK, Integer.toString(buffer.length));
+                })
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/_search?index=logs"));
+        channel.close();
+
+        var out = new PrometheusWriter();
+        metrics.writeTo(out);
+        assertThat(out.toString())
+                .contains("minisearch_http_request_cpu_seconds_total{route=\"GET /_search\",index=\"logs\"}")
+                .containsPattern("minisearch_http_request_allocated_bytes_total\\{route=\"GET /_search\","
+                        + "index=\"logs\"} \\d{7,}");
+    }
+
+    @Test
+    void shouldWriteAccessLog_whenEnabled() {
+        Router router = builder
+                .withAccessLog()
+                .get("/ok", ctx -> ctx.ok())
+                .build();
+
+        assertThat(accessLogged(router, "/ok?index=logs")).singleElement()
+                .satisfies(line -> assertThat(line).startsWith("GET /ok?index=logs 200 took_us="));
+    }
+
+    @Test
+    void shouldNotWriteAccessLog_whenNotEnabled() {
+        Router router = builder
+                .get("/health", ctx -> ctx.ok())
+                .build();
+
+        assertThat(accessLogged(router, "/health")).isEmpty();
+    }
+
+    private static List<String> accessLogged(Router router, String uri) {
+        var logger = (Logger) LoggerFactory.getLogger("org.example.access");
+        var appender = new ListAppender<ILoggingEvent>();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setLevel(Level.INFO);
+        try {
+            EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+            channel.close();
+        } finally {
+            logger.setLevel(null);
+            logger.detachAppender(appender);
+        }
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
 }
@@ -2,8 +2,28 @@ package org.example.routes;
 
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.*;
+import io.netty.buffer.Unpooled;
+import org.example.config.AdmissionConfig;
+import org.example.config.ConcurrencyLimitConfig;
+import org.example.config.Lucene;
+import org.example.config.Server;
+import org.example.config.SortOrder;
+import org.example.index.IndexMetrics;
+import org.example.index.IndexRegistry;
+import org.example.index.TestSchemas;
+import org.example.metrics.PrometheusWriter;
+import org.example.router.AdmissionControl;
+import org.example.router.ConcurrencyLimiter;
+import org.example.router.RouteClass;
+import org.example.search.SearchService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -77,4 +97,222 @@ class AppRouterTest {
 
         channel.close();
     }
+
+    @Test
+    void shouldIndexAndSearchDocuments_whenIndexRoutesUsed(@TempDir Path dataStore) throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+        lucene.setIndices(List.of(TestSchemas.events("timestamp", SortOrder.DESC)));
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            var searchRouter = new AppRouter(indices, new SearchService(), null, Runnable::run);
+
+            FullHttpResponse bulk = post(searchRouter, "/_bulk?index=test&refresh=true", """
+                    {"message":"disk full","timestamp":1}
+                    {"message":"disk ok","timestamp":2}
+                    {"message":"cpu hot","timestamp":3}
+                    """);
+            assertThat(bulk.status()).isEqualTo(HttpResponseStatus.OK);
+            assertThat(bulk.content().toString(StandardCharsets.UTF_8)).isEqualTo("{\"indexed\":3}");
+            bulk.release();
+
+            FullHttpResponse search = post(searchRouter, "/_search?index=test",
+                    "{\"query\":\"disk\",\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}]}");
+            assertThat(search.status()).isEqualTo(HttpResponseStatus.OK);
+            assertThat(search.content().toString(StandardCharsets.UTF_8))
+                    .contains("\"timed_out\":false")
+                    .contains("\"total\":{\"value\":2,\"relation\":\"eq\"}")
+                    .contains("\"_sort\":[2]");
+            search.release();
+        }
+    }
+
+    @Test
+    void shouldReportIndexStats_whenStatsRequested(@TempDir Path dataStore) throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+        lucene.setIndices(List.of(TestSchemas.events(null, SortOrder.ASC)));
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            var router = new AppRouter(indices, new SearchService(), null, Runnable::run);
+            post(router, "/_bulk?index=test&refresh=true", "{\"message\":\"disk full\",\"timestamp\":1}").release();
+            EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/_stats"));
+
+            FullHttpResponse response = channel.readOutbound();
+            assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+            assertThat(response.content().toString(StandardCharsets.UTF_8))
+                    .startsWith("{\"indices\":{\"test\":{")
+                    .contains("\"docs\":1")
+                    .contains("\"segment_count\":1")
+                    .contains("\"postings\":")
+                    .contains("\"source\":\"flush\"")
+                    .contains("\"timestamp\":{\"doc_values\":\"numeric\",\"points\":true}");
+            response.release();
+            channel.close();
+
+            var out = new PrometheusWriter();
+            new IndexMetrics(indices).writeTo(out);
+            assertThat(out.toString())
+                    .contains("minisearch_index_docs{index=\"test\"} 1\n")
+                    .contains("minisearch_index_segments{index=\"test\"} 1\n");
+        }
+    }
+
+    @Test
+    void shouldReturn400_whenIndexUnknown(@TempDir Path dataStore) throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            FullHttpResponse response = post(new AppRouter(indices, new SearchService(), null, Runnable::run), "/_search?index=missing", "{}");
+            assertThat(response.status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+            response.release();
+        }
+    }
+
+    @Test
+    void shouldReturn400_whenSearchTimeoutHeaderMalformed(@TempDir Path dataStore) throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+        lucene.setIndices(List.of(TestSchemas.events(null, SortOrder.ASC)));
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            EmbeddedChannel channel = new EmbeddedChannel(
+                    new AppRouter(indices, new SearchService(), null, Runnable::run).handler());
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "/_search?index=test", Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8));
+            request.headers().set(SearchTasks.TIMEOUT_HEADER, "soon");
+            channel.writeInbound(request);
+
+            FullHttpResponse response = channel.readOutbound();
+            assertThat(response.status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+            assertThat(response.content().toString(StandardCharsets.UTF_8)).contains(SearchTasks.TIMEOUT_HEADER);
+            response.release();
+            channel.close();
+        }
+    }
+
+    @Test
+    void shouldStreamMultiSearchResultsInOrder_whenSearchesCompleteOutOfOrder(@TempDir Path dataStore)
+            throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+        lucene.setIndices(List.of(TestSchemas.events(null, SortOrder.ASC)));
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            post(new AppRouter(indices, new SearchService(), null, Runnable::run), "/_bulk?index=test&refresh=true", """
+                    {"message":"disk full","timestamp":1}
+                    {"message":"cpu hot","timestamp":2}
+                    """).release();
+            List<Runnable> queued = new ArrayList<>();
+            EmbeddedChannel channel = new EmbeddedChannel(
+                    new AppRouter(indices, new SearchService(), null, queued::add).handler());
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "/_msearch?index=test", Unpooled.copiedBuffer("""
+                            {}
+                            {"query":"message:disk"}
+                            {"index":"test"}
+                            {"facets":[{"field":"message","size":1}]}
+                            {}
+                            {"query":"message:cpu"}
+                            """, StandardCharsets.UTF_8)));
+            queued.removeFirst().run();
+
+            HttpResponse response = channel.readOutbound();
+            assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+            assertThat(response.headers().get(HttpHeaderNames.CONTENT_TYPE)).isEqualTo(MultiSearchHandler.CONTENT_TYPE);
+            assertThat(HttpUtil.isTransferEncodingChunked(response)).isTrue();
+            assertThat(queued).hasSize(3);
+
+            queued.get(2).run();
+            queued.get(1).run();
+            assertThat((Object) channel.readOutbound()).isNull();
+            queued.get(0).run();
+
+            assertThat(chunk(channel.readOutbound())).contains("\"total\":{\"value\":1,").contains("disk full").endsWith("\n");
+            assertThat(chunk(channel.readOutbound()))
+                    .isEqualTo("{\"error\":\"Field 'message' is not a facet field\",\"status\":400}\n");
+            assertThat(chunk(channel.readOutbound())).contains("cpu hot");
+            assertThat((Object) channel.readOutbound()).isEqualTo(LastHttpContent.EMPTY_LAST_CONTENT);
+            channel.close();
+        }
+    }
+
+    @Test
+    void shouldRunOnlyAdmittedNumberOfSearches_whenMultiSearchUnderAdmissionControl(@TempDir Path dataStore)
+            throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+        lucene.setIndices(List.of(TestSchemas.events(null, SortOrder.ASC)));
+        var config = new AdmissionConfig();
+        config.setSearch(new ConcurrencyLimitConfig(2, 1, 10));
+        var admission = new AdmissionControl(config);
+        ConcurrencyLimiter limiter = admission.limiter(RouteClass.SEARCH);
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            List<Runnable> queued = new ArrayList<>();
+            EmbeddedChannel channel = new EmbeddedChannel(new AppRouter(indices, new SearchService(), null,
+                    queued::add, new Server(), admission, null).handler());
+            channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "/_msearch?index=test", Unpooled.copiedBuffer("{}\n{}\n{}\n{}\n{}\n{}\n", StandardCharsets.UTF_8)));
+            queued.removeFirst().run();
+
+            assertThat(queued).hasSize(2);
+            assertThat(limiter.inFlight()).isEqualTo(2);
+            queued.removeFirst().run();
+            assertThat(queued).hasSize(2);
+            while (!queued.isEmpty()) {
+                queued.removeFirst().run();
+            }
+
+            assertThat(limiter.inFlight()).isZero();
+            assertThat(limiter.rejected()).isZero();
+            assertThat(((HttpResponse) channel.readOutbound()).status()).isEqualTo(HttpResponseStatus.OK);
+            for (int i = 0; i < 3; i++) {
+                assertThat(chunk(channel.readOutbound())).contains("\"total\":{\"value\":0,");
+            }
+            assertThat((Object) channel.readOutbound()).isEqualTo(LastHttpContent.EMPTY_LAST_CONTENT);
+            channel.close();
+        }
+    }
+
+    @Test
+    void shouldReturn400_whenMultiSearchHeaderHasNoRequest(@TempDir Path dataStore) throws Exception {
+        var lucene = new Lucene();
+        lucene.setDataStore(dataStore.toString());
+        lucene.setIndices(List.of(TestSchemas.events(null, SortOrder.ASC)));
+
+        try (var indices = new IndexRegistry(lucene, null)) {
+            FullHttpResponse response = post(new AppRouter(indices, new SearchService(), null, Runnable::run),
+                    "/_msearch?index=test", "{}\n{\"query\":\"disk\"}\n{\"index\":\"test\"}\n");
+            assertThat(response.status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+            assertThat(response.content().toString(StandardCharsets.UTF_8))
+                    .isEqualTo("Multi-search header 2 is not followed by a search request");
+            response.release();
+        }
+    }
+
+    private static String chunk(HttpContent content) {
+        try {
+            return content.content().toString(StandardCharsets.UTF_8);
+        } finally {
+            content.release();
+        }
+    }
+
+    private static FullHttpResponse post(AppRouter router, String uri, String body) {
+        EmbeddedChannel channel = new EmbeddedChannel(router.handler());
+        FullHttpRequest request = new DefaultFullHttpRequest(
+                HttpVersion.HTTP_1_1,
+                HttpMethod.POST,
+                uri,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8)
+        );
+        channel.writeInbound(request);
+        FullHttpResponse response = channel.readOutbound();
+        channel.close();
+        return response;
+    }
 }
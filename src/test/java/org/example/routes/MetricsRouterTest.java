@@ -2,9 +2,16 @@ package org.example.routes;
 
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.*;
+import org.example.config.AdmissionConfig;
+import org.example.metrics.MetricsRegistry;
+import org.example.router.AdmissionControl;
+import org.example.router.RouteClass;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.assertj.core.api.Assertions.*;
 
 class MetricsRouterTest {
@@ -97,4 +104,41 @@ class MetricsRouterTest {
 
         channel.close();
     }
+
+    @Test
+    void shouldReturn503_whenNodeNotReady() {
+        AtomicBoolean ready = new AtomicBoolean();
+        EmbeddedChannel channel = new EmbeddedChannel(new MetricsRouter(null, ready::get).handler());
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/health"));
+        HttpResponse warming = channel.readOutbound();
+        ready.set(true);
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/health"));
+        HttpResponse warmed = channel.readOutbound();
+
+        assertThat(warming.status()).isEqualTo(HttpResponseStatus.SERVICE_UNAVAILABLE);
+        assertThat(warmed.status()).isEqualTo(HttpResponseStatus.OK);
+
+        channel.close();
+    }
+
+    @Test
+    void shouldReportAdmissionMetrics_whenMetricsRequested() {
+        var admission = new AdmissionControl(new AdmissionConfig());
+        admission.limiter(RouteClass.SEARCH).tryAcquire();
+        EmbeddedChannel channel = new EmbeddedChannel(new MetricsRouter(null, () -> true,
+                new MetricsRegistry().register(admission)).handler());
+
+        channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/metrics"));
+
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+        assertThat(response.content().toString(StandardCharsets.UTF_8))
+                .contains("# TYPE minisearch_admission_limit gauge")
+                .contains("minisearch_admission_limit{route_class=\"search\"} 64")
+                .contains("minisearch_admission_in_flight{route_class=\"search\"} 1")
+                .contains("minisearch_admission_rejected_total{route_class=\"admin\"} 0");
+        response.release();
+        channel.close();
+    }
 }
@@ -0,0 +1,177 @@
+package org.example.routes;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.example.http.RequestContext;
+import org.example.search.SearchRequest;
+import org.example.search.SearchTask;
+import org.example.utils.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchCoalescerTest {
+    private final SearchCoalescer coalescer = new SearchCoalescer();
+
+    @Test
+    void shouldRunSearchOnce_whenIdenticalSearchArrivesWhileRunning() {
+        var first = new Client();
+        var second = new Client();
+        var runs = new AtomicInteger();
+        SearchCoalescer.Key key = key("{\"query\": \"title:lucene\"}", 1);
+
+        coalescer.execute(first.context, key, task(), () -> {
+            runs.incrementAndGet();
+            coalescer.execute(second.context, key("{\"query\": \"title:lucene\"}", 1), task(), () -> {
+                runs.incrementAndGet();
+                return Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8);
+            });
+            return Unpooled.copiedBuffer("{\"hits\": []}", StandardCharsets.UTF_8);
+        });
+
+        assertThat(runs).hasValue(1);
+        assertThat(coalescer.coalesced()).isEqualTo(1);
+        assertThat(first.body()).isEqualTo("{\"hits\": []}");
+        assertThat(second.body()).isEqualTo("{\"hits\": []}");
+    }
+
+    @Test
+    void shouldRunSearchAgain_whenGenerationChanged() {
+        var first = new Client();
+        var second = new Client();
+        var runs = new AtomicInteger();
+
+        coalescer.execute(first.context, key("{}", 1), task(), () -> {
+            runs.incrementAndGet();
+            coalescer.execute(second.context, key("{}", 2), task(), () -> {
+                runs.incrementAndGet();
+                return Unpooled.copiedBuffer("{\"generation\": 2}", StandardCharsets.UTF_8);
+            });
+            return Unpooled.copiedBuffer("{\"generation\": 1}", StandardCharsets.UTF_8);
+        });
+
+        assertThat(runs).hasValue(2);
+        assertThat(coalescer.coalesced()).isZero();
+        assertThat(first.body()).isEqualTo("{\"generation\": 1}");
+        assertThat(second.body()).isEqualTo("{\"generation\": 2}");
+    }
+
+    @Test
+    void shouldFailEveryWaiter_whenSharedSearchFails() {
+        var first = new Client();
+        var second = new Client();
+
+        coalescer.execute(first.context, key("{}", 1), task(), () -> {
+            coalescer.execute(second.context, key("{}", 1), task(), () -> null);
+            throw new IllegalArgumentException("Unknown field");
+        });
+
+        assertThat(first.response().status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+        assertThat(second.response().status()).isEqualTo(HttpResponseStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldCancelSharedTask_onlyWhenEveryWaiterDisconnected() {
+        var first = new Client();
+        var second = new Client();
+        SearchTask task = task();
+        var cancelledAfterFirst = new AtomicReference<Boolean>();
+
+        coalescer.execute(first.context, key("{}", 1), task, () -> {
+            coalescer.execute(second.context, key("{}", 1), task(), () -> null);
+            first.context.cancel();
+            cancelledAfterFirst.set(task.isCancelled());
+            second.context.cancel();
+            return Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8);
+        });
+
+        assertThat(cancelledAfterFirst).hasValue(false);
+        assertThat(task.isCancelled()).isTrue();
+        assertThat((Object) first.channel.readOutbound()).isNull();
+        assertThat((Object) second.channel.readOutbound()).isNull();
+    }
+
+    @Test
+    void shouldRunOwnSearch_whenEqualRequestArrivesAfterLeaderDisconnected() {
+        var first = new Client();
+        var second = new Client();
+        SearchTask task = task();
+        var runs = new AtomicInteger();
+
+        coalescer.execute(first.context, key("{}", 1), task, () -> {
+            runs.incrementAndGet();
+            first.context.cancel();
+            coalescer.execute(second.context, key("{}", 1), task(), () -> {
+                runs.incrementAndGet();
+                return Unpooled.copiedBuffer("{\"own\": true}", StandardCharsets.UTF_8);
+            });
+            return Unpooled.copiedBuffer("{}", StandardCharsets.UTF_8);
+        });
+
+        assertThat(task.isCancelled()).isTrue();
+        assertThat(runs).hasValue(2);
+        assertThat(coalescer.coalesced()).isZero();
+        assertThat(second.body()).isEqualTo("{\"own\": true}");
+        assertThat((Object) first.channel.readOutbound()).isNull();
+    }
+
+    @Test
+    void shouldCoalesceOnlyRequestsWithoutProfileOrCursor() {
+        assertThat(SearchCoalescer.canCoalesce(parse("{\"query\": \"title:lucene\"}"))).isTrue();
+        assertThat(SearchCoalescer.canCoalesce(parse("{\"profile\": true}"))).isFalse();
+    }
+
+    private static SearchCoalescer.Key key(String body, long generation) {
+        return new SearchCoalescer.Key("logs", generation, parse(body), null, null);
+    }
+
+    private static SearchRequest parse(String body) {
+        return SearchRequest.parse(JsonUtil.parser(body));
+    }
+
+    private static SearchTask task() {
+        return new SearchTask(System.nanoTime(), 0, true);
+    }
+
+    private static final class Client {
+        final EmbeddedChannel channel;
+        final RequestContext context;
+
+        Client() {
+            AtomicReference<ChannelHandlerContext> ctxRef = new AtomicReference<>();
+            channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelActive(ChannelHandlerContext ctx) {
+                    ctxRef.set(ctx);
+                }
+            });
+            context = new RequestContext(ctxRef.get(),
+                    new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_search?index=logs"));
+        }
+
+        FullHttpResponse response() {
+            return channel.readOutbound();
+        }
+
+        String body() {
+            FullHttpResponse response = response();
+            try {
+                assertThat(response.status()).isEqualTo(HttpResponseStatus.OK);
+                return response.content().toString(StandardCharsets.UTF_8);
+            } finally {
+                response.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CursorTest {
+
+    @Test
+    void shouldRoundTripFieldDoc_whenEncodedAndDecoded() {
+        var cursor = new Cursor(7L, new FieldDoc(42, Float.NaN, new Object[]{123L, 1.5, new BytesRef("db"), null}));
+
+        Cursor decoded = Cursor.decode(cursor.encode());
+
+        assertThat(decoded.generation()).isEqualTo(7L);
+        assertThat(decoded.after()).isInstanceOf(FieldDoc.class);
+        assertThat(decoded.after().doc).isEqualTo(42);
+        assertThat(((FieldDoc) decoded.after()).fields).containsExactly(123L, 1.5, new BytesRef("db"), null);
+    }
+
+    @Test
+    void shouldRoundTripScoreDoc_whenSortedByRelevance() {
+        var cursor = new Cursor(3L, new ScoreDoc(5, 0.25f));
+
+        Cursor decoded = Cursor.decode(cursor.encode());
+
+        assertThat(decoded.after()).isNotInstanceOf(FieldDoc.class);
+        assertThat(decoded.after().doc).isEqualTo(5);
+        assertThat(decoded.after().score).isEqualTo(0.25f);
+    }
+
+    @Test
+    void shouldProduceUrlSafeToken_whenEncoded() {
+        String token = new Cursor(-1L, new FieldDoc(1, 1f, new Object[]{Long.MAX_VALUE})).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void shouldThrowIllegalArgument_whenTokenMalformed() {
+        assertThatThrownBy(() -> Cursor.decode("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Cursor.decode("AAAA"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
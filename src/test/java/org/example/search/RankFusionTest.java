@@ -0,0 +1,42 @@
+package org.example.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RankFusionTest {
+
+    private static TopDocs ranked(float[] scores, int... docs) {
+        ScoreDoc[] scoreDocs = new ScoreDoc[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            scoreDocs[i] = new ScoreDoc(docs[i], scores[i]);
+        }
+        return new TopDocs(new TotalHits(docs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    @Test
+    void shouldRankDocumentsInBothLists_first_whenUsingReciprocalRank() {
+        TopDocs lexical = ranked(new float[]{9f, 5f, 1f}, 1, 2, 3);
+        TopDocs knn = ranked(new float[]{0.9f, 0.8f, 0.7f}, 4, 3, 5);
+
+        TopDocs fused = RankFusion.reciprocalRank(new TopDocs[]{lexical, knn}, 60, 3);
+
+        assertThat(fused.scoreDocs).extracting(scoreDoc -> scoreDoc.doc).containsExactly(3, 1, 4);
+        assertThat(fused.scoreDocs[0].score).isEqualTo(1f / 63 + 1f / 62);
+        assertThat(fused.totalHits.value()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldWeightNormalizedScores_whenUsingLinearFusion() {
+        TopDocs lexical = ranked(new float[]{20f, 10f, 0f}, 1, 2, 3);
+        TopDocs knn = ranked(new float[]{0.9f, 0.5f}, 3, 2);
+
+        TopDocs fused = RankFusion.linear(new TopDocs[]{lexical, knn}, new float[]{0.25f, 0.75f}, 10);
+
+        assertThat(fused.scoreDocs).extracting(scoreDoc -> scoreDoc.doc).containsExactly(3, 1, 2);
+        assertThat(fused.scoreDocs).extracting(scoreDoc -> scoreDoc.score).containsExactly(0.75f, 0.25f, 0.125f);
+    }
+}
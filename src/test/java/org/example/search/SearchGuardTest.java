@@ -0,0 +1,127 @@
+package org.example.search;
+
+import org.example.config.SearchLimitsConfig;
+import org.example.config.SortOrder;
+import org.example.index.ManagedIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.example.index.TestSchemas.events;
+import static org.example.search.SearchRequestTest.parse;
+
+class SearchGuardTest {
+
+    @TempDir
+    Path dir;
+
+    private ManagedIndex index;
+    private final SearchLimitsConfig limits = new SearchLimitsConfig();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new ManagedIndex(events(null, SortOrder.ASC), dir, null);
+        for (int i = 0; i < 1_000; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", "term" + i,
+                    "timestamp", (long) i)));
+        }
+        index.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    private SearchResponse search(String body) throws IOException {
+        return new SearchService(null, new SearchGuard(limits)).search(index, parse(body));
+    }
+
+    @Test
+    void shouldRejectQuery_whenClausesExceedLimit() {
+        limits.setMaxClauses(3);
+
+        assertThatThrownBy(() -> search("{\"query\":\"term1 term2 term3 term4\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("4 clauses");
+    }
+
+    @Test
+    void shouldRejectQuery_whenPrefixMatchesTooManyTerms() throws IOException {
+        limits.setMaxTermExpansions(100);
+
+        assertThat(search("{\"query\":\"term99*\"}").getTotalHits().value()).isEqualTo(11);
+        assertThatThrownBy(() -> search("{\"query\":\"term*\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than 100 terms");
+    }
+
+    @Test
+    void shouldRejectQuery_whenLeadingPatternScansTooManyTerms() throws IOException {
+        assertThat(search("{\"query\":\"message:/.*99/\"}").getTotalHits().value()).isEqualTo(10);
+
+        limits.setMaxTermsScanned(100);
+
+        assertThatThrownBy(() -> search("{\"query\":\"message:/.*99/\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("scans more than 100 terms");
+    }
+
+    @Test
+    void shouldRejectQuery_whenAutomatonTooLarge() {
+        limits.setMaxAutomatonStates(10);
+
+        assertThatThrownBy(() -> search("{\"query\":\"message:/term[0-9]{1,5}x[a-z]{2,8}/\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("automaton states");
+    }
+
+    @Test
+    void shouldRejectAggregations_whenBucketsExceedLimit() throws IOException {
+        limits.setMaxAggregationBuckets(100);
+
+        assertThat(search("{\"size\":0,\"aggs\":{\"h\":{\"histogram\":{\"field\":\"timestamp\",\"interval\":10}}}}")
+                .getAggregations()).containsKey("h");
+        assertThatThrownBy(() -> search(
+                "{\"size\":0,\"aggs\":{\"h\":{\"histogram\":{\"field\":\"timestamp\",\"interval\":1}}}}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("1000 buckets");
+    }
+
+    @Test
+    void shouldRejectUntilReleased_whenInFlightReservationsFull() {
+        var guard = new SearchGuard(limits, 1_000_000, () -> 0);
+        SearchGuard.Reservation first = guard.reserve(300_000);
+
+        assertThatThrownBy(() -> guard.reserve(300_000))
+                .isInstanceOfSatisfying(CircuitBreakingException.class, e -> assertThat(e.isHeapExhausted()).isFalse());
+
+        first.close();
+        first.close();
+        assertThat(guard.inFlightBytes()).isZero();
+        guard.reserve(300_000).close();
+    }
+
+    @Test
+    void shouldRejectAsInvalid_whenSingleSearchExceedsInFlightShare() {
+        var guard = new SearchGuard(limits, 1_000_000, () -> 0);
+
+        assertThatThrownBy(() -> guard.reserve(500_000)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldTripBreaker_whenHeapNearlyFull() {
+        var guard = new SearchGuard(limits, 1_000_000, () -> 960_000);
+
+        assertThatThrownBy(() -> guard.reserve(1_000))
+                .isInstanceOfSatisfying(CircuitBreakingException.class, e -> assertThat(e.isHeapExhausted()).isTrue());
+        assertThat(guard.inFlightBytes()).isZero();
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.search;
+
+import org.example.config.SortOrder;
+import org.example.utils.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SearchRequestTest {
+
+    static SearchRequest parse(String body) {
+        try (var parser = JsonUtil.parser(body)) {
+            return SearchRequest.parse(parser);
+        }
+    }
+
+    @Test
+    void shouldUseDefaults_whenBodyEmpty() {
+        SearchRequest request = parse("");
+
+        assertThat(request.getQuery()).isNull();
+        assertThat(request.getSize()).isEqualTo(SearchRequest.DEFAULT_SIZE);
+        assertThat(request.getTrackTotalHits()).isEqualTo(SearchRequest.DEFAULT_TRACK_TOTAL_HITS);
+        assertThat(request.getSort()).isEmpty();
+        assertThat(request.getFields()).isNull();
+    }
+
+    @Test
+    void shouldParseAllParameters_whenProvided() {
+        SearchRequest request = parse("""
+                {"query":"error","from":5,"size":20,
+                 "sort":[{"field":"timestamp","order":"desc"},{"field":"service"}],
+                 "track_total_hits":true,"fields":["message","timestamp"]}
+                """);
+
+        assertThat(request.getQuery()).isEqualTo("error");
+        assertThat(request.getFrom()).isEqualTo(5);
+        assertThat(request.getSize()).isEqualTo(20);
+        assertThat(request.getSort()).containsExactly(
+                new SearchRequest.SortClause("timestamp", SortOrder.DESC),
+                new SearchRequest.SortClause("service", SortOrder.ASC));
+        assertThat(request.getTrackTotalHits()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(request.getFields()).containsExactly("message", "timestamp");
+    }
+
+    @Test
+    void shouldRejectRequest_whenParameterUnknown() {
+        assertThatThrownBy(() -> parse("{\"qeury\":\"x\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("qeury");
+    }
+
+    @Test
+    void shouldRejectRequest_whenResultWindowTooLarge() {
+        assertThatThrownBy(() -> parse("{\"from\":9995,\"size\":10}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectRequest_whenFromCombinedWithSearchAfter() {
+        String cursor = new Cursor(1L, new org.apache.lucene.search.ScoreDoc(1, 1f)).encode();
+
+        assertThatThrownBy(() -> parse("{\"from\":10,\"search_after\":\"" + cursor + "\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("search_after");
+    }
+
+    @Test
+    void shouldRejectRequest_whenSearchAfterIsNotString() {
+        assertThatThrownBy(() -> parse("{\"search_after\":null}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("search_after");
+        assertThatThrownBy(() -> parse("{\"search_after\":42}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("search_after");
+    }
+
+    @Test
+    void shouldRejectRequest_whenSortOrFacetsContainNonObjects() {
+        assertThatThrownBy(() -> parse("{\"sort\":[\"timestamp\"],\"size\":5000}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'sort'");
+        assertThatThrownBy(() -> parse("{\"facets\":[{\"field\":\"service\"},\"host\"]}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("'facets'");
+    }
+
+    @Test
+    void shouldRejectRequest_whenFromPlusSizeOverflows() {
+        assertThatThrownBy(() -> parse("{\"from\":2000000000,\"size\":2000000000}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(Integer.toString(SearchRequest.MAX_RESULT_WINDOW));
+    }
+}
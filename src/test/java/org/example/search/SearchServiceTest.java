@@ -0,0 +1,549 @@
+package org.example.search;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TotalHits;
+import org.example.config.IndexConfig;
+import org.example.config.SearchLimitsConfig;
+import org.example.config.SlowLogConfig;
+import org.example.config.SortOrder;
+import org.example.config.VectorFormat;
+import org.example.index.ManagedIndex;
+import org.example.utils.JsonUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.example.index.TestSchemas.events;
+import static org.example.index.TestSchemas.vectors;
+import static org.example.search.SearchRequestTest.parse;
+
+class SearchServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ManagedIndex index;
+    private final SearchService searchService = new SearchService();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    private void open(IndexConfig config, int docs) throws IOException {
+        index = new ManagedIndex(config, dir, null);
+        for (int i = 0; i < docs; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", i % 2 == 0 ? "even" : "odd",
+                    "timestamp", (long) i)));
+        }
+        index.refresh();
+    }
+
+    private static String json(SearchResponse response) {
+        ByteBuf json = JsonUtil.write(UnpooledByteBufAllocator.DEFAULT, response::writeTo);
+        try {
+            return json.toString(StandardCharsets.UTF_8);
+        } finally {
+            json.release();
+        }
+    }
+
+    @Test
+    void shouldReturnLatestHitsFirst_whenSortingByTimestampDesc() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 100);
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"size\":3,\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}]}"));
+
+        assertThat(response.getHits()).extracting(hit -> hit.sortValues()[0]).containsExactly(99L, 98L, 97L);
+        assertThat(response.getHits().getFirst().source().getField("timestamp").numericValue().longValue())
+                .isEqualTo(99L);
+    }
+
+    @Test
+    void shouldReportLowerBound_whenSortedSearchTerminatesEarly() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 5_000);
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"size\":20,\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}],\"track_total_hits\":100}"));
+
+        assertThat(response.getHits()).hasSize(20);
+        assertThat(response.isTotalHitsExact()).isFalse();
+        assertThat(response.getTotalHits().relation()).isEqualTo(TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        assertThat(response.getTotalHits().value()).isLessThan(5_000);
+    }
+
+    @Test
+    void shouldReportExactCount_whenTrackingAllHits() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 5_000);
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"size\":20,\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}],\"track_total_hits\":true}"));
+
+        assertThat(response.isTotalHitsExact()).isTrue();
+        assertThat(response.getTotalHits().value()).isEqualTo(5_000);
+    }
+
+    @Test
+    void shouldRecordPhases_whenSearching() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 10);
+
+        searchService.search(index, parse("{\"size\":3}"));
+        searchService.search(index, parse("{\"size\":0}"));
+
+        SearchMetrics metrics = searchService.getMetrics();
+        assertThat(metrics.histogram(SearchMetrics.Phase.PARSE).count()).isEqualTo(2);
+        assertThat(metrics.histogram(SearchMetrics.Phase.SEARCH).count()).isEqualTo(2);
+        assertThat(metrics.histogram(SearchMetrics.Phase.FETCH).count()).isEqualTo(1);
+        assertThat(metrics.histogram(SearchMetrics.Phase.SERIALIZE).count()).isZero();
+    }
+
+    @Test
+    void shouldReturnQueryProfile_whenProfileRequested() throws IOException {
+        open(events(null, null), 10);
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"query\":\"message:even OR message:odd\",\"size\":3,\"profile\":true}"));
+
+        SearchProfile profile = response.getProfile();
+        assertThat(response.getHits()).hasSize(3);
+        assertThat(profile.getCollectNanos()).isPositive();
+        assertThat(profile.getFetchNanos()).isPositive();
+        assertThat(profile.getQueries()).singleElement().satisfies(query -> {
+            assertThat(query.getQueryName()).isEqualTo("BooleanQuery");
+            assertThat(query.getTimeBreakdown()).containsKey("create_weight");
+            assertThat(query.getAggregatedQueryLeafBreakdowns()).isNotEmpty();
+            assertThat(query.getProfiledChildren()).extracting(child -> child.getDescription())
+                    .containsExactlyInAnyOrder("message:even", "message:odd");
+        });
+        assertThat(json(response)).contains("\"profile\":{\"rewrite_nanos\":", "\"build_scorer\":");
+    }
+
+    @Test
+    void shouldNotProfile_whenProfileNotRequested() throws IOException {
+        open(events(null, null), 10);
+
+        SearchResponse response = searchService.search(index, parse("{\"query\":\"message:even\"}"));
+
+        assertThat(response.getProfile()).isNull();
+        assertThat(json(response)).doesNotContain("profile");
+    }
+
+    @Test
+    void shouldLogSearch_whenPhaseExceedsSlowLogThreshold() throws IOException {
+        open(events(null, null), 10);
+        var config = new SlowLogConfig();
+        config.setCollectMillis(0);
+        var service = new SearchService(null, new SearchGuard(new SearchLimitsConfig()), new SearchMetrics(),
+                new SlowLog(config));
+        var logger = (Logger) LoggerFactory.getLogger(SlowLog.class);
+        var appender = new ListAppender<ILoggingEvent>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            service.search(index, parse("{\"query\":\"message:even\"}"));
+            searchService.search(index, parse("{\"query\":\"message:odd\"}"));
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage()).startsWith("[" + index.getName() + "] took[")
+                    .contains("total_hits[5]", "query[message:even]");
+        });
+    }
+
+    @Test
+    void shouldPageThroughHits_whenFromIsSet() throws IOException {
+        open(events(null, null), 10);
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"query\":\"even\",\"from\":2,\"size\":2,\"sort\":[{\"field\":\"timestamp\"}]}"));
+
+        assertThat(response.getHits()).extracting(hit -> hit.sortValues()[0]).containsExactly(4L, 6L);
+        assertThat(response.getTotalHits().value()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldOnlyCount_whenSizeIsZero() throws IOException {
+        open(events(null, null), 10);
+
+        SearchResponse response = searchService.search(index, parse("{\"query\":\"odd\",\"size\":0}"));
+
+        assertThat(response.getHits()).isEmpty();
+        assertThat(response.getTotalHits().value()).isEqualTo(5);
+        assertThat(response.isTotalHitsExact()).isTrue();
+    }
+
+    @Test
+    void shouldFailToReopen_whenIndexSortChanged() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 1);
+        index.close();
+        index = null;
+
+        assertThatThrownBy(() -> new ManagedIndex(events("timestamp", SortOrder.ASC), dir, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldVisitEveryHitOnce_whenPagingWithCursors() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 95);
+
+        String sort = "\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}]";
+        Set<Object> seen = new HashSet<>();
+        SearchResponse page = searchService.search(index, parse("{\"size\":10," + sort + "}"));
+        int pages = 0;
+        while (!page.getHits().isEmpty()) {
+            pages++;
+            page.getHits().forEach(hit -> assertThat(seen.add(hit.sortValues()[0])).isTrue());
+            page = searchService.search(index,
+                    parse("{\"size\":10," + sort + ",\"search_after\":\"" + page.getCursor().encode() + "\"}"));
+        }
+
+        assertThat(pages).isEqualTo(10);
+        assertThat(seen).hasSize(95);
+        assertThat(page.getCursor()).isNull();
+    }
+
+    @Test
+    void shouldResumeOnLeasedSearcher_whenIndexRefreshedBetweenPages() throws IOException {
+        open(events("timestamp", SortOrder.DESC), 10);
+        String sort = "\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}]";
+        SearchResponse first = searchService.search(index, parse("{\"size\":5," + sort + "}"));
+
+        index.index(index.getMapper().toDocument(Map.of("message", "late", "timestamp", 3L)));
+        index.refresh();
+        SearchResponse second = searchService.search(index,
+                parse("{\"size\":10," + sort + ",\"search_after\":\"" + first.getCursor().encode() + "\"}"));
+
+        assertThat(second.getCursor().generation()).isEqualTo(first.getCursor().generation());
+        assertThat(second.getHits()).extracting(hit -> hit.sortValues()[0]).containsExactly(4L, 3L, 2L, 1L, 0L);
+    }
+
+    @Test
+    void shouldNotLeaseSearcher_whenNoCursorWasIssued() throws IOException {
+        open(events(null, null), 10);
+        index.index(index.getMapper().toDocument(Map.of("message", "late")));
+        index.refresh();
+        IndexSearcher replaced = index.acquire();
+        long generation = ManagedIndex.generation(replaced);
+        index.release(replaced);
+
+        index.index(index.getMapper().toDocument(Map.of("message", "later")));
+        index.refresh();
+
+        assertThat(index.acquire(generation)).isNull();
+    }
+
+    @Test
+    void shouldRejectCursor_whenSortDiffers() throws IOException {
+        open(events(null, null), 10);
+        SearchResponse first = searchService.search(index, parse("{\"size\":2}"));
+
+        assertThatThrownBy(() -> searchService.search(index, parse(
+                "{\"sort\":[{\"field\":\"timestamp\"}],\"search_after\":\"" + first.getCursor().encode() + "\"}")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectCursor_whenSortValueTypesDiffer() throws IOException {
+        open(events(null, null), 10);
+        SearchResponse byService = searchService.search(index, parse("{\"size\":2,\"sort\":[{\"field\":\"service\"}]}"));
+        SearchResponse byLatency = searchService.search(index, parse("{\"size\":2,\"sort\":[{\"field\":\"latency\"}]}"));
+
+        assertThatThrownBy(() -> searchService.search(index, parse("{\"sort\":[{\"field\":\"timestamp\"}],"
+                + "\"search_after\":\"" + byService.getCursor().encode() + "\"}")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match the requested sort");
+        assertThatThrownBy(() -> searchService.search(index, parse("{\"sort\":[{\"field\":\"timestamp\"}],"
+                + "\"search_after\":\"" + byLatency.getCursor().encode() + "\"}")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match the requested sort");
+    }
+
+    private void openFaceted(int docs) throws IOException {
+        IndexConfig config = events(null, null);
+        config.getFields().get(1).setFacet(true);
+        index = new ManagedIndex(config, dir, null);
+        for (int i = 0; i < docs; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", i % 2 == 0 ? "even" : "odd",
+                    "service", i % 3 == 0 ? "api" : "db",
+                    "timestamp", (long) i)));
+            if (i % 10 == 9) {
+                index.refresh(); // several segments to count in parallel
+            }
+        }
+        index.refresh();
+    }
+
+    @Test
+    void shouldCountFacetValues_whenFacetsRequested() throws IOException {
+        openFaceted(30);
+        ExecutorService facetExecutor = Executors.newFixedThreadPool(2);
+        try {
+            var concurrent = new SearchService(facetExecutor);
+
+            SearchResponse response = concurrent.search(index,
+                    parse("{\"query\":\"even\",\"size\":2,\"facets\":[{\"field\":\"service\"}]}"));
+
+            assertThat(response.getHits()).hasSize(2);
+            FacetResult service = response.getFacets().getFirst();
+            assertThat(service.childCount).isEqualTo(2);
+            assertThat(service.labelValues).extracting(lv -> lv.label, lv -> lv.value.intValue())
+                    .containsExactly(tuple("db", 10), tuple("api", 5));
+        } finally {
+            facetExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCountFacetsWithoutHits_whenSizeIsZero() throws IOException {
+        openFaceted(30);
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"size\":0,\"facets\":[{\"field\":\"service\",\"size\":1}]}"));
+
+        assertThat(response.getTotalHits().value()).isEqualTo(30);
+        assertThat(response.getFacets().getFirst().labelValues)
+                .containsExactly(new LabelAndValue("db", 20));
+    }
+
+    @Test
+    void shouldReturnEmptyFacet_whenNoDocumentHasFacetValues() throws IOException {
+        IndexConfig config = events(null, null);
+        config.getFields().get(1).setFacet(true);
+        index = new ManagedIndex(config, dir, null);
+        index.index(index.getMapper().toDocument(Map.of("message", "plain")));
+        index.refresh();
+
+        SearchResponse response = searchService.search(index,
+                parse("{\"facets\":[{\"field\":\"service\"}]}"));
+
+        assertThat(response.getFacets().getFirst().labelValues).isEmpty();
+    }
+
+    @Test
+    void shouldRejectFacet_whenFieldIsNotFaceted() throws IOException {
+        open(events(null, null), 1);
+
+        assertThatThrownBy(() -> searchService.search(index,
+                parse("{\"facets\":[{\"field\":\"service\"}]}")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldReuseFacetState_untilRefreshExposesNewDocuments() throws IOException {
+        openFaceted(10);
+        IndexSearcher first = index.acquire();
+        IndexSearcher again = index.acquire();
+        try {
+            assertThat(index.facetState(again)).isSameAs(index.facetState(first));
+        } finally {
+            index.release(first);
+            index.release(again);
+        }
+
+        IndexSearcher before = index.acquire();
+        index.index(index.getMapper().toDocument(Map.of("service", "web")));
+        index.refresh();
+        IndexSearcher after = index.acquire();
+        try {
+            assertThat(index.facetState(after)).isNotSameAs(index.facetState(before));
+        } finally {
+            index.release(before);
+            index.release(after);
+        }
+    }
+
+    @Test
+    void shouldLoadOnlyRequestedFields_whenFieldsListed() throws IOException {
+        index = new ManagedIndex(events(null, null), dir, null);
+        for (int i = 0; i < 30; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "_id", Integer.toString(i), "message", "hit " + i, "service", "api",
+                    "timestamp", (long) i, "latency", i / 2.0)));
+            if (i % 10 == 9) {
+                index.refresh();
+            }
+        }
+        String sort = "\"sort\":[{\"field\":\"timestamp\",\"order\":\"desc\"}]";
+
+        SearchResponse numeric = searchService.search(index,
+                parse("{\"size\":25," + sort + ",\"fields\":[\"timestamp\",\"latency\"]}"));
+        SearchResponse stored = searchService.search(index,
+                parse("{\"size\":3," + sort + ",\"fields\":[\"_id\",\"message\"]}"));
+
+        assertThat(numeric.getHits()).hasSize(25).allSatisfy(hit -> {
+            assertThat(hit.source().getFields()).extracting(field -> field.name())
+                    .containsExactlyInAnyOrder("timestamp", "latency");
+            long timestamp = hit.source().getField("timestamp").numericValue().longValue();
+            assertThat(timestamp).isEqualTo(hit.sortValues()[0]);
+            assertThat(hit.source().getField("latency").numericValue().doubleValue()).isEqualTo(timestamp / 2.0);
+        });
+        assertThat(stored.getHits()).extracting(hit -> hit.source().get("_id")).containsExactly("29", "28", "27");
+        assertThat(stored.getHits().getFirst().source().getFields()).extracting(field -> field.name())
+                .containsExactlyInAnyOrder("_id", "message");
+        assertThatThrownBy(() -> searchService.search(index, parse("{\"fields\":[\"nope\"]}")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nope");
+    }
+
+    @Test
+    void shouldReuseCachedDocuments_whenSegmentSurvivesRefresh() throws IOException {
+        IndexConfig config = events(null, null);
+        config.setDocumentCacheSize(100);
+        open(config, 10);
+        SearchRequest request = parse("{\"query\":\"even\",\"size\":1," +
+                "\"sort\":[{\"field\":\"timestamp\",\"order\":\"asc\"}]}");
+        SearchResponse first = searchService.search(index, request);
+
+        index.index(index.getMapper().toDocument(Map.of("message", "odd", "timestamp", 100L)));
+        index.refresh();
+        SearchResponse second = searchService.search(index, request);
+        SearchResponse projected = searchService.search(index, parse("{\"query\":\"even\",\"size\":1," +
+                "\"sort\":[{\"field\":\"timestamp\",\"order\":\"asc\"}],\"fields\":[\"timestamp\"]}"));
+
+        assertThat(second.getHits().getFirst().source()).isSameAs(first.getHits().getFirst().source());
+        assertThat(projected.getHits().getFirst().source().getFields()).extracting(field -> field.name())
+                .containsExactly("timestamp");
+    }
+
+    private void openVectors(VectorFormat format, int docs) throws IOException {
+        index = new ManagedIndex(vectors(format), dir, null);
+        for (int i = 0; i < docs; i++) {
+            List<Double> vector = new ArrayList<>();
+            for (int d = 0; d < 8; d++) {
+                vector.add(d == 0 ? i : Math.sin(i + d));
+            }
+            index.index(index.getMapper().toDocument(Map.of(
+                    "_id", Integer.toString(i),
+                    "service", i % 2 == 0 ? "even" : "odd",
+                    "embedding", vector)));
+        }
+        index.refresh();
+    }
+
+    private static KnnRequest knn(String body) {
+        try (var parser = JsonUtil.parser(body)) {
+            return KnnRequest.parse(parser);
+        }
+    }
+
+    @Test
+    void shouldReturnNearestNeighbours_whenKnnSearching() throws IOException {
+        openVectors(VectorFormat.HNSW, 200);
+        String vector = "[50.1," + String.join(",", Collections.nCopies(7, "0")) + "]";
+
+        SearchResponse response = searchService.knn(index, knn(
+                "{\"field\":\"embedding\",\"vector\":" + vector + ",\"k\":3}"));
+
+        assertThat(response.getHits()).extracting(hit -> hit.source().get("_id"))
+                .containsExactlyInAnyOrder("49", "50", "51")
+                .first().isEqualTo("50");
+        assertThat(response.getHits()).extracting(SearchResponse.Hit::score).isSortedAccordingTo((a, b) -> Float.compare(b, a));
+    }
+
+    @ParameterizedTest
+    @EnumSource(VectorFormat.class)
+    void shouldApplyPreFilter_inEveryVectorFormat(VectorFormat format) throws IOException {
+        openVectors(format, 200);
+        String vector = "[50.1," + String.join(",", Collections.nCopies(7, "0")) + "]";
+
+        SearchResponse response = searchService.knn(index, knn(
+                "{\"field\":\"embedding\",\"vector\":" + vector + ",\"k\":5,\"filter\":\"service:odd\"}"));
+
+        assertThat(response.getHits()).hasSize(5)
+                .allSatisfy(hit -> assertThat(hit.source().get("service")).isEqualTo("odd"));
+    }
+
+    @Test
+    void shouldRankDocumentsMatchingBothQueries_first_whenHybridSearching() throws IOException {
+        openVectors(VectorFormat.HNSW, 200);
+        String vector = "[50.1," + String.join(",", Collections.nCopies(7, "0")) + "]";
+        HybridRequest request;
+        try (var parser = JsonUtil.parser("{\"query\":\"service:odd\",\"size\":3,"
+                + "\"knn\":{\"field\":\"embedding\",\"vector\":" + vector + "}}")) {
+            request = HybridRequest.parse(parser);
+        }
+
+        SearchResponse response = searchService.hybrid(index, request);
+
+        assertThat(response.getHits()).hasSize(3);
+        assertThat(response.getHits().subList(0, 2)).extracting(hit -> hit.source().get("_id"))
+                .containsExactlyInAnyOrder("49", "51");
+        assertThat(response.isTotalHitsExact()).isTrue();
+    }
+
+    @Test
+    void shouldReturnPartialResults_whenDeadlinePassed() throws IOException {
+        open(events(null, SortOrder.ASC), 1_000);
+        var expired = new SearchTask(System.nanoTime() - 1_000_000_000L, 1, true);
+
+        SearchResponse response = searchService.search(index, parse("{\"query\":\"message:even\"}"), expired);
+
+        assertThat(response.isTimedOut()).isTrue();
+        assertThat(response.isTotalHitsExact()).isFalse();
+        assertThat(response.getTotalHits().value()).isLessThan(500);
+        assertThat(response.getCursor()).isNull();
+    }
+
+    @Test
+    void shouldThrow_whenDeadlinePassedAndPartialResultsNotAllowed() throws IOException {
+        open(events(null, SortOrder.ASC), 1_000);
+        var expired = new SearchTask(System.nanoTime() - 1_000_000_000L, 1, false);
+
+        assertThatThrownBy(() -> searchService.search(index, parse("{\"query\":\"message:even\"}"), expired))
+                .isInstanceOf(SearchTimeoutException.class);
+    }
+
+    @Test
+    void shouldCompleteSearch_whenDeadlineNotReached() throws IOException {
+        open(events(null, SortOrder.ASC), 1_000);
+        var task = new SearchTask(System.nanoTime(), 60_000, false);
+
+        SearchResponse response = searchService.search(index, parse("{\"query\":\"message:even\"}"), task);
+
+        assertThat(response.isTimedOut()).isFalse();
+        assertThat(response.getTotalHits().value()).isEqualTo(500);
+    }
+
+    @Test
+    void shouldThrow_whenTaskCancelled() throws IOException {
+        open(events(null, SortOrder.ASC), 10);
+        var task = new SearchTask(System.nanoTime(), 0, true);
+        task.cancel();
+
+        assertThatThrownBy(() -> searchService.search(index, parse("{}"), task))
+                .isInstanceOf(CancellationException.class);
+    }
+}
@@ -0,0 +1,217 @@
+package org.example.search.aggregation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.example.config.SortOrder;
+import org.example.index.DocumentMapper;
+import org.example.index.ManagedIndex;
+import org.example.search.SearchRequest;
+import org.example.search.SearchResponse;
+import org.example.search.SearchService;
+import org.example.utils.JsonUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.example.index.TestSchemas.events;
+
+class AggregationTest {
+
+    @TempDir
+    Path dir;
+
+    private ExecutorService executor;
+    private ManagedIndex index;
+    private final SearchService searchService = new SearchService();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        index = new ManagedIndex(events("timestamp", SortOrder.DESC), dir, executor);
+        for (int i = 0; i < 100; i++) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", i % 2 == 0 ? "even" : "odd",
+                    "service", i % 4 == 0 ? "api" : i % 4 == 1 ? "db" : "web",
+                    "timestamp", i * 60_000L,
+                    "latency", (double) i)));
+            if (i % 25 == 24) {
+                index.refresh(); // several segments, searched concurrently
+            }
+        }
+        index.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+        executor.shutdown();
+    }
+
+    private Map<String, Object> aggs(String body) throws IOException {
+        SearchResponse response = searchService.search(index, SearchRequest.parse(JsonUtil.parser(body)));
+        ByteBuf json = JsonUtil.write(UnpooledByteBufAllocator.DEFAULT, response::writeTo);
+        try (JsonParser parser = JsonUtil.parser(json.toString(StandardCharsets.UTF_8))) {
+            parser.nextToken();
+            @SuppressWarnings("unchecked")
+            var aggs = (Map<String, Object>) JsonUtil.readObject(parser).get("aggs");
+            return aggs;
+        } finally {
+            json.release();
+        }
+    }
+
+    @Test
+    void shouldCountTopTerms_whenTermsRequested() throws IOException {
+        var aggs = aggs("{\"size\":0,\"aggs\":{\"s\":{\"terms\":{\"field\":\"service\",\"size\":2}}}}");
+
+        assertThat(aggs.get("s")).isEqualTo(Map.of(
+                "buckets", List.of(Map.of("key", "web", "count", 50L), Map.of("key", "api", "count", 25L)),
+                "other_count", 25L));
+    }
+
+    @Test
+    void shouldComputeStats_onMatchingDocumentsOnly() throws IOException {
+        var aggs = aggs("{\"query\":\"odd\",\"aggs\":{\"l\":{\"stats\":{\"field\":\"latency\"}}}}");
+
+        assertThat(aggs.get("l")).isEqualTo(Map.of(
+                "count", 50L, "min", 1.0, "max", 99.0, "sum", 2500.0, "avg", 50.0));
+    }
+
+    @Test
+    void shouldInterpolatePercentiles_acrossSegments() throws IOException {
+        var aggs = aggs("{\"aggs\":{\"p\":{\"percentiles\":{\"field\":\"latency\",\"percents\":[0,50,99]}}}}");
+
+        assertThat(aggs.get("p")).isEqualTo(Map.of(
+                "count", 100L, "values", Map.of("0.0", 0.0, "50.0", 49.5, "99.0", 98.01)));
+    }
+
+    @Test
+    void shouldCountRanges_withInclusiveLowerBounds() throws IOException {
+        var aggs = aggs("{\"aggs\":{\"r\":{\"range\":{\"field\":\"latency\","
+                + "\"ranges\":[{\"to\":10},{\"from\":10,\"to\":90},{\"from\":90}]}}}}");
+
+        assertThat(aggs.get("r")).isEqualTo(Map.of("buckets", List.of(
+                Map.of("to", 10.0, "count", 10L),
+                Map.of("from", 10.0, "to", 90.0, "count", 80L),
+                Map.of("from", 90.0, "count", 10L))));
+    }
+
+    @Test
+    void shouldBucketByFixedInterval_whenDateHistogramRequested() throws IOException {
+        var aggs = aggs("{\"aggs\":{\"h\":{\"date_histogram\":{\"field\":\"timestamp\",\"fixed_interval\":\"30m\"}}}}");
+
+        @SuppressWarnings("unchecked")
+        var buckets = (List<Map<String, Object>>) ((Map<String, Object>) aggs.get("h")).get("buckets");
+        assertThat(buckets).extracting(b -> b.get("key"), b -> b.get("count")).containsExactly(
+                tuple(0L, 30L), tuple(1_800_000L, 30L), tuple(3_600_000L, 30L), tuple(5_400_000L, 10L));
+        assertThat(buckets.getFirst()).containsEntry("key_as_string", "1970-01-01T00:00:00Z");
+    }
+
+    @Test
+    void shouldBucketDoubles_whenHistogramRequested() throws IOException {
+        var aggs = aggs("{\"query\":\"latency:[0 TO 20]\",\"aggs\":{\"h\":{\"histogram\":{\"field\":\"latency\",\"interval\":7.5}}}}");
+
+        assertThat(aggs.get("h")).isEqualTo(Map.of("buckets", List.of(
+                Map.of("key", 0.0, "count", 8L),
+                Map.of("key", 7.5, "count", 7L),
+                Map.of("key", 15.0, "count", 6L))));
+    }
+
+    private void indexSignedLatencies() throws IOException {
+        for (double latency : new double[]{-12.0, -2.5, -0.5, 1.5, 4.0}) {
+            index.index(index.getMapper().toDocument(Map.of(
+                    "message", "signed", "service", "signed", "timestamp", 0L, "latency", latency)));
+        }
+        index.refresh();
+    }
+
+    @Test
+    void shouldComputeStats_whenDoublesAreNegative() throws IOException {
+        indexSignedLatencies();
+
+        var aggs = aggs("{\"query\":\"service:signed AND latency:[* TO 0]\","
+                + "\"aggs\":{\"l\":{\"stats\":{\"field\":\"latency\"}}}}");
+
+        assertThat(aggs.get("l")).isEqualTo(Map.of(
+                "count", 3L, "min", -12.0, "max", -0.5, "sum", -15.0, "avg", -5.0));
+    }
+
+    @Test
+    void shouldComputeStats_whenDoublesHaveMixedSigns() throws IOException {
+        indexSignedLatencies();
+
+        var aggs = aggs("{\"query\":\"service:signed\",\"aggs\":{\"l\":{\"stats\":{\"field\":\"latency\"}}}}");
+
+        assertThat(aggs.get("l")).isEqualTo(Map.of(
+                "count", 5L, "min", -12.0, "max", 4.0, "sum", -9.5, "avg", -1.9));
+    }
+
+    @Test
+    void shouldCountRanges_whenDoublesHaveMixedSigns() throws IOException {
+        indexSignedLatencies();
+
+        var aggs = aggs("{\"query\":\"service:signed\",\"aggs\":{\"r\":{\"range\":{\"field\":\"latency\","
+                + "\"ranges\":[{\"to\":-10},{\"from\":-10,\"to\":0},{\"from\":0}]}}}}");
+
+        assertThat(aggs.get("r")).isEqualTo(Map.of("buckets", List.of(
+                Map.of("to", -10.0, "count", 1L),
+                Map.of("from", -10.0, "to", 0.0, "count", 2L),
+                Map.of("from", 0.0, "count", 2L))));
+    }
+
+    @Test
+    void shouldBucketDoubles_whenHistogramValuesHaveMixedSigns() throws IOException {
+        indexSignedLatencies();
+
+        var aggs = aggs("{\"query\":\"service:signed\",\"aggs\":{\"h\":{\"histogram\":{\"field\":\"latency\",\"interval\":5}}}}");
+
+        assertThat(aggs.get("h")).isEqualTo(Map.of("buckets", List.of(
+                Map.of("key", -15.0, "count", 1L),
+                Map.of("key", -5.0, "count", 2L),
+                Map.of("key", 0.0, "count", 2L))));
+    }
+
+    @Test
+    void shouldRejectAggregation_whenFieldTypeDoesNotFit() {
+        DocumentMapper mapper = index.getMapper();
+
+        assertThatThrownBy(() -> AggregationParser.parse(
+                Map.of("x", Map.of("stats", Map.of("field", "service"))), mapper))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AggregationParser.parse(
+                Map.of("x", Map.of("terms", Map.of("field", "latency"))), mapper))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AggregationParser.parse(
+                Map.of("x", Map.of("date_histogram", Map.of("field", "timestamp", "fixed_interval", "1w"))), mapper))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AggregationParser.parse(Map.of("x", Map.of("date_histogram",
+                Map.of("field", "timestamp", "fixed_interval", "9000000000000000000d"))), mapper))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("too large");
+    }
+
+    @Test
+    void shouldKeepCounts_whenLongCountsRehashes() {
+        var counts = new LongCounts();
+        for (long key = -500; key < 500; key++) {
+            counts.add(key * 31, 1);
+            counts.add(key * 31, 2);
+        }
+
+        assertThat(counts.size()).isEqualTo(1000);
+        assertThat(counts.get(-500 * 31)).isEqualTo(3);
+        assertThat(counts.get(1)).isZero();
+        assertThat(counts.sortedKeys()).startsWith(-500 * 31L, -499 * 31L).endsWith(499 * 31L);
+    }
+}